@@ -0,0 +1,20 @@
+-- Migración: registro de cambios del catálogo (outbox) para sincronizar caches e índices
+-- Ejecutar una vez, después de ScriptMigracionSnapshot.sql (fechaModificacion)
+USE ProductoCodigoBarra;
+
+-- Una fila por alta, modificación o baja lógica de Producto / CodigoBarras, insertada por
+-- los DAOs en la misma transacción que el cambio (con -Dcambios.enabled=true): si el
+-- cambio se revierte, su registro también. La fecha de modificación de cada fila sigue
+-- siendo fechaModificacion; el id (creciente) es la marca hasta la que leyó cada consumidor.
+-- origen identifica al proceso que hizo el cambio, para que no se lo aplique dos veces.
+CREATE TABLE CambioCatalogo(
+  id BIGINT AUTO_INCREMENT PRIMARY KEY,
+  entidad VARCHAR(15) NOT NULL CHECK (entidad IN ('PRODUCTO', 'CODIGO_BARRAS')),
+  idEntidad BIGINT NOT NULL,
+  operacion VARCHAR(12) NOT NULL CHECK (operacion IN ('ALTA', 'MODIFICACION', 'BAJA')),
+  origen CHAR(36) NOT NULL,
+  fecha TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3)
+);
+
+-- Para el purgado de registros viejos (-Dcambios.retencionHoras)
+CREATE INDEX idx_cambio_fecha ON CambioCatalogo (fecha);
@@ -0,0 +1,50 @@
+-- Migración: mantenimiento de filas dadas de baja
+-- Ejecutar una vez sobre una base creada con ScriptCreacionBaseDatos.sql
+USE ProductoCodigoBarra;
+
+-- Fecha de la baja lógica (la completan los DAOs al eliminar).
+-- Las filas ya eliminadas toman la fecha de la migración: se archivan
+-- cuando pase la retención configurada a partir de hoy.
+ALTER TABLE CodigoBarras ADD COLUMN fechaEliminacion DATETIME NULL AFTER eliminado;
+ALTER TABLE Producto ADD COLUMN fechaEliminacion DATETIME NULL AFTER eliminado;
+UPDATE CodigoBarras SET fechaEliminacion = CURRENT_TIMESTAMP WHERE eliminado = TRUE;
+UPDATE Producto SET fechaEliminacion = CURRENT_TIMESTAMP WHERE eliminado = TRUE;
+
+-- Índices para las consultas de los DAOs.
+-- MySQL no tiene índices parciales (WHERE eliminado = FALSE): se usa eliminado
+-- como primera columna, así cada índice separa activas de bajas y conserva el
+-- orden de la columna siguiente (paginado por nombre / marca y categoría).
+-- Las búsquedas LIKE '%texto%' igual recorren el índice completo, pero solo las
+-- filas activas cuando las bajas se archivan.
+CREATE INDEX idx_producto_eliminado_nombre ON Producto (eliminado, nombre, id);
+CREATE INDEX idx_producto_eliminado_marca ON Producto (eliminado, marca, categoria, id);
+CREATE INDEX idx_producto_eliminado_categoria ON Producto (eliminado, categoria);
+CREATE INDEX idx_producto_eliminado_fecha ON Producto (eliminado, fechaEliminacion);
+CREATE INDEX idx_codigo_eliminado_fecha ON CodigoBarras (eliminado, fechaEliminacion);
+
+-- Tablas de archivo: bajas lógicas movidas por MantenimientoService.archivar.
+-- Sin UNIQUE ni FOREIGN KEY: el valor de un código archivado puede reasignarse.
+-- La clave incluye fechaArchivo por si un id se reutiliza y vuelve a archivarse.
+CREATE TABLE CodigoBarrasArchivo(
+  id BIGINT NOT NULL,
+  tipo VARCHAR(5) NOT NULL,
+  valor VARCHAR(20) NOT NULL,
+  fechaAsignacion DATE,
+  observaciones VARCHAR(255),
+  fechaEliminacion DATETIME,
+  fechaArchivo DATETIME NOT NULL,
+  PRIMARY KEY (id, fechaArchivo)
+);
+
+CREATE TABLE ProductoArchivo(
+  id BIGINT NOT NULL,
+  nombre VARCHAR(120) NOT NULL,
+  marca VARCHAR(80),
+  categoria VARCHAR(80),
+  precio DECIMAL(10,2) NOT NULL,
+  peso DECIMAL(10,3),
+  codigoBarras BIGINT NOT NULL,
+  fechaEliminacion DATETIME,
+  fechaArchivo DATETIME NOT NULL,
+  PRIMARY KEY (id, fechaArchivo)
+);
@@ -0,0 +1,18 @@
+-- Migración: secuencias para asignar IDs sin consultar antes la tabla
+-- Ejecutar una vez sobre una base creada con ScriptCreacionBaseDatos.sql
+USE ProductoCodigoBarra;
+
+-- Próximo ID libre de cada tabla. SecuenciaDAO reserva bloques de IDs
+-- incrementando "siguiente" (hi-lo): la aplicación asigna los IDs del bloque
+-- en memoria y solo vuelve a la base cuando se agota.
+CREATE TABLE Secuencia(
+  nombre VARCHAR(40) PRIMARY KEY,
+  siguiente BIGINT NOT NULL CHECK (siguiente > 0)
+);
+
+-- Arranca después del mayor ID existente. Los IDs de un bloque que no se usan
+-- (por ejemplo al cerrar la aplicación) quedan como huecos: no se reutilizan.
+INSERT INTO Secuencia (nombre, siguiente)
+SELECT 'producto', COALESCE(MAX(id), 0) + 1 FROM Producto;
+INSERT INTO Secuencia (nombre, siguiente)
+SELECT 'codigoBarras', COALESCE(MAX(id), 0) + 1 FROM CodigoBarras;
@@ -0,0 +1,18 @@
+-- Migración: fecha de última modificación para reconciliar el snapshot del catálogo
+-- Ejecutar una vez sobre una base creada con ScriptCreacionBaseDatos.sql
+USE ProductoCodigoBarra;
+
+-- La base la mantiene sola (ON UPDATE) en altas, modificaciones y bajas lógicas,
+-- también en cambios hechos fuera de la aplicación. Al arrancar desde un snapshot,
+-- ProductoDAO.recorrerCambios trae solo las filas modificadas desde la marca del snapshot.
+ALTER TABLE Producto
+  ADD COLUMN fechaModificacion TIMESTAMP(3) NOT NULL
+    DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3);
+ALTER TABLE CodigoBarras
+  ADD COLUMN fechaModificacion TIMESTAMP(3) NOT NULL
+    DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3);
+
+-- La consulta de cambios es un UNION de dos búsquedas, una por cada índice
+-- (un OR entre columnas de las dos tablas del JOIN no usaría ninguno)
+CREATE INDEX idx_producto_modificacion ON Producto (fechaModificacion);
+CREATE INDEX idx_codigo_modificacion ON CodigoBarras (fechaModificacion);
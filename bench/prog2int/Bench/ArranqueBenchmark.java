@@ -0,0 +1,73 @@
+package prog2int.Bench;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import prog2int.Dao.CodigoBarrasDAO;
+import prog2int.Dao.ProductoDAO;
+import prog2int.Service.CodigoBarrasServiceImpl;
+import prog2int.Service.ProductoServiceImpl;
+
+/**
+ * Tiempo hasta tener el índice de búsqueda y la tabla de códigos listos (inicializar()).
+ *
+ * origen=base: recorrido completo del catálogo en streaming; origen=snapshot: lectura del
+ * snapshot (SnapshotCatalogo, escrito en el setup) más la consulta de cambios posteriores.
+ * Cada invocación es un arranque en frío de las estructuras (se vacían y se recargan).
+ * Para 1M de productos ejecutar con -Dbench.filas=1000000.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(2)
+public class ArranqueBenchmark {
+
+    @Param({"base", "snapshot"})
+    public String origen;
+
+    private ProductoServiceImpl productoService;
+    private Path archivo;
+
+    @Setup(Level.Trial)
+    public void preparar() throws Exception {
+        BaseDatosBench.preparar();
+        archivo = Files.createTempFile("catalogo", ".snap");
+        System.setProperty("busqueda.indice.enabled", "true");
+        System.setProperty("tabla.codigos.enabled", "true");
+        System.setProperty("tabla.codigos.capacidad", Integer.toString(BaseDatosBench.FILAS));
+        System.setProperty("snapshot.archivo", "snapshot".equals(origen) ? archivo.toString() : "");
+        // Sin escrituras periódicas durante la medición
+        System.setProperty("snapshot.intervaloMin", Long.toString(TimeUnit.DAYS.toMinutes(1)));
+        productoService = new ProductoServiceImpl(new ProductoDAO(new CodigoBarrasDAO()),
+                new CodigoBarrasServiceImpl(new CodigoBarrasDAO()));
+        if ("snapshot".equals(origen)) {
+            productoService.guardarSnapshot();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws Exception {
+        Files.deleteIfExists(archivo);
+    }
+
+    @Benchmark
+    public Object inicializar() throws Exception {
+        productoService.inicializar();
+        return productoService.getEstadisticasTabla();
+    }
+}
@@ -0,0 +1,188 @@
+package prog2int.Bench;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.Random;
+import prog2int.Config.DatabaseConnection;
+
+/**
+ * Base de datos embebida para los benchmarks.
+ *
+ * Por defecto usa H2 en memoria en modo MySQL, sembrada con las mismas reglas que
+ * ScriptCreacionBaseDatos.sql (tipos 60% EAN13 / 30% UPC / 10% EAN8, valores con LPAD,
+ * nombres, marcas y categorías con ELT), pero con -Dbench.filas filas (10000 por defecto).
+ *
+ * Para medir contra MySQL pasar -Ddb.url / -Ddb.user / -Ddb.password / -Ddb.driver
+ * apuntando a una base vacía de prueba: las tablas se recrean.
+ *
+ * Réplicas de lectura: con -Dbench.replicas=N (y sin -Ddb.url) se crean N bases H2 en memoria
+ * más y se configuran como db.replicas; con -Ddb.replicas explícito se usan esas URLs. Todas se
+ * siembran con los mismos datos que la primaria (no hay replicación: sirven para medir el reparto
+ * de búsquedas y listados, ver RuteadorLecturas).
+ *
+ * Los precios y pesos usan una semilla fija para que las corridas sean reproducibles.
+ */
+final class BaseDatosBench {
+
+    static final int FILAS = Integer.getInteger("bench.filas", 10_000);
+
+    private static final int REPLICAS = Integer.getInteger("bench.replicas", 0);
+
+    private static final String[] NOMBRES = {"Mouse", "Teclado", "Auriculares", "Plato",
+        "Auto de juguete", "Robot de juguete", "Mouse de juguete"};
+    private static final String[] MARCAS = {"Sony", "Samsung", "LG", "Philips", "Xiaomi", "Bose", "JBL"};
+    private static final String[] CATEGORIAS = {"Electrónica", "Hogar", "Deporte", "Juguetes",
+        "Alimentos", "Bebidas", "Limpieza", "Computación"};
+
+    private static boolean sembrada;
+
+    private BaseDatosBench() {
+    }
+
+    /**
+     * Configura la conexión (si no se pasó por línea de comandos) y siembra la base
+     * una única vez por JVM. Debe llamarse antes del primer uso de DatabaseConnection.
+     */
+    static synchronized void preparar() throws SQLException {
+        if (sembrada) {
+            return;
+        }
+        if (System.getProperty("db.url") == null) {
+            System.setProperty("db.url", "jdbc:h2:mem:bench;MODE=MySQL;DB_CLOSE_DELAY=-1");
+            System.setProperty("db.user", "sa");
+            System.setProperty("db.password", "");
+            System.setProperty("db.driver", "org.h2.Driver");
+            if (REPLICAS > 0 && System.getProperty("db.replicas") == null) {
+                StringBuilder urls = new StringBuilder();
+                for (int i = 1; i <= REPLICAS; i++) {
+                    urls.append(i > 1 ? "," : "").append("jdbc:h2:mem:bench_r").append(i)
+                            .append(";MODE=MySQL;DB_CLOSE_DELAY=-1");
+                }
+                System.setProperty("db.replicas", urls.toString());
+            }
+        }
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            crearTablas(conn);
+            sembrar(conn, FILAS);
+        }
+        String replicas = System.getProperty("db.replicas", "").trim();
+        if (!replicas.isEmpty()) {
+            String user = System.getProperty("db.replicas.user", System.getProperty("db.user"));
+            String password = System.getProperty("db.replicas.password", System.getProperty("db.password"));
+            for (String url : replicas.split(",")) {
+                if (!url.trim().isEmpty()) {
+                    try (Connection conn = DriverManager.getConnection(url.trim(), user, password)) {
+                        crearTablas(conn);
+                        sembrar(conn, FILAS);
+                    }
+                }
+            }
+        }
+        sembrada = true;
+    }
+
+    /** @return Tipo del código n-ésimo, igual que el CASE del script */
+    static String tipo(long n) {
+        long resto = n % 10;
+        return resto < 6 ? "EAN13" : resto < 9 ? "UPC" : "EAN8";
+    }
+
+    /** @return Valor del código n-ésimo (LPAD con ceros a 13, 12 u 8 dígitos) */
+    static String valor(long n) {
+        long resto = n % 10;
+        int largo = resto < 6 ? 13 : resto < 9 ? 12 : 8;
+        String digitos = Long.toString(n);
+        StringBuilder sb = new StringBuilder(largo);
+        for (int i = digitos.length(); i < largo; i++) {
+            sb.append('0');
+        }
+        return sb.append(digitos).toString();
+    }
+
+    private static void crearTablas(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS CambioCatalogo");
+            stmt.execute("DROP TABLE IF EXISTS Producto");
+            stmt.execute("DROP TABLE IF EXISTS CodigoBarras");
+            stmt.execute("CREATE TABLE CodigoBarras("
+                    + "id BIGINT PRIMARY KEY, "
+                    + "eliminado BOOLEAN DEFAULT FALSE, "
+                    + "fechaEliminacion TIMESTAMP NULL, "
+                    + "tipo VARCHAR(5) NOT NULL CHECK (tipo IN ('EAN13','EAN8','UPC')), "
+                    + "valor VARCHAR(20) NOT NULL UNIQUE, "
+                    + "fechaAsignacion DATE, "
+                    + "observaciones VARCHAR(255), "
+                    + "fechaModificacion TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) "
+                    + "ON UPDATE CURRENT_TIMESTAMP(3), "
+                    + "CHECK((tipo = 'EAN13' AND CHAR_LENGTH(valor) = 13) "
+                    + "OR (tipo = 'EAN8' AND CHAR_LENGTH(valor) = 8) "
+                    + "OR (tipo = 'UPC' AND CHAR_LENGTH(valor) = 12)))");
+            stmt.execute("CREATE TABLE Producto("
+                    + "id BIGINT PRIMARY KEY, "
+                    + "eliminado BOOLEAN DEFAULT FALSE, "
+                    + "fechaEliminacion TIMESTAMP NULL, "
+                    + "nombre VARCHAR(120) NOT NULL, "
+                    + "marca VARCHAR(80), "
+                    + "categoria VARCHAR(80), "
+                    + "precio DECIMAL(10,2) NOT NULL CHECK(precio > 0), "
+                    + "peso DECIMAL(10,3) CHECK(peso > 0), "
+                    + "codigoBarras BIGINT UNIQUE NOT NULL, "
+                    + "fechaModificacion TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) "
+                    + "ON UPDATE CURRENT_TIMESTAMP(3), "
+                    + "CONSTRAINT fk_codigo FOREIGN KEY (codigoBarras) REFERENCES CodigoBarras(id))");
+            // Registro de cambios (solo se escribe con -Dcambios.enabled=true)
+            stmt.execute("CREATE TABLE CambioCatalogo("
+                    + "id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                    + "entidad VARCHAR(15) NOT NULL, "
+                    + "idEntidad BIGINT NOT NULL, "
+                    + "operacion VARCHAR(12) NOT NULL, "
+                    + "origen CHAR(36) NOT NULL, "
+                    + "fecha TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3))");
+        }
+    }
+
+    private static void sembrar(Connection conn, int filas) throws SQLException {
+        Random random = new Random(42);
+        LocalDate base = LocalDate.of(2022, 1, 1);
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try (PreparedStatement cb = conn.prepareStatement("INSERT INTO CodigoBarras "
+                + "(id, tipo, valor, fechaAsignacion, observaciones) VALUES (?, ?, ?, ?, ?)");
+             PreparedStatement prod = conn.prepareStatement("INSERT INTO Producto "
+                + "(id, nombre, marca, categoria, precio, peso, codigoBarras) VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+            for (long id = 1; id <= filas; id++) {
+                cb.setLong(1, id);
+                cb.setString(2, tipo(id));
+                cb.setString(3, valor(id));
+                cb.setDate(4, Date.valueOf(base.plusDays(id % 1000)));
+                cb.setString(5, id % 10 == 0 ? "Obs auto generado para cb_" + id : null);
+                cb.addBatch();
+
+                prod.setLong(1, id);
+                prod.setString(2, NOMBRES[(int) (id % 7)] + " " + id);
+                prod.setString(3, MARCAS[(int) (id % 7)]);
+                prod.setString(4, CATEGORIAS[(int) (id % 8)]);
+                prod.setDouble(5, Math.round((100 + random.nextDouble() * 1000) * 100) / 100.0);
+                prod.setDouble(6, Math.round((0.1 + random.nextDouble() * 5) * 1000) / 1000.0);
+                prod.setLong(7, id);
+                prod.addBatch();
+
+                if (id % 1000 == 0 || id == filas) {
+                    cb.executeBatch();
+                    prod.executeBatch();
+                }
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+}
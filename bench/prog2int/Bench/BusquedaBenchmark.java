@@ -0,0 +1,58 @@
+package prog2int.Bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import prog2int.Dao.CodigoBarrasDAO;
+import prog2int.Dao.ProductoDAO;
+import prog2int.Service.CodigoBarrasServiceImpl;
+import prog2int.Service.ProductoServiceImpl;
+
+/**
+ * Búsquedas de ProductoServiceImpl con y sin el índice en memoria (IndiceBusqueda).
+ *
+ * indice=false: LIKE '%filtro%' en la base; indice=true: índice invertido
+ * construido en inicializar() (el tiempo de construcción no se mide).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class BusquedaBenchmark {
+
+    @Param({"false", "true"})
+    public boolean indice;
+
+    private ProductoServiceImpl productoService;
+
+    @Setup(Level.Trial)
+    public void preparar() throws Exception {
+        BaseDatosBench.preparar();
+        System.setProperty("busqueda.indice.enabled", Boolean.toString(indice));
+        productoService = new ProductoServiceImpl(new ProductoDAO(new CodigoBarrasDAO()),
+                new CodigoBarrasServiceImpl(new CodigoBarrasDAO()));
+        productoService.inicializar();
+    }
+
+    @Benchmark
+    public Object getByName() throws Exception {
+        return productoService.getByName("Teclado");
+    }
+
+    @Benchmark
+    public Object getByBrand() throws Exception {
+        return productoService.getByBrand("Sony");
+    }
+}
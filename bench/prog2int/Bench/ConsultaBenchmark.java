@@ -0,0 +1,96 @@
+package prog2int.Bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import prog2int.Dao.CodigoBarrasDAO;
+import prog2int.Dao.ProductoDAO;
+import prog2int.Dao.ResultadoMultiple;
+import prog2int.Models.Producto;
+
+/**
+ * Consultas de ProductoDAO contra la base sembrada (ver BaseDatosBench).
+ *
+ * - getById: IDs aleatorios (semilla fija) dentro del rango sembrado
+ * - getAll: catálogo completo (bench.filas productos)
+ * - getListByName: LIKE '%Teclado%' (1 de cada 7 productos)
+ * - canastaGetById / canastaGetByIds: resolver una canasta de CANASTA ids aleatorios
+ *   con N llamadas a getById contra una sola llamada a getByIds
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class ConsultaBenchmark {
+
+    /** Productos por canasta. */
+    private static final int CANASTA = 50;
+
+    /** Canastas precalculadas que se usan en rotación (potencia de 2). */
+    private static final int CANASTAS = 64;
+
+    private ProductoDAO productoDAO;
+    private SplittableRandom random;
+    private final List<List<Long>> canastas = new ArrayList<>(CANASTAS);
+    private int siguiente;
+
+    @Setup(Level.Trial)
+    public void preparar() throws Exception {
+        BaseDatosBench.preparar();
+        productoDAO = new ProductoDAO(new CodigoBarrasDAO());
+        random = new SplittableRandom(42);
+        for (int c = 0; c < CANASTAS; c++) {
+            List<Long> canasta = new ArrayList<>(CANASTA);
+            for (int i = 0; i < CANASTA; i++) {
+                canasta.add(1L + random.nextInt(BaseDatosBench.FILAS));
+            }
+            canastas.add(canasta);
+        }
+    }
+
+    @Benchmark
+    public Producto getById() throws Exception {
+        return productoDAO.getById(1 + random.nextInt(BaseDatosBench.FILAS));
+    }
+
+    @Benchmark
+    public Object getAll() throws Exception {
+        return productoDAO.getAll();
+    }
+
+    @Benchmark
+    public Object getListByName() throws Exception {
+        return productoDAO.getListByName("Teclado");
+    }
+
+    @Benchmark
+    public void canastaGetById(Blackhole bh) throws Exception {
+        for (Long id : siguienteCanasta()) {
+            bh.consume(productoDAO.getById(id));
+        }
+    }
+
+    @Benchmark
+    public ResultadoMultiple<Long, Producto> canastaGetByIds() throws Exception {
+        return productoDAO.getByIds(siguienteCanasta());
+    }
+
+    private List<Long> siguienteCanasta() {
+        return canastas.get(siguiente++ & (CANASTAS - 1));
+    }
+}
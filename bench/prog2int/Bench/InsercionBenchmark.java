@@ -0,0 +1,96 @@
+package prog2int.Bench;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import prog2int.Config.DatabaseConnection;
+import prog2int.Dao.CodigoBarrasDAO;
+import prog2int.Dao.ProductoDAO;
+import prog2int.Models.CodigoBarras;
+import prog2int.Models.Producto;
+import prog2int.Service.CodigoBarrasServiceImpl;
+import prog2int.Service.ProductoServiceImpl;
+import prog2int.Service.ResultadoBatch;
+
+/**
+ * Caminos de alta de producto + código de barras.
+ *
+ * - insertarSimple: CodigoBarrasServiceImpl.insertar + ProductoServiceImpl.insertar
+ *   (dos conexiones, autocommit, sin atomicidad)
+ * - insertarTx: ProductoServiceImpl.insertarTx (una transacción, como el menú)
+ * - insertarBatch: ProductoServiceImpl.insertarBatch con lotes de FILAS_LOTE, resultado por producto;
+ *   el score es por fila (ops/ms x 1000 = filas/s) y falla si algún producto del lote se rechaza
+ *
+ * Cada alta usa IDs nuevos a partir del rango sembrado, por lo que la tabla crece
+ * durante la corrida (igual que en producción).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class InsercionBenchmark {
+
+    private static final int FILAS_LOTE = 100;
+
+    private final AtomicLong siguienteId = new AtomicLong();
+    private CodigoBarrasServiceImpl cbService;
+    private ProductoServiceImpl productoService;
+
+    @Setup(Level.Trial)
+    public void preparar() throws Exception {
+        BaseDatosBench.preparar();
+        siguienteId.set(BaseDatosBench.FILAS);
+        cbService = new CodigoBarrasServiceImpl(new CodigoBarrasDAO());
+        productoService = new ProductoServiceImpl(new ProductoDAO(new CodigoBarrasDAO()), cbService);
+    }
+
+    private Producto nuevoProducto() {
+        long id = siguienteId.incrementAndGet();
+        CodigoBarras cb = new CodigoBarras(id, BaseDatosBench.tipo(id), BaseDatosBench.valor(id), new Date(), null);
+        return new Producto(id, "Producto bench " + id, "Marca", "Categoria", 100.0, 1.0, cb);
+    }
+
+    @Benchmark
+    public void insertarSimple() throws Exception {
+        Producto prod = nuevoProducto();
+        cbService.insertar(prod.getCodigoBarras());
+        productoService.insertar(prod);
+    }
+
+    @Benchmark
+    public void insertarTx() throws Exception {
+        Producto prod = nuevoProducto();
+        productoService.insertarTx(prod, prod.getCodigoBarras(), DatabaseConnection.getConnection());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FILAS_LOTE)
+    public ResultadoBatch insertarBatch() {
+        List<Producto> lote = new ArrayList<>(FILAS_LOTE);
+        for (int i = 0; i < FILAS_LOTE; i++) {
+            lote.add(nuevoProducto());
+        }
+        ResultadoBatch resultado = productoService.insertarBatch(lote);
+        // Un lote con rechazos mediría validaciones fallidas, no altas
+        if (resultado.getInsertados() != FILAS_LOTE) {
+            throw new IllegalStateException("Lote con rechazos: " + resultado);
+        }
+        return resultado;
+    }
+}
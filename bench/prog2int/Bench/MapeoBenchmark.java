@@ -0,0 +1,178 @@
+package prog2int.Bench;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import prog2int.Config.DatabaseConnection;
+import prog2int.Dao.CodigoBarrasDAO;
+import prog2int.Dao.ProductoDAO;
+import prog2int.Models.CodigoBarras;
+import prog2int.Models.Producto;
+import prog2int.Models.TipoCB;
+
+/**
+ * Costo de mapear una fila del ResultSet a objetos: por etiqueta (rs.getString("p.nombre"),
+ * TipoCB.valueOf, getInt para los ids; el mapeo original de los DAOs) contra
+ * MapeadorFilas (ProductoDAO.MAPEO / CodigoBarrasDAO.MAPEO, posiciones resueltas una vez).
+ *
+ * - *PorEtiqueta / *PorPosicion: el ResultSet se consulta una sola vez (scrollable) y cada
+ *   invocación recorre FILAS_MAPEO filas, por lo que el resultado es por fila y no incluye la consulta
+ * - getAll*: consulta + mapeo del catálogo completo (bench.filas productos; para 1M filas
+ *   ejecutar con -Dbench.filas=1000000), en ms por llamada
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class MapeoBenchmark {
+
+    private static final int FILAS_MAPEO = 1000;
+
+    /**
+     * Mismas columnas que ProductoDAO.SELECT_ALL_SQL, con alias explícitos: "p.nombre" como
+     * etiqueta lo resuelve Connector/J pero no H2, y con el alias ambos lo encuentran sin
+     * cambiar lo que resuelve MapeadorFilas (getColumnName/getTableName siguen siendo los reales).
+     */
+    private static final String SELECT_ALL_SQL = "SELECT p.id AS `p.id`, p.nombre AS `p.nombre`, "
+            + "p.marca AS `p.marca`, p.categoria AS `p.categoria`, p.precio AS `p.precio`, "
+            + "p.peso AS `p.peso`, cb.id AS `cb.id`, cb.tipo AS `cb.tipo`, cb.valor AS `cb.valor`, "
+            + "cb.fechaAsignacion AS `cb.fechaAsignacion`, cb.observaciones AS `cb.observaciones` "
+            + "FROM producto p JOIN codigoBarras cb ON p.codigoBarras = cb.id "
+            + "WHERE p.eliminado = FALSE ORDER BY p.id";
+
+    private static final String SELECT_SQL = SELECT_ALL_SQL + " LIMIT " + FILAS_MAPEO;
+
+    private ProductoDAO productoDAO;
+    private Connection conn;
+    private PreparedStatement stmt;
+    private ResultSet rs;
+    private int[] columnasProducto;
+    private int[] columnasCodigo;
+
+    @Setup(Level.Trial)
+    public void preparar() throws Exception {
+        BaseDatosBench.preparar();
+        productoDAO = new ProductoDAO(new CodigoBarrasDAO());
+        conn = DatabaseConnection.getConnection();
+        stmt = conn.prepareStatement(SELECT_SQL, ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+        rs = stmt.executeQuery();
+        columnasProducto = ProductoDAO.MAPEO.columnas(SELECT_SQL, rs);
+        columnasCodigo = CodigoBarrasDAO.MAPEO.columnas(SELECT_SQL, rs);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws Exception {
+        rs.close();
+        stmt.close();
+        conn.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FILAS_MAPEO)
+    public void productoPorEtiqueta(Blackhole bh) throws Exception {
+        rs.beforeFirst();
+        while (rs.next()) {
+            bh.consume(productoPorEtiqueta(rs));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FILAS_MAPEO)
+    public void productoPorPosicion(Blackhole bh) throws Exception {
+        rs.beforeFirst();
+        while (rs.next()) {
+            bh.consume(ProductoDAO.MAPEO.mapear(rs, columnasProducto));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FILAS_MAPEO)
+    public void codigoPorEtiqueta(Blackhole bh) throws Exception {
+        rs.beforeFirst();
+        while (rs.next()) {
+            bh.consume(codigoPorEtiqueta(rs));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FILAS_MAPEO)
+    public void codigoPorPosicion(Blackhole bh) throws Exception {
+        rs.beforeFirst();
+        while (rs.next()) {
+            bh.consume(CodigoBarrasDAO.MAPEO.mapear(rs, columnasCodigo));
+        }
+    }
+
+    /** Catálogo completo con el mapeo por etiqueta (getAll antes de MapeadorFilas). */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Producto> getAllPorEtiqueta() throws Exception {
+        List<Producto> productos = new ArrayList<>();
+        try (Connection c = DatabaseConnection.getConnection();
+             PreparedStatement s = c.prepareStatement(SELECT_ALL_SQL);
+             ResultSet r = s.executeQuery()) {
+            while (r.next()) {
+                productos.add(productoPorEtiqueta(r));
+            }
+        }
+        return productos;
+    }
+
+    /** Catálogo completo con ProductoDAO.getAll (MapeadorFilas). */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<?> getAllPorPosicion() throws Exception {
+        return productoDAO.getAll();
+    }
+
+    private static Producto productoPorEtiqueta(ResultSet rs) throws SQLException {
+        Producto producto = new Producto();
+        producto.setId(rs.getInt("p.id"));
+        producto.setNombre(rs.getString("p.nombre"));
+        producto.setMarca(rs.getString("p.marca"));
+        producto.setCategoria(rs.getString("p.categoria"));
+        producto.setPeso(rs.getDouble("p.peso"));
+        producto.setPrecio(rs.getDouble("p.precio"));
+        CodigoBarras cb = new CodigoBarras();
+        cb.setId(rs.getInt("cb.id"));
+        cb.setTipoCB(TipoCB.valueOf(rs.getString("cb.tipo")));
+        cb.setValor(rs.getString("cb.valor"));
+        cb.setFecha(rs.getDate("cb.fechaAsignacion"));
+        cb.setObservaciones(rs.getString("cb.observaciones"));
+        producto.setCodigoBarras(cb);
+        return producto;
+    }
+
+    private static CodigoBarras codigoPorEtiqueta(ResultSet rs) throws SQLException {
+        CodigoBarras cb = new CodigoBarras();
+        cb.setId(rs.getInt("cb.id"));
+        cb.setValor(rs.getString("cb.valor"));
+        cb.setFecha(rs.getDate("cb.fechaAsignacion"));
+        cb.setObservaciones(rs.getString("cb.observaciones"));
+        cb.setTipoCB(TipoCB.valueOf(rs.getString("cb.tipo")));
+        cb.setIdProducto(rs.getLong("p.id"));
+        return cb;
+    }
+}
@@ -0,0 +1,134 @@
+package prog2int.Bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import prog2int.Dao.CodigoBarrasDAO;
+import prog2int.Models.TipoCB;
+import prog2int.Service.CodigoBarrasServiceImpl;
+import prog2int.Service.ValidadorCodigoBarras;
+
+/**
+ * Validación de códigos de barras. No usa la base de datos.
+ *
+ * - validarCodigo: solo códigos válidos (con dígito verificador correcto)
+ * - motivoInvalido: mezcla de 90% válidos y 10% inválidos (letras, largo o tipo incorrecto),
+ *   como en una importación de catálogo real
+ * - validarRegex / motivoRegex: la implementación anterior (regex + TipoCB.valueOf
+ *   con try/catch), como referencia de comparación
+ * - validarMasivo: ValidadorCodigoBarras.validar sobre arrays (uso de importadores)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class ValidacionBenchmark {
+
+    private static final int CODIGOS = 1024;
+
+    private CodigoBarrasServiceImpl cbService;
+    private final String[] tiposValidos = new String[CODIGOS];
+    private final String[] valoresValidos = new String[CODIGOS];
+    private final String[] tiposMezcla = new String[CODIGOS];
+    private final String[] valoresMezcla = new String[CODIGOS];
+    private final TipoCB[] tiposMasivo = new TipoCB[CODIGOS];
+    private final ValidadorCodigoBarras.Resultado[] resultados = new ValidadorCodigoBarras.Resultado[CODIGOS];
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        cbService = new CodigoBarrasServiceImpl(new CodigoBarrasDAO());
+        Random random = new Random(42);
+        for (int i = 0; i < CODIGOS; i++) {
+            long n = i + 1;
+            tiposValidos[i] = BaseDatosBench.tipo(n);
+            String sinVerificador = BaseDatosBench.valor(n).substring(1);
+            valoresValidos[i] = sinVerificador + ValidadorCodigoBarras.calcularDigitoVerificador(sinVerificador);
+
+            tiposMezcla[i] = tiposValidos[i];
+            valoresMezcla[i] = valoresValidos[i];
+            if (random.nextInt(10) == 0) {
+                switch (random.nextInt(3)) {
+                    case 0 -> valoresMezcla[i] = valoresValidos[i].substring(1) + "X";
+                    case 1 -> valoresMezcla[i] = valoresValidos[i] + "0";
+                    default -> tiposMezcla[i] = "QR";
+                }
+            }
+            tiposMasivo[i] = ValidadorCodigoBarras.tipo(tiposMezcla[i]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CODIGOS)
+    public void validarCodigo(Blackhole bh) {
+        for (int i = 0; i < CODIGOS; i++) {
+            bh.consume(cbService.validarCodigo(tiposValidos[i], valoresValidos[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CODIGOS)
+    public void motivoInvalido(Blackhole bh) {
+        for (int i = 0; i < CODIGOS; i++) {
+            bh.consume(cbService.motivoInvalido(tiposMezcla[i], valoresMezcla[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CODIGOS)
+    public void validarRegex(Blackhole bh) {
+        for (int i = 0; i < CODIGOS; i++) {
+            bh.consume(validacionAnterior(tiposValidos[i], valoresValidos[i]) == null);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CODIGOS)
+    public void motivoRegex(Blackhole bh) {
+        for (int i = 0; i < CODIGOS; i++) {
+            bh.consume(validacionAnterior(tiposMezcla[i], valoresMezcla[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CODIGOS)
+    public int validarMasivo() {
+        return ValidadorCodigoBarras.validar(tiposMasivo, valoresMezcla, resultados);
+    }
+
+    /** Validación anterior de CodigoBarrasServiceImpl (sin dígito verificador). */
+    private static String validacionAnterior(String tipo, String valor) {
+        if (valor == null || valor.isBlank()) {
+            return "El valor del código de barras no puede estar vacío.";
+        }
+        if (!valor.matches("\\d+")) {
+            return "El código de barras solo puede contener números.";
+        }
+        int longitud = valor.length();
+        try {
+            switch (TipoCB.valueOf(tipo)) {
+                case EAN13:
+                    return longitud != 13 ? "EAN13 debe tener exactamente 13 dígitos." : null;
+                case EAN8:
+                    return longitud != 8 ? "EAN8 debe tener exactamente 8 dígitos." : null;
+                default:
+                    return longitud != 12 ? "UPC debe tener exactamente 12 dígitos." : null;
+            }
+        } catch (Exception e) {
+            return "Tipo de código de barras no reconocido.";
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package prog2int.Config;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Cache en memoria acotada por tamaño (LRU) y con expiración por tiempo (TTL).
+ *
+ * Uso típico (read-through):
+ * <pre>
+ * Producto p = cache.obtener(id, productoDAO::getById);
+ * </pre>
+ * Si la clave está cacheada y no venció se devuelve sin ir a la base; si no,
+ * se llama al cargador y el resultado (si no es null) queda cacheado.
+ *
+ * Consistencia:
+ * - Cada invalidación incrementa una generación. Un valor cargado mientras
+ *   ocurría una invalidación no se cachea (evita guardar un dato ya viejo).
+ *
+ * Thread-safe: el mapa se protege con el monitor de la instancia; el cargador
+ * se ejecuta fuera del lock.
+ *
+ * @param <K> Tipo de la clave
+ * @param <V> Tipo del valor
+ */
+public final class CacheLRU<K, V> {
+
+    /**
+     * Función de carga ante un fallo de cache. Puede lanzar la misma Exception que los DAOs.
+     */
+    @FunctionalInterface
+    public interface Cargador<K, V> {
+        V cargar(K clave) throws Exception;
+    }
+
+    /**
+     * Carga de varias claves en una sola operación (por ejemplo ProductoDAO.getByIds).
+     * Devuelve solo las claves encontradas.
+     */
+    @FunctionalInterface
+    public interface CargadorMultiple<K, V> {
+        Map<K, V> cargar(Collection<K> claves) throws Exception;
+    }
+
+    private final String nombre;
+    private final int maximo;
+    private final long ttlNanos;
+    private final LinkedHashMap<K, Entrada<V>> mapa;
+    private long generacion;
+
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder desalojos = new LongAdder();
+    private final LongAdder expiraciones = new LongAdder();
+    private final LongAdder invalidaciones = new LongAdder();
+
+    /**
+     * @param nombre Nombre para las estadísticas
+     * @param maximo Cantidad máxima de entradas
+     * @param ttlMs Tiempo de vida de cada entrada en milisegundos (0 = sin vencimiento)
+     */
+    public CacheLRU(String nombre, int maximo, long ttlMs) {
+        if (maximo <= 0) {
+            throw new IllegalArgumentException("El tamaño máximo de la cache debe ser mayor a 0");
+        }
+        this.nombre = nombre;
+        this.maximo = maximo;
+        this.ttlNanos = ttlMs > 0 ? ttlMs * 1_000_000L : Long.MAX_VALUE;
+        this.mapa = new LinkedHashMap<>(Math.min(maximo, 1024), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entrada<V>> eldest) {
+                if (size() > CacheLRU.this.maximo) {
+                    desalojos.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Devuelve el valor cacheado o lo carga con el cargador.
+     *
+     * @param clave Clave a buscar
+     * @param cargador Función que obtiene el valor de la base ante un fallo
+     * @return Valor (null si el cargador devolvió null; los null no se cachean)
+     * @throws Exception La que lance el cargador
+     */
+    public V obtener(K clave, Cargador<K, V> cargador) throws Exception {
+        long gen;
+        synchronized (this) {
+            V valor = buscar(clave);
+            if (valor != null) {
+                return valor;
+            }
+            gen = generacion;
+        }
+        V cargado = cargador.cargar(clave);
+        if (cargado != null) {
+            synchronized (this) {
+                if (gen == generacion) {
+                    mapa.put(clave, new Entrada<>(cargado, System.nanoTime() + ttlNanos));
+                }
+            }
+        }
+        return cargado;
+    }
+
+    /**
+     * Versión múltiple de obtener(): busca todas las claves en la cache y carga
+     * las faltantes con una sola llamada al cargador (que no se invoca si están todas).
+     * Mismo criterio de consistencia que obtener(): si hubo una invalidación
+     * durante la carga, lo cargado se devuelve pero no se cachea.
+     *
+     * @param claves Claves a buscar
+     * @param cargador Función que obtiene de la base las claves faltantes
+     * @return Valores encontrados por clave (las claves sin valor no aparecen)
+     * @throws Exception La que lance el cargador
+     */
+    public Map<K, V> obtenerTodos(Collection<K> claves, CargadorMultiple<K, V> cargador) throws Exception {
+        Map<K, V> resultado = new HashMap<>(Math.max(16, claves.size() * 2));
+        List<K> faltantes = new ArrayList<>();
+        long gen;
+        synchronized (this) {
+            for (K clave : claves) {
+                V valor = buscar(clave);
+                if (valor != null) {
+                    resultado.put(clave, valor);
+                } else {
+                    faltantes.add(clave);
+                }
+            }
+            gen = generacion;
+        }
+        if (faltantes.isEmpty()) {
+            return resultado;
+        }
+        Map<K, V> cargados = cargador.cargar(faltantes);
+        if (!cargados.isEmpty()) {
+            synchronized (this) {
+                if (gen == generacion) {
+                    long venceEn = System.nanoTime() + ttlNanos;
+                    for (Map.Entry<K, V> e : cargados.entrySet()) {
+                        mapa.put(e.getKey(), new Entrada<>(e.getValue(), venceEn));
+                    }
+                }
+            }
+            resultado.putAll(cargados);
+        }
+        return resultado;
+    }
+
+    /**
+     * @return Valor cacheado vigente o null (cuenta como acierto/fallo)
+     */
+    public synchronized V get(K clave) {
+        return buscar(clave);
+    }
+
+    /**
+     * Agrega o reemplaza una entrada.
+     */
+    public synchronized void put(K clave, V valor) {
+        if (valor != null) {
+            mapa.put(clave, new Entrada<>(valor, System.nanoTime() + ttlNanos));
+        }
+    }
+
+    /**
+     * Elimina una entrada.
+     */
+    public synchronized void invalidar(K clave) {
+        generacion++;
+        if (mapa.remove(clave) != null) {
+            invalidaciones.increment();
+        }
+    }
+
+    /**
+     * Elimina todas las entradas cuyo valor cumpla la condición.
+     * Recorre toda la cache: usar solo cuando no se conoce la clave.
+     */
+    public synchronized void invalidarSi(Predicate<V> condicion) {
+        generacion++;
+        Iterator<Entrada<V>> it = mapa.values().iterator();
+        while (it.hasNext()) {
+            if (condicion.test(it.next().valor)) {
+                it.remove();
+                invalidaciones.increment();
+            }
+        }
+    }
+
+    /**
+     * Vacía la cache.
+     */
+    public synchronized void limpiar() {
+        generacion++;
+        invalidaciones.add(mapa.size());
+        mapa.clear();
+    }
+
+    private V buscar(K clave) {
+        Entrada<V> entrada = mapa.get(clave);
+        if (entrada == null) {
+            fallos.increment();
+            return null;
+        }
+        if (System.nanoTime() - entrada.venceEn > 0) {
+            mapa.remove(clave);
+            expiraciones.increment();
+            fallos.increment();
+            return null;
+        }
+        aciertos.increment();
+        return entrada.valor;
+    }
+
+    public synchronized int size() {
+        return mapa.size();
+    }
+
+    /**
+     * @return Proporción de aciertos sobre el total de consultas (0 si no hubo consultas)
+     */
+    public double getTasaAciertos() {
+        long a = aciertos.sum();
+        long total = a + fallos.sum();
+        return total == 0 ? 0.0 : (double) a / total;
+    }
+
+    /**
+     * @return Resumen de contadores en una línea
+     */
+    public String getEstadisticas() {
+        return String.format("Cache[%s] entradas=%d/%d aciertos=%d fallos=%d tasaAciertos=%.2f%% "
+                        + "desalojos=%d expiraciones=%d invalidaciones=%d",
+                nombre, size(), maximo, aciertos.sum(), fallos.sum(), getTasaAciertos() * 100,
+                desalojos.sum(), expiraciones.sum(), invalidaciones.sum());
+    }
+
+    private static final class Entrada<V> {
+        private final V valor;
+        private final long venceEn;
+
+        private Entrada(V valor, long venceEn) {
+            this.valor = valor;
+            this.venceEn = venceEn;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package prog2int.Config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache LRU de PreparedStatement asociada a UNA conexión física del pool.
+ *
+ * Propósito:
+ * - Los DAOs preparan siempre las mismas sentencias (SELECT_BY_ID_SQL, INSERT_SQL, etc.)
+ *   y las cierran al terminar. Con la cache, el close() del DAO no cierra la sentencia:
+ *   la deja disponible para el próximo prepareStatement() con el mismo SQL.
+ * - Clave: texto SQL (+ flag de claves generadas)
+ * - Acotada por tamaño: al superar el máximo se cierra la menos usada recientemente
+ *
+ * Concurrencia: una conexión prestada la usa un solo hilo a la vez, por lo que
+ * la cache no se sincroniza.
+ */
+final class CacheSentencias {
+
+    private final Connection conn;
+    private final int maximo;
+    private final LongAdder aciertos;
+    private final LongAdder fallos;
+    private final LongAdder desalojos;
+    private final Map<String, Entrada> entradas;
+
+    CacheSentencias(Connection conn, int maximo, LongAdder aciertos, LongAdder fallos, LongAdder desalojos) {
+        this.conn = conn;
+        this.maximo = maximo;
+        this.aciertos = aciertos;
+        this.fallos = fallos;
+        this.desalojos = desalojos;
+        // accessOrder=true: el orden de iteración es del menos al más recientemente usado
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entrada> eldest) {
+                if (size() > CacheSentencias.this.maximo) {
+                    CacheSentencias.this.desalojos.increment();
+                    eldest.getValue().descartar();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Devuelve una sentencia preparada para el SQL, reutilizando la cacheada si está libre.
+     * Si la cacheada está en uso (misma sentencia abierta dos veces) se prepara una
+     * sentencia no cacheada que se cierra normalmente.
+     *
+     * @param sql Texto SQL
+     * @param autoGeneratedKeys Statement.RETURN_GENERATED_KEYS o Statement.NO_GENERATED_KEYS
+     * @return Proxy de PreparedStatement cuyo close() la devuelve a la cache
+     */
+    PreparedStatement preparar(String sql, int autoGeneratedKeys) throws SQLException {
+        String clave = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS ? "K:" + sql : sql;
+        Entrada entrada = entradas.get(clave);
+        if (entrada != null && !entrada.enUso && !entrada.stmt.isClosed()) {
+            aciertos.increment();
+            entrada.enUso = true;
+            return entrada.prestar();
+        }
+        fallos.increment();
+        PreparedStatement stmt = conn.prepareStatement(sql, autoGeneratedKeys);
+        if (entrada != null) {
+            // Ocupada (o cerrada por el driver): no se reemplaza la entrada existente
+            return stmt;
+        }
+        Entrada nueva = new Entrada(stmt);
+        nueva.enUso = true;
+        entradas.put(clave, nueva);
+        return nueva.prestar();
+    }
+
+    /**
+     * Cierra todas las sentencias cacheadas. Llamado al destruir la conexión física.
+     */
+    void cerrar() {
+        for (Entrada entrada : entradas.values()) {
+            entrada.descartar();
+        }
+        entradas.clear();
+    }
+
+    /**
+     * Sentencia cacheada y su estado de préstamo.
+     */
+    private static final class Entrada {
+        private final PreparedStatement stmt;
+        private boolean enUso;
+        private boolean desalojada;
+
+        private Entrada(PreparedStatement stmt) {
+            this.stmt = stmt;
+        }
+
+        private PreparedStatement prestar() {
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    new Prestamo(this));
+        }
+
+        /** Marca la entrada como desalojada; se cierra ya o cuando el DAO la libere. */
+        private void descartar() {
+            desalojada = true;
+            if (!enUso) {
+                cerrarFisica();
+            }
+        }
+
+        private void liberar() {
+            enUso = false;
+            if (desalojada) {
+                cerrarFisica();
+                return;
+            }
+            try {
+                stmt.clearParameters();
+                stmt.clearBatch();
+            } catch (SQLException e) {
+                desalojada = true;
+                cerrarFisica();
+            }
+        }
+
+        private void cerrarFisica() {
+            try {
+                stmt.close();
+            } catch (SQLException e) {
+                System.err.println("Error al cerrar sentencia cacheada: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * InvocationHandler del proxy entregado al DAO.
+     * - close(): libera la sentencia para su reutilización (idempotente)
+     * - isClosed(): true luego de liberada
+     * - resto: delega en la sentencia física
+     */
+    private static final class Prestamo implements InvocationHandler {
+        private final Entrada entrada;
+        private boolean cerrada;
+
+        private Prestamo(Entrada entrada) {
+            this.entrada = entrada;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!cerrada) {
+                        cerrada = true;
+                        entrada.liberar();
+                    }
+                    return null;
+                case "isClosed":
+                    return cerrada || entrada.stmt.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    if (cerrada) {
+                        throw new SQLException("La sentencia ya fue cerrada");
+                    }
+                    try {
+                        return method.invoke(entrada.stmt, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+}
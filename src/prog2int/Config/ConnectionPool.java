@@ -0,0 +1,480 @@
+package prog2int.Config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool acotado de conexiones JDBC.
+ *
+ * Reemplaza la apertura de una conexión física por cada llamada a un DAO:
+ * las conexiones se reutilizan y solo se abren nuevas cuando no hay ninguna libre.
+ *
+ * Características:
+ * - Tamaño mínimo y máximo de conexiones físicas
+ * - Validación al préstamo (Connection.isValid) salvo uso muy reciente
+ * - Timeout de préstamo: si no hay conexión libre en el tiempo configurado lanza SQLTimeoutException
+ * - Desalojo de conexiones inactivas por encima del mínimo
+ * - Detección de fugas: avisa por System.err si una conexión se retiene más del umbral
+ * - Cache LRU de PreparedStatement por conexión física (ver CacheSentencias)
+ *
+ * Uso: el caller recibe un proxy de Connection cuyo close() devuelve la conexión
+ * al pool en lugar de cerrarla, por lo que el patrón try-with-resources de los DAOs
+ * no cambia.
+ */
+public final class ConnectionPool implements AutoCloseable {
+
+    /** Tiempo máximo (segundos) para Connection.isValid() en la validación. */
+    private static final int VALIDATION_TIMEOUT_SEC = 2;
+
+    /** Si la conexión se usó hace menos de este tiempo no se valida al préstamo. */
+    private static final long VALIDATION_BYPASS_MS = 500;
+
+    private final String nombre;
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long idleTimeoutMs;
+    private final long borrowTimeoutMs;
+    private final long leakThresholdMs;
+    private final int tamanioCacheSentencias;
+
+    /** Conexiones libres. Se usan en orden LIFO para mantener "calientes" las más recientes. */
+    private final LinkedBlockingDeque<ConexionFisica> libres = new LinkedBlockingDeque<>();
+
+    /** Conexiones actualmente prestadas. */
+    private final Set<ConexionFisica> enUso = ConcurrentHashMap.newKeySet();
+
+    /** Un permiso por conexión prestable: acota el total de conexiones en uso a maxSize. */
+    private final Semaphore permisos;
+
+    private final AtomicInteger total = new AtomicInteger();
+
+    private final LongAdder prestamos = new LongAdder();
+    private final LongAdder creadas = new LongAdder();
+    private final LongAdder destruidas = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder fallasValidacion = new LongAdder();
+    private final LongAdder fugas = new LongAdder();
+    private final LongAdder aciertosSentencias = new LongAdder();
+    private final LongAdder fallosSentencias = new LongAdder();
+    private final LongAdder desalojosSentencias = new LongAdder();
+
+    private final ScheduledExecutorService mantenimiento;
+    private volatile boolean cerrado;
+
+    /**
+     * Crea el pool. No abre conexiones en el constructor: el hilo de mantenimiento
+     * completa el mínimo en segundo plano.
+     *
+     * @param nombre Nombre del pool (usado en logs y en el hilo de mantenimiento)
+     * @param url URL JDBC
+     * @param user Usuario
+     * @param password Contraseña
+     * @param minSize Conexiones físicas que se intentan mantener abiertas
+     * @param maxSize Máximo de conexiones físicas
+     * @param idleTimeoutMs Tiempo de inactividad tras el cual se cierra una conexión sobrante
+     * @param borrowTimeoutMs Espera máxima para obtener una conexión
+     * @param leakThresholdMs Tiempo de retención que se reporta como fuga (0 = deshabilitado)
+     * @param tamanioCacheSentencias Sentencias cacheadas por conexión (0 = sin cache)
+     */
+    public ConnectionPool(String nombre, String url, String user, String password,
+                          int minSize, int maxSize, long idleTimeoutMs,
+                          long borrowTimeoutMs, long leakThresholdMs, int tamanioCacheSentencias) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("El tamaño máximo del pool debe ser mayor a 0");
+        }
+        if (minSize < 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("El tamaño mínimo del pool debe estar entre 0 y " + maxSize);
+        }
+        this.nombre = nombre;
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.borrowTimeoutMs = borrowTimeoutMs;
+        this.leakThresholdMs = leakThresholdMs;
+        this.tamanioCacheSentencias = tamanioCacheSentencias;
+        this.permisos = new Semaphore(maxSize, true);
+
+        this.mantenimiento = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "pool-" + nombre + "-mantenimiento");
+            t.setDaemon(true);
+            return t;
+        });
+        long periodo = Math.max(1000, Math.min(30_000, idleTimeoutMs / 2));
+        mantenimiento.scheduleWithFixedDelay(this::mantener, 0, periodo, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Presta una conexión del pool.
+     * El caller debe cerrarla (try-with-resources) para devolverla.
+     *
+     * @return Proxy de Connection asociado a una conexión física validada
+     * @throws SQLTimeoutException Si no hay conexión disponible dentro de borrowTimeoutMs
+     * @throws SQLException Si el pool está cerrado o no se puede abrir una conexión
+     */
+    public Connection getConnection() throws SQLException {
+        if (cerrado) {
+            throw new SQLException("El pool '" + nombre + "' está cerrado");
+        }
+        try {
+            if (!permisos.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS)) {
+                timeouts.increment();
+                throw new SQLTimeoutException("No hay conexiones disponibles en el pool '" + nombre
+                        + "' luego de " + borrowTimeoutMs + " ms (máximo " + maxSize + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrumpido esperando una conexión del pool", e);
+        }
+
+        try {
+            ConexionFisica fisica;
+            while ((fisica = libres.pollFirst()) != null) {
+                if (esValida(fisica)) {
+                    break;
+                }
+                fallasValidacion.increment();
+                destruir(fisica);
+            }
+            if (fisica == null) {
+                fisica = crear();
+            }
+            fisica.prestadaDesde = System.currentTimeMillis();
+            fisica.origenPrestamo = leakThresholdMs > 0 ? new Exception("Conexión prestada aquí") : null;
+            fisica.fugaReportada = false;
+            enUso.add(fisica);
+            prestamos.increment();
+            return fisica.prestar();
+        } catch (SQLException | RuntimeException e) {
+            permisos.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Devuelve una conexión al pool. Llamado desde el proxy al hacer close().
+     * Deshace cualquier transacción abierta para no contaminar al siguiente usuario.
+     */
+    private void devolver(ConexionFisica fisica) {
+        enUso.remove(fisica);
+        boolean reutilizable = !cerrado;
+        try {
+            if (!fisica.conn.getAutoCommit()) {
+                fisica.conn.rollback();
+                fisica.conn.setAutoCommit(true);
+            }
+            fisica.conn.clearWarnings();
+        } catch (SQLException e) {
+            reutilizable = false;
+        }
+
+        if (reutilizable && libres.size() + enUso.size() < maxSize) {
+            fisica.ultimoUso = System.currentTimeMillis();
+            fisica.origenPrestamo = null;
+            libres.offerFirst(fisica);
+        } else {
+            destruir(fisica);
+        }
+        permisos.release();
+    }
+
+    /**
+     * Tarea periódica: desaloja inactivas sobrantes, completa el mínimo y reporta fugas.
+     */
+    private void mantener() {
+        if (cerrado) {
+            return;
+        }
+        long ahora = System.currentTimeMillis();
+
+        // Desalojo: de la cola (las menos usadas) mientras sobren por encima del mínimo
+        Iterator<ConexionFisica> it = libres.descendingIterator();
+        while (it.hasNext() && total.get() > minSize) {
+            ConexionFisica fisica = it.next();
+            if (ahora - fisica.ultimoUso > idleTimeoutMs && libres.remove(fisica)) {
+                destruir(fisica);
+            }
+        }
+
+        // Completar el mínimo sin superar el máximo (reserva un permiso mientras abre)
+        while (!cerrado && total.get() < minSize && permisos.tryAcquire()) {
+            try {
+                ConexionFisica fisica = crear();
+                fisica.ultimoUso = System.currentTimeMillis();
+                libres.offerLast(fisica);
+            } catch (SQLException e) {
+                System.err.println("Pool '" + nombre + "': no se pudo abrir conexión mínima: " + e.getMessage());
+                break;
+            } finally {
+                permisos.release();
+            }
+        }
+
+        // Detección de fugas
+        if (leakThresholdMs > 0) {
+            for (ConexionFisica fisica : enUso) {
+                if (!fisica.fugaReportada && ahora - fisica.prestadaDesde > leakThresholdMs) {
+                    fisica.fugaReportada = true;
+                    fugas.increment();
+                    System.err.println("Pool '" + nombre + "': posible fuga, conexión retenida por "
+                            + (ahora - fisica.prestadaDesde) + " ms");
+                    if (fisica.origenPrestamo != null) {
+                        fisica.origenPrestamo.printStackTrace();
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean esValida(ConexionFisica fisica) {
+        if (System.currentTimeMillis() - fisica.ultimoUso < VALIDATION_BYPASS_MS) {
+            return true;
+        }
+        try {
+            return fisica.conn.isValid(VALIDATION_TIMEOUT_SEC);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private ConexionFisica crear() throws SQLException {
+        Connection conn = DriverManager.getConnection(url, user, password);
+        total.incrementAndGet();
+        creadas.increment();
+        return new ConexionFisica(conn);
+    }
+
+    private void destruir(ConexionFisica fisica) {
+        total.decrementAndGet();
+        destruidas.increment();
+        if (fisica.sentencias != null) {
+            fisica.sentencias.cerrar();
+        }
+        try {
+            fisica.conn.close();
+        } catch (SQLException e) {
+            System.err.println("Pool '" + nombre + "': error al cerrar conexión: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Cierra el pool: detiene el mantenimiento y cierra las conexiones libres.
+     * Las conexiones prestadas se cierran al devolverse.
+     */
+    @Override
+    public void close() {
+        cerrado = true;
+        mantenimiento.shutdownNow();
+        ConexionFisica fisica;
+        while ((fisica = libres.pollFirst()) != null) {
+            destruir(fisica);
+        }
+    }
+
+    /**
+     * @return Conexiones prestadas en este momento (sin crear Estadisticas, para RuteadorLecturas)
+     */
+    int activas() {
+        return enUso.size();
+    }
+
+    /**
+     * @return Foto instantánea de los contadores del pool
+     */
+    public Estadisticas getEstadisticas() {
+        return new Estadisticas(nombre, total.get(), enUso.size(), libres.size(),
+                permisos.getQueueLength(), maxSize, prestamos.sum(), creadas.sum(),
+                destruidas.sum(), timeouts.sum(), fallasValidacion.sum(), fugas.sum(),
+                aciertosSentencias.sum(), fallosSentencias.sum(), desalojosSentencias.sum());
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    /**
+     * Conexión física abierta contra la base más su estado dentro del pool.
+     */
+    private final class ConexionFisica {
+        private final Connection conn;
+        private final CacheSentencias sentencias;
+        private volatile long ultimoUso;
+        private volatile long prestadaDesde;
+        private volatile Exception origenPrestamo;
+        private volatile boolean fugaReportada;
+
+        private ConexionFisica(Connection conn) {
+            this.conn = conn;
+            this.sentencias = tamanioCacheSentencias > 0
+                    ? new CacheSentencias(conn, tamanioCacheSentencias,
+                            aciertosSentencias, fallosSentencias, desalojosSentencias)
+                    : null;
+        }
+
+        /**
+         * Crea un proxy nuevo por préstamo: una referencia vieja (ya cerrada)
+         * no puede operar sobre la conexión después de devuelta.
+         */
+        private Connection prestar() {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new Prestamo(this));
+        }
+    }
+
+    /**
+     * InvocationHandler del proxy entregado al caller.
+     * - close(): devuelve al pool (idempotente)
+     * - isClosed(): true luego de devuelta
+     * - prepareStatement(sql) / prepareStatement(sql, autoGeneratedKeys): usa la cache de sentencias
+     * - resto: delega en la conexión física
+     */
+    private final class Prestamo implements InvocationHandler {
+        private final ConexionFisica fisica;
+        private volatile boolean devuelta;
+
+        private Prestamo(ConexionFisica fisica) {
+            this.fisica = fisica;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!devuelta) {
+                        devuelta = true;
+                        devolver(fisica);
+                    }
+                    return null;
+                case "isClosed":
+                    return devuelta || fisica.conn.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "ConexionPool[" + nombre + "]" + (devuelta ? " (devuelta)" : "");
+                case "prepareStatement":
+                    if (!devuelta && fisica.sentencias != null && esCacheable(method)) {
+                        int claves = args.length == 2 ? (Integer) args[1] : Statement.NO_GENERATED_KEYS;
+                        return fisica.sentencias.preparar((String) args[0], claves);
+                    }
+                    return delegar(method, args);
+                default:
+                    return delegar(method, args);
+            }
+        }
+
+        /** Invoca el método sobre la conexión física, si todavía no fue devuelta. */
+        private Object delegar(Method method, Object[] args) throws Throwable {
+            if (devuelta) {
+                throw new SQLException("La conexión ya fue devuelta al pool");
+            }
+            try {
+                return method.invoke(fisica.conn, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * Solo se cachean prepareStatement(String) y prepareStatement(String, int autoGeneratedKeys),
+     * las variantes usadas por los DAOs.
+     */
+    private static boolean esCacheable(Method method) {
+        Class<?>[] tipos = method.getParameterTypes();
+        return tipos.length == 1 || (tipos.length == 2 && tipos[1] == int.class);
+    }
+
+    /**
+     * Estadísticas del pool en un instante dado.
+     */
+    public static final class Estadisticas {
+        private final String nombre;
+        private final int total;
+        private final int activas;
+        private final int libres;
+        private final int esperando;
+        private final int maximo;
+        private final long prestamos;
+        private final long creadas;
+        private final long destruidas;
+        private final long timeouts;
+        private final long fallasValidacion;
+        private final long fugas;
+        private final long aciertosSentencias;
+        private final long fallosSentencias;
+        private final long desalojosSentencias;
+
+        private Estadisticas(String nombre, int total, int activas, int libres, int esperando, int maximo,
+                             long prestamos, long creadas, long destruidas, long timeouts,
+                             long fallasValidacion, long fugas, long aciertosSentencias,
+                             long fallosSentencias, long desalojosSentencias) {
+            this.nombre = nombre;
+            this.total = total;
+            this.activas = activas;
+            this.libres = libres;
+            this.esperando = esperando;
+            this.maximo = maximo;
+            this.prestamos = prestamos;
+            this.creadas = creadas;
+            this.destruidas = destruidas;
+            this.timeouts = timeouts;
+            this.fallasValidacion = fallasValidacion;
+            this.fugas = fugas;
+            this.aciertosSentencias = aciertosSentencias;
+            this.fallosSentencias = fallosSentencias;
+            this.desalojosSentencias = desalojosSentencias;
+        }
+
+        public String getNombre() { return nombre; }
+        public int getTotal() { return total; }
+        public int getActivas() { return activas; }
+        public int getLibres() { return libres; }
+        public int getEsperando() { return esperando; }
+        public int getMaximo() { return maximo; }
+        public long getPrestamos() { return prestamos; }
+        public long getCreadas() { return creadas; }
+        public long getDestruidas() { return destruidas; }
+        public long getTimeouts() { return timeouts; }
+        public long getFallasValidacion() { return fallasValidacion; }
+        public long getFugas() { return fugas; }
+        public long getAciertosSentencias() { return aciertosSentencias; }
+        public long getFallosSentencias() { return fallosSentencias; }
+        public long getDesalojosSentencias() { return desalojosSentencias; }
+
+        @Override
+        public String toString() {
+            return "Pool[" + nombre + "] total=" + total + " activas=" + activas + " libres=" + libres
+                    + " esperando=" + esperando + " max=" + maximo + " prestamos=" + prestamos
+                    + " creadas=" + creadas + " destruidas=" + destruidas + " timeouts=" + timeouts
+                    + " fallasValidacion=" + fallasValidacion + " fugas=" + fugas
+                    + " sentencias[aciertos=" + aciertosSentencias + " fallos=" + fallosSentencias
+                    + " desalojos=" + desalojosSentencias + "]";
+        }
+    }
+}
@@ -1,8 +1,9 @@
 package prog2int.Config;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Clase utilitaria para gestionar conexiones a la base de datos MySQL.
@@ -11,6 +12,7 @@ import java.sql.SQLException;
  * - No se puede instanciar (constructor privado)
  * - Proporciona conexiones mediante método estático getConnection()
  * - Configuración cargada una sola vez en bloque static
+ * - Las conexiones provienen de un ConnectionPool acotado (no se abre una conexión física por llamada)
  *
  * Configuración por defecto:
  * - URL: jdbc:mysql://localhost:3306/dbtpi3
@@ -19,6 +21,18 @@ import java.sql.SQLException;
  *
  * Override mediante system properties:
  * - java -Ddb.url=... -Ddb.user=... -Ddb.password=...
+ * - -Ddb.driver=... (por ejemplo org.h2.Driver para una base embebida en memoria)
+ * - -Ddb.pool.min=2 -Ddb.pool.max=10
+ * - -Ddb.pool.idleTimeoutMs=600000 -Ddb.pool.borrowTimeoutMs=30000
+ * - -Ddb.pool.leakThresholdMs=0 (0 = detección de fugas deshabilitada)
+ * - -Ddb.pool.stmtCacheSize=32 (PreparedStatement cacheados por conexión, 0 = sin cache)
+ *
+ * Réplicas de lectura (opcional, ver RuteadorLecturas y getReadConnection):
+ * - -Ddb.replicas=url1,url2 (vacío = todas las lecturas a la primaria)
+ * - -Ddb.replicas.user=... -Ddb.replicas.password=... (por defecto los de la primaria)
+ * - -Ddb.replicas.estrategia=roundRobin|menosCargada
+ * - -Ddb.replicas.chequeoMs=5000 (período del chequeo de salud)
+ * - -Ddb.replicas.borrowTimeoutMs=1000 (espera en una réplica antes de probar otra)
  */
 public final class DatabaseConnection {
     /** URL de conexión JDBC. Configurable via -Ddb.url */
@@ -30,13 +44,26 @@ public final class DatabaseConnection {
     /** Contraseña del usuario. Configurable via -Ddb.password */
     private static final String PASSWORD = System.getProperty("db.password", "Doki2025");
 
+    /** Clase del driver JDBC. Configurable via -Ddb.driver */
+    private static final String DRIVER = System.getProperty("db.driver", "com.mysql.cj.jdbc.Driver");
+
+    /** Pool de conexiones compartido por todos los DAOs. */
+    private static final ConnectionPool POOL;
+
+    /** Reparto de lecturas entre réplicas. null si no se configuró db.replicas. */
+    private static final RuteadorLecturas RUTEADOR;
+
+    /** Tareas de cierre que todavía usan el pool (ver alCerrar). */
+    private static final List<Runnable> AL_CERRAR = new ArrayList<>();
+
     /**
      * Bloque de inicialización estática.
      * Se ejecuta UNA SOLA VEZ cuando la clase se carga en memoria.
      *
      * Acciones:
-     * 1. Carga el driver JDBC de MySQL
+     * 1. Carga el driver JDBC configurado (MySQL por defecto)
      * 2. Valida que la configuración sea correcta
+     * 3. Crea el pool de conexiones
      *
      * Si falla, lanza ExceptionInInitializerError y detiene la aplicación.
      * Esto es intencional: sin BD correcta, la app no puede funcionar.
@@ -44,13 +71,27 @@ public final class DatabaseConnection {
     static {
         try {
             // Carga explícita del driver (requerido en algunas versiones de Java)
-            Class.forName("com.mysql.cj.jdbc.Driver");
+            Class.forName(DRIVER);
 
             // Valida configuración tempranamente (fail-fast)
             validateConfiguration();
+
+            POOL = new ConnectionPool("principal", URL, USER, PASSWORD,
+                    Integer.getInteger("db.pool.min", 2),
+                    Integer.getInteger("db.pool.max", 10),
+                    Long.getLong("db.pool.idleTimeoutMs", 600_000L),
+                    Long.getLong("db.pool.borrowTimeoutMs", 30_000L),
+                    Long.getLong("db.pool.leakThresholdMs", 0L),
+                    Integer.getInteger("db.pool.stmtCacheSize", 32));
+            Runtime.getRuntime().addShutdownHook(new Thread(DatabaseConnection::cerrar, "pool-principal-cierre"));
+
+            RUTEADOR = crearRuteador();
+            if (RUTEADOR != null) {
+                Runtime.getRuntime().addShutdownHook(new Thread(RUTEADOR::close, "replicas-cierre"));
+            }
         } catch (ClassNotFoundException e) {
-            throw new ExceptionInInitializerError("Error: No se encontró el driver JDBC de MySQL: " + e.getMessage());
-        } catch (IllegalStateException e) {
+            throw new ExceptionInInitializerError("Error: No se encontró el driver JDBC " + DRIVER + ": " + e.getMessage());
+        } catch (IllegalStateException | IllegalArgumentException e) {
             throw new ExceptionInInitializerError("Error en la configuración de la base de datos: " + e.getMessage());
         }
     }
@@ -64,12 +105,44 @@ public final class DatabaseConnection {
     }
 
     /**
-     * Obtiene una nueva conexión a la base de datos.
+     * Registra una tarea para el cierre del proceso que todavía necesita la base
+     * (vaciar una cola de escritura, esperar peticiones en curso).
+     * Los shutdown hooks de la JVM corren en paralelo, así que una tarea con hook propio
+     * puede encontrarse el pool ya cerrado: estas corren en el hook del pool, antes de
+     * cerrarlo, en orden inverso al de registro (lo último creado se cierra primero).
+     * @param tarea Tarea de cierre; si falla se informa y se sigue con las demás
+     */
+    public static void alCerrar(Runnable tarea) {
+        synchronized (AL_CERRAR) {
+            AL_CERRAR.add(tarea);
+        }
+    }
+
+    private static void cerrar() {
+        List<Runnable> tareas;
+        synchronized (AL_CERRAR) {
+            tareas = new ArrayList<>(AL_CERRAR);
+        }
+        for (int i = tareas.size() - 1; i >= 0; i--) {
+            try {
+                tareas.get(i).run();
+            } catch (RuntimeException e) {
+                System.err.println("Error en una tarea de cierre: " + e.getMessage());
+            }
+        }
+        POOL.close();
+    }
+
+    /**
+     * Obtiene una conexión del pool.
      *
      * Importante:
-     * - Cada llamada crea una NUEVA conexión (no hay pooling)
-     * - El caller es responsable de cerrar la conexión (usar try-with-resources)
-     * - La configuración ya fue validada en el bloque static
+     * - La conexión física se reutiliza entre llamadas (pooling)
+     * - El caller es responsable de cerrar la conexión (usar try-with-resources):
+     *   close() la devuelve al pool en lugar de cerrarla
+     * - Si no hay conexión libre se espera hasta db.pool.borrowTimeoutMs
+     * - Con una UnidadDeTrabajo activa en el thread se devuelve su conexión
+     *   (close() no la libera; commit() lo hace la unidad)
      *
      * Uso correcto:
      * <pre>
@@ -79,10 +152,94 @@ public final class DatabaseConnection {
      * </pre>
      *
      * @return Conexión JDBC activa
-     * @throws SQLException Si no se puede establecer la conexión
+     * @throws SQLException Si no se puede establecer la conexión o vence la espera
      */
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(URL, USER, PASSWORD);
+        Connection unidad = UnidadDeTrabajo.conexionActual();
+        return unidad != null ? unidad : POOL.getConnection();
+    }
+
+    /**
+     * Obtiene una conexión del pool aunque el thread tenga una UnidadDeTrabajo activa,
+     * para operaciones que deben confirmarse por su cuenta (por ejemplo la reserva de
+     * bloques de IDs, que no debe retener el lock de la secuencia hasta el fin de la unidad).
+     * @return Conexión JDBC activa, fuera de cualquier unidad de trabajo
+     * @throws SQLException Si no se puede establecer la conexión o vence la espera
+     */
+    public static Connection getConnectionPropia() throws SQLException {
+        return POOL.getConnection();
+    }
+
+    /**
+     * Obtiene una conexión para lecturas pesadas de solo lectura (búsquedas y listados).
+     *
+     * - Con db.replicas configurado, de una réplica sana (RuteadorLecturas); si no hay, de la primaria
+     * - Sin réplicas, igual que getConnection()
+     * - Con una UnidadDeTrabajo activa, la de la unidad (lecturas consistentes con su transacción)
+     *
+     * No usar para leer lo que se va a escribir a continuación (por ejemplo verificar existencia
+     * antes de un alta): la réplica puede no tener todavía las últimas escrituras.
+     *
+     * @return Conexión JDBC de solo lectura (cerrarla igual que las de getConnection)
+     * @throws SQLException Si no se puede obtener conexión ni de las réplicas ni de la primaria
+     */
+    public static Connection getReadConnection() throws SQLException {
+        Connection unidad = UnidadDeTrabajo.conexionActual();
+        if (unidad != null) {
+            return unidad;
+        }
+        return RUTEADOR != null ? RUTEADOR.getConnection() : POOL.getConnection();
+    }
+
+    /**
+     * @return Estado de las réplicas de lectura, o null si no hay réplicas configuradas
+     */
+    public static String getEstadisticasReplicas() {
+        return RUTEADOR == null ? null : RUTEADOR.getEstadisticas();
+    }
+
+    /**
+     * @return Estadísticas actuales del pool de conexiones
+     */
+    public static ConnectionPool.Estadisticas getEstadisticasPool() {
+        return POOL.getEstadisticas();
+    }
+
+    /**
+     * Crea un pool por cada URL de db.replicas (mismos tamaños que el primario).
+     * @return Ruteador de lecturas, o null si no hay réplicas configuradas
+     */
+    private static RuteadorLecturas crearRuteador() {
+        String urls = System.getProperty("db.replicas", "").trim();
+        if (urls.isEmpty()) {
+            return null;
+        }
+        String user = System.getProperty("db.replicas.user", USER);
+        String password = System.getProperty("db.replicas.password", PASSWORD);
+        List<ConnectionPool> replicas = new ArrayList<>();
+        for (String url : urls.split(",")) {
+            if (!url.trim().isEmpty()) {
+                replicas.add(new ConnectionPool("replica" + (replicas.size() + 1), url.trim(), user, password,
+                        Integer.getInteger("db.pool.min", 2),
+                        Integer.getInteger("db.pool.max", 10),
+                        Long.getLong("db.pool.idleTimeoutMs", 600_000L),
+                        Long.getLong("db.replicas.borrowTimeoutMs", 1_000L),
+                        Long.getLong("db.pool.leakThresholdMs", 0L),
+                        Integer.getInteger("db.pool.stmtCacheSize", 32)));
+            }
+        }
+        if (replicas.isEmpty()) {
+            return null;
+        }
+        String estrategia = System.getProperty("db.replicas.estrategia", "roundRobin");
+        if (!estrategia.equalsIgnoreCase("roundRobin") && !estrategia.equalsIgnoreCase("menosCargada")) {
+            throw new IllegalArgumentException("db.replicas.estrategia debe ser roundRobin o menosCargada: " + estrategia);
+        }
+        return new RuteadorLecturas(POOL, replicas,
+                estrategia.equalsIgnoreCase("menosCargada")
+                        ? RuteadorLecturas.Estrategia.MENOS_CARGADA
+                        : RuteadorLecturas.Estrategia.ROUND_ROBIN,
+                Long.getLong("db.replicas.chequeoMs", 5_000L));
     }
 
     /**
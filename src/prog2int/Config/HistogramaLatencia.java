@@ -0,0 +1,117 @@
+package prog2int.Config;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latencias sin locks, con buckets log-lineales (estilo HdrHistogram).
+ *
+ * Cada potencia de 2 de nanosegundos se divide en SUB_BUCKETS buckets iguales,
+ * por lo que el error relativo de un percentil es como máximo 1/SUB_BUCKETS (~6%),
+ * con memoria fija (RANGO_BITS x SUB_BUCKETS contadores) sin importar la cantidad de muestras.
+ *
+ * Registrar es un incremento atómico sobre un AtomicLongArray: no hay locks
+ * ni asignación de memoria. Los percentiles se calculan sobre una lectura
+ * no atómica de los contadores (suficiente para monitoreo).
+ */
+public final class HistogramaLatencia {
+
+    /** Bits de sub-bucket por potencia de 2 (16 sub-buckets). */
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    /** Potencias de 2 cubiertas: hasta 2^40 ns (~18 minutos); valores mayores van al último bucket. */
+    private static final int RANGO_BITS = 40;
+
+    private final AtomicLongArray buckets = new AtomicLongArray((RANGO_BITS - SUB_BITS + 1) * SUB_BUCKETS);
+    private final LongAdder cantidad = new LongAdder();
+    private final LongAdder sumaNanos = new LongAdder();
+    private final LongAccumulator maximoNanos = new LongAccumulator(Math::max, 0L);
+
+    /**
+     * Registra una muestra.
+     * @param nanos Duración en nanosegundos (valores negativos se toman como 0)
+     */
+    public void registrar(long nanos) {
+        long valor = Math.max(0L, nanos);
+        buckets.incrementAndGet(indice(valor));
+        cantidad.increment();
+        sumaNanos.add(valor);
+        maximoNanos.accumulate(valor);
+    }
+
+    public long getCantidad() {
+        return cantidad.sum();
+    }
+
+    public long getMaximoNanos() {
+        return maximoNanos.get();
+    }
+
+    public double getPromedioNanos() {
+        long n = cantidad.sum();
+        return n == 0 ? 0.0 : (double) sumaNanos.sum() / n;
+    }
+
+    /**
+     * @param percentil Entre 0 y 100 (por ejemplo 99.9)
+     * @return Latencia en nanosegundos del percentil (límite superior del bucket), 0 si no hay muestras
+     */
+    public long getPercentilNanos(double percentil) {
+        long[] copia = new long[buckets.length()];
+        long total = 0;
+        for (int i = 0; i < copia.length; i++) {
+            copia[i] = buckets.get(i);
+            total += copia[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long objetivo = Math.max(1L, (long) Math.ceil(total * percentil / 100.0));
+        long acumulado = 0;
+        for (int i = 0; i < copia.length; i++) {
+            acumulado += copia[i];
+            if (acumulado >= objetivo) {
+                return Math.min(limiteSuperior(i), getMaximoNanos());
+            }
+        }
+        return getMaximoNanos();
+    }
+
+    public void reiniciar() {
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.set(i, 0L);
+        }
+        cantidad.reset();
+        sumaNanos.reset();
+        maximoNanos.reset();
+    }
+
+    /**
+     * Valores menores a SUB_BUCKETS van a buckets exactos; el resto se ubica por
+     * su bit más alto (potencia) y los SUB_BITS bits siguientes (sub-bucket).
+     */
+    private static int indice(long valor) {
+        if (valor < SUB_BUCKETS) {
+            return (int) valor;
+        }
+        int potencia = 63 - Long.numberOfLeadingZeros(valor);
+        if (potencia >= RANGO_BITS) {
+            return (RANGO_BITS - SUB_BITS + 1) * SUB_BUCKETS - 1;
+        }
+        int sub = (int) (valor >>> (potencia - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (potencia - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /** @return Mayor valor que cae en el bucket */
+    private static long limiteSuperior(int indice) {
+        if (indice < SUB_BUCKETS) {
+            return indice;
+        }
+        int potencia = indice / SUB_BUCKETS + SUB_BITS - 1;
+        int sub = indice % SUB_BUCKETS;
+        long base = (1L << potencia) | ((long) sub << (potencia - SUB_BITS));
+        return base + (1L << (potencia - SUB_BITS)) - 1;
+    }
+}
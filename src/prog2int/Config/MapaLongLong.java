@@ -0,0 +1,167 @@
+package prog2int.Config;
+
+/**
+ * Mapa long → long con direccionamiento abierto (sondeo lineal), sin objetos por entrada.
+ *
+ * Propósito:
+ * - Búsquedas sin autoboxing ni asignación de memoria (a diferencia de HashMap&lt;Long, Long&gt;)
+ * - Claves y valores intercalados en un único long[] (clave en 2i, valor en 2i+1):
+ *   una búsqueda típica toca una sola línea de cache, y un lector concurrente
+ *   nunca ve claves de una tabla y valores de otra durante un redimensionamiento
+ *
+ * Restricciones:
+ * - La clave 0 está reservada para "vacío" (lanza IllegalArgumentException)
+ * - Factor de carga máximo 0.5: la tabla duplica su capacidad al superarlo
+ * - Borrado por desplazamiento hacia atrás (sin lápidas), por lo que las búsquedas
+ *   no se degradan con altas y bajas sucesivas
+ *
+ * NO es thread-safe: el caller sincroniza (ver TablaCodigos).
+ */
+public final class MapaLongLong {
+
+    private long[] tabla;
+    private int mascara;
+    private int tamanio;
+
+    /**
+     * @param capacidadEsperada Cantidad de entradas que se espera guardar (se reserva el doble)
+     */
+    public MapaLongLong(int capacidadEsperada) {
+        int capacidad = Integer.highestOneBit(Math.max(4, capacidadEsperada * 2 - 1)) << 1;
+        this.tabla = new long[capacidad * 2];
+        this.mascara = capacidad - 1;
+    }
+
+    /**
+     * @param clave Clave (distinta de 0)
+     * @param ausente Valor a devolver si la clave no existe
+     * @return Valor asociado o ausente
+     */
+    public long get(long clave, long ausente) {
+        long[] t = tabla;
+        int m = (t.length >> 1) - 1;
+        int i = indice(clave, m);
+        while (true) {
+            long k = t[i << 1];
+            if (k == clave) {
+                return t[(i << 1) + 1];
+            }
+            if (k == 0) {
+                return ausente;
+            }
+            i = (i + 1) & m;
+        }
+    }
+
+    /**
+     * Agrega o reemplaza una entrada.
+     * @return Valor anterior o ausente si no existía
+     */
+    public long put(long clave, long valor, long ausente) {
+        if (clave == 0) {
+            throw new IllegalArgumentException("La clave 0 está reservada");
+        }
+        int i = indice(clave, mascara);
+        while (true) {
+            long k = tabla[i << 1];
+            if (k == clave) {
+                long anterior = tabla[(i << 1) + 1];
+                tabla[(i << 1) + 1] = valor;
+                return anterior;
+            }
+            if (k == 0) {
+                tabla[(i << 1) + 1] = valor;
+                tabla[i << 1] = clave;
+                if (++tamanio > (mascara + 1) >> 1) {
+                    redimensionar();
+                }
+                return ausente;
+            }
+            i = (i + 1) & mascara;
+        }
+    }
+
+    /**
+     * Elimina una entrada desplazando hacia atrás las entradas siguientes del mismo grupo.
+     * @return Valor eliminado o ausente si no existía
+     */
+    public long remove(long clave, long ausente) {
+        int i = indice(clave, mascara);
+        while (true) {
+            long k = tabla[i << 1];
+            if (k == 0) {
+                return ausente;
+            }
+            if (k == clave) {
+                break;
+            }
+            i = (i + 1) & mascara;
+        }
+        long anterior = tabla[(i << 1) + 1];
+        int j = i;
+        while (true) {
+            j = (j + 1) & mascara;
+            long k = tabla[j << 1];
+            if (k == 0) {
+                break;
+            }
+            int ideal = indice(k, mascara);
+            // La entrada en j puede ocupar el hueco i si su posición ideal no está en (i, j]
+            boolean enRango = i <= j ? (i < ideal && ideal <= j) : (i < ideal || ideal <= j);
+            if (!enRango) {
+                tabla[(i << 1) + 1] = tabla[(j << 1) + 1];
+                tabla[i << 1] = k;
+                i = j;
+            }
+        }
+        tabla[i << 1] = 0;
+        tabla[(i << 1) + 1] = 0;
+        tamanio--;
+        return anterior;
+    }
+
+    public int size() {
+        return tamanio;
+    }
+
+    /** @return Cantidad de posiciones de la tabla */
+    public int capacidad() {
+        return mascara + 1;
+    }
+
+    /** @return Memoria ocupada por la tabla en bytes (sin cabecera del objeto) */
+    public long memoriaBytes() {
+        return (long) tabla.length * Long.BYTES;
+    }
+
+    public void clear() {
+        java.util.Arrays.fill(tabla, 0L);
+        tamanio = 0;
+    }
+
+    private void redimensionar() {
+        long[] vieja = tabla;
+        int nuevaCapacidad = (mascara + 1) << 1;
+        long[] nueva = new long[nuevaCapacidad * 2];
+        int nuevaMascara = nuevaCapacidad - 1;
+        for (int p = 0; p < vieja.length; p += 2) {
+            long k = vieja[p];
+            if (k != 0) {
+                int i = indice(k, nuevaMascara);
+                while (nueva[i << 1] != 0) {
+                    i = (i + 1) & nuevaMascara;
+                }
+                nueva[i << 1] = k;
+                nueva[(i << 1) + 1] = vieja[p + 1];
+            }
+        }
+        mascara = nuevaMascara;
+        tabla = nueva;
+    }
+
+    /** Mezcla de bits (constante de Fibonacci) para repartir claves secuenciales. */
+    private static int indice(long clave, int mascara) {
+        long h = clave * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mascara;
+    }
+}
@@ -0,0 +1,310 @@
+package prog2int.Config;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.ObjectName;
+
+/**
+ * Registro global de métricas por operación (DAOs, services y transacciones).
+ *
+ * Por cada operación (por ejemplo "ProductoDAO.getById") se registra:
+ * - Cantidad de llamadas y de errores (LongAdder: sin contención entre hilos)
+ * - Filas devueltas o afectadas
+ * - Histograma de latencias (HistogramaLatencia) para p50 / p99 / p999
+ *
+ * Uso típico dentro de un método:
+ * <pre>
+ * public Producto getById(long id) throws Exception {
+ *     return Metricas.medir("ProductoDAO.getById", () -> {
+ *         ... cuerpo original ...
+ *     });
+ * }
+ * </pre>
+ *
+ * Exposición:
+ * - getReporte(): texto para la opción "Métricas" del menú
+ * - JMX: MBean "prog2int:type=Metricas" (ver MetricasMXBean), visible en JConsole / VisualVM
+ *
+ * Se deshabilita con -Dmetricas.enabled=false (medir() ejecuta la operación sin registrar nada).
+ */
+public final class Metricas {
+
+    /** true si se registran métricas. Configurable via -Dmetricas.enabled */
+    private static final boolean HABILITADAS =
+            Boolean.parseBoolean(System.getProperty("metricas.enabled", "true"));
+
+    private static final Map<String, Registro> REGISTROS = new ConcurrentHashMap<>();
+
+    static {
+        if (HABILITADAS) {
+            try {
+                ManagementFactory.getPlatformMBeanServer()
+                        .registerMBean(new MBean(), new ObjectName("prog2int:type=Metricas"));
+            } catch (Exception e) {
+                System.err.println("No se pudo registrar el MBean de métricas: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Operación medida que devuelve un resultado.
+     */
+    @FunctionalInterface
+    public interface Operacion<T> {
+        T ejecutar() throws Exception;
+    }
+
+    /**
+     * Operación medida sin resultado.
+     */
+    @FunctionalInterface
+    public interface Accion {
+        void ejecutar() throws Exception;
+    }
+
+    private Metricas() {
+        throw new UnsupportedOperationException("Esta es una clase utilitaria y no debe ser instanciada");
+    }
+
+    /**
+     * Ejecuta y mide una operación. Las filas se infieren del resultado:
+     * tamaño si es una colección, suma si es un int[] de batch, el valor si es un
+     * número (cantidad de filas, por ejemplo recorrerTodos), 1/0 si es un boolean
+     * (idExists) y 1 para cualquier otro objeto.
+     * @param nombre Nombre de la operación ("Clase.metodo")
+     * @param operacion Cuerpo a ejecutar
+     * @return Resultado de la operación
+     * @throws Exception La misma excepción de la operación (se cuenta como error)
+     */
+    public static <T> T medir(String nombre, Operacion<T> operacion) throws Exception {
+        if (!HABILITADAS) {
+            return operacion.ejecutar();
+        }
+        long inicio = System.nanoTime();
+        try {
+            T resultado = operacion.ejecutar();
+            registrar(nombre, System.nanoTime() - inicio, false, filas(resultado));
+            return resultado;
+        } catch (Exception | Error e) {
+            registrar(nombre, System.nanoTime() - inicio, true, 0);
+            throw e;
+        }
+    }
+
+    /**
+     * Ejecuta y mide una operación sin resultado (altas, bajas, commits).
+     */
+    public static void medir(String nombre, Accion accion) throws Exception {
+        if (!HABILITADAS) {
+            accion.ejecutar();
+            return;
+        }
+        long inicio = System.nanoTime();
+        try {
+            accion.ejecutar();
+            registrar(nombre, System.nanoTime() - inicio, false, 0);
+        } catch (Exception | Error e) {
+            registrar(nombre, System.nanoTime() - inicio, true, 0);
+            throw e;
+        }
+    }
+
+    /**
+     * Registra una medición hecha por el caller (para código que no puede usar medir()).
+     * @param nombre Nombre de la operación
+     * @param nanos Duración
+     * @param error true si la operación falló
+     * @param filas Filas devueltas o afectadas
+     */
+    public static void registrar(String nombre, long nanos, boolean error, long filas) {
+        if (!HABILITADAS) {
+            return;
+        }
+        Registro r = REGISTROS.get(nombre);
+        if (r == null) {
+            r = REGISTROS.computeIfAbsent(nombre, Registro::new);
+        }
+        r.llamadas.increment();
+        if (error) {
+            r.errores.increment();
+        }
+        if (filas > 0) {
+            r.filas.add(filas);
+        }
+        r.latencias.registrar(nanos);
+    }
+
+    /**
+     * @return Foto de todas las operaciones, ordenadas por nombre
+     */
+    public static List<Snapshot> snapshot() {
+        List<Snapshot> fotos = new ArrayList<>(REGISTROS.size());
+        for (Registro r : REGISTROS.values()) {
+            fotos.add(new Snapshot(r));
+        }
+        fotos.sort((a, b) -> a.getOperacion().compareTo(b.getOperacion()));
+        return fotos;
+    }
+
+    /**
+     * @return Tabla de texto con una línea por operación (latencias en milisegundos)
+     */
+    public static String getReporte() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-40s %9s %7s %10s %9s %9s %9s %9s%n",
+                "Operación", "Llamadas", "Errores", "Filas", "p50 ms", "p99 ms", "p999 ms", "max ms"));
+        for (Snapshot s : snapshot()) {
+            sb.append(String.format("%-40s %9d %7d %10d %9.3f %9.3f %9.3f %9.3f%n",
+                    s.getOperacion(), s.getLlamadas(), s.getErrores(), s.getFilas(),
+                    s.getP50Ms(), s.getP99Ms(), s.getP999Ms(), s.getMaximoMs()));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Vacía todos los contadores e histogramas.
+     */
+    public static void reiniciar() {
+        for (Registro r : REGISTROS.values()) {
+            r.llamadas.reset();
+            r.errores.reset();
+            r.filas.reset();
+            r.latencias.reiniciar();
+        }
+    }
+
+    private static long filas(Object resultado) {
+        if (resultado == null) {
+            return 0;
+        }
+        if (resultado instanceof Collection<?> c) {
+            return c.size();
+        }
+        if (resultado instanceof Map<?, ?> m) {
+            return m.size();
+        }
+        if (resultado instanceof int[] conteos) {
+            long total = 0;
+            for (int c : conteos) {
+                // Statement.SUCCESS_NO_INFO (-2): la fila se insertó pero el driver no informa cuántas
+                total += c > 0 ? c : c == -2 ? 1 : 0;
+            }
+            return total;
+        }
+        if (resultado instanceof Number n) {
+            return n.longValue();
+        }
+        if (resultado instanceof Boolean b) {
+            return b ? 1 : 0;
+        }
+        return 1;
+    }
+
+    /**
+     * Contadores de una operación.
+     */
+    private static final class Registro {
+        private final String nombre;
+        private final LongAdder llamadas = new LongAdder();
+        private final LongAdder errores = new LongAdder();
+        private final LongAdder filas = new LongAdder();
+        private final HistogramaLatencia latencias = new HistogramaLatencia();
+
+        private Registro(String nombre) {
+            this.nombre = nombre;
+        }
+    }
+
+    /**
+     * Foto inmutable de una operación (también es el tipo expuesto por JMX).
+     */
+    public static final class Snapshot {
+        private final String operacion;
+        private final long llamadas;
+        private final long errores;
+        private final long filas;
+        private final double promedioMs;
+        private final double p50Ms;
+        private final double p99Ms;
+        private final double p999Ms;
+        private final double maximoMs;
+
+        private Snapshot(Registro r) {
+            this.operacion = r.nombre;
+            this.llamadas = r.llamadas.sum();
+            this.errores = r.errores.sum();
+            this.filas = r.filas.sum();
+            this.promedioMs = r.latencias.getPromedioNanos() / 1_000_000.0;
+            this.p50Ms = r.latencias.getPercentilNanos(50) / 1_000_000.0;
+            this.p99Ms = r.latencias.getPercentilNanos(99) / 1_000_000.0;
+            this.p999Ms = r.latencias.getPercentilNanos(99.9) / 1_000_000.0;
+            this.maximoMs = r.latencias.getMaximoNanos() / 1_000_000.0;
+        }
+
+        public String getOperacion() {
+            return operacion;
+        }
+
+        public long getLlamadas() {
+            return llamadas;
+        }
+
+        public long getErrores() {
+            return errores;
+        }
+
+        public long getFilas() {
+            return filas;
+        }
+
+        public double getPromedioMs() {
+            return promedioMs;
+        }
+
+        public double getP50Ms() {
+            return p50Ms;
+        }
+
+        public double getP99Ms() {
+            return p99Ms;
+        }
+
+        public double getP999Ms() {
+            return p999Ms;
+        }
+
+        public double getMaximoMs() {
+            return maximoMs;
+        }
+    }
+
+    /**
+     * Implementación JMX: incluye también el estado del pool de conexiones.
+     */
+    private static final class MBean implements MetricasMXBean {
+        @Override
+        public List<Snapshot> getOperaciones() {
+            return snapshot();
+        }
+
+        @Override
+        public String getReporte() {
+            return Metricas.getReporte();
+        }
+
+        @Override
+        public String getEstadisticasPool() {
+            return DatabaseConnection.getEstadisticasPool().toString();
+        }
+
+        @Override
+        public void reiniciar() {
+            Metricas.reiniciar();
+        }
+    }
+}
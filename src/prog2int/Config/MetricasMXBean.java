@@ -0,0 +1,23 @@
+package prog2int.Config;
+
+import java.util.List;
+
+/**
+ * Vista JMX de Metricas (ObjectName "prog2int:type=Metricas").
+ * Como MXBean, los Snapshot se exponen como CompositeData: se pueden ver
+ * desde JConsole / VisualVM sin tener las clases de la aplicación.
+ */
+public interface MetricasMXBean {
+
+    /** @return Foto de cada operación medida */
+    List<Metricas.Snapshot> getOperaciones();
+
+    /** @return Mismo texto que la opción "Métricas" del menú */
+    String getReporte();
+
+    /** @return Estado del pool de conexiones principal */
+    String getEstadisticasPool();
+
+    /** Vacía contadores e histogramas. */
+    void reiniciar();
+}
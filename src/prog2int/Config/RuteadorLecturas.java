@@ -0,0 +1,200 @@
+package prog2int.Config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reparte las lecturas pesadas (búsquedas y listados) entre réplicas de solo lectura,
+ * para que no compitan con las escrituras en la base primaria.
+ *
+ * - Cada réplica tiene su propio ConnectionPool
+ * - Elección: ROUND_ROBIN (turnos) o MENOS_CARGADA (menos conexiones prestadas)
+ * - Una réplica que no entrega conexión (caída, red) se marca como no sana y se saltea;
+ *   el chequeo periódico (isValid) la vuelve a habilitar cuando responde
+ * - Una réplica saturada (vence la espera de su pool) no se marca: se prueba la siguiente
+ * - Sin réplicas sanas o libres la lectura va a la primaria (fallback)
+ *
+ * Las escrituras, los TransactionManager y las lecturas puntuales usadas para decidir
+ * una escritura (getById, idExists) siguen en la primaria (DatabaseConnection.getConnection):
+ * una réplica puede estar atrasada respecto de lo recién escrito.
+ *
+ * Thread-safe.
+ */
+public final class RuteadorLecturas implements AutoCloseable {
+
+    /** Criterio para elegir la réplica de cada lectura. */
+    public enum Estrategia {
+        ROUND_ROBIN,
+        MENOS_CARGADA
+    }
+
+    /** Tiempo máximo (segundos) para Connection.isValid() en el chequeo. */
+    private static final int TIMEOUT_CHEQUEO_SEG = 2;
+
+    private final ConnectionPool primaria;
+    private final Replica[] replicas;
+    private final Estrategia estrategia;
+    private final AtomicInteger turno = new AtomicInteger();
+    private final LongAdder aPrimaria = new LongAdder();
+    private final ScheduledExecutorService chequeo;
+
+    /**
+     * @param primaria Pool de la base primaria (fallback)
+     * @param replicas Pools de las réplicas (al menos una)
+     * @param estrategia Criterio de elección
+     * @param chequeoMs Período del chequeo de salud
+     */
+    public RuteadorLecturas(ConnectionPool primaria, List<ConnectionPool> replicas,
+                            Estrategia estrategia, long chequeoMs) {
+        if (primaria == null) {
+            throw new IllegalArgumentException("El pool primario no puede ser null");
+        }
+        if (replicas == null || replicas.isEmpty()) {
+            throw new IllegalArgumentException("Debe haber al menos una réplica");
+        }
+        if (chequeoMs <= 0) {
+            throw new IllegalArgumentException("El período de chequeo debe ser mayor a 0");
+        }
+        this.primaria = primaria;
+        this.estrategia = estrategia == null ? Estrategia.ROUND_ROBIN : estrategia;
+        this.replicas = new Replica[replicas.size()];
+        for (int i = 0; i < this.replicas.length; i++) {
+            this.replicas[i] = new Replica(replicas.get(i));
+        }
+        this.chequeo = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "replicas-chequeo");
+            t.setDaemon(true);
+            return t;
+        });
+        chequeo.scheduleWithFixedDelay(this::chequear, chequeoMs, chequeoMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Presta una conexión de lectura: de una réplica sana si hay, si no de la primaria.
+     * El caller debe cerrarla igual que cualquier conexión del pool.
+     */
+    public Connection getConnection() throws SQLException {
+        int n = replicas.length;
+        int inicio = estrategia == Estrategia.MENOS_CARGADA
+                ? menosCargada()
+                : Math.floorMod(turno.getAndIncrement(), n);
+        for (int i = 0; i < n; i++) {
+            Replica replica = replicas[(inicio + i) % n];
+            if (!replica.sana) {
+                continue;
+            }
+            try {
+                Connection conn = replica.pool.getConnection();
+                replica.lecturas.increment();
+                return conn;
+            } catch (SQLTimeoutException e) {
+                // Saturada pero viva: se prueba la siguiente
+            } catch (SQLException e) {
+                marcar(replica, false, e.getMessage());
+            }
+        }
+        aPrimaria.increment();
+        return primaria.getConnection();
+    }
+
+    /**
+     * @return Índice de la réplica sana con menos conexiones prestadas. Los empates se
+     *         resuelven por turno, para repartir también cuando hay poca carga
+     */
+    private int menosCargada() {
+        int n = replicas.length;
+        int inicio = Math.floorMod(turno.getAndIncrement(), n);
+        int elegida = inicio;
+        int minimo = Integer.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            int indice = (inicio + i) % n;
+            if (replicas[indice].sana) {
+                int activas = replicas[indice].pool.activas();
+                if (activas < minimo) {
+                    minimo = activas;
+                    elegida = indice;
+                }
+            }
+        }
+        return elegida;
+    }
+
+    /**
+     * Chequeo periódico de todas las réplicas (también las sanas, para detectar caídas
+     * aunque no haya tráfico de lectura).
+     */
+    private void chequear() {
+        for (Replica replica : replicas) {
+            boolean sana;
+            String motivo = null;
+            try (Connection conn = replica.pool.getConnection()) {
+                sana = conn.isValid(TIMEOUT_CHEQUEO_SEG);
+            } catch (SQLTimeoutException e) {
+                continue;
+            } catch (SQLException e) {
+                sana = false;
+                motivo = e.getMessage();
+            }
+            marcar(replica, sana, motivo);
+        }
+    }
+
+    private static void marcar(Replica replica, boolean sana, String motivo) {
+        if (replica.sana == sana) {
+            return;
+        }
+        replica.sana = sana;
+        if (sana) {
+            System.err.println("Réplica '" + replica.pool.getNombre() + "' disponible nuevamente");
+        } else {
+            replica.caidas.increment();
+            System.err.println("Réplica '" + replica.pool.getNombre() + "' fuera de servicio"
+                    + (motivo == null ? "" : ": " + motivo));
+        }
+    }
+
+    /**
+     * @return Estado, lecturas y conexiones activas de cada réplica, y lecturas derivadas a la primaria
+     */
+    public String getEstadisticas() {
+        StringBuilder sb = new StringBuilder("Réplicas[").append(estrategia).append("]");
+        for (Replica replica : replicas) {
+            sb.append(' ').append(replica.pool.getNombre())
+                    .append(replica.sana ? "=sana" : "=caída")
+                    .append(" lecturas=").append(replica.lecturas.sum())
+                    .append(" activas=").append(replica.pool.activas())
+                    .append(" caídas=").append(replica.caidas.sum())
+                    .append(';');
+        }
+        return sb.append(" a primaria=").append(aPrimaria.sum()).toString();
+    }
+
+    /**
+     * Detiene el chequeo y cierra los pools de las réplicas (no el de la primaria).
+     */
+    @Override
+    public void close() {
+        chequeo.shutdownNow();
+        for (Replica replica : replicas) {
+            replica.pool.close();
+        }
+    }
+
+    private static final class Replica {
+        private final ConnectionPool pool;
+        private final LongAdder lecturas = new LongAdder();
+        private final LongAdder caidas = new LongAdder();
+        private volatile boolean sana = true;
+
+        private Replica(ConnectionPool pool) {
+            this.pool = pool;
+        }
+    }
+}
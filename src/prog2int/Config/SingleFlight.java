@@ -0,0 +1,148 @@
+package prog2int.Config;
+
+import java.sql.SQLTimeoutException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Agrupa lecturas concurrentes idénticas (single-flight): si varios threads piden la
+ * misma clave mientras una carga está en curso, solo el primero va a la base y el
+ * resto espera y recibe el mismo resultado (o la misma excepción).
+ *
+ * Uso típico (debajo de la cache, para que solo los fallos lleguen acá):
+ * <pre>
+ * Producto p = cache.obtener(id, k -> vuelos.ejecutar(k, productoDAO::getById));
+ * </pre>
+ *
+ * Diferencia con CacheLRU: no guarda resultados. La entrada existe solo mientras
+ * dura la carga, así que no hay datos viejos que invalidar; olvidar() sirve para
+ * que una lectura posterior a una escritura no se sume a una carga iniciada antes.
+ *
+ * El resultado es el mismo objeto para todos los threads: si el caller puede
+ * modificarlo, debe copiarlo (como hacen los services).
+ *
+ * Métricas:
+ * - getEstadisticas(): cargas, lecturas agrupadas, timeouts y cargas en curso
+ * - Metricas: cada espera agrupada se registra como "SingleFlight.{nombre}"
+ *   (llamadas = lecturas agrupadas, latencia = tiempo de espera)
+ *
+ * @param <K> Tipo de la clave
+ * @param <V> Tipo del valor
+ */
+public final class SingleFlight<K, V> {
+
+    private final String nombre;
+    private final String operacion;
+    private final long timeoutMs;
+    private final ConcurrentHashMap<K, CompletableFuture<V>> enCurso = new ConcurrentHashMap<>();
+
+    private final LongAdder cargas = new LongAdder();
+    private final LongAdder agrupadas = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    /**
+     * @param nombre Nombre para las estadísticas
+     * @param timeoutMs Espera máxima de un thread agrupado por la carga de otro
+     */
+    public SingleFlight(String nombre, long timeoutMs) {
+        if (timeoutMs <= 0) {
+            throw new IllegalArgumentException("El timeout debe ser mayor a 0");
+        }
+        this.nombre = nombre;
+        this.operacion = "SingleFlight." + nombre;
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * Carga la clave o se suma a la carga en curso de la misma clave.
+     *
+     * @param clave Clave a cargar
+     * @param cargador Carga real (solo la ejecuta el primer thread)
+     * @return Valor cargado (puede ser null)
+     * @throws SQLTimeoutException Si se esperó a otro thread más de timeoutMs
+     * @throws Exception La misma excepción que lanzó la carga
+     */
+    public V ejecutar(K clave, CacheLRU.Cargador<K, V> cargador) throws Exception {
+        CompletableFuture<V> propio = new CompletableFuture<>();
+        CompletableFuture<V> existente = enCurso.putIfAbsent(clave, propio);
+        if (existente != null) {
+            return esperar(clave, existente);
+        }
+        cargas.increment();
+        try {
+            V valor = cargador.cargar(clave);
+            propio.complete(valor);
+            return valor;
+        } catch (Exception | Error e) {
+            propio.completeExceptionally(e);
+            throw e;
+        } finally {
+            enCurso.remove(clave, propio);
+        }
+    }
+
+    /**
+     * Hace que la próxima lectura de la clave inicie una carga nueva.
+     * Los threads que ya esperan la carga anterior reciben su resultado.
+     */
+    public void olvidar(K clave) {
+        enCurso.remove(clave);
+    }
+
+    /**
+     * olvidar() para todas las claves (cuando no se conoce la clave afectada).
+     */
+    public void olvidarTodas() {
+        enCurso.clear();
+    }
+
+    /** @return Cargas ejecutadas contra la base */
+    public long getCargas() {
+        return cargas.sum();
+    }
+
+    /** @return Lecturas resueltas con la carga de otro thread */
+    public long getAgrupadas() {
+        return agrupadas.sum();
+    }
+
+    /**
+     * @return Resumen de contadores en una línea
+     */
+    public String getEstadisticas() {
+        long c = cargas.sum();
+        long a = agrupadas.sum();
+        return String.format("SingleFlight[%s] cargas=%d agrupadas=%d (%.2f%% de las lecturas) timeouts=%d enCurso=%d",
+                nombre, c, a, c + a == 0 ? 0.0 : a * 100.0 / (c + a), timeouts.sum(), enCurso.size());
+    }
+
+    private V esperar(K clave, CompletableFuture<V> carga) throws Exception {
+        agrupadas.increment();
+        long inicio = System.nanoTime();
+        boolean error = true;
+        try {
+            V valor = carga.get(timeoutMs, TimeUnit.MILLISECONDS);
+            error = false;
+            return valor;
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof Exception ex) {
+                throw ex;
+            }
+            throw (Error) causa;
+        } catch (TimeoutException e) {
+            timeouts.increment();
+            throw new SQLTimeoutException("Tiempo de espera agotado (" + timeoutMs
+                    + " ms) esperando la carga de " + clave + " en " + nombre);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new Exception("Interrumpido esperando la carga de " + clave, e);
+        } finally {
+            Metricas.registrar(operacion, System.nanoTime() - inicio, error, 0);
+        }
+    }
+}
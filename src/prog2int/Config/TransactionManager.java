@@ -2,8 +2,26 @@ package prog2int.Config;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.SQLTransientException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 public class TransactionManager implements AutoCloseable {
+    /** Intentos totales de ejecutarConReintentos (1 = sin reintentos). Configurable via -Ddb.retry.maxIntentos */
+    private static final int MAX_INTENTOS = Math.max(1, Integer.getInteger("db.retry.maxIntentos", 4));
+
+    /** Espera base antes del primer reintento; se duplica en cada uno. -Ddb.retry.esperaBaseMs */
+    private static final long ESPERA_BASE_MS = Math.max(1L, Long.getLong("db.retry.esperaBaseMs", 25L));
+
+    /** Tope de la espera entre reintentos. -Ddb.retry.esperaMaxMs */
+    private static final long ESPERA_MAX_MS = Math.max(1L, Long.getLong("db.retry.esperaMaxMs", 1_000L));
+
+    /** Errores de MySQL reintentables: deadlock (1213) y lock wait timeout (1205). */
+    private static final int ER_LOCK_DEADLOCK = 1213;
+    private static final int ER_LOCK_WAIT_TIMEOUT = 1205;
+
     private Connection conn;
     private boolean transactionActive;
 
@@ -37,16 +55,26 @@ public class TransactionManager implements AutoCloseable {
         if (!transactionActive) {
             throw new SQLException("No hay una transacción activa para hacer commit");
         }
-        conn.commit();
+        long inicio = System.nanoTime();
+        try {
+            conn.commit();
+        } catch (SQLException e) {
+            Metricas.registrar("TransactionManager.commit", System.nanoTime() - inicio, true, 0);
+            throw e;
+        }
+        Metricas.registrar("TransactionManager.commit", System.nanoTime() - inicio, false, 0);
         transactionActive = false;
     }
 
     public void rollback() {
         if (conn != null && transactionActive) {
+            long inicio = System.nanoTime();
             try {
                 conn.rollback();
                 transactionActive = false;
+                Metricas.registrar("TransactionManager.rollback", System.nanoTime() - inicio, false, 0);
             } catch (SQLException e) {
+                Metricas.registrar("TransactionManager.rollback", System.nanoTime() - inicio, true, 0);
                 System.err.println("Error durante el rollback: " + e.getMessage());
             }
         }
@@ -70,4 +98,89 @@ public class TransactionManager implements AutoCloseable {
     public boolean isTransactionActive() {
         return transactionActive;
     }
+
+    /**
+     * Ejecuta la operación en una transacción propia (conexión del pool, commit al final)
+     * y la reintenta si falla por un error transitorio de concurrencia o de conexión.
+     *
+     * Reintentables (ver esReintentable):
+     * - SQLState 40001 / clase 40 (deadlock, serialización) y errores MySQL 1213 / 1205
+     * - SQLTransientException (salvo timeouts de consulta o de espera del pool)
+     * - SQLState clase 08 (conexión caída), solo si ocurrió antes del commit: si falla el
+     *   commit mismo no se sabe si la transacción se confirmó, y reintentar podría duplicarla
+     *
+     * Cada intento usa una conexión nueva. Entre intentos se espera un tiempo al azar entre 0 y
+     * min(db.retry.esperaMaxMs, db.retry.esperaBaseMs * 2^(intento-1)) (backoff exponencial con
+     * jitter), para que las transacciones que chocaron no vuelvan a chocar al reintentar juntas.
+     * La operación debe poder repetirse: todo su efecto en la base tiene que pasar por la conexión
+     * recibida (se revierte en cada fallo); los efectos en memoria van después de esta llamada.
+     *
+     * Dentro de una UnidadDeTrabajo se ejecuta una sola vez: el deadlock revierte toda la
+     * unidad y reintentar solo esta parte no tiene sentido (reintenta quien inició la unidad).
+     *
+     * Métricas: TransactionManager.reintento (latencia = espera antes de reintentar) y
+     * TransactionManager.abandono (se agotaron los intentos; filas = intentos hechos).
+     *
+     * @param operacion Trabajo transaccional sobre la conexión recibida
+     * @return Resultado de la operación
+     * @throws Exception El error del último intento, o el primero no reintentable
+     */
+    public static <T> T ejecutarConReintentos(OperacionTx<T> operacion) throws Exception {
+        int maxIntentos = UnidadDeTrabajo.isActiva() ? 1 : MAX_INTENTOS;
+        for (int intento = 1; ; intento++) {
+            boolean enCommit = false;
+            try (TransactionManager tx = new TransactionManager(DatabaseConnection.getConnection())) {
+                tx.startTransaction();
+                T resultado = operacion.ejecutar(tx.getConnection());
+                enCommit = true;
+                tx.commit();
+                return resultado;
+            } catch (Exception e) {
+                if (!esReintentable(e, enCommit)) {
+                    throw e;
+                }
+                if (intento >= maxIntentos) {
+                    Metricas.registrar("TransactionManager.abandono", 0, true, intento);
+                    throw e;
+                }
+                long techo = Math.min(ESPERA_MAX_MS, ESPERA_BASE_MS << Math.min(intento - 1, 20));
+                long espera = ThreadLocalRandom.current().nextLong(techo + 1);
+                Metricas.registrar("TransactionManager.reintento", TimeUnit.MILLISECONDS.toNanos(espera), false, 0);
+                Thread.sleep(espera);
+            }
+        }
+    }
+
+    /**
+     * @param e Error de un intento (se recorre la cadena de causas)
+     * @param enCommit true si falló el commit (la operación ya había terminado)
+     * @return true si vale la pena reintentar la transacción completa
+     */
+    static boolean esReintentable(Throwable e, boolean enCommit) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (!(t instanceof SQLException sql)) {
+                continue;
+            }
+            String estado = sql.getSQLState();
+            if (sql.getErrorCode() == ER_LOCK_DEADLOCK || sql.getErrorCode() == ER_LOCK_WAIT_TIMEOUT
+                    || (estado != null && estado.startsWith("40"))) {
+                return true;
+            }
+            if ((estado != null && estado.startsWith("08")) || sql instanceof SQLTransientConnectionException) {
+                return !enCommit;
+            }
+            if (sql instanceof SQLTransientException && !(sql instanceof SQLTimeoutException)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Trabajo de una transacción para ejecutarConReintentos.
+     */
+    @FunctionalInterface
+    public interface OperacionTx<T> {
+        T ejecutar(Connection conn) throws Exception;
+    }
 }
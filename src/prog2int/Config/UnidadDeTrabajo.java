@@ -0,0 +1,308 @@
+package prog2int.Config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unidad de trabajo: una conexión y una transacción compartidas por todas las
+ * llamadas a DAOs de una operación de negocio, en el thread actual.
+ *
+ * Sin unidad, cada método de DAO pide su conexión al pool y confirma por su cuenta
+ * (autocommit): una operación "buscar y eliminar" son varias conexiones y varios commits,
+ * y la segunda lectura puede ver datos distintos a la primera.
+ * Con una unidad activa, DatabaseConnection.getConnection() devuelve la conexión de la
+ * unidad, por lo que los DAOs se suman sin cambios:
+ * <pre>
+ * try (UnidadDeTrabajo unidad = UnidadDeTrabajo.iniciar()) {
+ *     Producto p = productoService.getById(id);
+ *     ...
+ *     productoService.actualizar(p);
+ *     unidad.commit();
+ * } // sin commit (excepción): rollback
+ * </pre>
+ *
+ * La conexión entregada a los DAOs ignora close(), commit() y setAutoCommit(): el
+ * try-with-resources de cada DAO y los TransactionManager anidados no cortan la unidad.
+ * Un rollback() dentro de la unidad (por ejemplo el de un TransactionManager ante un
+ * error) la marca para rollback y el commit final falla.
+ *
+ * Anidamiento: iniciar() con una unidad activa se suma a ella. Solo el commit de la
+ * unidad externa confirma; si una interna se cierra sin commit, toda la unidad se revierte.
+ *
+ * Acciones diferidas (cache, índices en memoria): alConfirmar() las ejecuta luego del
+ * commit y alTerminar() luego del commit o rollback. Sin unidad activa se ejecutan en el acto.
+ *
+ * Las tareas que otros threads ejecutan para la operación (por ejemplo los bloques en
+ * paralelo de ConsultaMultiple) no ven la unidad: usan sus propias conexiones.
+ *
+ * Configuración:
+ * - -Ddb.unidadTrabajo.enabled=true ejecutar() agrupa la operación en una unidad
+ *   (por defecto cada DAO usa su propia conexión, como antes); iniciar() siempre crea una unidad
+ */
+public final class UnidadDeTrabajo implements AutoCloseable {
+
+    private static final boolean HABILITADA = Boolean.getBoolean("db.unidadTrabajo.enabled");
+
+    private static final ThreadLocal<Estado> ACTUAL = new ThreadLocal<>();
+
+    private final Estado estado;
+    private final boolean externa;
+    private boolean confirmada;
+    private boolean cerrada;
+
+    private UnidadDeTrabajo(Estado estado, boolean externa) {
+        this.estado = estado;
+        this.externa = externa;
+    }
+
+    /**
+     * Inicia una unidad en el thread actual, o se suma a la activa.
+     * @return Unidad a cerrar con try-with-resources
+     * @throws SQLException Si no se obtuvo conexión del pool
+     */
+    public static UnidadDeTrabajo iniciar() throws SQLException {
+        Estado activo = ACTUAL.get();
+        if (activo != null) {
+            activo.nivel++;
+            return new UnidadDeTrabajo(activo, false);
+        }
+        Connection conn = DatabaseConnection.getConnectionPropia();
+        try {
+            conn.setAutoCommit(false);
+        } catch (SQLException e) {
+            conn.close();
+            throw e;
+        }
+        Estado estado = new Estado(conn);
+        ACTUAL.set(estado);
+        return new UnidadDeTrabajo(estado, true);
+    }
+
+    /**
+     * Ejecuta la operación en una unidad y la confirma si termina sin error.
+     * Con db.unidadTrabajo.enabled=false (y sin unidad activa) la ejecuta tal cual.
+     * @param operacion Operación de negocio
+     * @return Resultado de la operación
+     */
+    public static <T> T ejecutar(Operacion<T> operacion) throws Exception {
+        if (!HABILITADA && ACTUAL.get() == null) {
+            return operacion.ejecutar();
+        }
+        try (UnidadDeTrabajo unidad = iniciar()) {
+            T resultado = operacion.ejecutar();
+            unidad.commit();
+            return resultado;
+        }
+    }
+
+    /**
+     * @return true si el thread actual tiene una unidad activa
+     */
+    public static boolean isActiva() {
+        return ACTUAL.get() != null;
+    }
+
+    /**
+     * @return Conexión de la unidad activa (ver DatabaseConnection.getConnection), o null
+     */
+    static Connection conexionActual() {
+        Estado estado = ACTUAL.get();
+        if (estado == null) {
+            return null;
+        }
+        estado.usos++;
+        return estado.compartida;
+    }
+
+    /**
+     * Ejecuta la acción luego del commit de la unidad activa (se descarta si se revierte),
+     * o en el acto si no hay unidad.
+     */
+    public static void alConfirmar(Runnable accion) {
+        Estado estado = ACTUAL.get();
+        if (estado == null) {
+            accion.run();
+        } else {
+            estado.alConfirmar.add(accion);
+        }
+    }
+
+    /**
+     * Ejecuta la acción cuando termina la unidad activa (commit o rollback),
+     * o en el acto si no hay unidad.
+     */
+    public static void alTerminar(Runnable accion) {
+        Estado estado = ACTUAL.get();
+        if (estado == null) {
+            accion.run();
+        } else {
+            estado.alTerminar.add(accion);
+        }
+    }
+
+    /**
+     * @return Conexión de la unidad (la misma que reciben los DAOs)
+     */
+    public Connection getConnection() {
+        return estado.compartida;
+    }
+
+    /**
+     * Confirma la unidad. En una unidad anidada solo registra que terminó bien:
+     * el commit real lo hace la externa.
+     * @throws SQLException Si la unidad estaba marcada para rollback o falló el commit
+     *         (en ambos casos la transacción queda revertida al cerrar)
+     */
+    public void commit() throws SQLException {
+        if (cerrada) {
+            throw new SQLException("La unidad de trabajo ya está cerrada");
+        }
+        if (estado.soloRollback) {
+            throw new SQLException("La unidad de trabajo fue marcada para rollback");
+        }
+        confirmada = true;
+        if (!externa) {
+            return;
+        }
+        long inicio = System.nanoTime();
+        try {
+            estado.conn.commit();
+        } catch (SQLException e) {
+            confirmada = false;
+            Metricas.registrar("UnidadDeTrabajo.commit", System.nanoTime() - inicio, true, 0);
+            throw e;
+        }
+        Metricas.registrar("UnidadDeTrabajo.commit", System.nanoTime() - inicio, false, estado.usos);
+        estado.confirmada = true;
+    }
+
+    /**
+     * Cierra la unidad. Sin commit previo la marca para rollback; la externa además
+     * revierte si corresponde, devuelve la conexión al pool y ejecuta las acciones diferidas.
+     */
+    @Override
+    public void close() {
+        if (cerrada) {
+            return;
+        }
+        cerrada = true;
+        if (!confirmada) {
+            estado.soloRollback = true;
+        }
+        if (!externa) {
+            estado.nivel--;
+            return;
+        }
+        ACTUAL.remove();
+        try {
+            if (!estado.confirmada) {
+                long inicio = System.nanoTime();
+                try {
+                    estado.conn.rollback();
+                    Metricas.registrar("UnidadDeTrabajo.rollback", System.nanoTime() - inicio, false, 0);
+                } catch (SQLException e) {
+                    Metricas.registrar("UnidadDeTrabajo.rollback", System.nanoTime() - inicio, true, 0);
+                    System.err.println("Error durante el rollback de la unidad de trabajo: " + e.getMessage());
+                }
+            }
+            estado.conn.setAutoCommit(true);
+        } catch (SQLException e) {
+            System.err.println("Error al restaurar autocommit: " + e.getMessage());
+        } finally {
+            try {
+                estado.conn.close();
+            } catch (SQLException e) {
+                System.err.println("Error al cerrar la conexión: " + e.getMessage());
+            }
+        }
+        if (estado.confirmada) {
+            ejecutarAcciones(estado.alConfirmar);
+        }
+        ejecutarAcciones(estado.alTerminar);
+    }
+
+    /** Una acción que falla no impide las demás (la transacción ya terminó). */
+    private static void ejecutarAcciones(List<Runnable> acciones) {
+        for (Runnable accion : acciones) {
+            try {
+                accion.run();
+            } catch (RuntimeException e) {
+                System.err.println("Error en acción diferida de la unidad de trabajo: " + e.getMessage());
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface Operacion<T> {
+        T ejecutar() throws Exception;
+    }
+
+    /** Estado compartido por la unidad externa y las anidadas. Solo lo usa su thread. */
+    private static final class Estado {
+        private final Connection conn;
+        private final Connection compartida;
+        private final List<Runnable> alConfirmar = new ArrayList<>();
+        private final List<Runnable> alTerminar = new ArrayList<>();
+        private int nivel;
+        private int usos;
+        private boolean soloRollback;
+        private boolean confirmada;
+
+        private Estado(Connection conn) {
+            this.conn = conn;
+            this.compartida = (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new Compartida(this));
+        }
+    }
+
+    /**
+     * InvocationHandler de la conexión que reciben los DAOs.
+     * - close(), commit(), setAutoCommit(): se ignoran (los controla la unidad)
+     * - rollback(): marca la unidad para rollback
+     * - rollback(Savepoint) y el resto: delegan en la conexión de la unidad
+     */
+    private static final class Compartida implements InvocationHandler {
+        private final Estado estado;
+
+        private Compartida(Estado estado) {
+            this.estado = estado;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                case "commit":
+                case "setAutoCommit":
+                    return null;
+                case "rollback":
+                    if (args == null) {
+                        estado.soloRollback = true;
+                        return null;
+                    }
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "UnidadDeTrabajo[" + estado.conn + "]";
+                default:
+                    break;
+            }
+            try {
+                return method.invoke(estado.conn, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package prog2int.Dao;
+
+import java.sql.Timestamp;
+
+/**
+ * Registro de un cambio del catálogo (fila de CambioCatalogo, ver CambioDAO).
+ *
+ * Solo indica qué fila cambió y cómo: el consumidor vuelve a leer el estado actual
+ * si lo necesita. Por eso aplicar el mismo cambio dos veces no tiene efecto.
+ */
+public final class Cambio {
+
+    /** Tabla de la fila modificada. */
+    public enum Entidad {
+        PRODUCTO,
+        CODIGO_BARRAS
+    }
+
+    public enum Operacion {
+        ALTA,
+        MODIFICACION,
+        BAJA
+    }
+
+    private final long id;
+    private final Entidad entidad;
+    private final long idEntidad;
+    private final Operacion operacion;
+    private final String origen;
+    private final Timestamp fecha;
+
+    public Cambio(long id, Entidad entidad, long idEntidad, Operacion operacion, String origen, Timestamp fecha) {
+        this.id = id;
+        this.entidad = entidad;
+        this.idEntidad = idEntidad;
+        this.operacion = operacion;
+        this.origen = origen;
+        this.fecha = fecha;
+    }
+
+    /** @return Posición en el registro (creciente): la marca del consumidor */
+    public long getId() {
+        return id;
+    }
+
+    public Entidad getEntidad() {
+        return entidad;
+    }
+
+    /** @return ID del producto o del código de barras modificado */
+    public long getIdEntidad() {
+        return idEntidad;
+    }
+
+    public Operacion getOperacion() {
+        return operacion;
+    }
+
+    /** @return Proceso que hizo el cambio (CambioDAO.ORIGEN) */
+    public String getOrigen() {
+        return origen;
+    }
+
+    /** @return true si el cambio lo hizo este proceso (ya aplicado en sus caches e índices) */
+    public boolean isPropio() {
+        return CambioDAO.ORIGEN.equals(origen);
+    }
+
+    public Timestamp getFecha() {
+        return fecha;
+    }
+
+    @Override
+    public String toString() {
+        return "Cambio{" + id + " " + operacion + " " + entidad + " " + idEntidad + "}";
+    }
+}
@@ -0,0 +1,230 @@
+package prog2int.Dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import prog2int.Config.DatabaseConnection;
+import prog2int.Config.Metricas;
+import prog2int.Config.TransactionManager;
+
+/**
+ * Registro de cambios del catálogo (tabla CambioCatalogo, ver ScriptMigracionCambios.sql).
+ *
+ * Escritura: ProductoDAO y CodigoBarrasDAO registran cada alta, modificación y baja con
+ * la misma conexión que el cambio. Los métodos con conexión propia pasan por escribir(),
+ * que agrupa sentencia y registro en una transacción; los *Tx usan la del caller. Así
+ * no hay cambio confirmado sin registro ni registro de un cambio revertido.
+ * Un cambio de código de barras registra también una MODIFICACION del producto dueño,
+ * para que los consumidores del catálogo (producto + código) no necesiten el código.
+ *
+ * Lectura: leerDesde() devuelve los registros posteriores a una marca, en lotes (ver FeedCambios);
+ * leerIds() busca registros puntuales (los ids que el feed salteó como hueco).
+ *
+ * Configuración:
+ * - -Dcambios.enabled=true registra los cambios (deshabilitado por defecto: los DAOs
+ *   escriben como antes, sin transacción adicional)
+ */
+public class CambioDAO {
+
+    /** true si los DAOs registran sus cambios. */
+    public static final boolean HABILITADO = Boolean.getBoolean("cambios.enabled");
+
+    /** Identifica a este proceso en los registros (Cambio.isPropio). */
+    public static final String ORIGEN = UUID.randomUUID().toString();
+
+    private static final String INSERT_SQL = "INSERT INTO CambioCatalogo (entidad, idEntidad, operacion, origen) "
+            + "VALUES (?, ?, ?, ?)";
+
+    /**
+     * MODIFICACION del producto dueño de un código (ninguna fila si el código aún no tiene producto).
+     */
+    private static final String INSERT_DUENIO_SQL = "INSERT INTO CambioCatalogo (entidad, idEntidad, operacion, origen) "
+            + "SELECT 'PRODUCTO', p.id, 'MODIFICACION', ? FROM producto p WHERE p.codigoBarras = ?";
+
+    private static final String SELECT_DESDE_SQL = "SELECT id, entidad, idEntidad, operacion, origen, fecha "
+            + "FROM CambioCatalogo WHERE id > ? ORDER BY id LIMIT ?";
+
+    /** Registros por id (ConsultaMultiple completa los "?"). */
+    private static final String SELECT_POR_IDS_SQL = "SELECT id, entidad, idEntidad, operacion, origen, fecha "
+            + "FROM CambioCatalogo WHERE id IN (";
+
+    private static final String SELECT_ULTIMO_SQL = "SELECT COALESCE(MAX(id), 0) FROM CambioCatalogo";
+
+    private static final String DELETE_ANTERIORES_SQL = "DELETE FROM CambioCatalogo WHERE fecha < ?";
+
+    /** Mapeo de un registro (SELECT_DESDE_SQL y SELECT_POR_IDS_SQL). */
+    private static final MapeadorFilas<Cambio> MAPEO = new MapeadorFilas<>(CambioDAO::leerCambio,
+            "CambioCatalogo.id", "CambioCatalogo.entidad", "CambioCatalogo.idEntidad",
+            "CambioCatalogo.operacion", "CambioCatalogo.origen", "CambioCatalogo.fecha");
+
+    /** Consulta de leerIds (bloques IN). */
+    private final ConsultaMultiple<Long, Cambio> consultaPorIds =
+            new ConsultaMultiple<>(SELECT_POR_IDS_SQL, MAPEO, Cambio::getId);
+
+    /**
+     * Ejecuta una escritura con conexión propia. Con registro habilitado lo hace en una
+     * transacción, para que la sentencia y su registro se confirmen juntos; si no, en
+     * autocommit como siempre. Dentro de una UnidadDeTrabajo se suma a ella.
+     * @param escritura Sentencia(s) y registro, con la conexión recibida
+     * @return Resultado de la escritura
+     */
+    static <T> T escribir(Escritura<T> escritura) throws Exception {
+        if (!HABILITADO) {
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                return escritura.ejecutar(conn);
+            }
+        }
+        // close() del TransactionManager hace rollback si no hubo commit y devuelve la conexión
+        try (TransactionManager tx = new TransactionManager(DatabaseConnection.getConnection())) {
+            tx.startTransaction();
+            T resultado = escritura.ejecutar(tx.getConnection());
+            tx.commit();
+            return resultado;
+        }
+    }
+
+    /**
+     * Registra un cambio con la conexión (y transacción) del cambio. No hace nada si el
+     * registro está deshabilitado.
+     */
+    static void registrar(Connection conn, Cambio.Entidad entidad, long idEntidad,
+                          Cambio.Operacion operacion) throws SQLException {
+        if (!HABILITADO) {
+            return;
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
+            setParametros(stmt, entidad, idEntidad, operacion);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Registra el mismo cambio para varias filas, en un batch.
+     */
+    static void registrar(Connection conn, Cambio.Entidad entidad, Collection<Long> idsEntidad,
+                          Cambio.Operacion operacion) throws SQLException {
+        if (!HABILITADO || idsEntidad.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
+            for (Long idEntidad : idsEntidad) {
+                setParametros(stmt, entidad, idEntidad, operacion);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    /**
+     * Registra un cambio de código de barras y la MODIFICACION de su producto dueño.
+     */
+    static void registrarCodigo(Connection conn, long idCodigo, Cambio.Operacion operacion) throws SQLException {
+        if (!HABILITADO) {
+            return;
+        }
+        registrar(conn, Cambio.Entidad.CODIGO_BARRAS, idCodigo, operacion);
+        try (PreparedStatement stmt = conn.prepareStatement(INSERT_DUENIO_SQL)) {
+            stmt.setString(1, ORIGEN);
+            stmt.setLong(2, idCodigo);
+            stmt.executeUpdate();
+        }
+    }
+
+    private static void setParametros(PreparedStatement stmt, Cambio.Entidad entidad, long idEntidad,
+                                      Cambio.Operacion operacion) throws SQLException {
+        stmt.setString(1, entidad.name());
+        stmt.setLong(2, idEntidad);
+        stmt.setString(3, operacion.name());
+        stmt.setString(4, ORIGEN);
+    }
+
+    /**
+     * Registros posteriores a una marca, en orden. Lee de la primaria: los ids del
+     * registro deben verse en el orden en que se confirman.
+     * @param marca Último id ya procesado (0 para empezar desde el principio)
+     * @param lote Máximo de registros a devolver
+     * @return Registros con id > marca, a lo sumo "lote"
+     */
+    public List<Cambio> leerDesde(long marca, int lote) throws Exception {
+        return Metricas.medir("CambioDAO.leerDesde", () -> {
+            List<Cambio> cambios = new ArrayList<>();
+            try (Connection conn = DatabaseConnection.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(SELECT_DESDE_SQL)) {
+                stmt.setLong(1, marca);
+                stmt.setInt(2, lote);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    int[] columnas = MAPEO.columnas(SELECT_DESDE_SQL, rs);
+                    while (rs.next()) {
+                        cambios.add(MAPEO.mapear(rs, columnas));
+                    }
+                }
+            } catch (SQLException e) {
+                throw new Exception("Error al leer los cambios del catálogo: " + e.getMessage(), e);
+            }
+            return cambios;
+        });
+    }
+
+    /**
+     * Registros puntuales por id, de la primaria (FeedCambios vuelve a buscar así los ids
+     * que salteó, por si eran de una transacción que confirmó tarde).
+     * @param ids Ids a buscar
+     * @return Encontrados por id y los que todavía no existen
+     */
+    public ResultadoMultiple<Long, Cambio> leerIds(Collection<Long> ids) throws Exception {
+        return Metricas.medir("CambioDAO.leerIds", () -> {
+            try {
+                return consultaPorIds.ejecutar(ids);
+            } catch (SQLException e) {
+                throw new Exception("Error al leer los cambios del catálogo por id: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * @return Id del último registro (0 si no hay): marca para empezar a leer solo lo que venga
+     */
+    public long ultimoId() throws Exception {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SELECT_ULTIMO_SQL);
+             ResultSet rs = stmt.executeQuery()) {
+            rs.next();
+            return rs.getLong(1);
+        } catch (SQLException e) {
+            throw new Exception("Error al leer el último cambio del catálogo: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Borra los registros anteriores a una fecha (ya leídos por todos los consumidores).
+     * @return Registros borrados
+     */
+    public int purgar(Timestamp antesDe) throws Exception {
+        return Metricas.medir("CambioDAO.purgar", () -> {
+            try (Connection conn = DatabaseConnection.getConnectionPropia();
+                 PreparedStatement stmt = conn.prepareStatement(DELETE_ANTERIORES_SQL)) {
+                stmt.setTimestamp(1, antesDe);
+                return stmt.executeUpdate();
+            } catch (SQLException e) {
+                throw new Exception("Error al purgar los cambios del catálogo: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    private static Cambio leerCambio(ResultSet rs, int[] c) throws SQLException {
+        return new Cambio(rs.getLong(c[0]), Cambio.Entidad.valueOf(rs.getString(c[1])),
+                rs.getLong(c[2]), Cambio.Operacion.valueOf(rs.getString(c[3])),
+                rs.getString(c[4]), rs.getTimestamp(c[5]));
+    }
+
+    @FunctionalInterface
+    interface Escritura<T> {
+        T ejecutar(Connection conn) throws Exception;
+    }
+}
@@ -7,8 +7,10 @@ package prog2int.Dao;
 import java.sql.Connection;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import prog2int.Config.DatabaseConnection;
+import prog2int.Config.Metricas;
 import prog2int.Models.CodigoBarras;
 import prog2int.Models.TipoCB;
 
@@ -33,8 +35,10 @@ public class CodigoBarrasDAO implements GenericDAO<CodigoBarras> {
      * Query de soft delete.
      * Marca eliminado=TRUE sin borrar físicamente la fila.
      * Preserva integridad referencial y datos históricos.
+     * fechaEliminacion define cuándo MantenimientoDAO puede archivar la fila.
      */
-    private static final String DELETE_SQL = "UPDATE codigoBarras SET eliminado = TRUE WHERE id = ?";
+    private static final String DELETE_SQL = "UPDATE codigoBarras SET eliminado = TRUE, "
+            + "fechaEliminacion = CURRENT_TIMESTAMP WHERE id = ?";
 
     /**
      * Query para obtener codigo barras por ID.
@@ -71,6 +75,26 @@ public class CodigoBarrasDAO implements GenericDAO<CodigoBarras> {
             "JOIN producto p on p.codigobarras = cb.id " +
             "WHERE cb.eliminado = FALSE AND (cb.valor = ?)";
 
+    /**
+     * Búsqueda por varios valores (ConsultaMultiple completa los "?").
+     */
+    private static final String SEARCH_BY_VALORES_SQL = "SELECT cb.id, cb.tipo, cb.valor, cb.fechaAsignacion, cb.observaciones, p.id " +
+            "FROM codigoBarras cb " +
+            "JOIN producto p on p.codigobarras = cb.id " +
+            "WHERE cb.eliminado = FALSE AND cb.valor IN (";
+
+    /**
+     * Mapeo de las consultas de código + producto dueño, con las posiciones
+     * resueltas una vez por sentencia (ver MapeadorFilas).
+     */
+    public static final MapeadorFilas<CodigoBarras> MAPEO = new MapeadorFilas<>(CodigoBarrasDAO::leerCodigoBarras,
+            "codigoBarras.id", "codigoBarras.tipo", "codigoBarras.valor", "codigoBarras.fechaAsignacion",
+            "codigoBarras.observaciones", "producto.id");
+
+    /** Consulta de getByValores (bloques IN en paralelo). */
+    private final ConsultaMultiple<String, CodigoBarras> consultaPorValores =
+            new ConsultaMultiple<>(SEARCH_BY_VALORES_SQL, MAPEO, CodigoBarras::getValor);
+
     /**
      * Inserta objeto codigo de barras en la base de datos
      * @param cb objeto codigo de barras a insertar
@@ -78,12 +102,16 @@ public class CodigoBarrasDAO implements GenericDAO<CodigoBarras> {
      */
     @Override
     public void insertar(CodigoBarras cb) throws Exception {
-        try (Connection conn = DatabaseConnection.getConnection();
-            PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
-
-            setCodigoBarrasParameters(stmt, cb);
-            stmt.executeUpdate();
-        }
+        Metricas.medir("CodigoBarrasDAO.insertar", () -> {
+            CambioDAO.escribir(conn -> {
+                try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                    setCodigoBarrasParameters(stmt, cb);
+                    stmt.executeUpdate();
+                }
+                CambioDAO.registrar(conn, Cambio.Entidad.CODIGO_BARRAS, cb.getId(), Cambio.Operacion.ALTA);
+                return null;
+            });
+        });
     }
 
     /**
@@ -94,10 +122,50 @@ public class CodigoBarrasDAO implements GenericDAO<CodigoBarras> {
      */
     @Override
     public void insertTx(CodigoBarras cb, Connection conn) throws Exception {
-        try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
-            setCodigoBarrasParameters(stmt, cb);
-            stmt.executeUpdate();
-        }
+        Metricas.medir("CodigoBarrasDAO.insertTx", () -> {
+            try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                setCodigoBarrasParameters(stmt, cb);
+                stmt.executeUpdate();
+            }
+            CambioDAO.registrar(conn, Cambio.Entidad.CODIGO_BARRAS, cb.getId(), Cambio.Operacion.ALTA);
+        });
+    }
+
+    /**
+     * Inserta una lista de codigos de barras en un único batch JDBC con conexión propia.
+     * Sin transacción (salvo con registro de cambios, ver CambioDAO): ante un error el
+     * driver puede haber insertado parte del batch.
+     * @param cbs codigos de barras a insertar
+     * @return Cantidad de filas afectadas por cada sentencia del batch
+     * @throws Exception 
+     */
+    public int[] insertarBatch(List<CodigoBarras> cbs) throws Exception {
+        return Metricas.medir("CodigoBarrasDAO.insertarBatch", () ->
+                CambioDAO.escribir(conn -> insertBatchTx(cbs, conn)));
+    }
+
+    /**
+     * Inserta una lista de codigos de barras con addBatch/executeBatch usando una
+     * conexión externa, para ser usado en transacciones
+     * @param cbs codigos de barras a insertar
+     * @param conn conexión externa
+     * @return Cantidad de filas afectadas por cada sentencia del batch
+     * @throws Exception BatchUpdateException si falla alguna fila
+     */
+    public int[] insertBatchTx(List<CodigoBarras> cbs, Connection conn) throws Exception {
+        return Metricas.medir("CodigoBarrasDAO.insertBatchTx", () -> {
+            try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
+                List<Long> ids = new ArrayList<>(cbs.size());
+                for (CodigoBarras cb : cbs) {
+                    setCodigoBarrasParameters(stmt, cb);
+                    stmt.addBatch();
+                    ids.add(cb.getId());
+                }
+                int[] filas = stmt.executeBatch();
+                CambioDAO.registrar(conn, Cambio.Entidad.CODIGO_BARRAS, ids, Cambio.Operacion.ALTA);
+                return filas;
+            }
+        });
     }
 
     /**
@@ -108,21 +176,25 @@ public class CodigoBarrasDAO implements GenericDAO<CodigoBarras> {
     //"UPDATE codigoBarras SET tipo = ?, valor = ?, fechaAsignacion = ?, observacion = ? WHERE id = ?"
     @Override
     public void actualizar(CodigoBarras cb) throws Exception {
-        try (Connection conn = DatabaseConnection.getConnection();
-            PreparedStatement stmt = conn.prepareStatement(UPDATE_SQL)) {
-
-            stmt.setString(1, cb.getTipoCB().name());
-            stmt.setString(2, cb.getValor());
-            stmt.setDate(3, new java.sql.Date(cb.getFecha().getTime()));
-            stmt.setString(4, cb.getObservaciones());
-            stmt.setLong(5, cb.getId());
-
-            int rowsAffected = stmt.executeUpdate();
-            if (rowsAffected == 0) {
-                throw new SQLException("No se pudo actualizar el Codigo de Barras con ID: " + cb.getId());
-            }
-            
-        }
+        Metricas.medir("CodigoBarrasDAO.actualizar", () -> {
+            CambioDAO.escribir(conn -> {
+                try (PreparedStatement stmt = conn.prepareStatement(UPDATE_SQL)) {
+
+                    stmt.setString(1, cb.getTipoCB().name());
+                    stmt.setString(2, cb.getValor());
+                    stmt.setDate(3, new java.sql.Date(cb.getFecha().getTime()));
+                    stmt.setString(4, cb.getObservaciones());
+                    stmt.setLong(5, cb.getId());
+
+                    int rowsAffected = stmt.executeUpdate();
+                    if (rowsAffected == 0) {
+                        throw new SQLException("No se pudo actualizar el Codigo de Barras con ID: " + cb.getId());
+                    }
+                }
+                CambioDAO.registrarCodigo(conn, cb.getId(), Cambio.Operacion.MODIFICACION);
+                return null;
+            });
+        });
     }
 
     /**
@@ -133,16 +205,21 @@ public class CodigoBarrasDAO implements GenericDAO<CodigoBarras> {
     //"UPDATE codigoBarras SET eliminado = TRUE WHERE id = ?"
     @Override
     public void eliminar(long id) throws Exception {
-            try (Connection conn = DatabaseConnection.getConnection();
-                PreparedStatement stmt = conn.prepareStatement(DELETE_SQL)) {
+        Metricas.medir("CodigoBarrasDAO.eliminar", () -> {
+            CambioDAO.escribir(conn -> {
+                try (PreparedStatement stmt = conn.prepareStatement(DELETE_SQL)) {
 
-            stmt.setLong(1, id);
-            int rowsAffected = stmt.executeUpdate();
+                    stmt.setLong(1, id);
+                    int rowsAffected = stmt.executeUpdate();
 
-            if (rowsAffected == 0) {
-                throw new SQLException("No se encontró Codigo de Barras con ID: " + id);
-            }
-        }
+                    if (rowsAffected == 0) {
+                        throw new SQLException("No se encontró Codigo de Barras con ID: " + id);
+                    }
+                }
+                CambioDAO.registrarCodigo(conn, id, Cambio.Operacion.BAJA);
+                return null;
+            });
+        });
     }
 
     /**
@@ -153,18 +230,20 @@ public class CodigoBarrasDAO implements GenericDAO<CodigoBarras> {
      */
     @Override
     public CodigoBarras getById(long id) throws Exception {
-        try (Connection conn = DatabaseConnection.getConnection();
-            PreparedStatement stmt = conn.prepareStatement(SELECT_BY_ID_SQL)) {
+        return Metricas.medir("CodigoBarrasDAO.getById", () -> {
+            try (Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(SELECT_BY_ID_SQL)) {
 
-            stmt.setInt(1, (int)id);
+                stmt.setLong(1, id);
 
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return mapResultSetToCodigoBarras(rs);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        return MAPEO.mapear(rs, MAPEO.columnas(SELECT_BY_ID_SQL, rs));
+                    }
                 }
             }
-        }
-        return null;
+            return null;
+        });
     }
 
     /**
@@ -174,19 +253,22 @@ public class CodigoBarrasDAO implements GenericDAO<CodigoBarras> {
      */
     @Override
     public List<CodigoBarras> getAll() throws Exception {
-        List<CodigoBarras> codigosBarras = new ArrayList<>();
+        return Metricas.medir("CodigoBarrasDAO.getAll", () -> {
+            List<CodigoBarras> codigosBarras = new ArrayList<>();
 
-        try (Connection conn = DatabaseConnection.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(SELECT_ALL_SQL)) {
+            try (Connection conn = DatabaseConnection.getReadConnection();
+                 Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(SELECT_ALL_SQL)) {
 
-            while (rs.next()) {
-                codigosBarras.add(mapResultSetToCodigoBarras(rs));
+                int[] columnas = MAPEO.columnas(SELECT_ALL_SQL, rs);
+                while (rs.next()) {
+                    codigosBarras.add(MAPEO.mapear(rs, columnas));
+                }
+            } catch (SQLException e) {
+                throw new Exception("Error al obtener todas las personas: " + e.getMessage(), e);
             }
-        } catch (SQLException e) {
-            throw new Exception("Error al obtener todas las personas: " + e.getMessage(), e);
-        }
-        return codigosBarras;
+            return codigosBarras;
+        });
     }
     
     /**
@@ -199,21 +281,40 @@ public class CodigoBarrasDAO implements GenericDAO<CodigoBarras> {
             "FROM codigoBarras cb" +
             "JOIN producto p on p.codigobarras = cb.id" +
             "WHERE eliminado = FALSE AND (valor LIKE ?)";*/
-    public CodigoBarras getByValor(String value) throws SQLException{
-        try (Connection conn = DatabaseConnection.getConnection();
-            PreparedStatement stmt = conn.prepareStatement(SEARCH_BY_VALOR_SQL)) {
+    public CodigoBarras getByValor(String value) throws Exception{
+        return Metricas.medir("CodigoBarrasDAO.getByValor", () -> {
+            try (Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(SEARCH_BY_VALOR_SQL)) {
 
-            stmt.setString(1, value);
+                stmt.setString(1, value);
 
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return mapResultSetToCodigoBarras(rs);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        return MAPEO.mapear(rs, MAPEO.columnas(SEARCH_BY_VALOR_SQL, rs));
+                    }
                 }
             }
-        }
-        return null;
+            return null;
+        });
     }
     
+    /**
+     * Trae muchos codigos de barras por valor en pocas consultas (ver ConsultaMultiple).
+     * Pensado para resolver una canasta de escaneos de una vez.
+     * @param valores Valores a buscar (se ignoran los repetidos)
+     * @return Codigos activos encontrados por valor y los valores faltantes
+     * @throws Exception
+     */
+    public ResultadoMultiple<String, CodigoBarras> getByValores(Collection<String> valores) throws Exception {
+        return Metricas.medir("CodigoBarrasDAO.getByValores", () -> {
+            try {
+                return consultaPorValores.ejecutar(valores);
+            } catch (SQLException e) {
+                throw new Exception("Error al obtener Codigos de Barras por valor: " + e.getMessage(), e);
+            }
+        });
+    }
+
     /**
      * Consulta simplificada para verificar existencia de un ID
      * ya sea Activo o Eliminado
@@ -222,38 +323,46 @@ public class CodigoBarrasDAO implements GenericDAO<CodigoBarras> {
      * @throws Exception 
      */
     public boolean idExists(long id) throws Exception{
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(SELECT_ID_EXIST)) {
+        return Metricas.medir("CodigoBarrasDAO.idExists", () -> {
+            try (Connection conn = DatabaseConnection.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(SELECT_ID_EXIST)) {
 
-            stmt.setLong(1, id);
+                stmt.setLong(1, id);
 
-            try (ResultSet rs = stmt.executeQuery()) {
-                return rs.next();
+                try (ResultSet rs = stmt.executeQuery()) {
+                    return rs.next();
                 
-            }
-            } catch (SQLException e) {
-                throw new Exception("Error al obtener Producto por ID: " + e.getMessage(), e);
-            }
+                }
+                } catch (SQLException e) {
+                    throw new Exception("Error al obtener Producto por ID: " + e.getMessage(), e);
+                }
+        });
         }
     
     /**
-     * Mapea el resultado del query dentro de un nuevo objeto CodigoBarras
+     * Mapea la fila actual dentro de un nuevo objeto CodigoBarras.
+     * Resuelve las columnas en cada llamada: para recorrer un ResultSet usar
+     * MAPEO.columnas() una vez y MAPEO.mapear() por fila.
      * @param rs resultado de ejecución de PreparedStatement
      * @return Codigo de Barras con todos sus campos leidos del query
      * @throws SQLException 
      */
-    
-    public CodigoBarras mapResultSetToCodigoBarras(ResultSet rs) throws SQLException{
+    public static CodigoBarras mapResultSetToCodigoBarras(ResultSet rs) throws SQLException{
+        return MAPEO.mapear(rs, MAPEO.resolver(rs));
+    }
+
+    /**
+     * Lectura por posición (ver MAPEO): ids como long y tipo por tabla precargada.
+     */
+    private static CodigoBarras leerCodigoBarras(ResultSet rs, int[] c) throws SQLException {
         CodigoBarras cb = new CodigoBarras();
-        cb.setId(rs.getInt("cb.id"));
-        cb.setValor(rs.getString("cb.valor"));
-        cb.setFecha(rs.getDate("cb.fechaAsignacion"));
-        cb.setObservaciones(rs.getString("cb.observaciones"));
-        cb.setTipoCB(TipoCB.valueOf(rs.getString("cb.tipo")));
-        cb.setIdProducto(rs.getLong("p.id"));
-        
+        cb.setId(rs.getLong(c[0]));
+        cb.setTipoCB(TipoCB.desdeColumna(rs.getString(c[1])));
+        cb.setValor(rs.getString(c[2]));
+        cb.setFecha(rs.getDate(c[3]));
+        cb.setObservaciones(rs.getString(c[4]));
+        cb.setIdProducto(rs.getLong(c[5]));
         return cb;
-        
     }
     
     
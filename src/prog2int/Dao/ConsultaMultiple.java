@@ -0,0 +1,193 @@
+package prog2int.Dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import prog2int.Config.ConnectionPool;
+import prog2int.Config.DatabaseConnection;
+import prog2int.Config.UnidadDeTrabajo;
+
+/**
+ * Consulta "WHERE clave IN (...)" para muchas claves, usada por los getBy* múltiples de los DAOs.
+ *
+ * Funcionamiento:
+ * 1. Se eliminan claves repetidas y se dividen en bloques de db.multiget.chunk claves
+ * 2. Cada bloque es un SELECT ... IN (?, ?, ...). La cantidad de "?" se redondea a la
+ *    potencia de 2 siguiente (sin pasar de db.multiget.chunk) repitiendo la última clave:
+ *    así hay pocas variantes de SQL y la cache de sentencias del pool las reutiliza
+ * 3. Con más de un bloque se ejecutan en paralelo (hilos virtuales), cada uno con su
+ *    conexión. El paralelismo es el menor entre los bloques, db.multiget.paralelismo y las
+ *    conexiones libres del pool en ese momento: nunca deja a otros threads esperando conexión
+ *    por culpa de una consulta múltiple. Con un solo bloque corre en el thread del caller.
+ *
+ * Configuración:
+ * - -Ddb.multiget.chunk=256 claves máximas por sentencia
+ * - -Ddb.multiget.paralelismo=4 bloques simultáneos como máximo
+ *
+ * @param <K> Tipo de la clave (Long o String)
+ * @param <V> Tipo de la entidad
+ */
+final class ConsultaMultiple<K, V> {
+
+    /** Claves máximas por sentencia. Configurable via -Ddb.multiget.chunk */
+    static final int TAMANIO_BLOQUE = Math.max(1, Integer.getInteger("db.multiget.chunk", 256));
+
+    /** Bloques simultáneos como máximo. Configurable via -Ddb.multiget.paralelismo */
+    private static final int PARALELISMO = Math.max(1, Integer.getInteger("db.multiget.paralelismo", 4));
+
+    /**
+     * Obtiene la clave de una entidad (para armar el mapa de resultados).
+     */
+    @FunctionalInterface
+    interface Clave<K, V> {
+        K de(V entidad);
+    }
+
+    private final String prefijoSql;
+    private final MapeadorFilas<V> mapeador;
+    private final Clave<K, V> clave;
+
+    /** SQL por cantidad de "?" (potencias de 2 y TAMANIO_BLOQUE): se arma una sola vez. */
+    private final Map<Integer, String> sqlPorCantidad = new ConcurrentHashMap<>();
+
+    /**
+     * @param prefijoSql SELECT completo terminado en "... IN (" (se completa con los "?" y ")")
+     * @param mapeador Mapeo de fila a entidad (posiciones cacheadas por variante de SQL)
+     * @param clave Clave de cada entidad mapeada
+     */
+    ConsultaMultiple(String prefijoSql, MapeadorFilas<V> mapeador, Clave<K, V> clave) {
+        this.prefijoSql = prefijoSql;
+        this.mapeador = mapeador;
+        this.clave = clave;
+    }
+
+    /**
+     * Ejecuta la consulta para todas las claves.
+     * @param claves Claves a buscar (null o vacía: resultado vacío sin ir a la base)
+     * @return Encontrados y faltantes en el orden de las claves
+     * @throws Exception Si falla alguna de las sentencias
+     */
+    ResultadoMultiple<K, V> ejecutar(Collection<K> claves) throws Exception {
+        if (claves == null || claves.isEmpty()) {
+            return ResultadoMultiple.de(List.of(), Map.of());
+        }
+        List<K> unicas = new ArrayList<>(new LinkedHashSet<>(claves));
+        for (K k : unicas) {
+            if (k == null) {
+                throw new IllegalArgumentException("Las claves no pueden ser null");
+            }
+        }
+        List<List<K>> bloques = new ArrayList<>((unicas.size() + TAMANIO_BLOQUE - 1) / TAMANIO_BLOQUE);
+        for (int desde = 0; desde < unicas.size(); desde += TAMANIO_BLOQUE) {
+            bloques.add(unicas.subList(desde, Math.min(unicas.size(), desde + TAMANIO_BLOQUE)));
+        }
+
+        Map<K, V> cargados = new ConcurrentHashMap<>(Math.max(16, unicas.size() * 2));
+        // Dentro de una UnidadDeTrabajo todos los bloques van por su conexión (misma transacción)
+        int hilos = UnidadDeTrabajo.isActiva() ? 1 : paralelismo(bloques.size());
+        if (hilos == 1) {
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                for (List<K> bloque : bloques) {
+                    consultar(conn, bloque, cargados);
+                }
+            }
+        } else {
+            ejecutarEnParalelo(bloques, hilos, cargados);
+        }
+        return ResultadoMultiple.de(unicas, cargados);
+    }
+
+    /**
+     * Cada tarea toma bloques de una cola compartida hasta agotarla, con una sola
+     * conexión para todos sus bloques.
+     */
+    private void ejecutarEnParalelo(List<List<K>> bloques, int hilos, Map<K, V> cargados) throws Exception {
+        AtomicInteger siguiente = new AtomicInteger();
+        List<Future<Void>> tareas = new ArrayList<>(hilos);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < hilos; i++) {
+                tareas.add(executor.submit(() -> {
+                    try (Connection conn = DatabaseConnection.getConnection()) {
+                        int indice;
+                        while ((indice = siguiente.getAndIncrement()) < bloques.size()) {
+                            consultar(conn, bloques.get(indice), cargados);
+                        }
+                    } catch (Exception e) {
+                        // Los demás dejan de tomar bloques: el resultado ya no se va a usar
+                        siguiente.set(bloques.size());
+                        throw e;
+                    }
+                    return null;
+                }));
+            }
+        }
+        for (Future<Void> tarea : tareas) {
+            try {
+                tarea.get();
+            } catch (ExecutionException e) {
+                Throwable causa = e.getCause();
+                throw causa instanceof Exception ex ? ex : new Exception(causa);
+            }
+        }
+    }
+
+    private void consultar(Connection conn, List<K> bloque, Map<K, V> cargados) throws SQLException {
+        int parametros = redondear(bloque.size());
+        String sql = sql(parametros);
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < parametros; i++) {
+                // Relleno con la última clave: no cambia el resultado del IN
+                stmt.setObject(i + 1, bloque.get(Math.min(i, bloque.size() - 1)));
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                int[] columnas = mapeador.columnas(sql, rs);
+                while (rs.next()) {
+                    V entidad = mapeador.mapear(rs, columnas);
+                    cargados.put(clave.de(entidad), entidad);
+                }
+            }
+        }
+    }
+
+    /** @return SQL con la cantidad de "?" indicada */
+    private String sql(int parametros) {
+        return sqlPorCantidad.computeIfAbsent(parametros, n -> {
+            StringBuilder sb = new StringBuilder(prefijoSql.length() + n * 2 + 1).append(prefijoSql);
+            for (int i = 0; i < n; i++) {
+                sb.append(i == 0 ? "?" : ",?");
+            }
+            return sb.append(')').toString();
+        });
+    }
+
+    /** @return Potencia de 2 mayor o igual a n, sin pasar de TAMANIO_BLOQUE */
+    private static int redondear(int n) {
+        int potencia = n <= 1 ? 1 : Integer.highestOneBit(n - 1) << 1;
+        return Math.min(potencia, TAMANIO_BLOQUE);
+    }
+
+    /**
+     * @return Tareas simultáneas: como máximo una por bloque, PARALELISMO y las conexiones
+     *         que el pool puede prestar sin hacer esperar a nadie (al menos 1)
+     */
+    private static int paralelismo(int bloques) {
+        if (bloques == 1 || PARALELISMO == 1) {
+            return 1;
+        }
+        ConnectionPool.Estadisticas pool = DatabaseConnection.getEstadisticasPool();
+        int disponibles = pool.getMaximo() - pool.getActivas() - pool.getEsperando();
+        return Math.max(1, Math.min(Math.min(bloques, PARALELISMO), disponibles));
+    }
+}
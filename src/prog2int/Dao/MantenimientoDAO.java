@@ -0,0 +1,186 @@
+package prog2int.Dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import prog2int.Config.DatabaseConnection;
+import prog2int.Config.Metricas;
+import prog2int.Config.TransactionManager;
+
+/**
+ * Archivado de bajas lógicas: mueve las filas con eliminado = TRUE y fechaEliminacion
+ * anterior a un límite a productoArchivo / codigoBarrasArchivo y las borra de las
+ * tablas principales, para que los recorridos y búsquedas LIKE no las lean.
+ *
+ * Requiere ScriptMigracionMantenimiento.sql (columna fechaEliminacion y tablas de archivo).
+ *
+ * Cada llamada procesa un lote en su propia transacción (copia + borrado juntos):
+ * las transacciones son cortas y un error deja el lote sin archivar, nunca a medias.
+ */
+public class MantenimientoDAO {
+
+    /**
+     * Productos a archivar, bloqueados hasta el commit.
+     * cb.eliminado indica si el código también se archiva (normalmente sí: la baja es en cascada).
+     */
+    private static final String SELECT_PRODUCTOS_SQL = "SELECT p.id, p.codigoBarras, cb.eliminado " +
+            "FROM producto p JOIN codigoBarras cb ON p.codigoBarras = cb.id " +
+            "WHERE p.eliminado = TRUE AND p.fechaEliminacion < ? " +
+            "ORDER BY p.id LIMIT ? FOR UPDATE";
+
+    /**
+     * Códigos dados de baja que ningún producto referencia (la FK impide borrar los otros).
+     */
+    private static final String SELECT_CODIGOS_HUERFANOS_SQL = "SELECT cb.id FROM codigoBarras cb " +
+            "WHERE cb.eliminado = TRUE AND cb.fechaEliminacion < ? " +
+            "AND NOT EXISTS (SELECT 1 FROM producto p WHERE p.codigoBarras = cb.id) " +
+            "ORDER BY cb.id LIMIT ? FOR UPDATE";
+
+    /** Copia al archivo (se completa con los "?" del IN y ")"). El primer parámetro es fechaArchivo. */
+    private static final String ARCHIVAR_PRODUCTOS_SQL = "INSERT INTO productoArchivo " +
+            "(id, nombre, marca, categoria, precio, peso, codigoBarras, fechaEliminacion, fechaArchivo) " +
+            "SELECT id, nombre, marca, categoria, precio, peso, codigoBarras, fechaEliminacion, ? " +
+            "FROM producto WHERE eliminado = TRUE AND id IN (";
+
+    private static final String ARCHIVAR_CODIGOS_SQL = "INSERT INTO codigoBarrasArchivo " +
+            "(id, tipo, valor, fechaAsignacion, observaciones, fechaEliminacion, fechaArchivo) " +
+            "SELECT id, tipo, valor, fechaAsignacion, observaciones, fechaEliminacion, ? " +
+            "FROM codigoBarras WHERE eliminado = TRUE AND id IN (";
+
+    private static final String BORRAR_PRODUCTOS_SQL = "DELETE FROM producto WHERE eliminado = TRUE AND id IN (";
+
+    private static final String BORRAR_CODIGOS_SQL = "DELETE FROM codigoBarras WHERE eliminado = TRUE AND id IN (";
+
+    private static final String CONTAR_PRODUCTOS_SQL = "SELECT COUNT(*) FROM producto WHERE eliminado = TRUE";
+
+    private static final String CONTAR_CODIGOS_SQL = "SELECT COUNT(*) FROM codigoBarras WHERE eliminado = TRUE";
+
+    /**
+     * Archiva un lote de productos dados de baja antes del límite, junto con sus códigos.
+     * @param limite Solo se archivan bajas con fechaEliminacion anterior
+     * @param lote Productos máximos a archivar
+     * @return {productos archivados, códigos archivados}; productos &lt; lote indica que no quedan más
+     * @throws Exception Si falla alguna sentencia (el lote queda sin archivar)
+     */
+    public int[] archivarProductos(Timestamp limite, int lote) throws Exception {
+        return Metricas.medir("MantenimientoDAO.archivarProductos", () -> {
+            try (TransactionManager tx = new TransactionManager(DatabaseConnection.getConnection())) {
+                tx.startTransaction();
+                Connection conn = tx.getConnection();
+                List<Long> productos = new ArrayList<>(lote);
+                List<Long> codigos = new ArrayList<>(lote);
+                try (PreparedStatement stmt = conn.prepareStatement(SELECT_PRODUCTOS_SQL)) {
+                    stmt.setTimestamp(1, limite);
+                    stmt.setInt(2, lote);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            productos.add(rs.getLong(1));
+                            if (rs.getBoolean(3)) {
+                                codigos.add(rs.getLong(2));
+                            }
+                        }
+                    }
+                }
+                if (productos.isEmpty()) {
+                    tx.commit();
+                    return new int[] {0, 0};
+                }
+                Timestamp ahora = new Timestamp(System.currentTimeMillis());
+                mover(conn, ARCHIVAR_PRODUCTOS_SQL, BORRAR_PRODUCTOS_SQL, productos, ahora);
+                // Después de los productos: la FK no deja borrar un código referenciado
+                mover(conn, ARCHIVAR_CODIGOS_SQL, BORRAR_CODIGOS_SQL, codigos, ahora);
+                tx.commit();
+                return new int[] {productos.size(), codigos.size()};
+            } catch (SQLException e) {
+                throw new Exception("Error al archivar Productos eliminados: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Archiva un lote de códigos dados de baja sin producto asociado.
+     * @param limite Solo se archivan bajas con fechaEliminacion anterior
+     * @param lote Códigos máximos a archivar
+     * @return Códigos archivados; menos que lote indica que no quedan más
+     * @throws Exception Si falla alguna sentencia (el lote queda sin archivar)
+     */
+    public int archivarCodigosHuerfanos(Timestamp limite, int lote) throws Exception {
+        return Metricas.medir("MantenimientoDAO.archivarCodigosHuerfanos", () -> {
+            try (TransactionManager tx = new TransactionManager(DatabaseConnection.getConnection())) {
+                tx.startTransaction();
+                Connection conn = tx.getConnection();
+                List<Long> codigos = new ArrayList<>(lote);
+                try (PreparedStatement stmt = conn.prepareStatement(SELECT_CODIGOS_HUERFANOS_SQL)) {
+                    stmt.setTimestamp(1, limite);
+                    stmt.setInt(2, lote);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            codigos.add(rs.getLong(1));
+                        }
+                    }
+                }
+                mover(conn, ARCHIVAR_CODIGOS_SQL, BORRAR_CODIGOS_SQL, codigos, new Timestamp(System.currentTimeMillis()));
+                tx.commit();
+                return codigos.size();
+            } catch (SQLException e) {
+                throw new Exception("Error al archivar Códigos de Barras eliminados: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * @return Productos dados de baja que siguen en la tabla principal
+     */
+    public long contarProductosEliminados() throws Exception {
+        return contar(CONTAR_PRODUCTOS_SQL);
+    }
+
+    /**
+     * @return Códigos dados de baja que siguen en la tabla principal
+     */
+    public long contarCodigosEliminados() throws Exception {
+        return contar(CONTAR_CODIGOS_SQL);
+    }
+
+    private long contar(String sql) throws Exception {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        } catch (SQLException e) {
+            throw new Exception("Error al contar filas eliminadas: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * INSERT ... SELECT al archivo y DELETE de las mismas filas, en la transacción de conn.
+     */
+    private static void mover(Connection conn, String archivarSql, String borrarSql, List<Long> ids,
+            Timestamp fechaArchivo) throws SQLException {
+        if (ids.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement archivar = conn.prepareStatement(conIn(archivarSql, ids.size()));
+             PreparedStatement borrar = conn.prepareStatement(conIn(borrarSql, ids.size()))) {
+            archivar.setTimestamp(1, fechaArchivo);
+            for (int i = 0; i < ids.size(); i++) {
+                archivar.setLong(i + 2, ids.get(i));
+                borrar.setLong(i + 1, ids.get(i));
+            }
+            archivar.executeUpdate();
+            borrar.executeUpdate();
+        }
+    }
+
+    private static String conIn(String prefijo, int cantidad) {
+        StringBuilder sb = new StringBuilder(prefijo.length() + cantidad * 2 + 1).append(prefijo);
+        for (int i = 0; i < cantidad; i++) {
+            sb.append(i == 0 ? "?" : ",?");
+        }
+        return sb.append(')').toString();
+    }
+}
@@ -0,0 +1,111 @@
+package prog2int.Dao;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Mapeo de filas por posición de columna, resuelta una vez por sentencia.
+ *
+ * rs.getString("p.nombre") busca la etiqueta en cada fila y en cada columna.
+ * Acá las columnas se declaran una vez ("tabla.columna"), se resuelven contra los
+ * metadatos del primer ResultSet de cada SQL y las posiciones quedan cacheadas:
+ * por fila solo hay getLong(n) / getString(n).
+ *
+ * Uso en un DAO:
+ * <pre>
+ * int[] c = MAPEO.columnas(SELECT_ALL_SQL, rs);
+ * while (rs.next()) {
+ *     lista.add(MAPEO.mapear(rs, c));
+ * }
+ * </pre>
+ *
+ * La misma instancia sirve para consultas con las columnas en otro orden (por ejemplo,
+ * el mapeo de CodigoBarras sobre el SELECT de productos): cada SQL tiene sus posiciones.
+ * Si el driver no informa tabla/columna en los metadatos, se usan las posiciones
+ * en el orden declarado (el de los SELECT de los DAOs).
+ *
+ * @param <T> Tipo de la entidad
+ */
+public final class MapeadorFilas<T> {
+
+    /**
+     * Lee la fila actual usando las posiciones resueltas.
+     * columnas[i] es la posición (1..n) de la i-ésima columna declarada.
+     */
+    @FunctionalInterface
+    public interface Lector<T> {
+        T leer(ResultSet rs, int[] columnas) throws SQLException;
+    }
+
+    private final Lector<T> lector;
+    /** Tabla y columna de cada columna declarada ("producto.id" → {"producto", "id"}). */
+    private final String[][] declaradas;
+    /** Posiciones por SQL. Las variantes son pocas (constantes de los DAOs y bloques de ConsultaMultiple). */
+    private final Map<String, int[]> porSql = new ConcurrentHashMap<>();
+
+    /**
+     * @param lector Construcción de la entidad a partir de las posiciones
+     * @param columnas Columnas como "tabla.columna" (nombre real de la tabla, no el alias)
+     */
+    public MapeadorFilas(Lector<T> lector, String... columnas) {
+        this.lector = lector;
+        this.declaradas = new String[columnas.length][];
+        for (int i = 0; i < columnas.length; i++) {
+            int punto = columnas[i].indexOf('.');
+            if (punto <= 0) {
+                throw new IllegalArgumentException("Columna sin tabla: " + columnas[i]);
+            }
+            declaradas[i] = new String[] {columnas[i].substring(0, punto), columnas[i].substring(punto + 1)};
+        }
+    }
+
+    /**
+     * @param sql SQL que generó el ResultSet (clave de la cache de posiciones)
+     * @return Posiciones de las columnas declaradas en ese SQL
+     */
+    public int[] columnas(String sql, ResultSet rs) throws SQLException {
+        int[] posiciones = porSql.get(sql);
+        if (posiciones == null) {
+            posiciones = resolver(rs);
+            porSql.putIfAbsent(sql, posiciones);
+        }
+        return posiciones;
+    }
+
+    /**
+     * Resuelve las posiciones sin cache (ResultSet de origen desconocido).
+     */
+    public int[] resolver(ResultSet rs) throws SQLException {
+        ResultSetMetaData md = rs.getMetaData();
+        int[] posiciones = new int[declaradas.length];
+        int total = md == null ? 0 : md.getColumnCount();
+        for (int i = 0; i < declaradas.length; i++) {
+            for (int n = 1; n <= total; n++) {
+                if (declaradas[i][1].equalsIgnoreCase(md.getColumnName(n))
+                        && declaradas[i][0].equalsIgnoreCase(md.getTableName(n))) {
+                    posiciones[i] = n;
+                    break;
+                }
+            }
+            if (posiciones[i] == 0) {
+                // El driver no informa la tabla: orden declarado
+                for (int j = 0; j < posiciones.length; j++) {
+                    posiciones[j] = j + 1;
+                }
+                return posiciones;
+            }
+        }
+        return posiciones;
+    }
+
+    /**
+     * Mapea la fila actual.
+     * @param columnas Posiciones obtenidas con columnas() o resolver() para este ResultSet
+     */
+    public T mapear(ResultSet rs, int[] columnas) throws SQLException {
+        return lector.leer(rs, columnas);
+    }
+}
@@ -0,0 +1,116 @@
+package prog2int.Dao;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Página de resultados de una consulta con paginación por clave (keyset / seek).
+ *
+ * En lugar de OFFSET, cada página guarda la clave de orden de su último elemento
+ * en un token opaco. La página siguiente se pide con "clave > último token",
+ * que el motor resuelve con el índice: pedir la página 10.000 cuesta lo mismo que la 1.
+ *
+ * El token es un String Base64 (URL-safe) con el modo de orden y los valores de la clave;
+ * el caller no debe interpretarlo, solo devolverlo para pedir la página siguiente.
+ * Una fuente en memoria con el mismo orden (IndiceBusqueda) arma los mismos tokens, así
+ * que una navegación puede seguir en la base si el índice deja de estar disponible.
+ *
+ * @param <T> Tipo de los elementos
+ */
+public class Pagina<T> {
+
+    /** Separador de los valores dentro del token (no aparece en datos de texto normales). */
+    private static final char SEPARADOR = '\u001F';
+
+    private final List<T> items;
+    private final String siguiente;
+
+    public Pagina(List<T> items, String siguiente) {
+        this.items = Collections.unmodifiableList(items);
+        this.siguiente = siguiente;
+    }
+
+    /** @return Elementos de la página, en el orden de la consulta */
+    public List<T> getItems() {
+        return items;
+    }
+
+    /** @return Token para pedir la página siguiente, o null si esta es la última */
+    public String getSiguiente() {
+        return siguiente;
+    }
+
+    public boolean hayMas() {
+        return siguiente != null;
+    }
+
+    /**
+     * Codifica la clave de orden del último elemento.
+     * @param modo Identificador del orden (evita usar un token de un listado en otro)
+     * @param valores Valores de la clave en orden
+     */
+    public static String crearToken(String modo, Object... valores) {
+        StringBuilder sb = new StringBuilder(modo);
+        for (Object valor : valores) {
+            sb.append(SEPARADOR).append(valor == null ? "" : valor);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica un token generado por crearToken.
+     * @param token Token recibido (null = primera página)
+     * @param modo Modo esperado
+     * @param cantidad Cantidad de valores esperados
+     * @return Valores de la clave, o null si token es null
+     * @throws IllegalArgumentException Si el token no corresponde al modo o está corrupto
+     */
+    public static String[] leerToken(String token, String modo, int cantidad) {
+        if (token == null) {
+            return null;
+        }
+        String texto;
+        try {
+            texto = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Token de paginación inválido");
+        }
+        List<String> partes = new ArrayList<>(cantidad + 1);
+        int desde = 0;
+        for (int i = 0; i <= texto.length(); i++) {
+            if (i == texto.length() || texto.charAt(i) == SEPARADOR) {
+                partes.add(texto.substring(desde, i));
+                desde = i + 1;
+            }
+        }
+        if (partes.size() != cantidad + 1 || !partes.get(0).equals(modo)) {
+            throw new IllegalArgumentException("Token de paginación inválido");
+        }
+        return partes.subList(1, partes.size()).toArray(new String[0]);
+    }
+
+    /**
+     * Valor de una columna que admite NULL dentro del token: NULL se guarda vacío y el
+     * resto con prefijo '=', para no confundir NULL con '' (se ordenan distinto).
+     */
+    public static String aTokenNulable(String valor) {
+        return valor == null ? "" : "=" + valor;
+    }
+
+    /**
+     * Inversa de aTokenNulable.
+     * @throws IllegalArgumentException Si el valor no fue generado por aTokenNulable
+     */
+    public static String desdeTokenNulable(String valor) {
+        if (valor.isEmpty()) {
+            return null;
+        }
+        if (valor.charAt(0) != '=') {
+            throw new IllegalArgumentException("Token de paginación inválido");
+        }
+        return valor.substring(1);
+    }
+}
@@ -0,0 +1,12 @@
+package prog2int.Dao;
+
+/**
+ * Callback para recorrer resultados fila a fila sin materializar una lista.
+ * Usado por las lecturas en streaming (por ejemplo ProductoDAO.recorrerTodos).
+ *
+ * @param <T> Tipo de entidad mapeada por fila
+ */
+@FunctionalInterface
+public interface ProcesadorFila<T> {
+    void procesar(T entidad) throws Exception;
+}
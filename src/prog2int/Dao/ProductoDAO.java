@@ -8,8 +8,12 @@ import prog2int.Models.Producto;
 import java.sql.*;
 import java.sql.Connection;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import prog2int.Config.DatabaseConnection;
+import prog2int.Config.Metricas;
+import prog2int.Config.TransactionManager;
 import prog2int.Models.CodigoBarras;
 import prog2int.Models.TipoCB;
 
@@ -34,8 +38,29 @@ public class ProductoDAO implements GenericDAO<Producto>{
      * Query de soft delete.
      * Marca eliminado=TRUE sin borrar físicamente la fila.
      * Preserva integridad referencial y datos históricos.
+     * UPDATE multi-tabla: da de baja el producto y su código de barras en una sola
+     * sentencia (atómica por sí misma, sin leer antes el producto).
+     * fechaEliminacion define cuándo MantenimientoDAO puede archivar la fila.
      */
-    private static final String DELETE_SQL = "UPDATE producto SET eliminado = TRUE WHERE id = ?";
+    private static final String DELETE_SQL = "UPDATE producto p JOIN codigoBarras cb ON p.codigoBarras = cb.id " +
+            "SET p.eliminado = TRUE, p.fechaEliminacion = CURRENT_TIMESTAMP, " +
+            "cb.eliminado = TRUE, cb.fechaEliminacion = CURRENT_TIMESTAMP " +
+            "WHERE p.id = ? AND p.eliminado = FALSE";
+
+    /**
+     * Soft delete de varios productos con sus códigos (eliminarMany completa los "?").
+     */
+    private static final String DELETE_MANY_SQL = "UPDATE producto p JOIN codigoBarras cb ON p.codigoBarras = cb.id " +
+            "SET p.eliminado = TRUE, p.fechaEliminacion = CURRENT_TIMESTAMP, " +
+            "cb.eliminado = TRUE, cb.fechaEliminacion = CURRENT_TIMESTAMP " +
+            "WHERE p.eliminado = FALSE AND p.id IN (";
+
+    /**
+     * Productos activos de un bloque de eliminarMany, bloqueados hasta el commit: con el
+     * registro de cambios habilitado solo se registra la BAJA de los que realmente se dan de baja.
+     */
+    private static final String SELECT_ACTIVOS_FOR_UPDATE_SQL = "SELECT id FROM producto " +
+            "WHERE eliminado = FALSE AND id IN (";
 
     /**
      * Query para obtener productos por ID.
@@ -91,12 +116,106 @@ public class ProductoDAO implements GenericDAO<Producto>{
             "WHERE p.eliminado = FALSE AND ((p.marca LIKE ?) OR (p.categoria LIKE ?)) " + 
             "ORDER BY p.marca, p.categoria";
 
+    /**
+     * Columnas y JOIN comunes a las consultas paginadas (mismo orden que el resto de los SELECT).
+     */
+    private static final String SELECT_PRODUCTO_CB = "SELECT p.id, p.nombre, p.marca, p.categoria, p.precio, " +
+            "p.peso, cb.id, cb.tipo,cb.valor, cb.fechaAsignacion, cb.observaciones " +
+            "FROM producto p JOIN codigoBarras cb ON p.codigoBarras = cb.id ";
+
+    /**
+     * Página de productos activos ordenados por id (keyset: p.id > último id).
+     * La primera página usa último id = 0.
+     */
+    private static final String PAGE_ALL_SQL = SELECT_PRODUCTO_CB +
+            "WHERE p.eliminado = FALSE AND p.id > ? " +
+            "ORDER BY p.id LIMIT ?";
+
+    /**
+     * Página de búsqueda por nombre ordenada por (nombre, id).
+     * Keyset: (p.nombre, p.id) > (último nombre, último id); la primera página usa ('', 0).
+     */
+    private static final String PAGE_BY_NAME_SQL = SELECT_PRODUCTO_CB +
+            "WHERE p.eliminado = FALSE AND p.nombre LIKE ? " +
+            "AND (p.nombre > ? OR (p.nombre = ? AND p.id > ?)) " +
+            "ORDER BY p.nombre, p.id LIMIT ?";
+
+    /**
+     * Página de búsqueda por marca o categoria ordenada por (marca, categoria, id).
+     * Se compara y ordena por las columnas tal cual (sin COALESCE) para que el orden
+     * pueda salir de un índice por marca, sin filesort.
+     * marca y categoria admiten NULL, que MySQL ordena primero: si el último valor es NULL
+     * sigue cualquier valor no nulo ("? IS NULL AND ... IS NOT NULL"), y la igualdad se
+     * compara con <=>. La primera página usa (NULL, NULL, 0).
+     */
+    private static final String PAGE_BY_BRAND_SQL = SELECT_PRODUCTO_CB +
+            "WHERE p.eliminado = FALSE AND ((p.marca LIKE ?) OR (p.categoria LIKE ?)) " +
+            "AND (p.marca > ? OR (? IS NULL AND p.marca IS NOT NULL) OR (p.marca <=> ? " +
+            "AND (p.categoria > ? OR (? IS NULL AND p.categoria IS NOT NULL) " +
+            "OR (p.categoria <=> ? AND p.id > ?)))) " +
+            "ORDER BY p.marca, p.categoria, p.id LIMIT ?";
+
+    /**
+     * Productos activos cuyo id está en la lista (ConsultaMultiple completa los "?").
+     */
+    private static final String SELECT_BY_IDS_SQL = SELECT_PRODUCTO_CB +
+            "WHERE p.eliminado = FALSE AND p.id IN (";
+
+    /**
+     * Catálogo activo con la última modificación de cada fila (producto o código), para
+     * armar el snapshot (ver ScriptMigracionSnapshot.sql).
+     */
+    private static final String SELECT_ALL_MODIFICACION_SQL = "SELECT p.id, p.nombre, p.marca, p.categoria, p.precio, " +
+            "p.peso, cb.id, cb.tipo,cb.valor, cb.fechaAsignacion, cb.observaciones, " +
+            "GREATEST(p.fechaModificacion, cb.fechaModificacion) " +
+            "FROM producto p JOIN codigoBarras cb ON p.codigoBarras = cb.id " +
+            "WHERE p.eliminado = FALSE " +
+            "ORDER BY p.id";
+
+    /**
+     * Filas modificadas desde una fecha, incluidas las bajas lógicas (producto o código eliminado).
+     * Un OR entre columnas de las dos tablas del JOIN no puede usar los índices de fecha
+     * (recorre todo el catálogo): cada rama busca por el índice de su tabla y el UNION
+     * quita las filas modificadas en ambas. Sin nombres de tabla en el resultado del UNION,
+     * MAPEO toma las columnas en el orden declarado; "ORDER BY 1" es p.id.
+     */
+    private static final String SELECT_CAMBIOS_COLUMNAS_SQL = "SELECT p.id, p.nombre, p.marca, p.categoria, " +
+            "p.precio, p.peso, cb.id, cb.tipo,cb.valor, cb.fechaAsignacion, cb.observaciones, " +
+            "GREATEST(p.fechaModificacion, cb.fechaModificacion), p.eliminado, cb.eliminado " +
+            "FROM producto p JOIN codigoBarras cb ON p.codigoBarras = cb.id ";
+
+    private static final String SELECT_CAMBIOS_SQL =
+            SELECT_CAMBIOS_COLUMNAS_SQL + "WHERE p.fechaModificacion >= ? " +
+            "UNION " +
+            SELECT_CAMBIOS_COLUMNAS_SQL + "WHERE cb.fechaModificacion >= ? " +
+            "ORDER BY 1";
+
+    /**
+     * Fetch size para lecturas en streaming. Configurable via -Ddb.fetchSize.
+     * Si no se configura: Integer.MIN_VALUE con MySQL (el driver transmite fila a fila)
+     * y 1000 con otros motores.
+     */
+    private static final Integer FETCH_SIZE = Integer.getInteger("db.fetchSize");
+
     /**
      * DAO de CodigoBarras
      * Inyectado en el constructor por si se necesita coordinar operaciones.
      */
     private final CodigoBarrasDAO codigoBarrasDAO;
 
+    /**
+     * Mapeo de las consultas de producto + código (columnas de SELECT_PRODUCTO_CB),
+     * con las posiciones resueltas una vez por sentencia.
+     */
+    public static final MapeadorFilas<Producto> MAPEO = new MapeadorFilas<>(ProductoDAO::leerProducto,
+            "producto.id", "producto.nombre", "producto.marca", "producto.categoria", "producto.precio",
+            "producto.peso", "codigoBarras.id", "codigoBarras.tipo", "codigoBarras.valor",
+            "codigoBarras.fechaAsignacion", "codigoBarras.observaciones");
+
+    /** Consulta de getByIds (bloques IN en paralelo). */
+    private final ConsultaMultiple<Long, Producto> consultaPorIds =
+            new ConsultaMultiple<>(SELECT_BY_IDS_SQL, MAPEO, Producto::getId);
+
     /**
      * Constructor con inyección de CodigoBarrasDAO.
      * Valida que la dependencia no sea null (fail-fast).
@@ -118,12 +237,16 @@ public class ProductoDAO implements GenericDAO<Producto>{
      */
     @Override
     public void insertar(Producto prod) throws Exception {
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
-
-            setProductoParameters(stmt, prod);
-            stmt.executeUpdate();
-        }
+        Metricas.medir("ProductoDAO.insertar", () -> {
+            CambioDAO.escribir(conn -> {
+                try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                    setProductoParameters(stmt, prod);
+                    stmt.executeUpdate();
+                }
+                CambioDAO.registrar(conn, Cambio.Entidad.PRODUCTO, prod.getId(), Cambio.Operacion.ALTA);
+                return null;
+            });
+        });
     }
 
     /**
@@ -134,13 +257,109 @@ public class ProductoDAO implements GenericDAO<Producto>{
      */
     @Override
     public void insertTx(Producto prod, Connection conn) throws Exception {
-        try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
-            setProductoParameters(stmt, prod);
-            stmt.executeUpdate();
-        }
+        Metricas.medir("ProductoDAO.insertTx", () -> {
+            try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                setProductoParameters(stmt, prod);
+                stmt.executeUpdate();
+            }
+            CambioDAO.registrar(conn, Cambio.Entidad.PRODUCTO, prod.getId(), Cambio.Operacion.ALTA);
+        });
+    }
+
+
+    /**
+     * Inserta una lista de productos en un único batch JDBC con conexión propia.
+     * Sin transacción (salvo con registro de cambios, ver CambioDAO): ante un error el
+     * driver puede haber insertado parte del batch.
+     * Para cargas atómicas usar insertBatchTx dentro de un TransactionManager.
+     * @param productos Productos a insertar (cada uno con su CodigoBarras ya persistido)
+     * @return Cantidad de filas afectadas por cada sentencia del batch
+     * @throws Exception 
+     */
+    public int[] insertarBatch(List<Producto> productos) throws Exception {
+        return Metricas.medir("ProductoDAO.insertarBatch", () ->
+                CambioDAO.escribir(conn -> insertBatchTx(productos, conn)));
     }
 
+    /**
+     * Inserta una lista de productos con addBatch/executeBatch usando una conexión externa,
+     * para ser usado en transacciones.
+     * Con MySQL conviene agregar rewriteBatchedStatements=true a db.url para que el driver
+     * envíe el batch como un único INSERT multi-fila.
+     * @param productos Productos a insertar
+     * @param conn conexión externa
+     * @return Cantidad de filas afectadas por cada sentencia del batch
+     * @throws Exception BatchUpdateException si falla alguna fila
+     */
+    public int[] insertBatchTx(List<Producto> productos, Connection conn) throws Exception {
+        return Metricas.medir("ProductoDAO.insertBatchTx", () -> {
+            try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
+                for (Producto prod : productos) {
+                    setProductoParameters(stmt, prod);
+                    stmt.addBatch();
+                }
+                int[] filas = stmt.executeBatch();
+                CambioDAO.registrar(conn, Cambio.Entidad.PRODUCTO, ids(productos), Cambio.Operacion.ALTA);
+                return filas;
+            }
+        });
+    }
     
+    /**
+     * Actualiza una lista de productos en un batch JDBC dentro de una transacción propia:
+     * se aplican todos o ninguno. Usado por la escritura diferida (EscrituraDiferida).
+     * @param productos Productos con los datos finales
+     * @return Filas afectadas por cada UPDATE (0 si el producto no existe)
+     * @throws Exception Si falla el batch (ya se hizo rollback)
+     */
+    public int[] actualizarBatch(List<Producto> productos) throws Exception {
+        return Metricas.medir("ProductoDAO.actualizarBatch", () -> {
+            // close() del TransactionManager hace rollback si no hubo commit y devuelve la conexión
+            try (TransactionManager tx = new TransactionManager(DatabaseConnection.getConnection())) {
+                tx.startTransaction();
+                int[] filas = actualizarBatchTx(productos, tx.getConnection());
+                tx.commit();
+                return filas;
+            } catch (SQLException e) {
+                throw new Exception("Error al actualizar el lote de Productos: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Actualiza una lista de productos con addBatch/executeBatch usando una conexión externa.
+     * @param productos Productos con los datos finales
+     * @param conn conexión externa
+     * Solo se registra la MODIFICACION de los productos que existían (filas distintas de 0).
+     * @return Filas afectadas por cada UPDATE
+     * @throws Exception BatchUpdateException si falla alguna fila
+     */
+    public int[] actualizarBatchTx(List<Producto> productos, Connection conn) throws Exception {
+        return Metricas.medir("ProductoDAO.actualizarBatchTx", () -> {
+            try (PreparedStatement stmt = conn.prepareStatement(UPDATE_SQL)) {
+                for (Producto prod : productos) {
+                    stmt.setString(1, prod.getNombre());
+                    stmt.setString(2, prod.getMarca());
+                    stmt.setString(3, prod.getCategoria());
+                    stmt.setDouble(4, prod.getPrecio());
+                    stmt.setDouble(5, prod.getPeso());
+                    stmt.setLong(6, prod.getId());
+                    stmt.addBatch();
+                }
+                int[] filas = stmt.executeBatch();
+                List<Long> modificados = new ArrayList<>(productos.size());
+                for (int i = 0; i < productos.size(); i++) {
+                    // Statement.SUCCESS_NO_INFO (-2) cuenta como modificado, igual que en EscrituraDiferida
+                    if (i >= filas.length || filas[i] != 0) {
+                        modificados.add(productos.get(i).getId());
+                    }
+                }
+                CambioDAO.registrar(conn, Cambio.Entidad.PRODUCTO, modificados, Cambio.Operacion.MODIFICACION);
+                return filas;
+            }
+        });
+    }
+
     //"UPDATE producto SET nombre = ?, marca = ?, categoria = ?, precio = ?, peso = ? WHERE id = ?";
         /**
      * Actualiza en la base de datos un producto
@@ -149,43 +368,105 @@ public class ProductoDAO implements GenericDAO<Producto>{
      */
     @Override
     public void actualizar(Producto prod) throws Exception {
-            try (Connection conn = DatabaseConnection.getConnection();
-            PreparedStatement stmt = conn.prepareStatement(UPDATE_SQL)) {
-
-            stmt.setString(1, prod.getNombre());
-            stmt.setString(2, prod.getMarca());
-            stmt.setString(3, prod.getCategoria());
-            stmt.setDouble(4, prod.getPrecio());
-            stmt.setDouble(5, prod.getPeso());
-            stmt.setLong(6, prod.getId());
-
-            int rowsAffected = stmt.executeUpdate();
-            if (rowsAffected == 0) {
-                throw new SQLException("No se pudo actualizar el Producto con ID: " + prod.getId());
-            }
-            
-        }
+        Metricas.medir("ProductoDAO.actualizar", () -> {
+            CambioDAO.escribir(conn -> {
+                try (PreparedStatement stmt = conn.prepareStatement(UPDATE_SQL)) {
+
+                    stmt.setString(1, prod.getNombre());
+                    stmt.setString(2, prod.getMarca());
+                    stmt.setString(3, prod.getCategoria());
+                    stmt.setDouble(4, prod.getPrecio());
+                    stmt.setDouble(5, prod.getPeso());
+                    stmt.setLong(6, prod.getId());
+
+                    int rowsAffected = stmt.executeUpdate();
+                    if (rowsAffected == 0) {
+                        throw new SQLException("No se pudo actualizar el Producto con ID: " + prod.getId());
+                    }
+                }
+                CambioDAO.registrar(conn, Cambio.Entidad.PRODUCTO, prod.getId(), Cambio.Operacion.MODIFICACION);
+                return null;
+            });
+        });
     }
 
-        /**
+    /**
      * Realiza la eliminacion lógica del producto con el id proporcionado
-     * A su vez elimina el CodigoBarras asociado
+     * A su vez elimina el CodigoBarras asociado, en la misma sentencia
+     * (una conexión y una ida y vuelta a la base)
      * @param id identificacion del producto a eliminar
-     * @throws Exception 
+     * @throws Exception Si no existe un producto activo con ese id
      */
     @Override
     public void eliminar(long id) throws Exception {
-            try (Connection conn = DatabaseConnection.getConnection();
-            PreparedStatement stmt = conn.prepareStatement(DELETE_SQL)) {
+        Metricas.medir("ProductoDAO.eliminar", () -> {
+            CambioDAO.escribir(conn -> {
+                try (PreparedStatement stmt = conn.prepareStatement(DELETE_SQL)) {
 
-            stmt.setLong(1, id);
-            codigoBarrasDAO.eliminar(getById(id).getCodigoBarras().getId());
-            int rowsAffected = stmt.executeUpdate();
+                    stmt.setLong(1, id);
+                    int rowsAffected = stmt.executeUpdate();
 
-            if (rowsAffected == 0) {
-                throw new SQLException("No se encontró Producto con ID: " + id);
-            }
+                    if (rowsAffected == 0) {
+                        throw new SQLException("No se encontró Producto con ID: " + id);
+                    }
+                }
+                // La baja del código va con la del producto: los consumidores la ven por el producto
+                CambioDAO.registrar(conn, Cambio.Entidad.PRODUCTO, id, Cambio.Operacion.BAJA);
+                return null;
+            });
+        });
+    }
+
+    /**
+     * Eliminación lógica de muchos productos y sus códigos de barras en una transacción.
+     * Una sentencia por cada db.multiget.chunk ids; los ids inexistentes o ya dados de
+     * baja se ignoran. Con el registro de cambios habilitado, cada bloque primero lee y
+     * bloquea (FOR UPDATE) sus productos activos, y solo de esos se registra la BAJA.
+     * @param ids Ids a eliminar (se ignoran los repetidos)
+     * @throws Exception Si falla alguna sentencia (no se elimina ninguno)
+     */
+    public void eliminarMany(Collection<Long> ids) throws Exception {
+        if (ids == null || ids.isEmpty()) {
+            return;
         }
+        Metricas.medir("ProductoDAO.eliminarMany", () -> {
+            List<Long> unicos = new ArrayList<>(new LinkedHashSet<>(ids));
+            try (TransactionManager tx = new TransactionManager(DatabaseConnection.getConnection())) {
+                tx.startTransaction();
+                for (int desde = 0; desde < unicos.size(); desde += ConsultaMultiple.TAMANIO_BLOQUE) {
+                    List<Long> bloque = unicos.subList(desde,
+                            Math.min(unicos.size(), desde + ConsultaMultiple.TAMANIO_BLOQUE));
+                    List<Long> activos = new ArrayList<>(bloque.size());
+                    if (CambioDAO.HABILITADO) {
+                        try (PreparedStatement stmt = tx.getConnection().prepareStatement(
+                                conMarcadores(SELECT_ACTIVOS_FOR_UPDATE_SQL, bloque.size()) + " FOR UPDATE")) {
+                            for (int i = 0; i < bloque.size(); i++) {
+                                stmt.setLong(i + 1, bloque.get(i));
+                            }
+                            try (ResultSet rs = stmt.executeQuery()) {
+                                while (rs.next()) {
+                                    activos.add(rs.getLong(1));
+                                }
+                            }
+                        }
+                        if (activos.isEmpty()) {
+                            continue;
+                        }
+                    }
+                    try (PreparedStatement stmt = tx.getConnection().prepareStatement(
+                            conMarcadores(DELETE_MANY_SQL, bloque.size()))) {
+                        for (int i = 0; i < bloque.size(); i++) {
+                            stmt.setLong(i + 1, bloque.get(i));
+                        }
+                        stmt.executeUpdate();
+                    }
+                    CambioDAO.registrar(tx.getConnection(), Cambio.Entidad.PRODUCTO, activos, Cambio.Operacion.BAJA);
+                }
+                tx.commit();
+            } catch (SQLException e) {
+                throw new Exception("Error al eliminar Productos: " + e.getMessage(), e);
+            }
+        });
     }
 
     
@@ -197,20 +478,39 @@ public class ProductoDAO implements GenericDAO<Producto>{
      */
     @Override
     public Producto getById(long id) throws Exception {
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(SELECT_BY_ID_SQL)) {
+        return Metricas.medir("ProductoDAO.getById", () -> {
+            try (Connection conn = DatabaseConnection.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(SELECT_BY_ID_SQL)) {
 
-            stmt.setLong(1, id);
+                stmt.setLong(1, id);
 
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return mapResultSetToProducto(rs);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        return MAPEO.mapear(rs, MAPEO.columnas(SELECT_BY_ID_SQL, rs));
+                    }
                 }
+            } catch (SQLException e) {
+                throw new Exception("Error al obtener Producto por ID: " + e.getMessage(), e);
             }
-        } catch (SQLException e) {
-            throw new Exception("Error al obtener Producto por ID: " + e.getMessage(), e);
-        }
-        return null;
+            return null;
+        });
+    }
+
+    /**
+     * Trae muchos productos por id en pocas consultas (ver ConsultaMultiple).
+     * Reemplaza N llamadas a getById, cada una con su conexión y su ida y vuelta a la base.
+     * @param ids Ids a buscar (se ignoran los repetidos)
+     * @return Productos activos encontrados y los ids faltantes
+     * @throws Exception
+     */
+    public ResultadoMultiple<Long, Producto> getByIds(Collection<Long> ids) throws Exception {
+        return Metricas.medir("ProductoDAO.getByIds", () -> {
+            try {
+                return consultaPorIds.ejecutar(ids);
+            } catch (SQLException e) {
+                throw new Exception("Error al obtener Productos por ID: " + e.getMessage(), e);
+            }
+        });
     }
 
     /**
@@ -220,19 +520,135 @@ public class ProductoDAO implements GenericDAO<Producto>{
      */
     @Override
     public List getAll() throws Exception {
-        List<Producto> productos = new ArrayList<>();
+        return Metricas.medir("ProductoDAO.getAll", () -> {
+            List<Producto> productos = new ArrayList<>();
 
-        try (Connection conn = DatabaseConnection.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(SELECT_ALL_SQL)) {
+            try (Connection conn = DatabaseConnection.getReadConnection();
+                 Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(SELECT_ALL_SQL)) {
 
-            while (rs.next()) {
-                productos.add(mapResultSetToProducto(rs));
+                int[] columnas = MAPEO.columnas(SELECT_ALL_SQL, rs);
+                while (rs.next()) {
+                    productos.add(MAPEO.mapear(rs, columnas));
+                }
+            } catch (SQLException e) {
+                throw new Exception("Error al obtener todos los productos: " + e.getMessage(), e);
+            }
+            return productos;
+        });
+    }
+    
+    /**
+     * Recorre todos los productos activos sin cargarlos en memoria.
+     * Usa un ResultSet forward-only / read-only con fetch size de streaming,
+     * por lo que el consumo de memoria es constante sin importar el tamaño del catálogo.
+     *
+     * Importante: el callback se ejecuta con la conexión ocupada; no debe
+     * demorar indefinidamente (con MySQL la conexión no admite otra consulta mientras tanto).
+     *
+     * @param procesador Callback invocado por cada producto, en orden de id
+     * @return Cantidad de productos recorridos
+     * @throws Exception Si falla la consulta o el callback
+     */
+    public long recorrerTodos(ProcesadorFila<Producto> procesador) throws Exception {
+        return Metricas.medir("ProductoDAO.recorrerTodos", () -> {
+            long filas = 0;
+            try (Connection conn = DatabaseConnection.getReadConnection();
+                 PreparedStatement stmt = conn.prepareStatement(SELECT_ALL_SQL,
+                         ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+                stmt.setFetchSize(fetchSizeStreaming(conn));
+                try (ResultSet rs = stmt.executeQuery()) {
+                    int[] columnas = MAPEO.columnas(SELECT_ALL_SQL, rs);
+                    while (rs.next()) {
+                        procesador.procesar(MAPEO.mapear(rs, columnas));
+                        filas++;
+                    }
+                }
+            } catch (SQLException e) {
+                throw new Exception("Error al recorrer los productos: " + e.getMessage(), e);
             }
-        } catch (SQLException e) {
-            throw new Exception("Error al obtener todos los productos: " + e.getMessage(), e);
+            return filas;
+        });
+    }
+
+    /**
+     * Recorre en streaming los productos modificados desde una fecha, para reconciliar
+     * un snapshot del catálogo con la base.
+     *
+     * - desde == null: todos los productos activos (réplica de lectura si hay)
+     * - desde != null: los modificados desde esa fecha, también los dados de baja
+     *   (llegan con isEliminado() = true). Va a la primaria: una réplica atrasada
+     *   perdería cambios que el snapshot tampoco tiene
+     *
+     * @param desde Fecha de modificación mínima (inclusive), o null para todo el catálogo
+     * @param procesador Callback invocado por cada producto, en orden de id
+     * @return Mayor fecha de modificación recorrida (desde, o la época, si no hubo filas)
+     * @throws Exception Si falla la consulta o el callback
+     */
+    public Timestamp recorrerCambios(Timestamp desde, ProcesadorFila<Producto> procesador) throws Exception {
+        return Metricas.medir("ProductoDAO.recorrerCambios", () -> {
+            String sql = desde == null ? SELECT_ALL_MODIFICACION_SQL : SELECT_CAMBIOS_SQL;
+            Timestamp maxima = desde == null ? new Timestamp(0) : desde;
+            try (Connection conn = desde == null
+                         ? DatabaseConnection.getReadConnection()
+                         : DatabaseConnection.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql,
+                         ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+                stmt.setFetchSize(fetchSizeStreaming(conn));
+                if (desde != null) {
+                    stmt.setTimestamp(1, desde);
+                    stmt.setTimestamp(2, desde);
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    int[] columnas = MAPEO.columnas(sql, rs);
+                    // Las columnas agregadas van después de las 11 del mapeo
+                    int modificacion = columnas.length + 1;
+                    while (rs.next()) {
+                        Producto producto = MAPEO.mapear(rs, columnas);
+                        if (desde != null) {
+                            producto.setEliminado(rs.getBoolean(modificacion + 1) || rs.getBoolean(modificacion + 2));
+                        }
+                        Timestamp fecha = rs.getTimestamp(modificacion);
+                        if (fecha != null && fecha.after(maxima)) {
+                            maxima = fecha;
+                        }
+                        procesador.procesar(producto);
+                    }
+                }
+            } catch (SQLException e) {
+                throw new Exception("Error al recorrer los cambios de productos: " + e.getMessage(), e);
+            }
+            return maxima;
+        });
+    }
+
+    /**
+     * @return sql seguido de "?,?,...?)" con la cantidad de marcadores indicada
+     */
+    private static String conMarcadores(String sql, int cantidad) {
+        StringBuilder sb = new StringBuilder(sql.length() + cantidad * 2);
+        sb.append(sql);
+        for (int i = 0; i < cantidad; i++) {
+            sb.append(i == 0 ? "?" : ",?");
         }
-        return productos;
+        return sb.append(')').toString();
+    }
+
+    private static List<Long> ids(List<Producto> productos) {
+        List<Long> ids = new ArrayList<>(productos.size());
+        for (Producto prod : productos) {
+            ids.add(prod.getId());
+        }
+        return ids;
+    }
+
+    private static int fetchSizeStreaming(Connection conn) throws SQLException {
+        if (FETCH_SIZE != null) {
+            return FETCH_SIZE;
+        }
+        return "MySQL".equalsIgnoreCase(conn.getMetaData().getDatabaseProductName()) ? Integer.MIN_VALUE : 1000;
     }
     
     /*SEARCH_BY_NAME_SQL = "SELECT p.id, p.nombre, p.marca, p.categoria, p.precio, " +
@@ -248,27 +664,30 @@ public class ProductoDAO implements GenericDAO<Producto>{
      * @throws SQLException 
      */
     public List<Producto> getListByName(String name) throws Exception{
-        if (name == null || name.trim().isEmpty()) {
-            throw new IllegalArgumentException("El filtro de búsqueda no puede estar vacío");
-        }
+        return Metricas.medir("ProductoDAO.getListByName", () -> {
+            if (name == null || name.trim().isEmpty()) {
+                throw new IllegalArgumentException("El filtro de búsqueda no puede estar vacío");
+            }
         
-        List<Producto> productos = new ArrayList<>();
+            List<Producto> productos = new ArrayList<>();
         
-        try (Connection conn = DatabaseConnection.getConnection();
-            PreparedStatement stmt = conn.prepareStatement(SEARCH_BY_NAME_SQL)) {
+            try (Connection conn = DatabaseConnection.getReadConnection();
+                PreparedStatement stmt = conn.prepareStatement(SEARCH_BY_NAME_SQL)) {
 
-            String namefilter = "%" + name + "%";
-            stmt.setString(1, namefilter);
+                String namefilter = "%" + name + "%";
+                stmt.setString(1, namefilter);
 
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    productos.add(mapResultSetToProducto(rs));
+                try (ResultSet rs = stmt.executeQuery()) {
+                    int[] columnas = MAPEO.columnas(SEARCH_BY_NAME_SQL, rs);
+                    while (rs.next()) {
+                        productos.add(MAPEO.mapear(rs, columnas));
+                    }
                 }
+            } catch (SQLException e) {
+                throw new Exception("Error al obtener Producto por ID: " + e.getMessage(), e);
             }
-        } catch (SQLException e) {
-            throw new Exception("Error al obtener Producto por ID: " + e.getMessage(), e);
-        }
-        return productos;
+            return productos;
+        });
     }
     
     /*SEARCH_BY_BRAND_SQL = "SELECT p.id, p.nombre, p.marca, p.categoria, p.precio, " +
@@ -284,27 +703,152 @@ public class ProductoDAO implements GenericDAO<Producto>{
      * @throws SQLException 
      */
         public List<Producto> getListByBrand(String brand) throws Exception{
-        if (brand == null || brand.trim().isEmpty()) {
-            throw new IllegalArgumentException("El filtro de búsqueda no puede estar vacío");
-        }
+            return Metricas.medir("ProductoDAO.getListByBrand", () -> {
+            if (brand == null || brand.trim().isEmpty()) {
+                throw new IllegalArgumentException("El filtro de búsqueda no puede estar vacío");
+            }
         
-        List<Producto> productos = new ArrayList<>();
+            List<Producto> productos = new ArrayList<>();
         
-        try (Connection conn = DatabaseConnection.getConnection();
-            PreparedStatement stmt = conn.prepareStatement(SEARCH_BY_BRAND_SQL)) {
+            try (Connection conn = DatabaseConnection.getReadConnection();
+                PreparedStatement stmt = conn.prepareStatement(SEARCH_BY_BRAND_SQL)) {
 
-            String brandFilter = "%" + brand + "%";
+                String brandFilter = "%" + brand + "%";
             
-            stmt.setString(1, brandFilter);
-            stmt.setString(2, brandFilter);
+                stmt.setString(1, brandFilter);
+                stmt.setString(2, brandFilter);
 
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    productos.add(mapResultSetToProducto(rs));
+                try (ResultSet rs = stmt.executeQuery()) {
+                    int[] columnas = MAPEO.columnas(SEARCH_BY_BRAND_SQL, rs);
+                    while (rs.next()) {
+                        productos.add(MAPEO.mapear(rs, columnas));
+                    }
                 }
+            } catch (SQLException e) {
+                throw new Exception("Error al obtener Producto por ID: " + e.getMessage(), e);
+            }
+            return productos;
+            });
+    }
+    
+    /**
+     * Página de productos activos ordenados por id, paginada por clave (sin OFFSET).
+     * @param token Token de Pagina.getSiguiente() de la página anterior, o null para la primera
+     * @param tamanio Cantidad de productos por página
+     * @return Página con los productos y el token de la siguiente
+     * @throws Exception 
+     */
+    public Pagina<Producto> getPagina(String token, int tamanio) throws Exception {
+        return Metricas.medir("ProductoDAO.getPagina", () -> {
+            String[] clave = Pagina.leerToken(token, "id", 1);
+            try (Connection conn = DatabaseConnection.getReadConnection();
+                 PreparedStatement stmt = conn.prepareStatement(PAGE_ALL_SQL)) {
+
+                stmt.setLong(1, clave == null ? 0 : Long.parseLong(clave[0]));
+                stmt.setInt(2, tamanio + 1);
+                List<Producto> productos = leerPagina(stmt, PAGE_ALL_SQL, tamanio);
+                if (productos.size() <= tamanio) {
+                    return new Pagina<>(productos, null);
+                }
+                productos.remove(tamanio);
+                Producto ultimo = productos.get(tamanio - 1);
+                return new Pagina<>(productos, Pagina.crearToken("id", ultimo.getId()));
+            } catch (SQLException e) {
+                throw new Exception("Error al obtener la página de productos: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Página de la búsqueda por nombre parcial, ordenada por nombre.
+     * @param name nombre del producto a buscar
+     * @param token Token de la página anterior, o null para la primera
+     * @param tamanio Cantidad de productos por página
+     * @return Página con los productos y el token de la siguiente
+     * @throws Exception 
+     */
+    public Pagina<Producto> getPaginaByName(String name, String token, int tamanio) throws Exception {
+        return Metricas.medir("ProductoDAO.getPaginaByName", () -> {
+            if (name == null || name.trim().isEmpty()) {
+                throw new IllegalArgumentException("El filtro de búsqueda no puede estar vacío");
+            }
+            String[] clave = Pagina.leerToken(token, "nombre", 2);
+            try (Connection conn = DatabaseConnection.getReadConnection();
+                 PreparedStatement stmt = conn.prepareStatement(PAGE_BY_NAME_SQL)) {
+
+                String nombre = clave == null ? "" : clave[0];
+                stmt.setString(1, "%" + name + "%");
+                stmt.setString(2, nombre);
+                stmt.setString(3, nombre);
+                stmt.setLong(4, clave == null ? 0 : Long.parseLong(clave[1]));
+                stmt.setInt(5, tamanio + 1);
+                List<Producto> productos = leerPagina(stmt, PAGE_BY_NAME_SQL, tamanio);
+                if (productos.size() <= tamanio) {
+                    return new Pagina<>(productos, null);
+                }
+                productos.remove(tamanio);
+                Producto ultimo = productos.get(tamanio - 1);
+                return new Pagina<>(productos, Pagina.crearToken("nombre", ultimo.getNombre(), ultimo.getId()));
+            } catch (SQLException e) {
+                throw new Exception("Error al obtener la página de productos por nombre: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Página de la búsqueda por marca o categoria parcial, ordenada por marca y categoria.
+     * @param brand marca o categoria para filtrar
+     * @param token Token de la página anterior, o null para la primera
+     * @param tamanio Cantidad de productos por página
+     * @return Página con los productos y el token de la siguiente
+     * @throws Exception 
+     */
+    public Pagina<Producto> getPaginaByBrand(String brand, String token, int tamanio) throws Exception {
+        return Metricas.medir("ProductoDAO.getPaginaByBrand", () -> {
+            if (brand == null || brand.trim().isEmpty()) {
+                throw new IllegalArgumentException("El filtro de búsqueda no puede estar vacío");
+            }
+            String[] clave = Pagina.leerToken(token, "marca", 3);
+            try (Connection conn = DatabaseConnection.getReadConnection();
+                 PreparedStatement stmt = conn.prepareStatement(PAGE_BY_BRAND_SQL)) {
+
+                String brandFilter = "%" + brand + "%";
+                String marca = clave == null ? null : Pagina.desdeTokenNulable(clave[0]);
+                String categoria = clave == null ? null : Pagina.desdeTokenNulable(clave[1]);
+                stmt.setString(1, brandFilter);
+                stmt.setString(2, brandFilter);
+                stmt.setString(3, marca);
+                stmt.setString(4, marca);
+                stmt.setString(5, marca);
+                stmt.setString(6, categoria);
+                stmt.setString(7, categoria);
+                stmt.setString(8, categoria);
+                stmt.setLong(9, clave == null ? 0 : Long.parseLong(clave[2]));
+                stmt.setInt(10, tamanio + 1);
+                List<Producto> productos = leerPagina(stmt, PAGE_BY_BRAND_SQL, tamanio);
+                if (productos.size() <= tamanio) {
+                    return new Pagina<>(productos, null);
+                }
+                productos.remove(tamanio);
+                Producto ultimo = productos.get(tamanio - 1);
+                return new Pagina<>(productos, Pagina.crearToken("marca", Pagina.aTokenNulable(ultimo.getMarca()),
+                        Pagina.aTokenNulable(ultimo.getCategoria()), ultimo.getId()));
+            } catch (SQLException e) {
+                throw new Exception("Error al obtener la página de productos por marca: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Ejecuta la consulta de una página (que pide tamanio + 1 filas para saber si hay más)
+     */
+    private List<Producto> leerPagina(PreparedStatement stmt, String sql, int tamanio) throws SQLException {
+        List<Producto> productos = new ArrayList<>(tamanio + 1);
+        try (ResultSet rs = stmt.executeQuery()) {
+            int[] columnas = MAPEO.columnas(sql, rs);
+            while (rs.next()) {
+                productos.add(MAPEO.mapear(rs, columnas));
             }
-        } catch (SQLException e) {
-            throw new Exception("Error al obtener Producto por ID: " + e.getMessage(), e);
         }
         return productos;
     }
@@ -317,18 +861,20 @@ public class ProductoDAO implements GenericDAO<Producto>{
      * @throws Exception 
      */
         public boolean idExists(long id) throws Exception{
-            try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(SELECT_ID_EXIST)) {
+            return Metricas.medir("ProductoDAO.idExists", () -> {
+                try (Connection conn = DatabaseConnection.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(SELECT_ID_EXIST)) {
 
-            stmt.setLong(1, id);
+                stmt.setLong(1, id);
 
-            try (ResultSet rs = stmt.executeQuery()) {
-                return rs.next();
+                try (ResultSet rs = stmt.executeQuery()) {
+                    return rs.next();
                 
-            }
-            } catch (SQLException e) {
-                throw new Exception("Error al obtener Producto por ID: " + e.getMessage(), e);
-            }
+                }
+                } catch (SQLException e) {
+                    throw new Exception("Error al obtener Producto por ID: " + e.getMessage(), e);
+                }
+            });
         }
     
     //"INSERT INTO producto (id, nombre, marca, categoria, precio, peso, codigoBarras) VALUES (?, ?, ?, ?, ?, ?, ?)"
@@ -349,31 +895,38 @@ public class ProductoDAO implements GenericDAO<Producto>{
     }
     
     /**
-     * Mapea el resultado del query dentro de un nuevo objeto Producto
+     * Mapea la fila actual dentro de un nuevo objeto Producto.
+     * Resuelve las columnas en cada llamada: para recorrer un ResultSet usar
+     * MAPEO.columnas() una vez y MAPEO.mapear() por fila, como las consultas de este DAO.
      * @param rs resultado de ejecución de PreparedStatement
      * @return Producto con todos sus campos leidos del query y los datos del CodigoBarras anexo
      * @throws SQLException 
      */
-    
-    private Producto mapResultSetToProducto(ResultSet rs) throws SQLException {
+    public static Producto mapResultSetToProducto(ResultSet rs) throws SQLException {
+        return MAPEO.mapear(rs, MAPEO.resolver(rs));
+    }
+
+    /**
+     * Lectura por posición (ver MAPEO): ids como long y tipo por tabla precargada.
+     */
+    private static Producto leerProducto(ResultSet rs, int[] c) throws SQLException {
         Producto producto = new Producto();
-        producto.setId(rs.getInt("p.id"));
-        producto.setNombre(rs.getString("p.nombre"));
-        producto.setMarca(rs.getString("p.marca"));
-        producto.setCategoria(rs.getString("p.categoria"));
-        producto.setPeso(rs.getDouble("p.peso"));
-        producto.setPrecio(rs.getDouble("p.precio"));
-        
-        // Manejo correcto de LEFT JOIN: verificar si domicilio_id es NULL
+        producto.setId(rs.getLong(c[0]));
+        producto.setNombre(rs.getString(c[1]));
+        producto.setMarca(rs.getString(c[2]));
+        producto.setCategoria(rs.getString(c[3]));
+        producto.setPrecio(rs.getDouble(c[4]));
+        producto.setPeso(rs.getDouble(c[5]));
+
         CodigoBarras cb = new CodigoBarras();
-        cb.setId(rs.getInt("cb.id"));
-        cb.setTipoCB(TipoCB.valueOf(rs.getString("cb.tipo")));
-        cb.setValor(rs.getString("cb.valor"));
-        cb.setFecha(rs.getDate("cb.fechaAsignacion"));
-        cb.setObservaciones(rs.getString("cb.observaciones"));
-        
+        cb.setId(rs.getLong(c[6]));
+        cb.setTipoCB(TipoCB.desdeColumna(rs.getString(c[7])));
+        cb.setValor(rs.getString(c[8]));
+        cb.setFecha(rs.getDate(c[9]));
+        cb.setObservaciones(rs.getString(c[10]));
+        cb.setIdProducto(producto.getId());
+
         producto.setCodigoBarras(cb);
-        
         return producto;
     }
 }
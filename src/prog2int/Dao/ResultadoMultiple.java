@@ -0,0 +1,74 @@
+package prog2int.Dao;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Resultado de una consulta múltiple (getByIds / getByValores).
+ *
+ * - encontrados: clave → entidad, en el orden en que se pidieron las claves
+ * - faltantes: claves pedidas que no existen o están dadas de baja
+ *
+ * Las claves repetidas en el pedido aparecen una sola vez.
+ *
+ * @param <K> Tipo de la clave (id o valor de código)
+ * @param <V> Tipo de la entidad
+ */
+public class ResultadoMultiple<K, V> {
+
+    private final Map<K, V> encontrados;
+    private final Set<K> faltantes;
+
+    private ResultadoMultiple(Map<K, V> encontrados, Set<K> faltantes) {
+        this.encontrados = Collections.unmodifiableMap(encontrados);
+        this.faltantes = Collections.unmodifiableSet(faltantes);
+    }
+
+    /**
+     * Arma el resultado respetando el orden de las claves pedidas.
+     * @param claves Claves pedidas
+     * @param cargados Entidades obtenidas (en cualquier orden)
+     */
+    public static <K, V> ResultadoMultiple<K, V> de(Collection<K> claves, Map<K, V> cargados) {
+        Map<K, V> encontrados = new LinkedHashMap<>(Math.max(16, cargados.size() * 2));
+        Set<K> faltantes = new LinkedHashSet<>();
+        for (K clave : claves) {
+            V valor = cargados.get(clave);
+            if (valor != null) {
+                encontrados.put(clave, valor);
+            } else {
+                faltantes.add(clave);
+            }
+        }
+        return new ResultadoMultiple<>(encontrados, faltantes);
+    }
+
+    /** @return Entidad de la clave, o null si no se encontró */
+    public V get(K clave) {
+        return encontrados.get(clave);
+    }
+
+    /** @return Entidades encontradas por clave (solo lectura) */
+    public Map<K, V> getEncontrados() {
+        return encontrados;
+    }
+
+    /** @return Claves sin resultado (solo lectura) */
+    public Set<K> getFaltantes() {
+        return faltantes;
+    }
+
+    /** @return true si se encontraron todas las claves */
+    public boolean isCompleto() {
+        return faltantes.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "ResultadoMultiple{encontrados=" + encontrados.size() + ", faltantes=" + faltantes.size() + '}';
+    }
+}
@@ -0,0 +1,63 @@
+package prog2int.Dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import prog2int.Config.DatabaseConnection;
+import prog2int.Config.Metricas;
+import prog2int.Config.TransactionManager;
+
+/**
+ * Reserva de bloques de IDs en la tabla secuencia (ver ScriptMigracionSecuencias.sql).
+ *
+ * Cada reserva es una transacción corta y propia (no la del caller ni la de una
+ * UnidadDeTrabajo activa): bloquea la fila
+ * de la secuencia, avanza "siguiente" en el tamaño del bloque y confirma. Así dos
+ * procesos nunca reciben IDs repetidos y la fila queda bloqueada solo un instante.
+ */
+public class SecuenciaDAO {
+
+    private static final String SELECT_SQL = "SELECT siguiente FROM secuencia WHERE nombre = ? FOR UPDATE";
+
+    private static final String UPDATE_SQL = "UPDATE secuencia SET siguiente = siguiente + ? WHERE nombre = ?";
+
+    /**
+     * Reserva "cantidad" IDs consecutivos.
+     * @param nombre Nombre de la secuencia ("producto" o "codigoBarras")
+     * @param cantidad IDs a reservar
+     * @return Primer ID del bloque (el bloque es [primero, primero + cantidad))
+     * @throws Exception Si la secuencia no existe o falla la base
+     */
+    public long reservar(String nombre, int cantidad) throws Exception {
+        if (cantidad <= 0) {
+            throw new IllegalArgumentException("La cantidad de IDs debe ser mayor a 0");
+        }
+        return Metricas.medir("SecuenciaDAO.reservar", () -> {
+            try (TransactionManager tx = new TransactionManager(DatabaseConnection.getConnectionPropia())) {
+                tx.startTransaction();
+                Connection conn = tx.getConnection();
+                long primero;
+                try (PreparedStatement stmt = conn.prepareStatement(SELECT_SQL)) {
+                    stmt.setString(1, nombre);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        if (!rs.next()) {
+                            throw new SQLException("No existe la secuencia '" + nombre
+                                    + "' (ejecutar ScriptMigracionSecuencias.sql)");
+                        }
+                        primero = rs.getLong(1);
+                    }
+                }
+                try (PreparedStatement stmt = conn.prepareStatement(UPDATE_SQL)) {
+                    stmt.setInt(1, cantidad);
+                    stmt.setString(2, nombre);
+                    stmt.executeUpdate();
+                }
+                tx.commit();
+                return primero;
+            } catch (SQLException e) {
+                throw new Exception("Error al reservar IDs de " + nombre + ": " + e.getMessage(), e);
+            }
+        });
+    }
+}
@@ -2,23 +2,34 @@ package prog2int.Main;
 
 import java.util.Scanner;
 import prog2int.Dao.CodigoBarrasDAO;
+import prog2int.Dao.MantenimientoDAO;
 import prog2int.Dao.ProductoDAO;
 import prog2int.Service.CodigoBarrasServiceImpl;
+import prog2int.Service.MantenimientoService;
 import prog2int.Service.ProductoServiceImpl;
 
 public class AppMenu {
 
     private final Scanner scanner;
     private final MenuHandler menuHandler;
+    private final ProductoServiceImpl productoService;
     private boolean running;
     
     public AppMenu() {
         this.scanner = new Scanner(System.in);
         // Services creados con sus DAOs
-        ProductoServiceImpl productoService = createProductoService();
-        CodigoBarrasServiceImpl cbService = createCodigoBarrasService();
+        this.productoService = createProductoService();
+        // Mismo service de códigos que usa productoService: comparten la cache
+        CodigoBarrasServiceImpl cbService = productoService.getCodigoBarrasServiceImpl();
+        try {
+            productoService.inicializar();
+        } catch (Exception e) {
+            System.err.println("No se pudo inicializar el índice de búsqueda: " + e.getMessage());
+        }
         // Handler
-        this.menuHandler = new MenuHandler(scanner, productoService, cbService);
+        MantenimientoService mantenimientoService =
+                new MantenimientoService(new MantenimientoDAO(), new ProductoDAO(new CodigoBarrasDAO()));
+        this.menuHandler = new MenuHandler(scanner, productoService, cbService, mantenimientoService);
         this.running = true;
     }
 
@@ -55,23 +66,40 @@ public class AppMenu {
             case 9 -> menuHandler.buscarCodigoPorId();   // "Buscar Codigo de Barra por ID"
             case 10 -> menuHandler.buscarCodigoBarrasPorValor(); //Busca Codigo de Barras por Valor
             case 11 -> menuHandler.actualizarCodigo();   // "Agregar observaciones / editar código"
+            // ---- CATALOGO ----
+            case 12 -> menuHandler.importarCatalogo();   // "Importar catalogo desde CSV"
+            case 13 -> menuHandler.exportarCatalogo();   // "Exportar catalogo"
+            // ---- MONITOREO ----
+            case 14 -> menuHandler.mostrarMetricas();    // "Ver metricas"
+            // ---- MANTENIMIENTO ----
+            case 15 -> menuHandler.archivarEliminados(); // "Archivar productos eliminados"
             // ---- SALIR ----
             case 0 -> {
                 System.out.println("Saliendo...");
+                vaciarEscrituras();
                 running = false;
             }
             default -> System.out.println("Opción no válida.");
         }
     }
+    /**
+     * Escribe las actualizaciones encoladas (escritura diferida) antes de salir,
+     * mientras el pool sigue abierto.
+     */
+    private void vaciarEscrituras() {
+        try {
+            productoService.vaciarEscrituras();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Salida interrumpida: pueden quedar actualizaciones sin escribir");
+        }
+    }
+
     // ---- SERVICES ----
-    private ProductoServiceImpl createProductoService() {
+    static ProductoServiceImpl createProductoService() {
         CodigoBarrasDAO cbDAO = new CodigoBarrasDAO();
         ProductoDAO productoDAO = new ProductoDAO(cbDAO);
         CodigoBarrasServiceImpl cbService = new CodigoBarrasServiceImpl(cbDAO);
         return new ProductoServiceImpl(productoDAO, cbService);
     }
-    private CodigoBarrasServiceImpl createCodigoBarrasService() {
-        CodigoBarrasDAO cbDAO = new CodigoBarrasDAO();
-        return new CodigoBarrasServiceImpl(cbDAO);
-    }
 }
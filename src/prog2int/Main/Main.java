@@ -28,6 +28,8 @@ import prog2int.Config.DatabaseConnection;
  * Uso recomendado:
  * - Para ejecutar desde IDE: Usar AppMenu.main() o Main.main() (indistinto)
  * - Para ejecutar desde JAR: Especificar AppMenu o Main en manifest
+ *
+ * Con el argumento --http arranca ServidorHttp (API JSON) en lugar del menú.
  */
 public class Main {
     /**
@@ -39,9 +41,13 @@ public class Main {
      * 2. Llama a app.run() que ejecuta el loop del menú
      * 3. Cuando el usuario sale (opción 0), run() termina y la aplicación finaliza
      *
-     * @param args Argumentos de línea de comandos (no usados)
+     * @param args "--http" para arrancar el servicio HTTP sin menú interactivo
      */
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--http")) {
+            ServidorHttp.main(args);
+            return;
+        }
         AppMenu app = new AppMenu();
         app.run();
     }
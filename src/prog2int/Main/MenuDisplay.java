@@ -34,6 +34,16 @@ public class MenuDisplay {
         System.out.println("9. Buscar Codigo de Barra por ID");
         System.out.println("10. Buscar Codigo de Barra por Valor");
         System.out.println("11. Agregar observaciones a Codigo de Barra.");
+
+        System.out.println("---- CATALOGO ----");
+        System.out.println("12. Importar catalogo desde CSV");
+        System.out.println("13. Exportar catalogo (CSV / JSON Lines)");
+
+        System.out.println("---- MONITOREO ----");
+        System.out.println("14. Ver metricas (operaciones, pool y caches)");
+
+        System.out.println("---- MANTENIMIENTO ----");
+        System.out.println("15. Archivar productos y codigos eliminados");
         
         System.out.println("0. Salir");
         System.out.print("Ingrese una opción: ");
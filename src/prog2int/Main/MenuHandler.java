@@ -1,23 +1,48 @@
 package prog2int.Main;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.Date;
+import java.util.Deque;
 import java.util.List;
 import java.util.Scanner;
 import prog2int.Config.DatabaseConnection;
+import prog2int.Config.Metricas;
+import prog2int.Config.UnidadDeTrabajo;
+import prog2int.Dao.Pagina;
 
 import prog2int.Models.CodigoBarras;
 import prog2int.Models.TipoCB;
 import prog2int.Models.Producto;
 import prog2int.Service.CodigoBarrasServiceImpl;
+import prog2int.Service.ExportadorCatalogo;
+import prog2int.Service.ImportadorCatalogo;
+import prog2int.Service.MantenimientoService;
 import prog2int.Service.ProductoServiceImpl;
+import prog2int.Service.ResultadoExportacion;
+import prog2int.Service.ResultadoImportacion;
 
 public class MenuHandler {
 
+    /** Productos por página en los listados. Configurable via -Dapp.pageSize */
+    private static final int TAMANIO_PAGINA = Integer.getInteger("app.pageSize", 20);
+
+    /**
+     * Obtiene una página a partir del token de la anterior (null = primera).
+     */
+    @FunctionalInterface
+    private interface Paginador {
+        Pagina<Producto> obtener(String token) throws Exception;
+    }
+
     private final Scanner scanner;
     private final ProductoServiceImpl productoService;
     private final CodigoBarrasServiceImpl cbService;
+    private final MantenimientoService mantenimientoService;
 
-    public MenuHandler(Scanner scanner, ProductoServiceImpl productoService, CodigoBarrasServiceImpl cbService) {
+    public MenuHandler(Scanner scanner, ProductoServiceImpl productoService, CodigoBarrasServiceImpl cbService,
+            MantenimientoService mantenimientoService) {
         if (scanner == null) {
             throw new IllegalArgumentException("Scanner no puede ser null");
         }
@@ -27,21 +52,22 @@ public class MenuHandler {
         if (cbService == null) {
             throw new IllegalArgumentException("CodigoBarrasService no puede ser null");
         }
+        if (mantenimientoService == null) {
+            throw new IllegalArgumentException("MantenimientoService no puede ser null");
+        }
         this.scanner = scanner;
         this.productoService = productoService;
         this.cbService = cbService;
+        this.mantenimientoService = mantenimientoService;
     }
     
     // Opcion 1
+    // Listado paginado: cada página es una consulta por clave (el catálogo completo se exporta con la opción 13)
     public void listarProductos() {
         try {
-            List<Producto> lista = productoService.getAll();
-            if (lista.isEmpty()) {
+            if (!navegarPaginas(token -> productoService.getPagina(token, TAMANIO_PAGINA))) {
                 System.out.println("No hay productos cargados.");
-                return;
             }
-
-            mostrarProductos(lista);
         } catch (Exception e) {
             System.err.println("Error al listar productos: " + e.getMessage());
         }
@@ -50,39 +76,43 @@ public class MenuHandler {
     //Opcion 2
     public void crearProducto() {
         try {
+            // Con IDs por secuencia no se piden IDs ni se consulta si existen
+            boolean idsAutomaticos = productoService.isIdsAutomaticos();
             System.out.println("\n--- Crear Código de Barras ---");
-            long idCB;
-            
-            do{
+            long idCB = 0;
+            while (!idsAutomaticos) {
                 System.out.print("ID: ");
                 idCB = Long.parseLong(scanner.nextLine());
-                if (cbService.idExists(idCB))
-                    System.out.println("El ID del código de barras ya existe. Intente otro.");
-            }while(cbService.idExists(idCB));
+                if (!cbService.idExists(idCB))
+                    break;
+                System.out.println("El ID del código de barras ya existe. Intente otro.");
+            }
 
-            String tipo, valor;
+            String tipo, valor, motivo;
             do{
                 System.out.print("Tipo (EAN13/EAN8/UPC): ");
                 tipo = scanner.nextLine().trim().toUpperCase();
 
                 System.out.print("Valor: ");
                 valor = scanner.nextLine().trim();
-            }while(!cbService.validarCodigo(tipo, valor));
+                motivo = cbService.motivoInvalido(tipo, valor);
+                if (motivo != null)
+                    System.out.println(motivo);
+            }while(motivo != null);
             System.out.print("Observaciones: ");
             String obs = scanner.nextLine().trim();
 
             CodigoBarras cb = new CodigoBarras(idCB, tipo, valor, new Date(), obs);
             
             System.out.println("\n--- Crear Producto ---");
-            long idP;
-            do{
+            long idP = 0;
+            while (!idsAutomaticos) {
                 System.out.print("ID: ");
                 idP = Long.parseLong(scanner.nextLine());
-
-                if (productoService.idExists(idP)){
-                    System.out.println("Id ya existente, intente otro.");
-                }
-            }while(productoService.idExists(idP));
+                if (!productoService.idExists(idP))
+                    break;
+                System.out.println("Id ya existente, intente otro.");
+            }
             
             System.out.print("Nombre: ");
             String nombre = scanner.nextLine().trim();
@@ -101,9 +131,13 @@ public class MenuHandler {
 
             Producto p = new Producto(idP, nombre, marca, categoria, precio, peso, cb);
             
-            productoService.insertarTx(p, cb, DatabaseConnection.getConnection());
+            if (idsAutomaticos) {
+                productoService.crear(p, cb);
+            } else {
+                productoService.insertarTx(p, cb);
+            }
 
-            System.out.println("✔ Producto creado con éxito.");
+            System.out.println("✔ Producto creado con éxito (ID " + p.getId() + ", código " + cb.getId() + ").");
         } catch (Exception e) {
             System.err.println("Error al crear producto: " + e.getMessage());
         }
@@ -146,12 +180,8 @@ public class MenuHandler {
         String nombre = scanner.nextLine();
 
         try {
-            List<Producto> productos = productoService.getByName(nombre);
-
-            if (productos.isEmpty()) {
+            if (!navegarPaginas(token -> productoService.getPaginaByName(nombre, token, TAMANIO_PAGINA))) {
                System.out.println("No se encontraron productos con ese nombre.");
-            } else {
-                mostrarProductos(productos);
             }
         } catch (Exception e) {
             System.out.println("Error: " + e.getMessage());
@@ -164,12 +194,8 @@ public class MenuHandler {
         String marca = scanner.nextLine();
 
         try {
-            List<Producto> productos = productoService.getByBrand(marca);
-
-            if (productos.isEmpty()) {
+            if (!navegarPaginas(token -> productoService.getPaginaByBrand(marca, token, TAMANIO_PAGINA))) {
                 System.out.println("No se encontraron productos con esa marca o categoria.");
-            } else {
-                mostrarProductos(productos);
             }
         } catch (Exception e) {
             System.out.println("Error: " + e.getMessage());
@@ -231,11 +257,17 @@ public class MenuHandler {
             long id;
             System.out.print("ID del producto: ");
             id = Long.parseLong(scanner.nextLine());
-            if (productoService.getById(id) == null){
+            boolean eliminado = UnidadDeTrabajo.ejecutar(() -> {
+                if (productoService.getById(id) == null) {
+                    return false;
+                }
+                productoService.eliminar(id);
+                return true;
+            });
+            if (!eliminado){
                 System.out.println("ID de produto inexistente");
                 }
             else{
-                productoService.eliminar(id);
                 System.out.println("✔ Producto eliminado (lógico).");
             }
         } catch (Exception e) {
@@ -282,13 +314,14 @@ public class MenuHandler {
             System.out.print("Valor del código barras a buscar: ");
             String nombre = scanner.nextLine();
 
-            CodigoBarras cb = cbService.getByValor(nombre);
-            if (cb == null) {
+            // Resuelve en memoria si la tabla de códigos está habilitada
+            long idProducto = productoService.resolverEscaneo(nombre.trim());
+            if (idProducto <= 0) {
                 System.out.println("No se encontró el código.");
                 return;
             }
             
-             buscarProductoPorId(cb.getIdProducto());
+             buscarProductoPorId(idProducto);
 
         } catch (Exception e) {
             System.err.println("Error al buscar código: " + e.getMessage());
@@ -319,21 +352,115 @@ public class MenuHandler {
             System.err.println("Error al actualizar código: " + e.getMessage());
         }
     }
+
+     //Opcion 12
+     public void importarCatalogo() {
+        try {
+            System.out.print("Ruta del archivo CSV: ");
+            Path archivo = Path.of(scanner.nextLine().trim());
+            if (!Files.isReadable(archivo)) {
+                System.out.println("No se puede leer el archivo: " + archivo);
+                return;
+            }
+
+            System.out.println("Importando...");
+            ResultadoImportacion resultado = new ImportadorCatalogo(productoService).importar(archivo);
+            System.out.println("✔ Importación finalizada.");
+            System.out.println(resultado);
+        } catch (Exception e) {
+            System.err.println("Error al importar catálogo: " + e.getMessage());
+        }
+    }
      
+     //Opcion 13
+     public void exportarCatalogo() {
+        try {
+            System.out.print("Ruta del archivo destino: ");
+            Path archivo = Path.of(scanner.nextLine().trim());
+
+            System.out.print("Formato (CSV/JSONL): ");
+            ExportadorCatalogo.Formato formato =
+                    ExportadorCatalogo.Formato.valueOf(scanner.nextLine().trim().toUpperCase());
+
+            ResultadoExportacion resultado = new ExportadorCatalogo(productoService).exportar(archivo, formato);
+            System.out.println("✔ " + resultado);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Formato no válido. Opciones: CSV, JSONL");
+        } catch (Exception e) {
+            System.err.println("Error al exportar catálogo: " + e.getMessage());
+        }
+    }
+
+     //Opcion 14
+     public void mostrarMetricas() {
+        System.out.println("\n--- Métricas por operación ---");
+        System.out.print(Metricas.getReporte());
+        System.out.println("\n--- Pool de conexiones ---");
+        System.out.println(DatabaseConnection.getEstadisticasPool());
+        String replicas = DatabaseConnection.getEstadisticasReplicas();
+        if (replicas != null) {
+            System.out.println(replicas);
+        }
+        String cacheProductos = productoService.getEstadisticasCache();
+        if (cacheProductos != null) {
+            System.out.println("\n--- Caches ---");
+            System.out.println(cacheProductos);
+            System.out.println(cbService.getEstadisticasCache());
+        }
+        String tabla = productoService.getEstadisticasTabla();
+        if (tabla != null) {
+            System.out.println(tabla);
+        }
+        String vuelos = productoService.getEstadisticasSingleFlight();
+        if (vuelos != null) {
+            System.out.println("\n--- Lecturas agrupadas ---");
+            System.out.println(vuelos);
+            System.out.println(cbService.getEstadisticasSingleFlight());
+        }
+        String escritura = productoService.getEstadisticasEscritura();
+        if (escritura != null) {
+            System.out.println("\n--- Escritura diferida ---");
+            System.out.println(escritura);
+        }
+        String cambios = productoService.getEstadisticasCambios();
+        if (cambios != null) {
+            System.out.println(cambios);
+        }
+    }
+     
+    //Opcion 15
+    public void archivarEliminados() {
+        try {
+            System.out.print("Archivar bajas de hace más de cuántos días (ENTER = configuración): ");
+            String dias = scanner.nextLine().trim();
+            System.out.println("Archivando...");
+            System.out.print(dias.isEmpty()
+                    ? mantenimientoService.archivar()
+                    : mantenimientoService.archivar(Integer.parseInt(dias)));
+        } catch (NumberFormatException e) {
+            System.err.println("Cantidad de días inválida");
+        } catch (Exception e) {
+            System.err.println("Error en el mantenimiento: " + e.getMessage());
+        }
+    }
+
     // --- CÓDIGO DE BARRAS 
 
     public void crearCodigo() {
         try {
             System.out.println("\n--- Crear Código de Barras ---");
-            System.out.print("ID: ");
             long id;
-            
-            do{
-                id = Long.parseLong(scanner.nextLine());
-                if (cbService.getById(id) != null)
+            if (cbService.isIdsAutomaticos()) {
+                id = cbService.nuevoId();
+            } else {
+                while (true) {
+                    System.out.print("ID: ");
+                    id = Long.parseLong(scanner.nextLine());
+                    if (!cbService.idExists(id))
+                        break;
                     System.out.println("El ID del código de barras ya existe. Intente otro.");
-                
-            }while(cbService.getById(id) != null);
+                }
+            }
 
             System.out.print("Tipo (EAN13/EAN8/UPC): ");
             String tipo = scanner.nextLine().trim().toUpperCase();
@@ -347,7 +474,7 @@ public class MenuHandler {
             CodigoBarras cb = new CodigoBarras(id, tipo, valor, new Date(), obs);
             cbService.insertar(cb);
 
-            System.out.println("✔ Código de barras creado con éxito.");
+            System.out.println("✔ Código de barras creado con éxito (ID " + id + ").");
         } catch (Exception e) {
             System.err.println("Error al crear código: " + e.getMessage());
         }
@@ -366,6 +493,51 @@ public class MenuHandler {
     }
     
 
+    /**
+     * Muestra resultados página a página con navegación siguiente/anterior.
+     * Guarda los tokens de las páginas visitadas para poder volver atrás
+     * sin recorrer desde el principio.
+     * @param paginador Consulta paginada a navegar
+     * @return false si la primera página vino vacía
+     * @throws Exception 
+     */
+    private boolean navegarPaginas(Paginador paginador) throws Exception {
+        Deque<String> anteriores = new ArrayDeque<>();
+        String actual = null;
+        int numero = 1;
+
+        while (true) {
+            Pagina<Producto> pagina = paginador.obtener(actual);
+            if (numero == 1 && pagina.getItems().isEmpty()) {
+                return false;
+            }
+            mostrarProductos(pagina.getItems());
+
+            System.out.print("Página " + numero + " - ");
+            if (pagina.hayMas()) {
+                System.out.print("[S] Siguiente  ");
+            }
+            if (!anteriores.isEmpty()) {
+                System.out.print("[A] Anterior  ");
+            }
+            System.out.print("[ENTER] Volver: ");
+
+            String opcion = scanner.nextLine().trim().toUpperCase();
+            if (opcion.equals("S") && pagina.hayMas()) {
+                // ArrayDeque no admite null: "" representa la primera página
+                anteriores.push(actual == null ? "" : actual);
+                actual = pagina.getSiguiente();
+                numero++;
+            } else if (opcion.equals("A") && !anteriores.isEmpty()) {
+                String previo = anteriores.pop();
+                actual = previo.isEmpty() ? null : previo;
+                numero--;
+            } else if (opcion.isEmpty()) {
+                return true;
+            }
+        }
+    }
+
     /**
      * Metodo de muestra de productos con un formato más amigable
      * @param lista Lista de productos a mostr1ar
@@ -374,27 +546,36 @@ public class MenuHandler {
         System.out.println("\n============= RESULTADOS =============");
 
         for (Producto p : lista) {
-            System.out.println("--------------------------------------");
-            System.out.println("-------------- PRODUCTO --------------");
-            System.out.println("--------------------------------------");
-            System.out.println("ID: " + p.getId());
-            System.out.println("Nombre: " + p.getNombre());
-            System.out.println("Marca: " + p.getMarca());
-            System.out.println("Categoria: " + p.getCategoria());
-            System.out.println("Precio: " + p.getPrecio());
-            System.out.println("Peso: " + p.getPeso());
-            System.out.println("Codigo de barra: " + p.getCodigoBarras().getValor() + " (ID: " + p.getCodigoBarras().getId() + ")");
-            /*System.out.println("--------------------------------------");
-            System.out.println("---------- CODIGO DE BARRAS ----------");
-            System.out.println("--------------------------------------");
-            System.out.println("ID: " + p.getCodigoBarras().getId());
-            System.out.println("Tipo: " + p.getCodigoBarras().getTipoCB());1
-            System.out.println("Valor: " + p.getCodigoBarras().getValor());
-            System.out.println("Fecha Asignación: " + p.getCodigoBarras().getFecha());
-            */
-            System.out.println("Observaciones: " + p.getCodigoBarras().getObservaciones());            
+            mostrarProducto(p);
         }
         System.out.println("--------------------------------------\n");
     }
+
+    /**
+     * Muestra un único producto con el mismo formato que mostrarProductos
+     * (usado también al listar en streaming)
+     * @param p Producto a mostrar
+     */
+    private void mostrarProducto(Producto p) {
+        System.out.println("--------------------------------------");
+        System.out.println("-------------- PRODUCTO --------------");
+        System.out.println("--------------------------------------");
+        System.out.println("ID: " + p.getId());
+        System.out.println("Nombre: " + p.getNombre());
+        System.out.println("Marca: " + p.getMarca());
+        System.out.println("Categoria: " + p.getCategoria());
+        System.out.println("Precio: " + p.getPrecio());
+        System.out.println("Peso: " + p.getPeso());
+        System.out.println("Codigo de barra: " + p.getCodigoBarras().getValor() + " (ID: " + p.getCodigoBarras().getId() + ")");
+        /*System.out.println("--------------------------------------");
+        System.out.println("---------- CODIGO DE BARRAS ----------");
+        System.out.println("--------------------------------------");
+        System.out.println("ID: " + p.getCodigoBarras().getId());
+        System.out.println("Tipo: " + p.getCodigoBarras().getTipoCB());1
+        System.out.println("Valor: " + p.getCodigoBarras().getValor());
+        System.out.println("Fecha Asignación: " + p.getCodigoBarras().getFecha());
+        */
+        System.out.println("Observaciones: " + p.getCodigoBarras().getObservaciones());            
+    }
     
 }
\ No newline at end of file
@@ -0,0 +1,93 @@
+package prog2int.Main;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import prog2int.Config.HistogramaLatencia;
+
+/**
+ * Prueba de carga de ServidorHttp: N clientes concurrentes (uno por hilo virtual)
+ * hacen GET en loop cerrado durante un tiempo fijo y al final se informa
+ * peticiones por segundo, errores y latencias (p50 / p99 / p999 / max).
+ *
+ * Uso:
+ * <pre>
+ * java prog2int.Main.PruebaCarga [url] [clientes] [segundos] [idMaximo] [ruta]
+ * java prog2int.Main.PruebaCarga http://localhost:8080 64 30 10000 /productos/{id}
+ * </pre>
+ * En la ruta, {id} se reemplaza en cada petición por un ID aleatorio entre 1 e idMaximo.
+ * Los primeros 5 segundos (-Dcarga.calentamientoSeg) no se cuentan.
+ *
+ * Respuestas 2xx y 404 cuentan como exitosas (un ID dado de baja no es un error del servidor).
+ */
+public class PruebaCarga {
+
+    public static void main(String[] args) throws Exception {
+        String url = args.length > 0 ? args[0] : "http://localhost:8080";
+        int clientes = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int segundos = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        long idMaximo = args.length > 3 ? Long.parseLong(args[3]) : 10_000L;
+        String ruta = args.length > 4 ? args[4] : "/productos/{id}";
+        int calentamiento = Integer.getInteger("carga.calentamientoSeg", 5);
+
+        HttpClient cliente = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        HistogramaLatencia latencias = new HistogramaLatencia();
+        LongAdder exitosas = new LongAdder();
+        LongAdder errores = new LongAdder();
+
+        System.out.printf("Calentando %d s con %d clientes contra %s%s...%n", calentamiento, clientes, url, ruta);
+        long inicioMedicion = System.nanoTime() + TimeUnit.SECONDS.toNanos(calentamiento);
+        long fin = inicioMedicion + TimeUnit.SECONDS.toNanos(segundos);
+
+        try (ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clientes; i++) {
+                hilos.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    long ahora;
+                    while ((ahora = System.nanoTime()) < fin) {
+                        String id = Long.toString(1 + random.nextLong(idMaximo));
+                        HttpRequest peticion = HttpRequest.newBuilder(URI.create(url + ruta.replace("{id}", id)))
+                                .timeout(Duration.ofSeconds(30))
+                                .GET()
+                                .build();
+                        boolean ok;
+                        try {
+                            int estado = cliente.send(peticion, HttpResponse.BodyHandlers.discarding()).statusCode();
+                            ok = (estado >= 200 && estado < 300) || estado == 404;
+                        } catch (Exception e) {
+                            ok = false;
+                        }
+                        long nanos = System.nanoTime() - ahora;
+                        if (ahora < inicioMedicion) {
+                            continue;
+                        }
+                        latencias.registrar(nanos);
+                        if (ok) {
+                            exitosas.increment();
+                        } else {
+                            errores.increment();
+                        }
+                    }
+                    return null;
+                });
+            }
+        }
+
+        long total = exitosas.sum() + errores.sum();
+        System.out.printf("Peticiones: %d (%d errores) en %d s%n", total, errores.sum(), segundos);
+        System.out.printf("Throughput: %.1f req/s%n", (double) total / segundos);
+        System.out.printf("Latencia ms: p50 %.3f | p99 %.3f | p999 %.3f | max %.3f%n",
+                latencias.getPercentilNanos(50) / 1e6, latencias.getPercentilNanos(99) / 1e6,
+                latencias.getPercentilNanos(99.9) / 1e6, latencias.getMaximoNanos() / 1e6);
+    }
+}
@@ -0,0 +1,493 @@
+package prog2int.Main;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import prog2int.Config.DatabaseConnection;
+import prog2int.Config.Metricas;
+import prog2int.Config.UnidadDeTrabajo;
+import prog2int.Dao.ResultadoMultiple;
+import prog2int.Models.CodigoBarras;
+import prog2int.Models.Producto;
+import prog2int.Service.FormatoJson;
+import prog2int.Service.ProductoServiceImpl;
+import prog2int.Service.ValidadorCodigoBarras;
+
+/**
+ * Servicio HTTP de consulta y ABM de productos (sin menú interactivo).
+ * Usa el servidor HTTP del JDK (com.sun.net.httpserver), sin dependencias externas.
+ *
+ * Endpoints (JSON, UTF-8):
+ * - GET    /productos/{id}              Producto por ID
+ * - GET    /productos/codigo/{valor}    Producto por valor de código de barras (resolverEscaneo)
+ * - GET    /productos?nombre=texto      Búsqueda por nombre
+ * - GET    /productos?marca=texto       Búsqueda por marca
+ * - GET    /productos?ids=1,2,3         Varios productos por ID (getByIds)
+ * - GET    /productos?codigos=v1,v2     Varios productos por código de barras (canasta)
+ * - POST   /productos                   Alta de producto + código de barras (insertarTx) → 201
+ *                                       (sin "id" se asignan por secuencia si ids.secuencia.enabled)
+ * - PUT    /productos/{id}              Actualización de nombre, marca, categoría, precio y peso
+ * - DELETE /productos/{id}              Baja lógica → 204
+ * - GET    /metricas                    Reporte de Metricas en texto plano
+ *
+ * Concurrencia:
+ * - Cada petición corre en su propio hilo virtual (newVirtualThreadPerTaskExecutor)
+ * - Un semáforo con tantos permisos como conexiones del pool (db.pool.max) limita
+ *   las peticiones que usan la base al mismo tiempo: el resto espera en el semáforo
+ *   (un hilo virtual bloqueado no ocupa un hilo del sistema) en lugar de esperar
+ *   en ConnectionPool.borrow con una conexión física en juego.
+ *   Si no consigue permiso en http.esperaMs se responde 503.
+ *
+ * Errores: {"error": "mensaje"} con 400 (datos inválidos), 404 (no existe),
+ * 409 (clave duplicada), 503 (saturado) o 500 (cualquier otro).
+ *
+ * Configuración:
+ * - -Dhttp.port=8080 puerto
+ * - -Dhttp.permisos=db.pool.max peticiones concurrentes contra la base
+ * - -Dhttp.esperaMs=5000 espera máxima por un permiso
+ */
+public class ServidorHttp {
+
+    private static final String JSON = "application/json; charset=utf-8";
+
+    private final ProductoServiceImpl productoService;
+    private final HttpServer server;
+    private final ExecutorService hilos;
+    private final Semaphore permisos;
+    private final long esperaMs;
+
+    /**
+     * @param productoService Service ya inicializado
+     * @param puerto Puerto TCP (0 para uno libre)
+     * @param permisos Peticiones concurrentes contra la base
+     * @param esperaMs Espera máxima por un permiso antes de responder 503
+     */
+    public ServidorHttp(ProductoServiceImpl productoService, int puerto, int permisos, long esperaMs) throws IOException {
+        if (productoService == null) {
+            throw new IllegalArgumentException("ProductoServiceImpl no puede ser null");
+        }
+        if (permisos <= 0) {
+            throw new IllegalArgumentException("permisos debe ser mayor a 0");
+        }
+        this.productoService = productoService;
+        this.permisos = new Semaphore(permisos, true);
+        this.esperaMs = esperaMs;
+        this.hilos = Executors.newVirtualThreadPerTaskExecutor();
+        this.server = HttpServer.create(new InetSocketAddress(puerto), 0);
+        this.server.setExecutor(hilos);
+        this.server.createContext("/productos", this::atenderProductos);
+        this.server.createContext("/metricas", this::atenderMetricas);
+    }
+
+    /**
+     * Arranca el servidor con la configuración de las propiedades de sistema
+     * y queda atendiendo hasta que se detiene el proceso.
+     */
+    public static void main(String[] args) throws Exception {
+        ProductoServiceImpl productoService = AppMenu.createProductoService();
+        try {
+            productoService.inicializar();
+        } catch (Exception e) {
+            System.err.println("No se pudo inicializar el índice de búsqueda: " + e.getMessage());
+        }
+        ServidorHttp servidor = new ServidorHttp(productoService,
+                Integer.getInteger("http.port", 8080),
+                Integer.getInteger("http.permisos", Integer.getInteger("db.pool.max", 10)),
+                Long.getLong("http.esperaMs", 5_000L));
+        // En el hook del pool, antes de cerrarlo: detener() todavía escribe en la base
+        DatabaseConnection.alCerrar(servidor::detener);
+        servidor.iniciar();
+        System.out.println("Servidor HTTP escuchando en el puerto " + servidor.getPuerto());
+    }
+
+    public void iniciar() {
+        server.start();
+    }
+
+    /**
+     * Deja de aceptar conexiones, espera hasta 2 segundos a las peticiones en curso,
+     * cierra el executor y escribe las actualizaciones encoladas (escritura diferida).
+     */
+    public void detener() {
+        server.stop(2);
+        hilos.shutdown();
+        try {
+            productoService.vaciarEscrituras();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** @return Puerto en el que escucha (útil si se creó con puerto 0) */
+    public int getPuerto() {
+        return server.getAddress().getPort();
+    }
+
+    // ---- HANDLERS ----
+
+    private void atenderProductos(HttpExchange ex) throws IOException {
+        String metodo = ex.getRequestMethod();
+        String[] partes = ex.getRequestURI().getRawPath().split("/");
+        // "/productos" → ["", "productos"]; "/productos/5" → ["", "productos", "5"]
+        try {
+            if (!adquirir()) {
+                responderError(ex, 503, "Servidor saturado, intente nuevamente");
+                return;
+            }
+            try {
+                long inicio = System.nanoTime();
+                int estado = enrutar(ex, metodo, partes);
+                Metricas.registrar("Http." + metodo, System.nanoTime() - inicio, estado >= 500, 0);
+            } finally {
+                permisos.release();
+            }
+        } catch (IllegalArgumentException e) {
+            responderError(ex, 400, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            responderError(ex, 503, "Petición interrumpida");
+        } catch (Exception | Error e) {
+            // Errores incluidos: si falla la inicialización del pool el cliente igual recibe respuesta
+            responderError(ex, esDuplicado(e) ? 409 : 500, String.valueOf(e.getMessage()));
+        } finally {
+            ex.close();
+        }
+    }
+
+    /**
+     * Despacha según método y ruta.
+     * @return Código HTTP respondido
+     */
+    private int enrutar(HttpExchange ex, String metodo, String[] partes) throws Exception {
+        if (partes.length == 2) {
+            switch (metodo) {
+                case "GET":
+                    return buscar(ex);
+                case "POST":
+                    return crear(ex);
+                default:
+                    return responderError(ex, 405, "Método no permitido");
+            }
+        }
+        if (partes.length == 4 && partes[2].equals("codigo")) {
+            if (!metodo.equals("GET")) {
+                return responderError(ex, 405, "Método no permitido");
+            }
+            String valor = URLDecoder.decode(partes[3], StandardCharsets.UTF_8);
+            long id = productoService.resolverEscaneo(valor);
+            return responderProducto(ex, id < 0 ? null : productoService.getById(id));
+        }
+        if (partes.length != 3) {
+            return responderError(ex, 404, "Ruta inexistente");
+        }
+        long id = parsearId(partes[2]);
+        switch (metodo) {
+            case "GET":
+                return responderProducto(ex, productoService.getById(id));
+            case "PUT":
+                return modificar(ex, id);
+            case "DELETE":
+                // Verificación y baja en una misma unidad de trabajo (si está habilitada)
+                boolean eliminado = UnidadDeTrabajo.ejecutar(() -> {
+                    if (productoService.getById(id) == null) {
+                        return false;
+                    }
+                    productoService.eliminar(id);
+                    return true;
+                });
+                if (!eliminado) {
+                    return responderError(ex, 404, "No existe el producto con ID " + id);
+                }
+                return responder(ex, 204, null, null);
+            default:
+                return responderError(ex, 405, "Método no permitido");
+        }
+    }
+
+    private int buscar(HttpExchange ex) throws Exception {
+        String nombre = parametro(ex, "nombre");
+        String marca = parametro(ex, "marca");
+        String ids = parametro(ex, "ids");
+        String codigos = parametro(ex, "codigos");
+        if (ids != null) {
+            return responderCanasta(ex, productoService.getByIds(parsearIds(ids)));
+        }
+        if (codigos != null) {
+            return responderCanasta(ex, resolverCodigos(List.of(codigos.split(","))));
+        }
+        List<Producto> productos;
+        if (nombre != null) {
+            productos = productoService.getByName(nombre);
+        } else if (marca != null) {
+            productos = productoService.getByBrand(marca);
+        } else {
+            throw new IllegalArgumentException("Indique ?nombre=, ?marca=, ?ids= o ?codigos=");
+        }
+        return responder(ex, 200, JSON, FormatoJson.productos(productos));
+    }
+
+    /**
+     * Canasta por códigos: una consulta múltiple de códigos y otra de productos.
+     * Las claves del resultado son los valores de los códigos.
+     */
+    private ResultadoMultiple<String, Producto> resolverCodigos(List<String> valores) throws Exception {
+        ResultadoMultiple<String, CodigoBarras> cbs =
+                productoService.getCodigoBarrasServiceImpl().getByValores(valores);
+        List<Long> ids = new ArrayList<>(cbs.getEncontrados().size());
+        for (CodigoBarras cb : cbs.getEncontrados().values()) {
+            ids.add(cb.getIdProducto());
+        }
+        ResultadoMultiple<Long, Producto> productos = productoService.getByIds(ids);
+        Map<String, Producto> porValor = new HashMap<>();
+        for (Map.Entry<String, CodigoBarras> e : cbs.getEncontrados().entrySet()) {
+            Producto p = productos.get(e.getValue().getIdProducto());
+            if (p != null) {
+                porValor.put(e.getKey(), p);
+            }
+        }
+        return ResultadoMultiple.de(valores, porValor);
+    }
+
+    /** {"productos": [...], "faltantes": [...]} */
+    private int responderCanasta(HttpExchange ex, ResultadoMultiple<?, Producto> resultado) throws IOException {
+        StringBuilder sb = new StringBuilder(64 + resultado.getEncontrados().size() * 256);
+        sb.append("{\"productos\":").append(FormatoJson.productos(new ArrayList<>(resultado.getEncontrados().values())));
+        sb.append(",\"faltantes\":[");
+        boolean primero = true;
+        for (Object clave : resultado.getFaltantes()) {
+            if (!primero) {
+                sb.append(',');
+            }
+            primero = false;
+            if (clave instanceof Number) {
+                sb.append(clave);
+            } else {
+                FormatoJson.escribirTexto(sb, clave.toString());
+            }
+        }
+        return responder(ex, 200, JSON, sb.append("]}").toString());
+    }
+
+    private int crear(HttpExchange ex) throws Exception {
+        Map<String, Object> json = FormatoJson.leerObjeto(leerCuerpo(ex));
+        Object cbJson = json.get("codigoBarras");
+        if (!(cbJson instanceof Map)) {
+            throw new IllegalArgumentException("Falta el objeto codigoBarras");
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, Object> cbMapa = (Map<String, Object>) cbJson;
+        String tipo = texto(cbMapa, "tipo", true).toUpperCase();
+        String valor = texto(cbMapa, "valor", true);
+        ValidadorCodigoBarras.Resultado resultado = ValidadorCodigoBarras.validar(tipo, valor);
+        if (!resultado.isValido()) {
+            throw new IllegalArgumentException(ValidadorCodigoBarras.mensaje(tipo, resultado));
+        }
+        // Sin IDs en el cuerpo los asigna la secuencia (si está habilitada)
+        boolean idsAutomaticos = productoService.isIdsAutomaticos()
+                && !json.containsKey("id") && !cbMapa.containsKey("id");
+        CodigoBarras cb = new CodigoBarras(idsAutomaticos ? 0 : numero(cbMapa, "id").longValue(), tipo, valor,
+                new Date(), texto(cbMapa, "observaciones", false));
+        Producto p = new Producto(idsAutomaticos ? 0 : numero(json, "id").longValue(), texto(json, "nombre", true),
+                texto(json, "marca", false), texto(json, "categoria", false),
+                numero(json, "precio").doubleValue(), numero(json, "peso").doubleValue(), cb);
+
+        if (idsAutomaticos) {
+            productoService.crear(p, cb);
+        } else {
+            productoService.insertarTx(p, cb);
+        }
+        ex.getResponseHeaders().set("Location", "/productos/" + p.getId());
+        return responder(ex, 201, JSON, FormatoJson.producto(p));
+    }
+
+    private int modificar(HttpExchange ex, long id) throws Exception {
+        Map<String, Object> json = FormatoJson.leerObjeto(leerCuerpo(ex));
+        // Lectura y UPDATE en una misma unidad de trabajo (si está habilitada);
+        // la respuesta se escribe ya devuelta la conexión
+        Producto p = UnidadDeTrabajo.ejecutar(() -> {
+            Producto leido = productoService.getById(id);
+            if (leido == null) {
+                return null;
+            }
+            // Solo se modifican los campos presentes en el cuerpo
+            if (json.containsKey("nombre")) {
+                leido.setNombre(texto(json, "nombre", true));
+            }
+            if (json.containsKey("marca")) {
+                leido.setMarca(texto(json, "marca", false));
+            }
+            if (json.containsKey("categoria")) {
+                leido.setCategoria(texto(json, "categoria", false));
+            }
+            if (json.containsKey("precio")) {
+                leido.setPrecio(numero(json, "precio").doubleValue());
+            }
+            if (json.containsKey("peso")) {
+                leido.setPeso(numero(json, "peso").doubleValue());
+            }
+            productoService.actualizar(leido);
+            return leido;
+        });
+        if (p == null) {
+            return responderError(ex, 404, "No existe el producto con ID " + id);
+        }
+        return responder(ex, 200, JSON, FormatoJson.producto(p));
+    }
+
+    private void atenderMetricas(HttpExchange ex) throws IOException {
+        try {
+            String pool;
+            try {
+                pool = DatabaseConnection.getEstadisticasPool().toString();
+                String replicas = DatabaseConnection.getEstadisticasReplicas();
+                if (replicas != null) {
+                    pool += "\n" + replicas;
+                }
+            } catch (Exception | Error e) {
+                pool = "no disponible (" + e.getMessage() + ")";
+            }
+            StringBuilder sb = new StringBuilder(Metricas.getReporte()).append("\nPool: ").append(pool).append('\n');
+            String vuelos = productoService.getEstadisticasSingleFlight();
+            if (vuelos != null) {
+                sb.append(vuelos).append('\n')
+                  .append(productoService.getCodigoBarrasServiceImpl().getEstadisticasSingleFlight()).append('\n');
+            }
+            String escritura = productoService.getEstadisticasEscritura();
+            if (escritura != null) {
+                sb.append(escritura).append('\n');
+            }
+            String cambios = productoService.getEstadisticasCambios();
+            if (cambios != null) {
+                sb.append(cambios).append('\n');
+            }
+            responder(ex, 200, "text/plain; charset=utf-8", sb.toString());
+        } finally {
+            ex.close();
+        }
+    }
+
+    // ---- AUXILIARES ----
+
+    private boolean adquirir() throws InterruptedException {
+        return permisos.tryAcquire(esperaMs, TimeUnit.MILLISECONDS);
+    }
+
+    private int responderProducto(HttpExchange ex, Producto p) throws IOException {
+        if (p == null) {
+            return responderError(ex, 404, "Producto no encontrado");
+        }
+        return responder(ex, 200, JSON, FormatoJson.producto(p));
+    }
+
+    private int responderError(HttpExchange ex, int estado, String mensaje) throws IOException {
+        StringBuilder sb = new StringBuilder(64).append("{\"error\":");
+        FormatoJson.escribirTexto(sb, mensaje);
+        return responder(ex, estado, JSON, sb.append('}').toString());
+    }
+
+    /**
+     * Envía la respuesta completa (con Content-Length, para mantener la conexión viva).
+     * @param cuerpo null para respuestas sin cuerpo (204)
+     */
+    private static int responder(HttpExchange ex, int estado, String tipo, String cuerpo) throws IOException {
+        if (cuerpo == null) {
+            ex.sendResponseHeaders(estado, -1);
+            return estado;
+        }
+        byte[] bytes = cuerpo.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", tipo);
+        ex.sendResponseHeaders(estado, bytes.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(bytes);
+        }
+        return estado;
+    }
+
+    private static String leerCuerpo(HttpExchange ex) throws IOException {
+        try (InputStream in = ex.getRequestBody()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /** @return Valor decodificado del parámetro de la query, o null si no está */
+    private static String parametro(HttpExchange ex, String nombre) {
+        String query = ex.getRequestURI().getRawQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String par : query.split("&")) {
+            int igual = par.indexOf('=');
+            String clave = igual < 0 ? par : par.substring(0, igual);
+            if (clave.equals(nombre)) {
+                return igual < 0 ? "" : URLDecoder.decode(par.substring(igual + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    private static List<Long> parsearIds(String texto) {
+        List<Long> ids = new ArrayList<>();
+        for (String id : texto.split(",")) {
+            ids.add(parsearId(id.trim()));
+        }
+        return ids;
+    }
+
+    private static long parsearId(String texto) {
+        try {
+            return Long.parseLong(texto);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("ID inválido: " + texto);
+        }
+    }
+
+    private static String texto(Map<String, Object> json, String campo, boolean obligatorio) {
+        Object valor = json.get(campo);
+        if (valor == null) {
+            if (obligatorio) {
+                throw new IllegalArgumentException("Falta el campo " + campo);
+            }
+            return null;
+        }
+        if (!(valor instanceof String s)) {
+            throw new IllegalArgumentException("El campo " + campo + " debe ser texto");
+        }
+        if (obligatorio && s.isBlank()) {
+            throw new IllegalArgumentException("El campo " + campo + " no puede estar vacío");
+        }
+        return s.trim();
+    }
+
+    private static Number numero(Map<String, Object> json, String campo) {
+        Object valor = json.get(campo);
+        if (!(valor instanceof Number n)) {
+            throw new IllegalArgumentException("El campo " + campo + " debe ser numérico");
+        }
+        return n;
+    }
+
+    /** @return true si en la cadena de causas hay una violación de clave (SQLState 23xxx) */
+    private static boolean esDuplicado(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException sql && sql.getSQLState() != null && sql.getSQLState().startsWith("23")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
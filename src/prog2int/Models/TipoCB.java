@@ -4,6 +4,9 @@
  */
 package prog2int.Models;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  *
  * @author Fulla
@@ -12,8 +15,33 @@ public enum TipoCB {
     EAN13,
     EAN8,
     UPC;
+
+    /** Tabla nombre → constante armada una vez, para el mapeo de filas. */
+    private static final Map<String, TipoCB> POR_NOMBRE = new HashMap<>();
+
+    static {
+        for (TipoCB tipo : values()) {
+            POR_NOMBRE.put(tipo.name(), tipo);
+        }
+    }
     
     public static TipoCB controlString(String valor){
             return TipoCB.valueOf(valor.toUpperCase());
     }
+
+    /**
+     * Tipo leído de la columna codigoBarras.tipo (ya validada por el CHECK de la tabla).
+     * @return Tipo, o null si la columna es NULL
+     * @throws IllegalArgumentException Si el valor no es un tipo conocido
+     */
+    public static TipoCB desdeColumna(String valor) {
+        if (valor == null) {
+            return null;
+        }
+        TipoCB tipo = POR_NOMBRE.get(valor);
+        if (tipo == null) {
+            throw new IllegalArgumentException("Tipo de código desconocido: " + valor);
+        }
+        return tipo;
+    }
 }
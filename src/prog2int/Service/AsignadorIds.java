@@ -0,0 +1,63 @@
+package prog2int.Service;
+
+import prog2int.Dao.SecuenciaDAO;
+
+/**
+ * Asignación de IDs por bloques (hi-lo) sobre una secuencia de la base.
+ *
+ * En lugar de pedir un ID al usuario y consultar idExists hasta encontrar uno libre,
+ * siguiente() entrega IDs de un bloque reservado con SecuenciaDAO: una ida y vuelta
+ * a la base cada "bloque" IDs y ninguna consulta previa al alta.
+ *
+ * Los IDs reservados y no usados (al cerrar la aplicación) no se reutilizan; si
+ * alguien inserta a mano un ID dentro del bloque, el alta falla por PRIMARY KEY y
+ * el caller reintenta con el siguiente (ver ProductoServiceImpl.crear).
+ *
+ * Thread-safe.
+ */
+public final class AsignadorIds {
+
+    private final SecuenciaDAO secuenciaDAO;
+    private final String nombre;
+    private final int bloque;
+
+    /** Próximo ID a entregar y fin (exclusivo) del bloque actual. Protegidos por this. */
+    private long proximo;
+    private long limite;
+
+    /**
+     * @param secuenciaDAO DAO de la tabla secuencia
+     * @param nombre Nombre de la secuencia
+     * @param bloque IDs reservados por cada ida a la base
+     */
+    public AsignadorIds(SecuenciaDAO secuenciaDAO, String nombre, int bloque) {
+        if (secuenciaDAO == null) {
+            throw new IllegalArgumentException("SecuenciaDAO no puede ser null");
+        }
+        if (bloque <= 0) {
+            throw new IllegalArgumentException("El bloque debe ser mayor a 0");
+        }
+        this.secuenciaDAO = secuenciaDAO;
+        this.nombre = nombre;
+        this.bloque = bloque;
+    }
+
+    /**
+     * @return ID nuevo, distinto de todos los entregados por este u otro proceso
+     * @throws Exception Si hubo que reservar un bloque y falló la base
+     */
+    public synchronized long siguiente() throws Exception {
+        if (proximo == limite) {
+            proximo = secuenciaDAO.reservar(nombre, bloque);
+            limite = proximo + bloque;
+        }
+        return proximo++;
+    }
+
+    /**
+     * @return IDs del bloque actual que quedan sin entregar
+     */
+    public synchronized long getDisponibles() {
+        return limite - proximo;
+    }
+}
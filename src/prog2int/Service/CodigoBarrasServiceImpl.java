@@ -5,10 +5,19 @@
 package prog2int.Service;
 
 import java.sql.Connection;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import prog2int.Config.CacheLRU;
+import prog2int.Config.Metricas;
+import prog2int.Config.SingleFlight;
+import prog2int.Config.UnidadDeTrabajo;
 import prog2int.Dao.CodigoBarrasDAO;
+import prog2int.Dao.SecuenciaDAO;
+import prog2int.Dao.ResultadoMultiple;
 import prog2int.Models.CodigoBarras;
-import prog2int.Models.TipoCB;
 
 /**
  *
@@ -18,26 +27,126 @@ public class CodigoBarrasServiceImpl implements GenericService<CodigoBarras>{
 
     private final CodigoBarrasDAO cbDAO;
 
+    /**
+     * Cache read-through de getByValor (clave: valor del código).
+     * null si está deshabilitada (-Dcache.enabled=false, valor por defecto).
+     */
+    private final CacheLRU<String, CodigoBarras> cacheValor;
+
+    /**
+     * Aviso a quien guarda copias de productos con su código (ProductoServiceImpl) cuando
+     * se modifica o elimina el código de un producto. null si nadie se registró.
+     */
+    private volatile ListenerCodigo listenerCodigo;
+
+    /**
+     * Aviso de un cambio en el código de barras de un producto.
+     */
+    @FunctionalInterface
+    public interface ListenerCodigo {
+        /**
+         * Se llama al terminar la escritura, haya fallado o no. Dentro de una UnidadDeTrabajo
+         * es antes de su commit: lo que dependa del resultado se difiere con UnidadDeTrabajo.
+         * @param idProducto Producto dueño del código
+         * @param eliminado true si el código se dio de baja
+         */
+        void alCambiarCodigo(long idProducto, boolean eliminado);
+    }
+
+    /**
+     * Agrupa lecturas concurrentes del mismo valor (-Dsingleflight.enabled=true).
+     * null si está deshabilitado.
+     */
+    private final SingleFlight<String, CodigoBarras> vuelos;
+
+    /**
+     * IDs nuevos por bloques de la secuencia "codigoBarras" (-Dids.secuencia.enabled=true,
+     * -Dids.bloque=50). null si está deshabilitado: el ID lo elige el usuario.
+     */
+    private final AsignadorIds ids;
+
     public CodigoBarrasServiceImpl(CodigoBarrasDAO cbDAO) {
         if (cbDAO == null) {
             throw new IllegalArgumentException("CodigoBarrasDAO no puede ser null");
         }
         this.cbDAO = cbDAO;
+        this.cacheValor = Boolean.getBoolean("cache.enabled")
+                ? new CacheLRU<>("codigosPorValor", Integer.getInteger("cache.max", 10_000),
+                        Long.getLong("cache.ttlMs", 60_000L))
+                : null;
+        this.vuelos = Boolean.getBoolean("singleflight.enabled")
+                ? new SingleFlight<>("codigosPorValor", Long.getLong("singleflight.timeoutMs", 5_000L))
+                : null;
+        this.ids = Boolean.getBoolean("ids.secuencia.enabled")
+                ? new AsignadorIds(new SecuenciaDAO(), "codigoBarras", Integer.getInteger("ids.bloque", 50))
+                : null;
     }
     
     @Override
     public void insertar(CodigoBarras cb) throws Exception {
-        cbDAO.insertar(cb);
+        try {
+            cbDAO.insertar(cb);
+        } finally {
+            invalidarCacheValor(cb.getValor());
+        }
     }
 
     @Override
     public void actualizar(CodigoBarras cb) throws Exception {
-        cbDAO.actualizar(cb);
+        long idProducto = duenio(cb.getId(), cb.getIdProducto());
+        try {
+            cbDAO.actualizar(cb);
+        } finally {
+            invalidarCache(cb);
+            avisarCambio(idProducto, false);
+        }
     }
 
     @Override
     public void eliminar(long id) throws Exception {
-        cbDAO.eliminar(id);
+        long idProducto = duenio(id, 0);
+        try {
+            cbDAO.eliminar(id);
+        } finally {
+            avisarCambio(idProducto, true);
+            UnidadDeTrabajo.alTerminar(() -> {
+                if (cacheValor != null) {
+                    cacheValor.invalidarSi(c -> c.getId() == id);
+                }
+                if (vuelos != null) {
+                    vuelos.olvidarTodas();
+                }
+            });
+        }
+    }
+
+    /**
+     * Registra el listener de cambios de código (uno solo: reemplaza al anterior).
+     * @param listener Listener, o null para quitarlo
+     */
+    public void setListenerCodigo(ListenerCodigo listener) {
+        this.listenerCodigo = listener;
+    }
+
+    /**
+     * Producto dueño de un código, para avisarle al listener. Se lee antes de escribir
+     * porque getById no devuelve códigos eliminados.
+     * @param conocido idProducto que ya trae el código (0 si no se conoce)
+     * @return Dueño, o 0 si no hay listener o el código no existe
+     */
+    private long duenio(long idCodigo, long conocido) throws Exception {
+        if (listenerCodigo == null || conocido != 0) {
+            return conocido;
+        }
+        CodigoBarras actual = cbDAO.getById(idCodigo);
+        return actual == null ? 0 : actual.getIdProducto();
+    }
+
+    private void avisarCambio(long idProducto, boolean eliminado) {
+        ListenerCodigo listener = listenerCodigo;
+        if (listener != null && idProducto != 0) {
+            listener.alCambiarCodigo(idProducto, eliminado);
+        }
     }
 
     @Override
@@ -48,8 +157,63 @@ public class CodigoBarrasServiceImpl implements GenericService<CodigoBarras>{
     public boolean idExists(long id) throws Exception{
         return cbDAO.idExists(id);
     }
+
+    /** @return true si los IDs nuevos los asigna la secuencia (nuevoId) */
+    public boolean isIdsAutomaticos() {
+        return ids != null;
+    }
+
+    /**
+     * @return ID libre para un código nuevo, sin consultar la tabla codigoBarras
+     * @throws IllegalStateException Si la asignación por secuencia está deshabilitada
+     */
+    public long nuevoId() throws Exception {
+        if (ids == null) {
+            throw new IllegalStateException("La asignación de IDs por secuencia está deshabilitada");
+        }
+        return ids.siguiente();
+    }
+    /**
+     * Busca por valor pasando por la cache si está habilitada.
+     * Devuelve una copia para que el caller pueda modificarla sin afectar la cache.
+     * Dentro de una UnidadDeTrabajo se lee por su conexión, sin cache.
+     */
     public CodigoBarras getByValor(String valor) throws Exception{
-        return cbDAO.getByValor(valor);
+        return Metricas.medir("CodigoBarrasService.getByValor", () -> {
+            if (UnidadDeTrabajo.isActiva()) {
+                return cbDAO.getByValor(valor);
+            }
+            if (cacheValor == null) {
+                return vuelos == null ? cbDAO.getByValor(valor) : copiar(cargar(valor));
+            }
+            return copiar(cacheValor.obtener(valor, this::cargar));
+        });
+    }
+
+    /**
+     * Lectura de la base ante un fallo de cache, agrupada si single-flight está habilitado.
+     */
+    private CodigoBarras cargar(String valor) throws Exception {
+        return vuelos == null ? cbDAO.getByValor(valor) : vuelos.ejecutar(valor, cbDAO::getByValor);
+    }
+
+    /**
+     * Busca muchos códigos por valor de una vez (canasta de escaneos).
+     * Con la cache habilitada solo van a la base los valores no cacheados, en una
+     * única llamada a CodigoBarrasDAO.getByValores. Devuelve copias.
+     * @param valores Valores a buscar
+     * @return Códigos encontrados por valor y los valores faltantes
+     */
+    public ResultadoMultiple<String, CodigoBarras> getByValores(Collection<String> valores) throws Exception {
+        return Metricas.medir("CodigoBarrasService.getByValores", () -> {
+            if (cacheValor == null) {
+                return cbDAO.getByValores(valores);
+            }
+            Map<String, CodigoBarras> encontrados = cacheValor.obtenerTodos(valores,
+                    faltantes -> cbDAO.getByValores(faltantes).getEncontrados());
+            encontrados.replaceAll((valor, cb) -> copiar(cb));
+            return ResultadoMultiple.de(valores, encontrados);
+        });
     }
 
     @Override
@@ -60,55 +224,149 @@ public class CodigoBarrasServiceImpl implements GenericService<CodigoBarras>{
     public void insertarTx(CodigoBarras cb, Connection conn) throws Exception{
         cbDAO.insertTx(cb, conn);
     }
-    
-    public boolean validarCodigo(String tipo, String valor) {
 
-        if (valor == null || valor.isBlank()) {
-            System.out.println("El valor del código de barras no puede estar vacío.");
-            return false;
+    /**
+     * Inserta una lista de códigos en un batch JDBC (sin transacción propia).
+     * @param cbs Códigos a insertar
+     */
+    public void insertarBatch(List<CodigoBarras> cbs) throws Exception {
+        cbDAO.insertarBatch(cbs);
+    }
+
+    /**
+     * Inserta una lista de códigos en un batch JDBC dentro de la transacción de conn.
+     * @param cbs Códigos a insertar
+     * @param conn Conexión de la transacción en curso
+     */
+    public void insertarBatchTx(List<CodigoBarras> cbs, Connection conn) throws Exception {
+        cbDAO.insertBatchTx(cbs, conn);
+    }
+
+    /**
+     * Quita de la cache el código indicado (por valor y por id, ya que
+     * una actualización puede haber cambiado el valor).
+     * Esta y las demás invalidaciones se difieren al fin de la UnidadDeTrabajo activa, si hay.
+     * @param cb Código modificado
+     */
+    public void invalidarCache(CodigoBarras cb) {
+        if (cb == null) {
+            return;
         }
+        String valor = cb.getValor();
+        long id = cb.getId();
+        UnidadDeTrabajo.alTerminar(() -> {
+            if (vuelos != null) {
+                // Sin el valor anterior no se sabe qué clave olvidar
+                vuelos.olvidarTodas();
+            }
+            if (cacheValor == null) {
+                return;
+            }
+            if (valor != null) {
+                cacheValor.invalidar(valor);
+            }
+            cacheValor.invalidarSi(c -> c.getId() == id);
+        });
+    }
 
-        // Solo dígitos
-        if (!valor.matches("\\d+")) {
-            System.out.println("El código de barras solo puede contener números.");
-            return false;
+    /**
+     * Quita de la cache el código con el valor indicado.
+     * @param valor Valor del código
+     */
+    public void invalidarCacheValor(String valor) {
+        if (valor == null) {
+            return;
         }
+        UnidadDeTrabajo.alTerminar(() -> {
+            if (cacheValor != null) {
+                cacheValor.invalidar(valor);
+            }
+            if (vuelos != null) {
+                vuelos.olvidar(valor);
+            }
+        });
+    }
 
-        int longitud = valor.length();
+    /**
+     * Quita de la cache el código asociado a un producto.
+     * @param idProducto ID del producto dueño del código
+     */
+    public void invalidarCachePorProducto(long idProducto) {
+        UnidadDeTrabajo.alTerminar(() -> {
+            if (cacheValor != null) {
+                cacheValor.invalidarSi(c -> c.getIdProducto() == idProducto);
+            }
+            if (vuelos != null) {
+                vuelos.olvidarTodas();
+            }
+        });
+    }
 
-        try{
-        switch (TipoCB.valueOf(tipo)) {
-            case EAN13:
-                if (longitud != 13) {
-                    System.out.println("EAN13 debe tener exactamente 13 dígitos.");
-                    return false;
-                }
-                break;
+    /**
+     * invalidarCachePorProducto para varios productos, en un solo recorrido de la cache.
+     * @param idsProducto IDs de los productos dueños de los códigos
+     */
+    public void invalidarCachePorProductos(Collection<Long> idsProducto) {
+        Set<Long> ids = new HashSet<>(idsProducto);
+        UnidadDeTrabajo.alTerminar(() -> {
+            if (cacheValor != null) {
+                cacheValor.invalidarSi(c -> ids.contains(c.getIdProducto()));
+            }
+            if (vuelos != null) {
+                vuelos.olvidarTodas();
+            }
+        });
+    }
 
-            case EAN8:
-                if (longitud != 8) {
-                    System.out.println("EAN8 debe tener exactamente 8 dígitos.");
-                    return false;
-                }
-                break;
+    /**
+     * @return Estadísticas de la cache de códigos, o null si está deshabilitada
+     */
+    public String getEstadisticasCache() {
+        return cacheValor == null ? null : cacheValor.getEstadisticas();
+    }
 
-            case UPC:
-                if (longitud != 12) {
-                    System.out.println("UPC debe tener exactamente 12 dígitos.");
-                    return false;
-                }
-                break;
+    /**
+     * @return Estadísticas de single-flight de getByValor, o null si está deshabilitado
+     */
+    public String getEstadisticasSingleFlight() {
+        return vuelos == null ? null : vuelos.getEstadisticas();
+    }
 
-            default:
-                System.out.println("Tipo de código de barras no reconocido.");
-                return false;
-        }
-        
-        return true;
-        }
-        catch(Exception e){
-            System.out.println("Tipo de código de barras no reconocido.");
-            return false;
+    /**
+     * Copia superficial de un código (todos sus campos son inmutables o se reemplazan por setter).
+     * @return Copia, o null si cb es null
+     */
+    static CodigoBarras copiar(CodigoBarras cb) {
+        if (cb == null) {
+            return null;
         }
+        CodigoBarras copia = new CodigoBarras();
+        copia.setId(cb.getId());
+        copia.setEliminado(cb.isEliminado());
+        copia.setTipoCB(cb.getTipoCB());
+        copia.setValor(cb.getValor());
+        copia.setFecha(cb.getFecha());
+        copia.setObservaciones(cb.getObservaciones());
+        copia.setIdProducto(cb.getIdProducto());
+        return copia;
+    }
+    
+    /**
+     * Valida un código (tipo, longitud y dígito verificador) con ValidadorCodigoBarras.
+     * No imprime nada: para mostrar el motivo usar motivoInvalido.
+     * @return true si el código es válido para el tipo
+     */
+    public boolean validarCodigo(String tipo, String valor) {
+        return ValidadorCodigoBarras.validar(tipo, valor).isValido();
+    }
+
+    /**
+     * Aplica las mismas reglas que validarCodigo devolviendo el motivo del rechazo
+     * (mensajes para el menú y para el archivo de rechazos de ImportadorCatalogo).
+     * @return null si el código es válido, o el motivo del rechazo
+     */
+    public String motivoInvalido(String tipo, String valor) {
+        ValidadorCodigoBarras.Resultado resultado = ValidadorCodigoBarras.validar(tipo, valor);
+        return resultado.isValido() ? null : ValidadorCodigoBarras.mensaje(tipo, resultado);
     }
-}
\ No newline at end of file
+}
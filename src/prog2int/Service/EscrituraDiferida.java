@@ -0,0 +1,373 @@
+package prog2int.Service;
+
+import java.sql.SQLTimeoutException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongConsumer;
+import prog2int.Config.DatabaseConnection;
+import prog2int.Config.Metricas;
+import prog2int.Dao.ProductoDAO;
+import prog2int.Models.Producto;
+
+/**
+ * Cola de escritura diferida (write-behind) para ProductoServiceImpl.actualizar.
+ *
+ * En lugar de un UPDATE con su propia conexión por llamada, actualizar() encola el
+ * producto y vuelve. Un thread de fondo escribe la cola con ProductoDAO.actualizarBatch:
+ * - Agrupación por ID: si un producto se actualiza varias veces antes de escribirse,
+ *   queda solo la última versión (last write wins) y se hace un único UPDATE
+ * - Lotes: se escribe cuando hay "lote" productos pendientes o cuando el más viejo
+ *   lleva "intervaloMs" esperando, lo que ocurra primero
+ * - Contrapresión: con "capacidad" productos pendientes, encolar() bloquea hasta que
+ *   haya lugar (máximo "esperaMs"; después lanza SQLTimeoutException)
+ * - Cierre: close() escribe todo lo pendiente antes de terminar. También se llama al
+ *   cerrar el proceso, antes de cerrar el pool (DatabaseConnection.alCerrar)
+ *
+ * Lecturas: getPendiente() devuelve la versión encolada (o en escritura) de un producto,
+ * para que getById vea sus propias escrituras antes de que lleguen a la base.
+ *
+ * Errores: si un lote falla (rollback completo) se reintenta fila por fila con
+ * ProductoDAO.actualizar, para aislar los productos con error. Esos productos se
+ * descartan con un aviso por System.err (el caller de actualizar ya no está esperando)
+ * y se avisa a alDescartar, salvo que ya haya una versión más nueva en la cola.
+ *
+ * Métricas: "EscrituraDiferida.escribir" registra la latencia y filas de cada lote;
+ * getEstadisticas() informa profundidad de la cola, agrupadas, escritas y descartadas.
+ */
+public final class EscrituraDiferida implements AutoCloseable {
+
+    private final ProductoDAO productoDAO;
+    private final LongConsumer alEscribir;
+    private final LongConsumer alDescartar;
+    private final int lote;
+    private final long intervaloNanos;
+    private final int capacidad;
+    private final long esperaMs;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    /** Hay lote completo, venció el intervalo o se está cerrando. */
+    private final Condition hayTrabajo = lock.newCondition();
+    /** Se liberó lugar en la cola o terminó un lote. */
+    private final Condition hayLugar = lock.newCondition();
+
+    /** Productos a escribir, por ID, en orden de primera llegada. Protegido por lock. */
+    private final LinkedHashMap<Long, Producto> pendientes = new LinkedHashMap<>();
+    /** Lote que se está escribiendo (visible para getPendiente hasta el commit). Protegido por lock. */
+    private Map<Long, Producto> enEscritura = Map.of();
+    /** Momento en que se encoló el pendiente más viejo. Protegido por lock. */
+    private long primeroEn;
+    private boolean cerrando;
+
+    private final Thread escritor;
+
+    private final LongAdder encolados = new LongAdder();
+    private final LongAdder agrupados = new LongAdder();
+    private final LongAdder escritos = new LongAdder();
+    private final LongAdder descartados = new LongAdder();
+    private final LongAdder lotes = new LongAdder();
+    private final LongAdder esperas = new LongAdder();
+
+    /**
+     * @param productoDAO DAO con actualizarBatch
+     * @param alEscribir Se llama con el ID de cada producto escrito o descartado (para invalidar caches)
+     * @param alDescartar Se llama con el ID de cada producto descartado sin versión más nueva
+     *        en la cola: lo que se mostró al encolarlo (índices) no llegó a la base
+     * @param lote Productos por lote
+     * @param intervaloMs Espera máxima de un producto en la cola antes de escribirse
+     * @param capacidad Productos pendientes máximos (contrapresión)
+     * @param esperaMs Espera máxima de encolar() con la cola llena
+     */
+    public EscrituraDiferida(ProductoDAO productoDAO, LongConsumer alEscribir, LongConsumer alDescartar,
+            int lote, long intervaloMs, int capacidad, long esperaMs) {
+        if (productoDAO == null) {
+            throw new IllegalArgumentException("ProductoDAO no puede ser null");
+        }
+        if (lote <= 0 || capacidad < lote) {
+            throw new IllegalArgumentException("El lote debe ser mayor a 0 y no mayor a la capacidad");
+        }
+        this.productoDAO = productoDAO;
+        this.alEscribir = alEscribir;
+        this.alDescartar = alDescartar;
+        this.lote = lote;
+        this.intervaloNanos = TimeUnit.MILLISECONDS.toNanos(intervaloMs);
+        this.capacidad = capacidad;
+        this.esperaMs = esperaMs;
+        this.escritor = new Thread(this::ejecutar, "escritura-diferida");
+        this.escritor.setDaemon(true);
+        this.escritor.start();
+        DatabaseConnection.alCerrar(this::close);
+    }
+
+    /**
+     * Encola la versión final de un producto.
+     * Si ya había una versión pendiente del mismo ID se reemplaza (no ocupa lugar extra).
+     * @param prod Producto a escribir (no debe modificarse después: pasar una copia)
+     * @throws SQLTimeoutException Si la cola siguió llena durante esperaMs
+     * @throws IllegalStateException Si la cola está cerrada
+     */
+    public void encolar(Producto prod) throws Exception {
+        long id = prod.getId();
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(esperaMs);
+        lock.lock();
+        try {
+            if (pendientes.containsKey(id)) {
+                if (cerrando) {
+                    throw new IllegalStateException("La escritura diferida está cerrada");
+                }
+                pendientes.put(id, prod);
+                agrupados.increment();
+                return;
+            }
+            boolean espero = false;
+            while (pendientes.size() >= capacidad && !cerrando) {
+                espero = true;
+                long restante = limite - System.nanoTime();
+                if (restante <= 0) {
+                    throw new SQLTimeoutException("Cola de escritura llena (" + capacidad
+                            + " productos) luego de " + esperaMs + " ms");
+                }
+                hayLugar.awaitNanos(restante);
+            }
+            if (espero) {
+                esperas.increment();
+            }
+            if (cerrando) {
+                throw new IllegalStateException("La escritura diferida está cerrada");
+            }
+            if (pendientes.isEmpty()) {
+                primeroEn = System.nanoTime();
+            }
+            pendientes.put(id, prod);
+            encolados.increment();
+            if (pendientes.size() >= lote) {
+                hayTrabajo.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Versión pendiente de escribir del producto, o null si no hay
+     *         (el objeto es el encolado: el caller no debe modificarlo)
+     */
+    public Producto getPendiente(long id) {
+        lock.lock();
+        try {
+            Producto p = pendientes.get(id);
+            return p != null ? p : enEscritura.get(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Quita un producto de la cola sin escribirlo (por ejemplo, antes de darlo de baja o de
+     * actualizarlo directo) y espera a que termine el lote en el que se esté escribiendo:
+     * si no, esa versión vieja podría escribirse después de la del caller y pisarla.
+     * @throws SQLTimeoutException Si el lote sigue escribiéndose luego de esperaMs (por
+     *         ejemplo, bloqueado por una fila que tiene tomada la transacción del caller)
+     */
+    public void descartar(long id) throws Exception {
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(esperaMs);
+        lock.lock();
+        try {
+            if (pendientes.remove(id) != null) {
+                hayLugar.signalAll();
+            }
+            while (enEscritura.containsKey(id) && escritor.isAlive()) {
+                long restante = limite - System.nanoTime();
+                if (restante <= 0) {
+                    throw new SQLTimeoutException("El producto " + id
+                            + " se sigue escribiendo en la cola luego de " + esperaMs + " ms");
+                }
+                hayLugar.awaitNanos(restante);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Escribe ya todo lo pendiente y espera a que termine (fin de un proceso masivo).
+     * @throws InterruptedException Si se interrumpe la espera
+     */
+    public void vaciar() throws InterruptedException {
+        lock.lock();
+        try {
+            // primeroEn en el pasado: el escritor toma la cola sin esperar el intervalo
+            primeroEn = System.nanoTime() - intervaloNanos;
+            hayTrabajo.signal();
+            while ((!pendientes.isEmpty() || !enEscritura.isEmpty()) && escritor.isAlive()) {
+                hayLugar.await(100, TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Deja de aceptar productos, escribe lo pendiente y termina el thread escritor.
+     * Idempotente.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            cerrando = true;
+            hayTrabajo.signal();
+            hayLugar.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            escritor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** @return Productos pendientes (profundidad de la cola) */
+    public int getProfundidad() {
+        lock.lock();
+        try {
+            return pendientes.size() + enEscritura.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Resumen de contadores en una línea
+     */
+    public String getEstadisticas() {
+        return String.format("EscrituraDiferida profundidad=%d/%d encolados=%d agrupados=%d escritos=%d "
+                        + "descartados=%d lotes=%d esperasPorLugar=%d",
+                getProfundidad(), capacidad, encolados.sum(), agrupados.sum(), escritos.sum(),
+                descartados.sum(), lotes.sum(), esperas.sum());
+    }
+
+    // ---- THREAD ESCRITOR ----
+
+    private void ejecutar() {
+        while (true) {
+            List<Producto> siguiente = tomarLote();
+            if (siguiente == null) {
+                return;
+            }
+            escribir(siguiente);
+            lock.lock();
+            try {
+                enEscritura = Map.of();
+                hayLugar.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Espera a que haya un lote completo, venza el intervalo del más viejo o se cierre la cola.
+     * @return Lote a escribir (ya visible en enEscritura), o null si se cerró y no queda nada
+     */
+    private List<Producto> tomarLote() {
+        lock.lock();
+        try {
+            while (true) {
+                if (!pendientes.isEmpty()) {
+                    long restante = primeroEn + intervaloNanos - System.nanoTime();
+                    if (pendientes.size() >= lote || restante <= 0 || cerrando) {
+                        break;
+                    }
+                    hayTrabajo.awaitNanos(restante);
+                } else if (cerrando) {
+                    return null;
+                } else {
+                    hayTrabajo.await();
+                }
+            }
+            Map<Long, Producto> tomados = new LinkedHashMap<>(Math.min(lote, pendientes.size()) * 2);
+            Iterator<Map.Entry<Long, Producto>> it = pendientes.entrySet().iterator();
+            while (it.hasNext() && tomados.size() < lote) {
+                Map.Entry<Long, Producto> e = it.next();
+                tomados.put(e.getKey(), e.getValue());
+                it.remove();
+            }
+            // Lo que queda ya esperaba: se escribe en la próxima vuelta sin esperar otro intervalo
+            if (!pendientes.isEmpty()) {
+                primeroEn = System.nanoTime() - intervaloNanos;
+            }
+            enEscritura = tomados;
+            hayLugar.signalAll();
+            return new ArrayList<>(tomados.values());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void escribir(List<Producto> productos) {
+        long inicio = System.nanoTime();
+        lotes.increment();
+        try {
+            int[] filas = productoDAO.actualizarBatch(productos);
+            for (int i = 0; i < productos.size(); i++) {
+                // Statement.SUCCESS_NO_INFO (-2) cuenta como escrita
+                if (i < filas.length && filas[i] == 0) {
+                    descartar(productos.get(i), "no existe el producto");
+                } else {
+                    escrito(productos.get(i));
+                }
+            }
+            Metricas.registrar("EscrituraDiferida.escribir", System.nanoTime() - inicio, false, productos.size());
+        } catch (Exception e) {
+            Metricas.registrar("EscrituraDiferida.escribir", System.nanoTime() - inicio, true, 0);
+            // El lote hizo rollback completo: fila por fila para aislar los productos con error
+            for (Producto prod : productos) {
+                try {
+                    productoDAO.actualizar(prod);
+                    escrito(prod);
+                } catch (Exception ex) {
+                    descartar(prod, ex.getMessage());
+                }
+            }
+        }
+    }
+
+    private void escrito(Producto prod) {
+        escritos.increment();
+        if (alEscribir != null) {
+            alEscribir.accept(prod.getId());
+        }
+    }
+
+    private void descartar(Producto prod, String motivo) {
+        descartados.increment();
+        System.err.println("Escritura diferida: no se pudo actualizar el producto " + prod.getId() + ": " + motivo);
+        if (alEscribir != null) {
+            alEscribir.accept(prod.getId());
+        }
+        if (alDescartar != null && !reemplazado(prod.getId())) {
+            alDescartar.accept(prod.getId());
+        }
+    }
+
+    /** @return true si se volvió a encolar el producto mientras se escribía */
+    private boolean reemplazado(long id) {
+        lock.lock();
+        try {
+            return pendientes.containsKey(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package prog2int.Service;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import prog2int.Models.CodigoBarras;
+import prog2int.Models.Producto;
+
+/**
+ * Exportador del catálogo completo a archivo con memoria constante.
+ *
+ * Recorre los productos con ProductoServiceImpl.recorrerTodos (streaming) y escribe
+ * cada uno al archivo a medida que llega, sin armar una lista.
+ *
+ * Formatos:
+ * - CSV: mismo formato que lee ImportadorCatalogo (ida y vuelta)
+ *   idCodigo,tipo,valor,observaciones,idProducto,nombre,marca,categoria,precio,peso
+ * - JSONL: un objeto JSON por línea (ver FormatoJson)
+ */
+public class ExportadorCatalogo {
+
+    public enum Formato {
+        CSV,
+        JSONL
+    }
+
+    private static final String ENCABEZADO_CSV =
+            "idCodigo,tipo,valor,observaciones,idProducto,nombre,marca,categoria,precio,peso";
+
+    private final ProductoServiceImpl productoService;
+
+    public ExportadorCatalogo(ProductoServiceImpl productoService) {
+        if (productoService == null) {
+            throw new IllegalArgumentException("ProductoServiceImpl no puede ser null");
+        }
+        this.productoService = productoService;
+    }
+
+    /**
+     * Exporta todos los productos activos.
+     * @param archivo Archivo destino (se sobrescribe)
+     * @param formato CSV o JSONL
+     * @return Resumen con filas escritas y filas/seg
+     * @throws Exception Si falla la lectura o la escritura
+     */
+    public ResultadoExportacion exportar(Path archivo, Formato formato) throws Exception {
+        long inicio = System.nanoTime();
+        long filas;
+        try (BufferedWriter writer = Files.newBufferedWriter(archivo, StandardCharsets.UTF_8)) {
+            StringBuilder linea = new StringBuilder(256);
+            if (formato == Formato.CSV) {
+                writer.write(ENCABEZADO_CSV);
+                writer.newLine();
+            }
+            filas = productoService.recorrerTodos(p -> {
+                linea.setLength(0);
+                if (formato == Formato.CSV) {
+                    escribirCsv(linea, p);
+                } else {
+                    FormatoJson.escribirProducto(linea, p);
+                }
+                writer.append(linea);
+                writer.newLine();
+            });
+        }
+        return new ResultadoExportacion(archivo, filas, System.nanoTime() - inicio);
+    }
+
+    private static void escribirCsv(StringBuilder sb, Producto p) {
+        CodigoBarras cb = p.getCodigoBarras();
+        sb.append(cb.getId()).append(',')
+          .append(cb.getTipoCB()).append(',')
+          .append(cb.getValor()).append(',');
+        campoCsv(sb, cb.getObservaciones());
+        sb.append(',').append(p.getId()).append(',');
+        campoCsv(sb, p.getNombre());
+        sb.append(',');
+        campoCsv(sb, p.getMarca());
+        sb.append(',');
+        campoCsv(sb, p.getCategoria());
+        sb.append(',').append(p.getPrecio())
+          .append(',').append(p.getPeso());
+    }
+
+    /**
+     * Agrega un campo CSV, entre comillas si contiene separador, comillas o saltos de línea.
+     */
+    private static void campoCsv(StringBuilder sb, String s) {
+        if (s == null) {
+            return;
+        }
+        if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0 && s.indexOf('\r') < 0) {
+            sb.append(s);
+            return;
+        }
+        sb.append('"').append(s.replace("\"", "\"\"")).append('"');
+    }
+}
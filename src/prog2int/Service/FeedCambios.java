@@ -0,0 +1,289 @@
+package prog2int.Service;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import prog2int.Dao.Cambio;
+import prog2int.Dao.CambioDAO;
+import prog2int.Dao.ResultadoMultiple;
+
+/**
+ * Sondea el registro de cambios del catálogo (CambioDAO) y entrega los nuevos, en lotes,
+ * a los listeners suscriptos: cada proceso se entera de lo que modificaron los demás
+ * (u otras herramientas que escriban por los DAOs) sin recargar todo.
+ *
+ * La marca es el id del último cambio entregado. Los ids los asigna la base al insertar,
+ * pero las transacciones confirman en otro orden: un id faltante puede ser una transacción
+ * todavía abierta. Ante un hueco el lote se corta ahí y se espera hasta esperaHuecoMs a que
+ * aparezca; pasado ese tiempo se lo saltea (transacción revertida, id descartado por el motor,
+ * o una transacción más larga que la espera: eliminarMany lento, un lote con reintentos, una
+ * UnidadDeTrabajo extensa). Los ids salteados se vuelven a buscar por id, a lo sumo una vez
+ * cada esperaHuecoMs y durante vigilanciaMs: si aparecen se entregan en un lote aparte, después
+ * de cambios con id mayor. Se vigilan como máximo MAX_VIGILADOS ids (los más viejos se sueltan).
+ *
+ * Entrega al menos una vez: la marca avanza solo si todos los listeners procesaron el lote.
+ *
+ * Thread-safe. sondear() puede llamarse a mano (pruebas, herramientas) o dejarlo
+ * periódico con iniciar().
+ */
+public final class FeedCambios implements AutoCloseable {
+
+    private static final long PURGA_CADA_MS = TimeUnit.HOURS.toMillis(1);
+
+    /** Ids salteados que se vuelven a buscar como máximo (unos pocos bloques IN por vuelta). */
+    private static final int MAX_VIGILADOS = 50_000;
+
+    private final CambioDAO cambioDAO;
+    private final int lote;
+    private final long esperaHuecoMs;
+    private final long vigilanciaMs;
+    private final long retencionMs;
+    private final List<ListenerCambios> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile long marca;
+    /** Primer id del hueco que se está esperando (0: ninguno) y desde cuándo. */
+    private long hueco;
+    private long huecoDesde;
+    /** Ids salteados que se vuelven a buscar → cuándo se saltearon (en orden de id y de tiempo). */
+    private final TreeMap<Long, Long> vigilados = new TreeMap<>();
+    private long ultimaVigilancia;
+    /** vigilados.size() para getEstadisticas, que no toma el lock del sondeo. */
+    private volatile int cantidadVigilados;
+    private long ultimaPurga;
+
+    private final LongAdder entregados = new LongAdder();
+    private final LongAdder salteados = new LongAdder();
+    private final LongAdder tardios = new LongAdder();
+    private final LongAdder fallidos = new LongAdder();
+
+    private ScheduledExecutorService sondeo;
+
+    /**
+     * @param cambioDAO DAO del registro
+     * @param lote Máximo de cambios por lectura y por entrega
+     * @param esperaHuecoMs Espera máxima por un id faltante antes de saltearlo
+     * @param vigilanciaMs Tiempo durante el que se vuelve a buscar un id salteado (0: no buscarlo);
+     *        no tiene sentido mayor a retencionMs, que purga el registro
+     * @param retencionMs Antigüedad a partir de la que se purgan registros (0: no purgar)
+     */
+    public FeedCambios(CambioDAO cambioDAO, int lote, long esperaHuecoMs, long vigilanciaMs, long retencionMs) {
+        if (cambioDAO == null) {
+            throw new IllegalArgumentException("CambioDAO no puede ser null");
+        }
+        if (lote <= 0) {
+            throw new IllegalArgumentException("El lote debe ser mayor a 0");
+        }
+        this.cambioDAO = cambioDAO;
+        this.lote = lote;
+        this.esperaHuecoMs = esperaHuecoMs;
+        this.vigilanciaMs = vigilanciaMs;
+        this.retencionMs = retencionMs;
+        this.ultimaPurga = System.currentTimeMillis();
+    }
+
+    public void suscribir(ListenerCambios listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("El listener no puede ser null");
+        }
+        listeners.add(listener);
+    }
+
+    public void desuscribir(ListenerCambios listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @return Id del último registro: usarlo como marca antes de una carga completa, así
+     *         los cambios hechos durante la carga se entregan después
+     */
+    public long marcaActual() throws Exception {
+        return cambioDAO.ultimoId();
+    }
+
+    /**
+     * Fija la marca desde la que se entregan cambios.
+     */
+    public synchronized void setMarca(long marca) {
+        this.marca = marca;
+        this.hueco = 0;
+        this.vigilados.clear();
+        this.cantidadVigilados = 0;
+    }
+
+    public long getMarca() {
+        return marca;
+    }
+
+    /**
+     * Lee y entrega los cambios posteriores a la marca, lote por lote, hasta alcanzar
+     * el final del registro o un hueco que todavía se espera.
+     * @return Cambios entregados
+     * @throws Exception Si falla la lectura o un listener (la marca queda en el último lote entregado)
+     */
+    public synchronized int sondear() throws Exception {
+        int total = 0;
+        while (true) {
+            List<Cambio> leidos = cambioDAO.leerDesde(marca, lote);
+            List<Cambio> contiguos = contiguos(leidos);
+            if (!contiguos.isEmpty()) {
+                entregar(contiguos);
+                marca = contiguos.get(contiguos.size() - 1).getId();
+                total += contiguos.size();
+            }
+            if (leidos.size() < lote || contiguos.size() < leidos.size()) {
+                break;
+            }
+        }
+        try {
+            total += buscarTardios();
+        } finally {
+            cantidadVigilados = vigilados.size();
+        }
+        purgarSiCorresponde();
+        return total;
+    }
+
+    /**
+     * @return Prefijo de los cambios leídos sin huecos respecto de la marca (o con huecos ya vencidos)
+     */
+    private List<Cambio> contiguos(List<Cambio> leidos) {
+        List<Cambio> contiguos = new ArrayList<>(leidos.size());
+        long esperado = marca + 1;
+        long ahora = System.currentTimeMillis();
+        for (Cambio cambio : leidos) {
+            if (cambio.getId() != esperado) {
+                if (hueco != esperado) {
+                    hueco = esperado;
+                    huecoDesde = ahora;
+                }
+                if (ahora - huecoDesde < esperaHuecoMs) {
+                    break;
+                }
+                salteados.add(cambio.getId() - esperado);
+                vigilar(esperado, cambio.getId(), ahora);
+            }
+            hueco = 0;
+            contiguos.add(cambio);
+            esperado = cambio.getId() + 1;
+        }
+        return contiguos;
+    }
+
+    /**
+     * Agrega a la vigilancia los ids salteados [desde, hasta).
+     */
+    private void vigilar(long desde, long hasta, long ahora) {
+        if (vigilanciaMs <= 0) {
+            return;
+        }
+        for (long id = Math.max(desde, hasta - MAX_VIGILADOS); id < hasta; id++) {
+            vigilados.put(id, ahora);
+        }
+        while (vigilados.size() > MAX_VIGILADOS) {
+            vigilados.pollFirstEntry();
+        }
+    }
+
+    /**
+     * Vuelve a buscar los ids salteados y entrega los que aparecieron (su transacción
+     * confirmó después de vencida la espera del hueco). Suelta los vigilados hace más de
+     * vigilanciaMs: casi siempre son transacciones revertidas.
+     * @return Cambios entregados
+     */
+    private int buscarTardios() throws Exception {
+        long ahora = System.currentTimeMillis();
+        if (vigilados.isEmpty() || ahora - ultimaVigilancia < esperaHuecoMs) {
+            return 0;
+        }
+        ultimaVigilancia = ahora;
+        while (!vigilados.isEmpty() && ahora - vigilados.firstEntry().getValue() > vigilanciaMs) {
+            vigilados.pollFirstEntry();
+        }
+        int total = 0;
+        List<Long> ids = new ArrayList<>(vigilados.keySet());
+        for (int desde = 0; desde < ids.size(); desde += lote) {
+            ResultadoMultiple<Long, Cambio> leidos =
+                    cambioDAO.leerIds(ids.subList(desde, Math.min(ids.size(), desde + lote)));
+            if (leidos.getEncontrados().isEmpty()) {
+                continue;
+            }
+            // En el orden de ids pedido; si un listener falla, siguen vigilados para el próximo sondeo
+            List<Cambio> aparecidos = new ArrayList<>(leidos.getEncontrados().values());
+            entregar(aparecidos);
+            vigilados.keySet().removeAll(leidos.getEncontrados().keySet());
+            tardios.add(aparecidos.size());
+            total += aparecidos.size();
+        }
+        return total;
+    }
+
+    private void entregar(List<Cambio> cambios) throws Exception {
+        List<Cambio> inmutable = List.copyOf(cambios);
+        for (ListenerCambios listener : listeners) {
+            try {
+                listener.alCambiar(inmutable);
+            } catch (Exception e) {
+                fallidos.increment();
+                throw e;
+            }
+        }
+        entregados.add(cambios.size());
+    }
+
+    private void purgarSiCorresponde() {
+        long ahora = System.currentTimeMillis();
+        if (retencionMs <= 0 || ahora - ultimaPurga < PURGA_CADA_MS) {
+            return;
+        }
+        ultimaPurga = ahora;
+        try {
+            cambioDAO.purgar(new Timestamp(ahora - retencionMs));
+        } catch (Exception e) {
+            System.err.println("Error al purgar el registro de cambios: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Sondea periódicamente en un thread propio (daemon). Llamar una sola vez.
+     * @param intervaloMs Pausa entre sondeos
+     */
+    public synchronized void iniciar(long intervaloMs) {
+        if (sondeo != null) {
+            throw new IllegalStateException("El feed de cambios ya está iniciado");
+        }
+        sondeo = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "feed-cambios");
+            t.setDaemon(true);
+            return t;
+        });
+        sondeo.scheduleWithFixedDelay(() -> {
+            try {
+                sondear();
+            } catch (Exception e) {
+                System.err.println("Error al procesar cambios del catálogo: " + e.getMessage());
+            }
+        }, intervaloMs, intervaloMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return Marca, cambios entregados, ids salteados (y de ellos los entregados tarde y
+     *         los que se siguen buscando) y entregas fallidas
+     */
+    public String getEstadisticas() {
+        return String.format("Feed de cambios: marca=%d entregados=%d salteados=%d tardios=%d vigilados=%d fallidos=%d",
+                getMarca(), entregados.sum(), salteados.sum(), tardios.sum(), cantidadVigilados, fallidos.sum());
+    }
+
+    @Override
+    public synchronized void close() {
+        if (sondeo != null) {
+            sondeo.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package prog2int.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import prog2int.Models.CodigoBarras;
+import prog2int.Models.Producto;
+
+/**
+ * Serialización mínima a JSON de las entidades del catálogo, sin dependencias externas.
+ * Incluye un lector JSON mínimo (leer) para los cuerpos de las peticiones HTTP.
+ *
+ * Patrón: Utility class (solo métodos estáticos, no instanciable)
+ */
+public final class FormatoJson {
+
+    private FormatoJson() {
+        throw new UnsupportedOperationException("Esta es una clase utilitaria y no debe ser instanciada");
+    }
+
+    /**
+     * @return Producto como objeto JSON en una sola línea (incluye su código de barras)
+     */
+    public static String producto(Producto p) {
+        StringBuilder sb = new StringBuilder(256);
+        escribirProducto(sb, p);
+        return sb.toString();
+    }
+
+    /**
+     * Agrega el producto como objeto JSON al StringBuilder.
+     */
+    public static void escribirProducto(StringBuilder sb, Producto p) {
+        sb.append("{\"id\":").append(p.getId())
+          .append(",\"nombre\":");
+        escribirTexto(sb, p.getNombre());
+        sb.append(",\"marca\":");
+        escribirTexto(sb, p.getMarca());
+        sb.append(",\"categoria\":");
+        escribirTexto(sb, p.getCategoria());
+        sb.append(",\"precio\":").append(p.getPrecio())
+          .append(",\"peso\":").append(p.getPeso())
+          .append(",\"codigoBarras\":");
+        if (p.getCodigoBarras() == null) {
+            sb.append("null");
+        } else {
+            escribirCodigo(sb, p.getCodigoBarras());
+        }
+        sb.append('}');
+    }
+
+    /**
+     * Agrega el código de barras como objeto JSON al StringBuilder.
+     */
+    public static void escribirCodigo(StringBuilder sb, CodigoBarras cb) {
+        sb.append("{\"id\":").append(cb.getId())
+          .append(",\"tipo\":");
+        escribirTexto(sb, cb.getTipoCB() == null ? null : cb.getTipoCB().name());
+        sb.append(",\"valor\":");
+        escribirTexto(sb, cb.getValor());
+        sb.append(",\"fechaAsignacion\":");
+        escribirTexto(sb, cb.getFecha() == null ? null : new java.sql.Date(cb.getFecha().getTime()).toString());
+        sb.append(",\"observaciones\":");
+        escribirTexto(sb, cb.getObservaciones());
+        sb.append('}');
+    }
+
+    /**
+     * Agrega un string JSON escapado (o null).
+     */
+    public static void escribirTexto(StringBuilder sb, String s) {
+        if (s == null) {
+            sb.append("null");
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        sb.append('"');
+    }
+
+    /**
+     * @return Lista de productos como array JSON
+     */
+    public static String productos(List<Producto> productos) {
+        StringBuilder sb = new StringBuilder(64 + productos.size() * 256);
+        sb.append('[');
+        for (int i = 0; i < productos.size(); i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            escribirProducto(sb, productos.get(i));
+        }
+        return sb.append(']').toString();
+    }
+
+    /**
+     * Lee un documento JSON.
+     * Objetos → Map (respeta el orden), arrays → List, números → Double,
+     * strings → String, true/false → Boolean, null → null.
+     * @param json Texto a leer
+     * @return Valor leído
+     * @throws IllegalArgumentException Si el texto no es JSON válido
+     */
+    public static Object leer(String json) {
+        Lector lector = new Lector(json);
+        Object valor = lector.valor();
+        lector.saltarEspacios();
+        if (lector.pos != json.length()) {
+            throw lector.error("contenido extra al final");
+        }
+        return valor;
+    }
+
+    /**
+     * Lee un documento que debe ser un objeto JSON.
+     * @throws IllegalArgumentException Si no es un objeto
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> leerObjeto(String json) {
+        Object valor = leer(json);
+        if (!(valor instanceof Map)) {
+            throw new IllegalArgumentException("Se esperaba un objeto JSON");
+        }
+        return (Map<String, Object>) valor;
+    }
+
+    /**
+     * Parser recursivo descendente (RFC 8259, sin extensiones).
+     */
+    private static final class Lector {
+        private final String texto;
+        private int pos;
+
+        private Lector(String texto) {
+            this.texto = texto;
+        }
+
+        private Object valor() {
+            saltarEspacios();
+            if (pos >= texto.length()) {
+                throw error("fin inesperado");
+            }
+            char c = texto.charAt(pos);
+            switch (c) {
+                case '{':
+                    return objeto();
+                case '[':
+                    return array();
+                case '"':
+                    return texto();
+                case 't':
+                    return literal("true", Boolean.TRUE);
+                case 'f':
+                    return literal("false", Boolean.FALSE);
+                case 'n':
+                    return literal("null", null);
+                default:
+                    if (c == '-' || (c >= '0' && c <= '9')) {
+                        return numero();
+                    }
+                    throw error("carácter inesperado '" + c + "'");
+            }
+        }
+
+        private Map<String, Object> objeto() {
+            Map<String, Object> mapa = new LinkedHashMap<>();
+            pos++;
+            saltarEspacios();
+            if (consumir('}')) {
+                return mapa;
+            }
+            do {
+                saltarEspacios();
+                if (pos >= texto.length() || texto.charAt(pos) != '"') {
+                    throw error("se esperaba el nombre de un campo");
+                }
+                String clave = texto();
+                saltarEspacios();
+                if (!consumir(':')) {
+                    throw error("se esperaba ':'");
+                }
+                mapa.put(clave, valor());
+                saltarEspacios();
+            } while (consumir(','));
+            if (!consumir('}')) {
+                throw error("se esperaba ',' o '}'");
+            }
+            return mapa;
+        }
+
+        private List<Object> array() {
+            List<Object> lista = new ArrayList<>();
+            pos++;
+            saltarEspacios();
+            if (consumir(']')) {
+                return lista;
+            }
+            do {
+                lista.add(valor());
+                saltarEspacios();
+            } while (consumir(','));
+            if (!consumir(']')) {
+                throw error("se esperaba ',' o ']'");
+            }
+            return lista;
+        }
+
+        private String texto() {
+            StringBuilder sb = new StringBuilder();
+            pos++;
+            while (pos < texto.length()) {
+                char c = texto.charAt(pos++);
+                if (c == '"') {
+                    return sb.toString();
+                }
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                if (pos >= texto.length()) {
+                    break;
+                }
+                char e = texto.charAt(pos++);
+                switch (e) {
+                    case '"', '\\', '/' -> sb.append(e);
+                    case 'b' -> sb.append('\b');
+                    case 'f' -> sb.append('\f');
+                    case 'n' -> sb.append('\n');
+                    case 'r' -> sb.append('\r');
+                    case 't' -> sb.append('\t');
+                    case 'u' -> {
+                        if (pos + 4 > texto.length()) {
+                            throw error("escape \\u incompleto");
+                        }
+                        try {
+                            sb.append((char) Integer.parseInt(texto.substring(pos, pos + 4), 16));
+                        } catch (NumberFormatException ex) {
+                            throw error("escape \\u inválido");
+                        }
+                        pos += 4;
+                    }
+                    default -> throw error("escape inválido '\\" + e + "'");
+                }
+            }
+            throw error("string sin cerrar");
+        }
+
+        private Double numero() {
+            int inicio = pos;
+            while (pos < texto.length() && "+-0123456789.eE".indexOf(texto.charAt(pos)) >= 0) {
+                pos++;
+            }
+            try {
+                return Double.valueOf(texto.substring(inicio, pos));
+            } catch (NumberFormatException e) {
+                throw error("número inválido");
+            }
+        }
+
+        private Object literal(String palabra, Object valor) {
+            if (!texto.startsWith(palabra, pos)) {
+                throw error("literal inválido");
+            }
+            pos += palabra.length();
+            return valor;
+        }
+
+        private boolean consumir(char c) {
+            if (pos < texto.length() && texto.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void saltarEspacios() {
+            while (pos < texto.length() && Character.isWhitespace(texto.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private IllegalArgumentException error(String motivo) {
+            return new IllegalArgumentException("JSON inválido en la posición " + pos + ": " + motivo);
+        }
+    }
+}
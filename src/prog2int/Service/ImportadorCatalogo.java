@@ -0,0 +1,310 @@
+package prog2int.Service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import prog2int.Models.CodigoBarras;
+import prog2int.Models.Producto;
+import prog2int.Models.TipoCB;
+
+/**
+ * Importador de catálogo desde archivos CSV de cualquier tamaño.
+ *
+ * Formato (una fila por producto, separador ',' y comillas dobles opcionales):
+ * <pre>
+ * idCodigo,tipo,valor,observaciones,idProducto,nombre,marca,categoria,precio,peso
+ * </pre>
+ * Si la primera línea no empieza con un número se toma como encabezado y se ignora.
+ * Un campo entre comillas puede tener saltos de línea (así los escribe ExportadorCatalogo):
+ * el registro sigue en las líneas siguientes hasta cerrar las comillas, y el salto se lee
+ * como '\n'. Un registro que no las cierra en MAX_LINEAS_REGISTRO líneas se rechaza.
+ *
+ * Pipeline productor/consumidor con memoria acotada:
+ * - Productor (hilo lector): lee registro a registro, parsea y valida el código con
+ *   ValidadorCodigoBarras. Las filas inválidas van directo al archivo de rechazos.
+ * - Cola acotada: si la base es más lenta que la lectura, el lector se bloquea,
+ *   por lo que la memoria no depende del tamaño del archivo.
+ * - Consumidor (hilo que llama a importar): arma lotes y los inserta con
+ *   ProductoServiceImpl.insertarBatch. Las filas rechazadas por la base también
+ *   van al archivo de rechazos. Si la inserción lanza una excepción, el lector se
+ *   interrumpe y se lo espera antes de cerrar el archivo y los rechazos.
+ *
+ * Archivo de rechazos: misma ruta del CSV con sufijo ".rechazos.csv", cada registro
+ * es el original seguido del número de su primera línea y el motivo.
+ */
+public class ImportadorCatalogo {
+
+    /** Marca de fin de archivo en la cola. */
+    private static final Fila FIN = new Fila(-1, null, null);
+
+    /** Líneas máximas de un registro con saltos de línea entre comillas. */
+    private static final int MAX_LINEAS_REGISTRO = 100;
+
+    private final ProductoServiceImpl productoService;
+    private final int tamanioLote;
+
+    public ImportadorCatalogo(ProductoServiceImpl productoService) {
+        if (productoService == null) {
+            throw new IllegalArgumentException("ProductoServiceImpl no puede ser null");
+        }
+        this.productoService = productoService;
+        this.tamanioLote = Integer.getInteger("db.batch.size", 500);
+    }
+
+    /**
+     * Importa el archivo completo.
+     * @param archivo CSV a importar
+     * @return Resumen con filas leídas, insertadas, rechazadas y filas/seg
+     * @throws Exception Si no se puede leer el archivo o escribir los rechazos
+     */
+    public ResultadoImportacion importar(Path archivo) throws Exception {
+        Path rechazos = archivo.resolveSibling(archivo.getFileName() + ".rechazos.csv");
+        ResultadoImportacion resultado = new ResultadoImportacion(rechazos);
+        BlockingQueue<Fila> cola = new ArrayBlockingQueue<>(tamanioLote * 4);
+        long inicio = System.nanoTime();
+
+        try (BufferedReader reader = Files.newBufferedReader(archivo, StandardCharsets.UTF_8);
+             BufferedWriter rechazosWriter = Files.newBufferedWriter(rechazos, StandardCharsets.UTF_8)) {
+
+            Exception[] errorLector = new Exception[1];
+            Thread lector = new Thread(() -> {
+                try {
+                    leer(reader, cola, rechazosWriter, resultado);
+                } catch (InterruptedException e) {
+                    // Lo cortó importar: se conserva la marca para que put(FIN) no se bloquee
+                    Thread.currentThread().interrupt();
+                } catch (Exception e) {
+                    errorLector[0] = e;
+                } finally {
+                    try {
+                        cola.put(FIN);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }, "importador-lector");
+            lector.setDaemon(true);
+            lector.start();
+
+            boolean consumido = false;
+            try {
+                consumir(cola, rechazosWriter, resultado);
+                consumido = true;
+            } finally {
+                if (!consumido) {
+                    // Nadie más va a leer la cola: el lector quedaría bloqueado en put
+                    lector.interrupt();
+                }
+                lector.join();
+                cola.clear();
+            }
+            if (errorLector[0] != null) {
+                throw new Exception("Error al leer " + archivo + ": " + errorLector[0].getMessage(), errorLector[0]);
+            }
+        }
+
+        resultado.setDuracionNanos(System.nanoTime() - inicio);
+        return resultado;
+    }
+
+    private void leer(BufferedReader reader, BlockingQueue<Fila> cola, BufferedWriter rechazos,
+                      ResultadoImportacion resultado) throws IOException, InterruptedException {
+        String linea;
+        long numero = 0;
+        while ((linea = reader.readLine()) != null) {
+            numero++;
+            long primera = numero;
+            boolean abiertas = comillasImpares(linea);
+            if (abiertas) {
+                StringBuilder registro = new StringBuilder(linea);
+                String siguiente;
+                while (abiertas && numero - primera + 1 < MAX_LINEAS_REGISTRO
+                        && (siguiente = reader.readLine()) != null) {
+                    numero++;
+                    registro.append('\n').append(siguiente);
+                    abiertas ^= comillasImpares(siguiente);
+                }
+                linea = registro.toString();
+            }
+            if (linea.isBlank() || (primera == 1 && !Character.isDigit(linea.charAt(0)))) {
+                continue;
+            }
+            resultado.sumarLeida();
+            if (abiertas) {
+                rechazar(rechazos, primera, linea, "Comillas sin cerrar", resultado);
+                continue;
+            }
+            try {
+                cola.put(new Fila(primera, linea, parsear(linea)));
+            } catch (IllegalArgumentException e) {
+                rechazar(rechazos, primera, linea, e.getMessage(), resultado);
+            }
+        }
+    }
+
+    /**
+     * @return true si la línea tiene una cantidad impar de comillas: abre (o cierra) un
+     *         campo que sigue en otra línea ("" dentro de comillas suma dos y no cambia nada)
+     */
+    private static boolean comillasImpares(String linea) {
+        boolean impares = false;
+        for (int i = 0; i < linea.length(); i++) {
+            if (linea.charAt(i) == '"') {
+                impares = !impares;
+            }
+        }
+        return impares;
+    }
+
+    private void consumir(BlockingQueue<Fila> cola, BufferedWriter rechazos,
+                          ResultadoImportacion resultado) throws IOException, InterruptedException {
+        List<Fila> lote = new ArrayList<>(tamanioLote);
+        while (true) {
+            Fila fila = cola.take();
+            if (fila == FIN) {
+                break;
+            }
+            lote.add(fila);
+            if (lote.size() == tamanioLote) {
+                insertar(lote, rechazos, resultado);
+                lote.clear();
+            }
+        }
+        if (!lote.isEmpty()) {
+            insertar(lote, rechazos, resultado);
+        }
+    }
+
+    private void insertar(List<Fila> lote, BufferedWriter rechazos, ResultadoImportacion resultado)
+            throws IOException {
+        List<Producto> productos = new ArrayList<>(lote.size());
+        Map<Producto, Fila> origen = new IdentityHashMap<>(lote.size() * 2);
+        for (Fila fila : lote) {
+            productos.add(fila.producto);
+            origen.put(fila.producto, fila);
+        }
+        ResultadoBatch batch = productoService.insertarBatch(productos);
+        resultado.sumarInsertadas(batch.getInsertados());
+        for (ResultadoBatch.Falla falla : batch.getFallas()) {
+            Fila fila = origen.get(falla.getProducto());
+            rechazar(rechazos, fila.numero, fila.linea, falla.getMotivo(), resultado);
+        }
+    }
+
+    private void rechazar(BufferedWriter rechazos, long numero, String linea, String motivo,
+                          ResultadoImportacion resultado) throws IOException {
+        synchronized (rechazos) {
+            rechazos.write(linea);
+            rechazos.write(",");
+            rechazos.write(Long.toString(numero));
+            rechazos.write(",\"");
+            rechazos.write(motivo == null ? "" : motivo.replace("\"", "\"\""));
+            rechazos.write("\"");
+            rechazos.newLine();
+        }
+        resultado.sumarRechazada();
+    }
+
+    /**
+     * Convierte una línea del CSV en Producto + CodigoBarras validados.
+     * @throws IllegalArgumentException con el motivo si la fila es inválida
+     */
+    private Producto parsear(String linea) {
+        List<String> campos = separarCampos(linea);
+        if (campos.size() != 10) {
+            throw new IllegalArgumentException("Se esperaban 10 columnas y hay " + campos.size());
+        }
+        String tipo = campos.get(1).trim().toUpperCase();
+        String valor = campos.get(2).trim();
+        TipoCB tipoCB = ValidadorCodigoBarras.tipo(tipo);
+        ValidadorCodigoBarras.Resultado validacion = ValidadorCodigoBarras.validar(tipoCB, valor);
+        if (!validacion.isValido()) {
+            throw new IllegalArgumentException(ValidadorCodigoBarras.mensaje(tipo, validacion));
+        }
+        String nombre = campos.get(5).trim();
+        if (nombre.isEmpty()) {
+            throw new IllegalArgumentException("El nombre no puede estar vacío");
+        }
+        try {
+            double precio = Double.parseDouble(campos.get(8).trim());
+            double peso = Double.parseDouble(campos.get(9).trim());
+            if (precio <= 0 || peso <= 0) {
+                throw new IllegalArgumentException("El precio y el peso deben ser mayores a 0");
+            }
+            CodigoBarras cb = new CodigoBarras();
+            cb.setId(Long.parseLong(campos.get(0).trim()));
+            cb.setTipoCB(tipoCB);
+            cb.setValor(valor);
+            cb.setFecha(new Date());
+            cb.setObservaciones(vacioANull(campos.get(3)));
+
+            return new Producto(Long.parseLong(campos.get(4).trim()), nombre,
+                    vacioANull(campos.get(6)), vacioANull(campos.get(7)), precio, peso, cb);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Número inválido: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Separa una línea CSV respetando comillas dobles ("" dentro de comillas = comilla literal).
+     */
+    static List<String> separarCampos(String linea) {
+        List<String> campos = new ArrayList<>(10);
+        StringBuilder actual = new StringBuilder();
+        boolean entreComillas = false;
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (entreComillas) {
+                if (c == '"') {
+                    if (i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                        actual.append('"');
+                        i++;
+                    } else {
+                        entreComillas = false;
+                    }
+                } else {
+                    actual.append(c);
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == ',') {
+                campos.add(actual.toString());
+                actual.setLength(0);
+            } else {
+                actual.append(c);
+            }
+        }
+        campos.add(actual.toString());
+        return campos;
+    }
+
+    private static String vacioANull(String s) {
+        String t = s.trim();
+        return t.isEmpty() ? null : t;
+    }
+
+    /**
+     * Fila leída del archivo: número de línea, texto original y producto parseado.
+     */
+    private static final class Fila {
+        private final long numero;
+        private final String linea;
+        private final Producto producto;
+
+        private Fila(long numero, String linea, Producto producto) {
+            this.numero = numero;
+            this.linea = linea;
+            this.producto = producto;
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package prog2int.Service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import prog2int.Dao.Pagina;
+import prog2int.Models.Producto;
+
+/**
+ * Índice invertido en memoria sobre nombre, marca y categoría de los productos activos.
+ *
+ * Reemplaza las búsquedas LIKE '%filtro%' (que recorren toda la tabla) para
+ * getByName / getByBrand de ProductoServiceImpl.
+ *
+ * Funcionamiento:
+ * - Cada texto se normaliza (minúsculas, sin acentos) y se separa en palabras (tokens)
+ * - Por cada token se guarda el conjunto de IDs de productos que lo contienen,
+ *   en un TreeMap para poder resolver prefijos con subMap
+ * - Una consulta con varias palabras devuelve los productos que matchean TODAS
+ *
+ * Coincidencias soportadas (por palabra de la consulta):
+ * - Prefijo: "auri" encuentra "Auriculares"; "electro" encuentra "Electrónica"
+ * - Difusa: si ningún token empieza con la palabra y tiene 4+ letras, se aceptan tokens
+ *   a distancia de edición 1 (2 si tiene 8+ letras): "tecldo" encuentra "Teclado"
+ *
+ * Diferencia con SQL: LIKE '%ouse%' encuentra "Mouse"; el índice solo matchea
+ * desde el comienzo de cada palabra.
+ *
+ * Thread-safe mediante ReentrantReadWriteLock (muchas lecturas concurrentes, escrituras exclusivas).
+ */
+public class IndiceBusqueda {
+
+    /** Campos indexados por separado. */
+    public enum Campo {
+        /** Nombre del producto (getByName) */
+        NOMBRE,
+        /** Marca o categoría (getByBrand) */
+        MARCA_CATEGORIA
+    }
+
+    private static final Comparator<Producto> POR_NOMBRE =
+            Comparator.comparing(Producto::getNombre, Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER))
+                    .thenComparingLong(Producto::getId);
+
+    private static final Comparator<Producto> POR_MARCA_CATEGORIA =
+            Comparator.comparing(Producto::getMarca, Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER))
+                    .thenComparing(Producto::getCategoria, Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER))
+                    .thenComparingLong(Producto::getId);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Producto> productos = new HashMap<>();
+    private final TreeMap<String, Set<Long>> indiceNombre = new TreeMap<>();
+    private final TreeMap<String, Set<Long>> indiceMarca = new TreeMap<>();
+
+    /**
+     * Agrega o reemplaza un producto en el índice.
+     * @param p Producto activo (el índice guarda la referencia: pasar una copia si el caller la modifica)
+     */
+    public void agregar(Producto p) {
+        lock.writeLock().lock();
+        try {
+            quitarSinLock(p.getId());
+            productos.put(p.getId(), p);
+            indexar(indiceNombre, p.getId(), p.getNombre());
+            indexar(indiceMarca, p.getId(), p.getMarca());
+            indexar(indiceMarca, p.getId(), p.getCategoria());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Quita un producto del índice (baja lógica).
+     */
+    public void quitar(long id) {
+        lock.writeLock().lock();
+        try {
+            quitarSinLock(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return Producto indexado con ese ID, o null
+     */
+    public Producto get(long id) {
+        lock.readLock().lock();
+        try {
+            return productos.get(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Vacía el índice (antes de reconstruirlo).
+     */
+    public void limpiar() {
+        lock.writeLock().lock();
+        try {
+            productos.clear();
+            indiceNombre.clear();
+            indiceMarca.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return productos.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Busca productos cuyo campo contenga todas las palabras de la consulta (por prefijo o difusa).
+     * @param consulta Texto ingresado por el usuario
+     * @param campo Campo a buscar
+     * @return Productos encontrados, ordenados como la consulta SQL equivalente
+     *         (por nombre, o por marca y categoría)
+     */
+    public List<Producto> buscar(String consulta, Campo campo) {
+        List<String> palabras = tokenizar(consulta);
+        if (palabras.isEmpty()) {
+            return Collections.emptyList();
+        }
+        TreeMap<String, Set<Long>> indice = campo == Campo.NOMBRE ? indiceNombre : indiceMarca;
+
+        List<Producto> resultado = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Set<Long> ids = null;
+            for (String palabra : palabras) {
+                Set<Long> coincidencias = buscarPalabra(indice, palabra);
+                if (ids == null) {
+                    ids = coincidencias;
+                } else {
+                    ids.retainAll(coincidencias);
+                }
+                if (ids.isEmpty()) {
+                    return Collections.emptyList();
+                }
+            }
+            for (Long id : ids) {
+                resultado.add(productos.get(id));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        resultado.sort(campo == Campo.NOMBRE ? POR_NOMBRE : POR_MARCA_CATEGORIA);
+        return resultado;
+    }
+
+    /**
+     * Página de buscar(): los resultados se ordenan como en la base y se corta desde la clave
+     * del token (keyset en memoria). Los tokens son los de ProductoDAO.getPaginaByName /
+     * getPaginaByBrand, así que se pueden pasar de una fuente a la otra.
+     * @param token Token de la página anterior, o null para la primera
+     * @return Página con los productos del índice (sin copiar) y el token de la siguiente
+     * @throws IllegalArgumentException Si el token no corresponde al campo o está corrupto
+     */
+    public Pagina<Producto> buscarPagina(String consulta, Campo campo, String token, int tamanio) {
+        Producto ultimo = null;
+        if (campo == Campo.NOMBRE) {
+            String[] clave = Pagina.leerToken(token, "nombre", 2);
+            if (clave != null) {
+                ultimo = new Producto(Long.parseLong(clave[1]), clave[0], null, null, 0, 0, null);
+            }
+        } else {
+            String[] clave = Pagina.leerToken(token, "marca", 3);
+            if (clave != null) {
+                ultimo = new Producto(Long.parseLong(clave[2]), null, Pagina.desdeTokenNulable(clave[0]),
+                        Pagina.desdeTokenNulable(clave[1]), 0, 0, null);
+            }
+        }
+        List<Producto> ordenados = buscar(consulta, campo);
+        Comparator<Producto> orden = campo == Campo.NOMBRE ? POR_NOMBRE : POR_MARCA_CATEGORIA;
+        int desde = 0;
+        if (ultimo != null) {
+            // Primer producto mayor que la clave del token (búsqueda binaria sobre el orden)
+            int hasta = ordenados.size();
+            while (desde < hasta) {
+                int medio = (desde + hasta) >>> 1;
+                if (orden.compare(ordenados.get(medio), ultimo) <= 0) {
+                    desde = medio + 1;
+                } else {
+                    hasta = medio;
+                }
+            }
+        }
+        int fin = Math.min(ordenados.size(), desde + tamanio);
+        List<Producto> items = new ArrayList<>(ordenados.subList(desde, fin));
+        if (fin == ordenados.size()) {
+            return new Pagina<>(items, null);
+        }
+        Producto p = items.get(items.size() - 1);
+        String siguiente = campo == Campo.NOMBRE
+                ? Pagina.crearToken("nombre", p.getNombre(), p.getId())
+                : Pagina.crearToken("marca", Pagina.aTokenNulable(p.getMarca()),
+                        Pagina.aTokenNulable(p.getCategoria()), p.getId());
+        return new Pagina<>(items, siguiente);
+    }
+
+    /**
+     * @return IDs de productos con algún token que empiece con la palabra,
+     *         o a distancia de edición acotada si no hay ninguno por prefijo
+     */
+    private static Set<Long> buscarPalabra(TreeMap<String, Set<Long>> indice, String palabra) {
+        Set<Long> ids = new HashSet<>();
+        NavigableMap<String, Set<Long>> prefijo = indice.subMap(palabra, true, palabra + Character.MAX_VALUE, false);
+        for (Set<Long> postings : prefijo.values()) {
+            ids.addAll(postings);
+        }
+        if (ids.isEmpty() && palabra.length() >= 4) {
+            int maxDistancia = palabra.length() >= 8 ? 2 : 1;
+            for (Map.Entry<String, Set<Long>> entrada : indice.entrySet()) {
+                String token = entrada.getKey();
+                if (Math.abs(token.length() - palabra.length()) <= maxDistancia
+                        && distancia(token, palabra, maxDistancia) <= maxDistancia) {
+                    ids.addAll(entrada.getValue());
+                }
+            }
+        }
+        return ids;
+    }
+
+    private void quitarSinLock(long id) {
+        Producto anterior = productos.remove(id);
+        if (anterior != null) {
+            desindexar(indiceNombre, id, anterior.getNombre());
+            desindexar(indiceMarca, id, anterior.getMarca());
+            desindexar(indiceMarca, id, anterior.getCategoria());
+        }
+    }
+
+    private static void indexar(TreeMap<String, Set<Long>> indice, long id, String texto) {
+        for (String token : tokenizar(texto)) {
+            indice.computeIfAbsent(token, t -> new HashSet<>()).add(id);
+        }
+    }
+
+    private static void desindexar(TreeMap<String, Set<Long>> indice, long id, String texto) {
+        for (String token : tokenizar(texto)) {
+            Set<Long> ids = indice.get(token);
+            if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                indice.remove(token);
+            }
+        }
+    }
+
+    /**
+     * Normaliza (minúsculas, sin acentos) y separa en palabras de letras y dígitos.
+     */
+    static List<String> tokenizar(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return Collections.emptyList();
+        }
+        String normalizado = Normalizer.normalize(texto, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT);
+        List<String> tokens = new ArrayList<>(4);
+        int inicio = -1;
+        for (int i = 0; i <= normalizado.length(); i++) {
+            boolean alfanumerico = i < normalizado.length() && Character.isLetterOrDigit(normalizado.charAt(i));
+            if (alfanumerico && inicio < 0) {
+                inicio = i;
+            } else if (!alfanumerico && inicio >= 0) {
+                tokens.add(normalizado.substring(inicio, i));
+                inicio = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Distancia de Levenshtein con corte temprano: devuelve max + 1 apenas
+     * la distancia supera max en todas las posiciones de una fila.
+     */
+    static int distancia(String a, String b, int max) {
+        int[] anterior = new int[b.length() + 1];
+        int[] actual = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            anterior[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            actual[0] = i;
+            int minimoFila = actual[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int costo = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                actual[j] = Math.min(Math.min(actual[j - 1] + 1, anterior[j] + 1), anterior[j - 1] + costo);
+                minimoFila = Math.min(minimoFila, actual[j]);
+            }
+            if (minimoFila > max) {
+                return max + 1;
+            }
+            int[] tmp = anterior;
+            anterior = actual;
+            actual = tmp;
+        }
+        return anterior[b.length()];
+    }
+}
@@ -0,0 +1,22 @@
+package prog2int.Service;
+
+import java.util.List;
+import prog2int.Dao.Cambio;
+
+/**
+ * Consumidor de los cambios del catálogo entregados por FeedCambios (caches, índices).
+ *
+ * Los lotes llegan en orden y desde un solo thread, salvo los cambios de una transacción que
+ * confirmó después de que FeedCambios salteara su id: llegan más tarde, en un lote aparte
+ * (aplicar el estado actual de la entidad, no el del cambio). Si el listener lanza una excepción,
+ * el lote se vuelve a entregar en el próximo sondeo (a todos los listeners): aplicar un
+ * cambio debe poder repetirse sin efecto.
+ */
+@FunctionalInterface
+public interface ListenerCambios {
+
+    /**
+     * @param cambios Lote de cambios, en el orden en que se registraron (incluye los propios)
+     */
+    void alCambiar(List<Cambio> cambios) throws Exception;
+}
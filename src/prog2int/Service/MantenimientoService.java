@@ -0,0 +1,144 @@
+package prog2int.Service;
+
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import prog2int.Dao.MantenimientoDAO;
+import prog2int.Dao.ProductoDAO;
+
+/**
+ * Mantenimiento de bajas lógicas: archiva productos y códigos eliminados hace más
+ * de la retención configurada (ver MantenimientoDAO) y mide el efecto en las consultas.
+ *
+ * Flujo de archivar():
+ * 1. Cuenta las bajas y mide las consultas de referencia
+ *    (búsqueda por nombre, por marca y primera página del listado)
+ * 2. Archiva en lotes de mantenimiento.lote productos (cada uno su transacción),
+ *    con una pausa de mantenimiento.pausaMs entre lotes para no competir con la carga normal
+ * 3. Archiva los códigos dados de baja sin producto
+ * 4. Vuelve a contar y medir
+ *
+ * Configuración:
+ * - -Dmantenimiento.retencionDias=30 antigüedad mínima de la baja
+ * - -Dmantenimiento.lote=1000 filas por transacción
+ * - -Dmantenimiento.pausaMs=0 pausa entre lotes
+ * - -Dmantenimiento.filtro=a texto de las búsquedas de referencia
+ * - -Dmantenimiento.repeticiones=5 ejecuciones por consulta (se informa la mediana)
+ */
+public class MantenimientoService {
+
+    private static final int RETENCION_DIAS = Integer.getInteger("mantenimiento.retencionDias", 30);
+    private static final int LOTE = Math.max(1, Integer.getInteger("mantenimiento.lote", 1000));
+    private static final long PAUSA_MS = Long.getLong("mantenimiento.pausaMs", 0L);
+    private static final String FILTRO = System.getProperty("mantenimiento.filtro", "a");
+    private static final int REPETICIONES = Math.max(1, Integer.getInteger("mantenimiento.repeticiones", 5));
+
+    private final MantenimientoDAO mantenimientoDAO;
+    private final ProductoDAO productoDAO;
+
+    public MantenimientoService(MantenimientoDAO mantenimientoDAO, ProductoDAO productoDAO) {
+        if (mantenimientoDAO == null) {
+            throw new IllegalArgumentException("MantenimientoDAO no puede ser null");
+        }
+        if (productoDAO == null) {
+            throw new IllegalArgumentException("ProductoDAO no puede ser null");
+        }
+        this.mantenimientoDAO = mantenimientoDAO;
+        this.productoDAO = productoDAO;
+    }
+
+    /**
+     * Archiva las bajas con la retención configurada (mantenimiento.retencionDias).
+     */
+    public ReporteMantenimiento archivar() throws Exception {
+        return archivar(RETENCION_DIAS);
+    }
+
+    /**
+     * Archiva las bajas lógicas de más de retencionDias días.
+     * Un error corta el archivado pero conserva los lotes ya confirmados: se informa
+     * en el reporte (getError) junto con lo archivado hasta ese momento.
+     * @param retencionDias Antigüedad mínima de la baja (0: todas)
+     * @return Filas archivadas y tiempos antes/después
+     * @throws Exception Si no se pudieron contar las bajas o medir las consultas
+     */
+    public ReporteMantenimiento archivar(int retencionDias) throws Exception {
+        if (retencionDias < 0) {
+            throw new IllegalArgumentException("La retención no puede ser negativa");
+        }
+        ReporteMantenimiento reporte = new ReporteMantenimiento();
+        long inicio = System.nanoTime();
+        Timestamp limite = new Timestamp(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(retencionDias));
+
+        reporte.setEliminadosAntes(mantenimientoDAO.contarProductosEliminados(),
+                mantenimientoDAO.contarCodigosEliminados());
+        medirConsultas(reporte, true);
+
+        try {
+            int[] archivados;
+            do {
+                archivados = mantenimientoDAO.archivarProductos(limite, LOTE);
+                if (archivados[0] > 0) {
+                    reporte.sumarLote(archivados[0], archivados[1]);
+                    pausar();
+                }
+            } while (archivados[0] == LOTE);
+
+            int codigos;
+            do {
+                codigos = mantenimientoDAO.archivarCodigosHuerfanos(limite, LOTE);
+                if (codigos > 0) {
+                    reporte.sumarLote(0, codigos);
+                    pausar();
+                }
+            } while (codigos == LOTE);
+        } catch (Exception e) {
+            reporte.setError(e.getMessage());
+        }
+
+        reporte.setEliminadosDespues(mantenimientoDAO.contarProductosEliminados(),
+                mantenimientoDAO.contarCodigosEliminados());
+        medirConsultas(reporte, false);
+        reporte.setDuracionNanos(System.nanoTime() - inicio);
+        return reporte;
+    }
+
+    private void medirConsultas(ReporteMantenimiento reporte, boolean antes) throws Exception {
+        medir(reporte, antes, "getListByName(" + FILTRO + ")", () -> productoDAO.getListByName(FILTRO));
+        medir(reporte, antes, "getListByBrand(" + FILTRO + ")", () -> productoDAO.getListByBrand(FILTRO));
+        medir(reporte, antes, "getPagina(100)", () -> productoDAO.getPagina(null, 100));
+    }
+
+    /**
+     * Ejecuta la consulta REPETICIONES veces y registra la mediana en ms.
+     * Una ejecución previa sin medir calienta el JIT, el pool y la cache de la base.
+     */
+    private static void medir(ReporteMantenimiento reporte, boolean antes, String nombre, Consulta consulta)
+            throws Exception {
+        consulta.ejecutar();
+        double[] ms = new double[REPETICIONES];
+        for (int i = 0; i < REPETICIONES; i++) {
+            long t = System.nanoTime();
+            consulta.ejecutar();
+            ms[i] = (System.nanoTime() - t) / 1_000_000.0;
+        }
+        Arrays.sort(ms);
+        double mediana = ms[REPETICIONES / 2];
+        if (antes) {
+            reporte.setTiempoAntes(nombre, mediana);
+        } else {
+            reporte.setTiempoDespues(nombre, mediana);
+        }
+    }
+
+    private static void pausar() throws InterruptedException {
+        if (PAUSA_MS > 0) {
+            Thread.sleep(PAUSA_MS);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Consulta {
+        Object ejecutar() throws Exception;
+    }
+}
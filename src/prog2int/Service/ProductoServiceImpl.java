@@ -4,12 +4,32 @@
  */
 package prog2int.Service;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
-import prog2int.Config.DatabaseConnection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import prog2int.Config.CacheLRU;
+import prog2int.Config.Metricas;
+import prog2int.Config.SingleFlight;
 import prog2int.Config.TransactionManager;
+import prog2int.Config.UnidadDeTrabajo;
+import prog2int.Dao.Cambio;
+import prog2int.Dao.CambioDAO;
+import prog2int.Dao.Pagina;
+import prog2int.Dao.ProcesadorFila;
 import prog2int.Dao.ProductoDAO;
+import prog2int.Dao.ResultadoMultiple;
+import prog2int.Dao.SecuenciaDAO;
 import prog2int.Models.CodigoBarras;
 import prog2int.Models.Producto;
 
@@ -22,6 +42,108 @@ public class ProductoServiceImpl implements GenericService<Producto>{
     private final ProductoDAO productoDAO;
     private final CodigoBarrasServiceImpl cbServiceImpl;
 
+    /**
+     * Cache read-through de getById.
+     * Configuración:
+     * - -Dcache.enabled=true para habilitarla (deshabilitada por defecto)
+     * - -Dcache.max=10000 entradas máximas (LRU)
+     * - -Dcache.ttlMs=60000 vencimiento de cada entrada
+     * null si está deshabilitada.
+     */
+    private final CacheLRU<Long, Producto> cache;
+
+    /**
+     * Agrupa lecturas concurrentes del mismo ID en una sola consulta (ver SingleFlight).
+     * Se habilita con -Dsingleflight.enabled=true; -Dsingleflight.timeoutMs=5000 es la
+     * espera máxima de un thread agrupado. null si está deshabilitado.
+     */
+    private final SingleFlight<Long, Producto> vuelos;
+
+    /**
+     * Índice de búsqueda en memoria para getByName / getByBrand.
+     * Se habilita con -Dbusqueda.indice.enabled=true y se construye con inicializar().
+     * null si está deshabilitado (se usa la consulta SQL con LIKE).
+     */
+    private final IndiceBusqueda indice;
+
+    /** true cuando el índice terminó de construirse y puede responder búsquedas. */
+    private volatile boolean indiceListo;
+
+    /**
+     * Tabla en memoria código de barras → producto para resolver escaneos sin ir a la base.
+     * Se habilita con -Dtabla.codigos.enabled=true (capacidad inicial: -Dtabla.codigos.capacidad)
+     * y se construye con inicializar(). null si está deshabilitada.
+     */
+    private final TablaCodigos tabla;
+
+    /** true cuando la tabla de códigos terminó de construirse. */
+    private volatile boolean tablaLista;
+
+    /**
+     * Cola de escritura diferida de actualizar() (ver EscrituraDiferida).
+     * Configuración:
+     * - -Descritura.diferida.enabled=true para habilitarla (deshabilitada por defecto)
+     * - -Descritura.diferida.lote=500 productos por batch (por defecto db.batch.size)
+     * - -Descritura.diferida.intervaloMs=200 espera máxima en la cola
+     * - -Descritura.diferida.capacidad=10000 productos pendientes antes de bloquear
+     * - -Descritura.diferida.esperaMs=30000 espera máxima con la cola llena
+     * null si está deshabilitada (actualizar escribe en el momento).
+     */
+    private final EscrituraDiferida escritura;
+
+    /**
+     * IDs nuevos por bloques de la secuencia "producto" (ver AsignadorIds y crear()).
+     * Se habilita con -Dids.secuencia.enabled=true (-Dids.bloque=50 IDs por reserva).
+     * null si está deshabilitado: el ID lo elige el caller.
+     */
+    private final AsignadorIds ids;
+
+    /**
+     * Snapshot del catálogo en disco para construir el índice y la tabla de códigos al
+     * arrancar sin recorrer la base (ver SnapshotCatalogo e inicializar()).
+     * Configuración:
+     * - -Dsnapshot.archivo=catalogo.snap para habilitarlo (deshabilitado por defecto)
+     * - -Dsnapshot.intervaloMin=15 cada cuánto se reescribe en segundo plano
+     * - -Dsnapshot.margenMs=60000 los cambios se piden desde la marca menos este margen
+     *   (transacciones que confirmaron tarde con una fecha anterior)
+     * - -Dsnapshot.maxEdadMin=1440 un snapshot más viejo se descarta: el archivado
+     *   (MantenimientoService) borra filas sin dejar un cambio que recorrerCambios pueda ver
+     * Solo se usa con el índice o la tabla habilitados. null si está deshabilitado.
+     */
+    private final Path snapshot;
+
+    private static final long SNAPSHOT_MARGEN_MS = Long.getLong("snapshot.margenMs", 60_000L);
+    private static final long SNAPSHOT_MAX_EDAD_MS =
+            TimeUnit.MINUTES.toMillis(Long.getLong("snapshot.maxEdadMin", 1440L));
+
+    /** Escritura periódica del snapshot; se crea en el primer inicializar(). */
+    private ScheduledExecutorService escritorSnapshot;
+
+    /**
+     * Cambios del catálogo hechos por otros procesos (ver FeedCambios): invalidan la cache
+     * y actualizan el índice y la tabla de códigos sin recargarlos.
+     * Configuración:
+     * - -Dcambios.enabled=true para habilitarlo (también hace que los DAOs registren sus
+     *   cambios; requiere ScriptMigracionCambios.sql)
+     * - -Dcambios.intervaloMs=1000 pausa entre sondeos
+     * - -Dcambios.lote=500 cambios por lectura
+     * - -Dcambios.esperaHuecoMs=5000 espera por un id del registro todavía sin confirmar
+     * - -Dcambios.vigilanciaMs (por defecto la retención) tiempo durante el que se vuelve a
+     *   buscar un id salteado, por si era de una transacción larga
+     * - -Dcambios.retencionHoras=24 antigüedad a partir de la que se purga el registro
+     * null si está deshabilitado o no hay cache, índice ni tabla que mantener.
+     */
+    private final FeedCambios feed;
+
+    /** true cuando el feed ya sondea en segundo plano. */
+    private boolean feedIniciado;
+
+    /** Filas por lote en insertarBatch. Configurable via -Ddb.batch.size */
+    private static final int TAMANIO_LOTE = Integer.getInteger("db.batch.size", 500);
+
+    /** Error de MySQL por clave duplicada (crear reintenta solo si es la PRIMARY KEY). */
+    private static final int ER_DUP_ENTRY = 1062;
+
     public ProductoServiceImpl(ProductoDAO productoDAO, CodigoBarrasServiceImpl codigoBarrasServiceImpl) {
         if (productoDAO == null) {
             throw new IllegalArgumentException("ProductoDAO no puede ser null");
@@ -31,31 +153,477 @@ public class ProductoServiceImpl implements GenericService<Producto>{
         }
         this.productoDAO = productoDAO;
         this.cbServiceImpl = codigoBarrasServiceImpl;
+        this.cache = Boolean.getBoolean("cache.enabled")
+                ? new CacheLRU<>("productos", Integer.getInteger("cache.max", 10_000),
+                        Long.getLong("cache.ttlMs", 60_000L))
+                : null;
+        this.vuelos = Boolean.getBoolean("singleflight.enabled")
+                ? new SingleFlight<>("productos", Long.getLong("singleflight.timeoutMs", 5_000L))
+                : null;
+        this.indice = Boolean.getBoolean("busqueda.indice.enabled") ? new IndiceBusqueda() : null;
+        this.tabla = Boolean.getBoolean("tabla.codigos.enabled")
+                ? new TablaCodigos(Integer.getInteger("tabla.codigos.capacidad", 1024))
+                : null;
+        this.escritura = Boolean.getBoolean("escritura.diferida.enabled")
+                ? new EscrituraDiferida(productoDAO, this::invalidar,
+                        // indexar() ya mostró la versión encolada: si no se escribe, vuelve la de la base
+                        indice != null || tabla != null ? this::reindexar : null,
+                        Integer.getInteger("escritura.diferida.lote", TAMANIO_LOTE),
+                        Long.getLong("escritura.diferida.intervaloMs", 200L),
+                        Integer.getInteger("escritura.diferida.capacidad", 10_000),
+                        Long.getLong("escritura.diferida.esperaMs", 30_000L))
+                : null;
+        this.ids = Boolean.getBoolean("ids.secuencia.enabled")
+                ? new AsignadorIds(new SecuenciaDAO(), "producto", Integer.getInteger("ids.bloque", 50))
+                : null;
+        String archivoSnapshot = System.getProperty("snapshot.archivo", "");
+        this.snapshot = (indice != null || tabla != null) && !archivoSnapshot.isEmpty()
+                ? Path.of(archivoSnapshot)
+                : null;
+        boolean hayCopias = cache != null || indice != null || tabla != null
+                || codigoBarrasServiceImpl.getEstadisticasCache() != null;
+        long retencionCambios = TimeUnit.HOURS.toMillis(Long.getLong("cambios.retencionHoras", 24L));
+        this.feed = CambioDAO.HABILITADO && hayCopias
+                ? new FeedCambios(new CambioDAO(), Integer.getInteger("cambios.lote", 500),
+                        Long.getLong("cambios.esperaHuecoMs", 5_000L),
+                        Long.getLong("cambios.vigilanciaMs",
+                                retencionCambios > 0 ? retencionCambios : TimeUnit.HOURS.toMillis(24)),
+                        retencionCambios)
+                : null;
+        if (feed != null) {
+            feed.suscribir(this::aplicarCambios);
+        }
+        if (cache != null || indice != null || tabla != null) {
+            codigoBarrasServiceImpl.setListenerCodigo(this::codigoModificado);
+        }
+    }
+
+    /**
+     * Inicialización al arrancar la aplicación.
+     * Construye el índice de búsqueda y la tabla de códigos (los que estén habilitados)
+     * en un único recorrido del catálogo en streaming.
+     * Con snapshot habilitado, primero intenta cargarlos del archivo y aplicar solo los
+     * cambios posteriores; si no hay snapshot o no sirve, recorre la base como siempre.
+     * Si falla, ambos se descartan y las consultas siguen yendo por SQL.
+     * Con el feed de cambios habilitado, lo inicia desde la marca tomada antes de la carga.
+     * @throws Exception Si no se pudo leer el catálogo
+     */
+    public void inicializar() throws Exception {
+        // Antes de cargar: lo que cambie durante la carga se vuelve a aplicar después
+        long marcaCambios = feed == null ? 0 : feed.marcaActual();
+        if (indice != null || tabla != null) {
+            construirEnMemoria();
+        }
+        if (feed != null) {
+            iniciarFeed(marcaCambios);
+        }
+    }
+
+    private void construirEnMemoria() throws Exception {
+        indiceListo = false;
+        tablaLista = false;
+        boolean desdeSnapshot = Metricas.medir("ProductoService.inicializar", () -> {
+            if (cargarSnapshot()) {
+                return true;
+            }
+            limpiarEnMemoria();
+            productoDAO.recorrerTodos(this::cargarEnMemoria);
+            return false;
+        });
+        indiceListo = indice != null;
+        tablaLista = tabla != null;
+        programarSnapshot(desdeSnapshot);
+    }
+
+    private synchronized void iniciarFeed(long marca) {
+        feed.setMarca(marca);
+        if (!feedIniciado) {
+            feed.iniciar(Long.getLong("cambios.intervaloMs", 1_000L));
+            feedIniciado = true;
+        }
+    }
+
+    /**
+     * Listener del feed: aplica los cambios de productos hechos por otros procesos (los
+     * propios ya se aplicaron al escribir). Invalida la cache y vuelve a leer los productos
+     * modificados para el índice y la tabla; los que ya no están activos se quitan.
+     */
+    private void aplicarCambios(List<Cambio> cambios) throws Exception {
+        Set<Long> ids = new LinkedHashSet<>();
+        for (Cambio cambio : cambios) {
+            if (!cambio.isPropio() && cambio.getEntidad() == Cambio.Entidad.PRODUCTO) {
+                ids.add(cambio.getIdEntidad());
+            }
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+        for (Long id : ids) {
+            invalidar(id);
+        }
+        cbServiceImpl.invalidarCachePorProductos(ids);
+        if (!indiceListo && !tablaLista) {
+            return;
+        }
+        ResultadoMultiple<Long, Producto> actuales = productoDAO.getByIds(ids);
+        for (Long id : ids) {
+            Producto actual = actuales.get(id);
+            if (actual == null) {
+                if (indiceListo) {
+                    indice.quitar(id);
+                }
+                if (tablaLista) {
+                    tabla.quitar(id);
+                }
+            } else {
+                if (indiceListo) {
+                    indice.agregar(actual);
+                }
+                if (tablaLista) {
+                    tabla.agregar(actual);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Estado del feed de cambios, o null si está deshabilitado
+     */
+    public String getEstadisticasCambios() {
+        return feed == null ? null : feed.getEstadisticas();
+    }
+
+    /**
+     * Carga el snapshot y lo reconcilia con los cambios hechos desde su marca.
+     * @return false si no hay snapshot utilizable (las estructuras quedan vacías)
+     */
+    private boolean cargarSnapshot() {
+        if (snapshot == null || !Files.isRegularFile(snapshot)) {
+            return false;
+        }
+        try {
+            long edad = System.currentTimeMillis() - Files.getLastModifiedTime(snapshot).toMillis();
+            if (edad > SNAPSHOT_MAX_EDAD_MS) {
+                System.err.println("Snapshot del catálogo descartado: tiene "
+                        + TimeUnit.MILLISECONDS.toMinutes(edad) + " minutos");
+                return false;
+            }
+            Metricas.medir("ProductoService.cargarSnapshot", () -> {
+                limpiarEnMemoria();
+                SnapshotCatalogo.Lectura lectura = SnapshotCatalogo.leer(snapshot, this::cargarEnMemoria);
+                productoDAO.recorrerCambios(new Timestamp(lectura.getMarca() - SNAPSHOT_MARGEN_MS), prod -> {
+                    if (prod.isEliminado()) {
+                        if (indice != null) {
+                            indice.quitar(prod.getId());
+                        }
+                        if (tabla != null) {
+                            tabla.quitar(prod.getId());
+                        }
+                    } else {
+                        cargarEnMemoria(prod);
+                    }
+                });
+            });
+            return true;
+        } catch (Exception e) {
+            System.err.println("No se pudo cargar el snapshot del catálogo, se lee la base: " + e.getMessage());
+            limpiarEnMemoria();
+            return false;
+        }
+    }
+
+    private void cargarEnMemoria(Producto prod) {
+        if (indice != null) {
+            indice.agregar(prod);
+        }
+        if (tabla != null) {
+            tabla.agregar(prod);
+        }
+    }
+
+    private void limpiarEnMemoria() {
+        if (indice != null) {
+            indice.limpiar();
+        }
+        if (tabla != null) {
+            tabla.limpiar();
+        }
+    }
+
+    /**
+     * Programa la escritura periódica del snapshot. Si se arrancó desde la base, el
+     * primero se escribe enseguida para que el próximo arranque ya lo tenga.
+     */
+    private synchronized void programarSnapshot(boolean desdeSnapshot) {
+        if (snapshot == null || escritorSnapshot != null) {
+            return;
+        }
+        long intervalo = Long.getLong("snapshot.intervaloMin", 15L);
+        escritorSnapshot = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "snapshot-catalogo");
+            t.setDaemon(true);
+            return t;
+        });
+        escritorSnapshot.scheduleWithFixedDelay(() -> {
+            try {
+                guardarSnapshot();
+            } catch (Exception e) {
+                System.err.println("Error al guardar el snapshot del catálogo: " + e.getMessage());
+            }
+        }, desdeSnapshot ? intervalo : 0, intervalo, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Escribe el snapshot del catálogo con un recorrido en streaming de la base
+     * (réplica de lectura si hay). La marca es la mayor fecha de modificación leída.
+     * @return Productos guardados
+     * @throws IllegalStateException Si el snapshot no está habilitado
+     */
+    public int guardarSnapshot() throws Exception {
+        if (snapshot == null) {
+            throw new IllegalStateException("El snapshot del catálogo no está habilitado (-Dsnapshot.archivo)");
+        }
+        return Metricas.medir("ProductoService.guardarSnapshot", () -> {
+            SnapshotCatalogo.Escritor escritor = new SnapshotCatalogo.Escritor();
+            Timestamp marca = productoDAO.recorrerCambios(null, escritor::agregar);
+            escritor.guardar(snapshot, marca);
+            return escritor.getFilas();
+        });
+    }
+
+    /**
+     * Actualiza el índice luego de un alta o modificación.
+     * Guarda una copia para que cambios posteriores del caller no alteren el índice.
+     * Dentro de una UnidadDeTrabajo se aplica recién con su commit.
+     */
+    private void indexar(Producto prod) {
+        if (tabla == null && indice == null) {
+            return;
+        }
+        Producto copia = copiar(prod);
+        UnidadDeTrabajo.alConfirmar(() -> {
+            if (tabla != null) {
+                tabla.agregar(copia);
+            }
+            if (indice == null) {
+                return;
+            }
+            if (copia.getCodigoBarras() == null) {
+                Producto anterior = indice.get(copia.getId());
+                copia.setCodigoBarras(anterior == null ? null : anterior.getCodigoBarras());
+            }
+            indice.agregar(copia);
+        });
     }
     
     
     @Override
     public void insertar(Producto prod) throws Exception {
-        productoDAO.insertar(prod);
+        try {
+            productoDAO.insertar(prod);
+            indexar(prod);
+        } finally {
+            invalidar(prod.getId());
+        }
     }
 
+    /**
+     * Actualiza los datos del producto (no el código de barras).
+     * Con la escritura diferida habilitada se encola una copia y vuelve sin ir a la base:
+     * el UPDATE se hace luego en un batch, y hasta entonces getById/getByIds devuelven
+     * la versión encolada. Un producto inexistente no da error acá sino al escribirse.
+     * Dentro de una UnidadDeTrabajo el UPDATE es inmediato (en su transacción) y
+     * reemplaza a la versión encolada, si había; si esa versión ya se estaba escribiendo,
+     * primero se espera a que termine para que no pise a esta.
+     */
     @Override
     public void actualizar(Producto prod) throws Exception {
-        productoDAO.actualizar(prod);
+        try {
+            if (escritura != null && !UnidadDeTrabajo.isActiva()) {
+                escritura.encolar(copiar(prod));
+            } else {
+                if (escritura != null) {
+                    escritura.descartar(prod.getId());
+                }
+                productoDAO.actualizar(prod);
+            }
+            indexar(prod);
+        } finally {
+            // El UPDATE no toca el código de barras: alcanza con invalidar el producto
+            invalidar(prod.getId());
+        }
     }
 
     @Override
     public void eliminar(long id) throws Exception {
-        productoDAO.eliminar(id);
+        try {
+            if (escritura != null) {
+                // Una actualización pendiente no tiene sentido sobre un producto dado de baja
+                escritura.descartar(id);
+            }
+            productoDAO.eliminar(id);
+            UnidadDeTrabajo.alConfirmar(() -> {
+                if (indice != null) {
+                    indice.quitar(id);
+                }
+                if (tabla != null) {
+                    tabla.quitar(id);
+                }
+            });
+        } finally {
+            // La baja lógica también da de baja el código de barras asociado
+            invalidar(id);
+            cbServiceImpl.invalidarCachePorProducto(id);
+        }
+    }
+
+    /**
+     * Baja lógica de muchos productos (y sus códigos) en una sola transacción.
+     * Los ids inexistentes o ya eliminados se ignoran.
+     * @param ids Ids a eliminar
+     */
+    public void eliminarMany(Collection<Long> ids) throws Exception {
+        for (Long id : ids) {
+            if (id == null || id <= 0) {
+                throw new IllegalArgumentException("Los IDs deben ser mayores a 0");
+            }
+        }
+        try {
+            for (Long id : ids) {
+                if (escritura != null) {
+                    escritura.descartar(id);
+                }
+            }
+            productoDAO.eliminarMany(ids);
+            UnidadDeTrabajo.alConfirmar(() -> {
+                for (Long id : ids) {
+                    if (indice != null) {
+                        indice.quitar(id);
+                    }
+                    if (tabla != null) {
+                        tabla.quitar(id);
+                    }
+                }
+            });
+        } finally {
+            for (Long id : ids) {
+                invalidar(id);
+            }
+            cbServiceImpl.invalidarCachePorProductos(ids);
+        }
     }
 
+    /**
+     * Busca por ID pasando por la cache si está habilitada.
+     * Devuelve una copia: el caller (por ejemplo MenuHandler.actualizarProducto)
+     * puede modificarla sin alterar la entrada cacheada.
+     * Dentro de una UnidadDeTrabajo se lee por su conexión, sin cache ni single-flight:
+     * así se ven los cambios propios aún no confirmados y no se publican a otros threads.
+     */
     @Override
     public Producto getById(long id) throws Exception {
-        if (id <= 0) {
-            throw new IllegalArgumentException("El ID debe ser mayor a 0");
+        return Metricas.medir("ProductoService.getById", () -> {
+            if (id <= 0) {
+                throw new IllegalArgumentException("El ID debe ser mayor a 0");
+            }
+            Producto prod;
+            if (UnidadDeTrabajo.isActiva()) {
+                prod = productoDAO.getById(id);
+            } else if (cache == null) {
+                // Con single-flight el objeto puede ser compartido con otros threads
+                prod = vuelos == null ? productoDAO.getById(id) : copiar(cargar(id));
+            } else {
+                prod = copiar(cache.obtener(id, this::cargar));
+            }
+            return conPendiente(prod);
+        });
+    }
+
+    /**
+     * Con la escritura diferida, reemplaza los datos leídos por la versión encolada
+     * (si hay) para que el caller vea sus propias actualizaciones.
+     * @param leido Copia leída de la base o la cache (se modifica)
+     */
+    private Producto conPendiente(Producto leido) {
+        if (escritura == null || leido == null) {
+            return leido;
         }
-        return productoDAO.getById(id);
+        Producto pendiente = escritura.getPendiente(leido.getId());
+        if (pendiente != null) {
+            leido.setNombre(pendiente.getNombre());
+            leido.setMarca(pendiente.getMarca());
+            leido.setCategoria(pendiente.getCategoria());
+            leido.setPrecio(pendiente.getPrecio());
+            leido.setPeso(pendiente.getPeso());
+        }
+        return leido;
+    }
+
+    /**
+     * Lectura de la base ante un fallo de cache, agrupada si single-flight está habilitado.
+     */
+    private Producto cargar(Long id) throws Exception {
+        return vuelos == null ? productoDAO.getById(id) : vuelos.ejecutar(id, productoDAO::getById);
     }
+
+    /**
+     * Busca muchos productos de una vez (por ejemplo, resolver una canasta).
+     * Con la cache habilitada solo van a la base los ids que no están cacheados,
+     * en una única llamada a ProductoDAO.getByIds (bloques IN en paralelo).
+     * Igual que getById, devuelve copias y dentro de una UnidadDeTrabajo no usa la cache.
+     * @param ids Ids a buscar
+     * @return Productos encontrados (en el orden de ids) y los ids faltantes
+     */
+    public ResultadoMultiple<Long, Producto> getByIds(Collection<Long> ids) throws Exception {
+        return Metricas.medir("ProductoService.getByIds", () -> {
+            for (Long id : ids) {
+                if (id == null || id <= 0) {
+                    throw new IllegalArgumentException("Los IDs deben ser mayores a 0");
+                }
+            }
+            if (cache == null || UnidadDeTrabajo.isActiva()) {
+                ResultadoMultiple<Long, Producto> resultado = productoDAO.getByIds(ids);
+                if (escritura != null) {
+                    resultado.getEncontrados().values().forEach(this::conPendiente);
+                }
+                return resultado;
+            }
+            Map<Long, Producto> encontrados = cache.obtenerTodos(ids,
+                    faltantes -> productoDAO.getByIds(faltantes).getEncontrados());
+            encontrados.replaceAll((id, p) -> conPendiente(copiar(p)));
+            return ResultadoMultiple.de(ids, encontrados);
+        });
+    }
+
+    /**
+     * Resuelve un escaneo de código de barras al ID del producto.
+     * Con la tabla de códigos habilitada se responde en memoria sin crear objetos;
+     * si no, o si el código no está en la tabla, se consulta la base.
+     * @param valor Valor leído por el escáner
+     * @return ID del producto activo, o -1 si no existe
+     */
+    public long resolverEscaneo(String valor) throws Exception {
+        if (tablaLista) {
+            long id = tabla.resolver(valor);
+            if (id != TablaCodigos.NO_ENCONTRADO) {
+                return id;
+            }
+        }
+        CodigoBarras cb = cbServiceImpl.getByValor(valor);
+        return cb == null ? -1 : cb.getIdProducto();
+    }
+
+    /**
+     * @return Tamaño y memoria de la tabla de códigos, o null si está deshabilitada
+     */
+    public String getEstadisticasTabla() {
+        if (tabla == null) {
+            return null;
+        }
+        return String.format("Tabla de códigos: %d productos, %.1f MB",
+                tabla.size(), tabla.memoriaBytes() / (1024.0 * 1024.0));
+    }
+
     public boolean idExists(long id) throws Exception{
         return productoDAO.idExists(id);
     }
@@ -65,17 +633,216 @@ public class ProductoServiceImpl implements GenericService<Producto>{
         return productoDAO.getAll();
     }
     
-    public List getByName(String name) throws Exception{
-        return productoDAO.getListByName(name);
+    /**
+     * Recorre todo el catálogo activo en streaming (memoria constante).
+     * @param procesador Callback por producto
+     * @return Cantidad de productos recorridos
+     */
+    public long recorrerTodos(ProcesadorFila<Producto> procesador) throws Exception {
+        return productoDAO.recorrerTodos(procesador);
+    }
+    
+    /**
+     * Búsqueda por nombre. Con el índice habilitado se resuelve en memoria
+     * (prefijo / difusa por palabra); si no, con LIKE en la base.
+     */
+    public List<Producto> getByName(String name) throws Exception{
+        return Metricas.medir("ProductoService.getByName", () -> {
+            if (indiceListo) {
+                return buscarEnIndice(name, IndiceBusqueda.Campo.NOMBRE);
+            }
+            return productoDAO.getListByName(name);
+        });
     }
     
-    public List getByBrand(String brand) throws Exception{
-        return productoDAO.getListByBrand(brand);
+    /**
+     * Búsqueda por marca o categoría. Con el índice habilitado se resuelve en memoria.
+     */
+    public List<Producto> getByBrand(String brand) throws Exception{
+        return Metricas.medir("ProductoService.getByBrand", () -> {
+            if (indiceListo) {
+                return buscarEnIndice(brand, IndiceBusqueda.Campo.MARCA_CATEGORIA);
+            }
+            return productoDAO.getListByBrand(brand);
+        });
+    }
+
+    private List<Producto> buscarEnIndice(String filtro, IndiceBusqueda.Campo campo) {
+        if (filtro == null || filtro.trim().isEmpty()) {
+            throw new IllegalArgumentException("El filtro de búsqueda no puede estar vacío");
+        }
+        List<Producto> encontrados = indice.buscar(filtro, campo);
+        List<Producto> copias = new ArrayList<>(encontrados.size());
+        for (Producto p : encontrados) {
+            copias.add(copiar(p));
+        }
+        return copias;
+    }
+
+    /**
+     * Listado paginado por clave (ver Pagina).
+     * @param token Token de la página anterior, o null para la primera
+     * @param tamanio Productos por página
+     */
+    public Pagina<Producto> getPagina(String token, int tamanio) throws Exception {
+        validarTamanioPagina(tamanio);
+        return productoDAO.getPagina(token, tamanio);
+    }
+
+    /**
+     * Página de la búsqueda por nombre. Con el índice listo se pagina en memoria sobre
+     * sus resultados; si no, con LIKE en la base. Los tokens sirven para ambas fuentes.
+     */
+    public Pagina<Producto> getPaginaByName(String name, String token, int tamanio) throws Exception {
+        validarTamanioPagina(tamanio);
+        return Metricas.medir("ProductoService.getPaginaByName", () -> {
+            if (indiceListo) {
+                return paginaDeIndice(name, IndiceBusqueda.Campo.NOMBRE, token, tamanio);
+            }
+            return productoDAO.getPaginaByName(name, token, tamanio);
+        });
+    }
+
+    /**
+     * Página de la búsqueda por marca o categoría (índice en memoria o LIKE, como getPaginaByName).
+     */
+    public Pagina<Producto> getPaginaByBrand(String brand, String token, int tamanio) throws Exception {
+        validarTamanioPagina(tamanio);
+        return Metricas.medir("ProductoService.getPaginaByBrand", () -> {
+            if (indiceListo) {
+                return paginaDeIndice(brand, IndiceBusqueda.Campo.MARCA_CATEGORIA, token, tamanio);
+            }
+            return productoDAO.getPaginaByBrand(brand, token, tamanio);
+        });
+    }
+
+    private Pagina<Producto> paginaDeIndice(String filtro, IndiceBusqueda.Campo campo, String token, int tamanio) {
+        if (filtro == null || filtro.trim().isEmpty()) {
+            throw new IllegalArgumentException("El filtro de búsqueda no puede estar vacío");
+        }
+        Pagina<Producto> pagina = indice.buscarPagina(filtro, campo, token, tamanio);
+        List<Producto> copias = new ArrayList<>(pagina.getItems().size());
+        for (Producto p : pagina.getItems()) {
+            copias.add(copiar(p));
+        }
+        return new Pagina<>(copias, pagina.getSiguiente());
+    }
+
+    private static void validarTamanioPagina(int tamanio) {
+        if (tamanio <= 0) {
+            throw new IllegalArgumentException("El tamaño de página debe ser mayor a 0");
+        }
     }
 
     public CodigoBarrasServiceImpl getCodigoBarrasServiceImpl() {
         return cbServiceImpl;
     }
+
+    /**
+     * Escribe en la base todas las actualizaciones encoladas y espera a que terminen.
+     * No hace nada si la escritura diferida está deshabilitada.
+     */
+    public void vaciarEscrituras() throws InterruptedException {
+        if (escritura != null) {
+            escritura.vaciar();
+        }
+    }
+
+    /**
+     * @return Estadísticas de la escritura diferida, o null si está deshabilitada
+     */
+    public String getEstadisticasEscritura() {
+        return escritura == null ? null : escritura.getEstadisticas();
+    }
+
+    /**
+     * @return Estadísticas de single-flight de getById, o null si está deshabilitado
+     */
+    public String getEstadisticasSingleFlight() {
+        return vuelos == null ? null : vuelos.getEstadisticas();
+    }
+
+    /**
+     * @return Estadísticas de la cache de productos, o null si está deshabilitada
+     */
+    public String getEstadisticasCache() {
+        return cache == null ? null : cache.getEstadisticas();
+    }
+
+    /**
+     * Quita el producto de la cache y de las lecturas en curso, para que la
+     * próxima lectura vea la escritura recién hecha.
+     * Dentro de una UnidadDeTrabajo se hace al terminarla: hasta el commit, lo cacheado
+     * sigue siendo lo confirmado.
+     */
+    private void invalidar(long id) {
+        UnidadDeTrabajo.alTerminar(() -> {
+            if (cache != null) {
+                cache.invalidar(id);
+            }
+            if (vuelos != null) {
+                vuelos.olvidar(id);
+            }
+        });
+    }
+
+    /**
+     * Listener de CodigoBarrasServiceImpl: la cache, el índice y la tabla de códigos guardan
+     * el producto con una copia de su código. Se invalida la entrada de la cache y, con el
+     * commit, se vuelve a leer el producto para el índice y la tabla. Un código eliminado
+     * además sale de la tabla: el producto sigue activo (getById lo devuelve con el código
+     * dado de baja) pero escanear ese valor ya no debe resolverlo.
+     */
+    private void codigoModificado(long idProducto, boolean eliminado) {
+        invalidar(idProducto);
+        if (indice != null || tabla != null) {
+            UnidadDeTrabajo.alConfirmar(() -> {
+                reindexar(idProducto);
+                if (eliminado && tabla != null) {
+                    tabla.quitar(idProducto);
+                }
+            });
+        }
+    }
+
+    /**
+     * Reemplaza la copia del producto en el índice y la tabla por la confirmada en la base.
+     * Si ya no está activo, o no se pudo leer, se lo quita: las búsquedas no lo encuentran
+     * hasta la próxima escritura, pero no muestran un código viejo.
+     */
+    private void reindexar(long id) {
+        Producto actual = null;
+        try {
+            actual = productoDAO.getById(id);
+        } catch (Exception e) {
+            System.err.println("No se pudo releer el producto " + id + " para el índice: " + e.getMessage());
+        }
+        if (actual == null) {
+            if (indice != null) {
+                indice.quitar(id);
+            }
+            if (tabla != null) {
+                tabla.quitar(id);
+            }
+            return;
+        }
+        if (indice != null) {
+            indice.agregar(actual);
+        }
+        if (tabla != null) {
+            tabla.agregar(actual);
+        }
+    }
+
+    private static Producto copiar(Producto p) {
+        if (p == null) {
+            return null;
+        }
+        Producto copia = new Producto(p.getId(), p.getNombre(), p.getMarca(), p.getCategoria(),
+                p.getPrecio(), p.getPeso(), CodigoBarrasServiceImpl.copiar(p.getCodigoBarras()));
+        copia.setEliminado(p.isEliminado());
+        return copia;
+    }
     
     /**
      * Insert controlado por transacciones para garantizar que se den de alta tanto
@@ -84,23 +851,185 @@ public class ProductoServiceImpl implements GenericService<Producto>{
      * @param cb Codigo de barras correspondiente
      * @param conn Connexión a la base de datos
      * @throws SQLException 
+     * @see #insertarTx(Producto, CodigoBarras) variante con reintentos ante deadlocks
      */
     public void insertarTx(Producto prod, CodigoBarras cb, Connection conn) throws SQLException, Exception{
-        TransactionManager tx = new TransactionManager(conn);
-        tx.startTransaction();
-        try{
-            cbServiceImpl.insertarTx(cb, conn);
-            productoDAO.insertTx(prod, conn);
+        Metricas.medir("ProductoService.insertarTx", () -> {
+            TransactionManager tx = new TransactionManager(conn);
+            tx.startTransaction();
+            try{
+                cbServiceImpl.insertarTx(cb, conn);
+                productoDAO.insertTx(prod, conn);
             
-            tx.commit();
+                tx.commit();
+                indexar(prod);
             
-        }catch (Exception e) {
-                tx.rollback();
-                //System.err.println("Error en la transaccion: " + e.getMessage());
-                throw new Exception("Error en la transaccion: " + e.getMessage());
+            }catch (Exception e) {
+                    tx.rollback();
+                    //System.err.println("Error en la transaccion: " + e.getMessage());
+                    throw new Exception("Error en la transaccion: " + e.getMessage(), e);
+            }
+            finally{
+                tx.close();
+                invalidar(prod.getId());
+                cbServiceImpl.invalidarCacheValor(cb.getValor());
+            }
+        });
+    }
+
+    /**
+     * Igual que insertarTx(prod, cb, conn) pero con conexión propia por intento y
+     * reintentos ante deadlocks, lock wait timeouts y caídas de conexión
+     * (TransactionManager.ejecutarConReintentos, configurable con db.retry.*).
+     * Así las cargas concurrentes que chocan por locks esperan y reintentan en lugar
+     * de perder el alta.
+     * @param prod Producto a insertar
+     * @param cb Codigo de barras correspondiente
+     * @throws Exception Si falla por un error no transitorio o se agotan los intentos
+     */
+    public void insertarTx(Producto prod, CodigoBarras cb) throws Exception {
+        Metricas.medir("ProductoService.insertarTx", () -> {
+            try {
+                TransactionManager.ejecutarConReintentos(conn -> {
+                    cbServiceImpl.insertarTx(cb, conn);
+                    productoDAO.insertTx(prod, conn);
+                    return null;
+                });
+                indexar(prod);
+            } catch (Exception e) {
+                throw new Exception("Error en la transaccion: " + e.getMessage(), e);
+            } finally {
+                invalidar(prod.getId());
+                cbServiceImpl.invalidarCacheValor(cb.getValor());
+            }
+        });
+    }
+
+    /**
+     * @return true si crear() asigna los IDs con la secuencia
+     */
+    public boolean isIdsAutomaticos() {
+        return ids != null && cbServiceImpl.isIdsAutomaticos();
+    }
+
+    /**
+     * Alta de producto + código con IDs asignados por las secuencias, sin consultas
+     * previas de existencia: la PRIMARY KEY es la única verificación.
+     * Si el alta choca con una PRIMARY KEY existente (un ID del bloque cargado a mano)
+     * se reintenta una vez con IDs nuevos; un segundo choque se informa al caller.
+     * Otras violaciones de restricción (código de barras duplicado, NOT NULL, FK) no
+     * se arreglan con otro ID: se informan enseguida.
+     * @param prod Producto a insertar (se le asigna el ID)
+     * @param cb Código de barras (se le asigna el ID)
+     * @throws IllegalStateException Si la asignación por secuencia está deshabilitada
+     */
+    public void crear(Producto prod, CodigoBarras cb) throws Exception {
+        if (!isIdsAutomaticos()) {
+            throw new IllegalStateException("La asignación de IDs por secuencia está deshabilitada");
+        }
+        for (int intento = 1; ; intento++) {
+            cb.setId(cbServiceImpl.nuevoId());
+            prod.setId(ids.siguiente());
+            cb.setIdProducto(prod.getId());
+            prod.setCodigoBarras(cb);
+            try {
+                insertarTx(prod, cb);
+                return;
+            } catch (Exception e) {
+                if (intento == 2 || !esColisionClavePrimaria(e)) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return true si la causa es un duplicado de MySQL (ER_DUP_ENTRY) sobre la PRIMARY KEY:
+     *         "Duplicate entry '...' for key 'tabla.PRIMARY'"
+     */
+    private static boolean esColisionClavePrimaria(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException sql && sql.getErrorCode() == ER_DUP_ENTRY
+                    && sql.getMessage() != null && sql.getMessage().contains("PRIMARY")) {
+                return true;
+            }
         }
-        finally{
-            tx.close();
+        return false;
+    }
+
+    /**
+     * Carga masiva de productos con su código de barras usando batches JDBC.
+     *
+     * Flujo por lote (db.batch.size filas):
+     * 1. Una transacción: batch de CodigoBarras + batch de Producto, commit
+     * 2. Si el lote falla se hace rollback y se reprocesa fila por fila con insertarTx,
+     *    de modo que solo se rechazan las filas con error
+     *
+     * Producto y código de barras quedan siempre atómicos: o se insertan ambos o ninguno.
+     *
+     * @param productos Productos a insertar, cada uno con su CodigoBarras (nuevo)
+     * @return Resultado con insertados, rechazados y tiempo total
+     */
+    public ResultadoBatch insertarBatch(List<Producto> productos) {
+        ResultadoBatch resultado = new ResultadoBatch();
+        long inicio = System.nanoTime();
+
+        List<Producto> lote = new ArrayList<>(Math.min(TAMANIO_LOTE, productos.size()));
+        for (Producto prod : productos) {
+            if (prod.getCodigoBarras() == null) {
+                resultado.agregarFalla(prod, "El producto no tiene código de barras");
+                continue;
+            }
+            lote.add(prod);
+            if (lote.size() == TAMANIO_LOTE) {
+                insertarLote(lote, resultado);
+                lote.clear();
+            }
+        }
+        if (!lote.isEmpty()) {
+            insertarLote(lote, resultado);
+        }
+
+        resultado.setDuracionNanos(System.nanoTime() - inicio);
+        Metricas.registrar("ProductoService.insertarBatch", System.nanoTime() - inicio,
+                !resultado.getFallas().isEmpty(), resultado.getInsertados());
+        return resultado;
+    }
+
+    private void insertarLote(List<Producto> lote, ResultadoBatch resultado) {
+        List<CodigoBarras> cbs = new ArrayList<>(lote.size());
+        for (Producto prod : lote) {
+            cbs.add(prod.getCodigoBarras());
+        }
+
+        boolean ok;
+        try {
+            // Un deadlock con otra carga reintenta el lote completo antes de pasar a fila por fila
+            TransactionManager.ejecutarConReintentos(conn -> {
+                cbServiceImpl.insertarBatchTx(cbs, conn);
+                productoDAO.insertBatchTx(lote, conn);
+                return null;
+            });
+            resultado.sumarInsertados(lote.size());
+            for (Producto prod : lote) {
+                indexar(prod);
+            }
+            ok = true;
+        } catch (Exception e) {
+            // Cada intento ya hizo rollback del lote completo
+            ok = false;
+        }
+        resultado.sumarLote(!ok);
+
+        if (!ok) {
+            for (Producto prod : lote) {
+                try {
+                    insertarTx(prod, prod.getCodigoBarras());
+                    resultado.sumarInsertados(1);
+                } catch (Exception e) {
+                    resultado.agregarFalla(prod, e.getMessage());
+                }
+            }
         }
     }
 }
\ No newline at end of file
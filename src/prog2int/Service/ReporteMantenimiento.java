@@ -0,0 +1,116 @@
+package prog2int.Service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Resultado del archivado de bajas lógicas (MantenimientoService.archivar).
+ *
+ * Informa las filas eliminadas que había y que quedan, cuántas se archivaron y
+ * el tiempo de las consultas de referencia antes y después, para ver el efecto
+ * del mantenimiento sobre las búsquedas.
+ */
+public class ReporteMantenimiento {
+
+    private long productosEliminadosAntes;
+    private long codigosEliminadosAntes;
+    private long productosEliminadosDespues;
+    private long codigosEliminadosDespues;
+    private long productosArchivados;
+    private long codigosArchivados;
+    private int lotes;
+    private long duracionNanos;
+    private String error;
+    /** Consulta de referencia → {ms antes, ms después} */
+    private final Map<String, double[]> tiempos = new LinkedHashMap<>();
+
+    void setEliminadosAntes(long productos, long codigos) {
+        this.productosEliminadosAntes = productos;
+        this.codigosEliminadosAntes = codigos;
+    }
+
+    void setEliminadosDespues(long productos, long codigos) {
+        this.productosEliminadosDespues = productos;
+        this.codigosEliminadosDespues = codigos;
+    }
+
+    void sumarLote(long productos, long codigos) {
+        lotes++;
+        productosArchivados += productos;
+        codigosArchivados += codigos;
+    }
+
+    void setTiempoAntes(String consulta, double ms) {
+        tiempos.computeIfAbsent(consulta, k -> new double[] {Double.NaN, Double.NaN})[0] = ms;
+    }
+
+    void setTiempoDespues(String consulta, double ms) {
+        tiempos.computeIfAbsent(consulta, k -> new double[] {Double.NaN, Double.NaN})[1] = ms;
+    }
+
+    void setDuracionNanos(long duracionNanos) {
+        this.duracionNanos = duracionNanos;
+    }
+
+    void setError(String error) {
+        this.error = error;
+    }
+
+    /** @return Productos movidos a productoArchivo */
+    public long getProductosArchivados() {
+        return productosArchivados;
+    }
+
+    /** @return Códigos movidos a codigoBarrasArchivo */
+    public long getCodigosArchivados() {
+        return codigosArchivados;
+    }
+
+    /** @return Productos dados de baja que quedaron en la tabla (dentro de la retención) */
+    public long getProductosEliminadosDespues() {
+        return productosEliminadosDespues;
+    }
+
+    /** @return Códigos dados de baja que quedaron en la tabla */
+    public long getCodigosEliminadosDespues() {
+        return codigosEliminadosDespues;
+    }
+
+    /** @return Lotes (transacciones) ejecutados */
+    public int getLotes() {
+        return lotes;
+    }
+
+    /** @return Consulta de referencia → {ms antes, ms después} (solo lectura) */
+    public Map<String, double[]> getTiempos() {
+        return Collections.unmodifiableMap(tiempos);
+    }
+
+    /** @return Mensaje del error que cortó el archivado, o null si terminó */
+    public String getError() {
+        return error;
+    }
+
+    public long getDuracionMs() {
+        return duracionNanos / 1_000_000L;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Archivados: %d productos, %d códigos en %d lotes (%d ms)%n",
+                productosArchivados, codigosArchivados, lotes, getDuracionMs()));
+        sb.append(String.format("Bajas en tablas principales: productos %d -> %d, códigos %d -> %d%n",
+                productosEliminadosAntes, productosEliminadosDespues,
+                codigosEliminadosAntes, codigosEliminadosDespues));
+        for (Map.Entry<String, double[]> e : tiempos.entrySet()) {
+            sb.append(String.format("%-28s antes %8.2f ms   después %8.2f ms%n",
+                    e.getKey(), e.getValue()[0], e.getValue()[1]));
+        }
+        if (error != null) {
+            sb.append("Interrumpido por error: ").append(error).append(System.lineSeparator());
+        }
+        return sb.toString();
+    }
+}
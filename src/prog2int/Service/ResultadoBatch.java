@@ -0,0 +1,102 @@
+package prog2int.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import prog2int.Models.Producto;
+
+/**
+ * Resultado de una carga masiva de productos (ProductoServiceImpl.insertarBatch).
+ *
+ * Informa cuántas filas se insertaron, cuáles fallaron y por qué, y el tiempo total,
+ * de modo que una fila inválida no aborta la carga completa.
+ */
+public class ResultadoBatch {
+
+    /**
+     * Fila rechazada con el motivo informado por la validación o la base de datos.
+     */
+    public static class Falla {
+        private final Producto producto;
+        private final String motivo;
+
+        public Falla(Producto producto, String motivo) {
+            this.producto = producto;
+            this.motivo = motivo;
+        }
+
+        public Producto getProducto() {
+            return producto;
+        }
+
+        public String getMotivo() {
+            return motivo;
+        }
+
+        @Override
+        public String toString() {
+            return "Producto ID " + producto.getId() + ": " + motivo;
+        }
+    }
+
+    private int insertados;
+    private int lotes;
+    private int lotesReintentados;
+    private long duracionNanos;
+    private final List<Falla> fallas = new ArrayList<>();
+
+    void sumarInsertados(int cantidad) {
+        insertados += cantidad;
+    }
+
+    void sumarLote(boolean reintentado) {
+        lotes++;
+        if (reintentado) {
+            lotesReintentados++;
+        }
+    }
+
+    void agregarFalla(Producto producto, String motivo) {
+        fallas.add(new Falla(producto, motivo));
+    }
+
+    void setDuracionNanos(long duracionNanos) {
+        this.duracionNanos = duracionNanos;
+    }
+
+    /** @return Productos insertados correctamente */
+    public int getInsertados() {
+        return insertados;
+    }
+
+    /** @return Cantidad de lotes (chunks) procesados */
+    public int getLotes() {
+        return lotes;
+    }
+
+    /** @return Lotes que fallaron en batch y se reprocesaron fila por fila */
+    public int getLotesReintentados() {
+        return lotesReintentados;
+    }
+
+    /** @return Filas rechazadas con su motivo */
+    public List<Falla> getFallas() {
+        return Collections.unmodifiableList(fallas);
+    }
+
+    public long getDuracionMs() {
+        return duracionNanos / 1_000_000L;
+    }
+
+    /** @return Filas insertadas por segundo (0 si no se midió duración) */
+    public double getFilasPorSegundo() {
+        return duracionNanos == 0 ? 0.0 : insertados * 1_000_000_000.0 / duracionNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Insertados: %d, rechazados: %d, lotes: %d (reintentados fila a fila: %d), "
+                        + "duración: %d ms, %.0f filas/seg",
+                insertados, fallas.size(), lotes, lotesReintentados, getDuracionMs(), getFilasPorSegundo());
+    }
+}
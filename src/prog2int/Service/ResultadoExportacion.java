@@ -0,0 +1,42 @@
+package prog2int.Service;
+
+import java.nio.file.Path;
+
+/**
+ * Resumen de una exportación de catálogo (ExportadorCatalogo).
+ */
+public class ResultadoExportacion {
+
+    private final Path archivo;
+    private final long filas;
+    private final long duracionNanos;
+
+    ResultadoExportacion(Path archivo, long filas, long duracionNanos) {
+        this.archivo = archivo;
+        this.filas = filas;
+        this.duracionNanos = duracionNanos;
+    }
+
+    public Path getArchivo() {
+        return archivo;
+    }
+
+    public long getFilas() {
+        return filas;
+    }
+
+    public long getDuracionMs() {
+        return duracionNanos / 1_000_000L;
+    }
+
+    /** @return Filas escritas por segundo */
+    public double getFilasPorSegundo() {
+        return duracionNanos == 0 ? 0.0 : filas * 1_000_000_000.0 / duracionNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Exportadas: %d filas a %s, duración: %d ms, %.0f filas/seg",
+                filas, archivo, getDuracionMs(), getFilasPorSegundo());
+    }
+}
@@ -0,0 +1,71 @@
+package prog2int.Service;
+
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Resumen de una importación de catálogo (ImportadorCatalogo).
+ */
+public class ResultadoImportacion {
+
+    private final Path archivoRechazos;
+    private final AtomicLong leidas = new AtomicLong();
+    private final AtomicLong insertadas = new AtomicLong();
+    private final AtomicLong rechazadas = new AtomicLong();
+    private long duracionNanos;
+
+    ResultadoImportacion(Path archivoRechazos) {
+        this.archivoRechazos = archivoRechazos;
+    }
+
+    void sumarLeida() {
+        leidas.incrementAndGet();
+    }
+
+    void sumarInsertadas(int cantidad) {
+        insertadas.addAndGet(cantidad);
+    }
+
+    void sumarRechazada() {
+        rechazadas.incrementAndGet();
+    }
+
+    void setDuracionNanos(long duracionNanos) {
+        this.duracionNanos = duracionNanos;
+    }
+
+    /** @return Filas de datos leídas (sin encabezado ni líneas vacías) */
+    public long getLeidas() {
+        return leidas.get();
+    }
+
+    public long getInsertadas() {
+        return insertadas.get();
+    }
+
+    /** @return Filas rechazadas por validación o por la base de datos */
+    public long getRechazadas() {
+        return rechazadas.get();
+    }
+
+    public Path getArchivoRechazos() {
+        return archivoRechazos;
+    }
+
+    public long getDuracionMs() {
+        return duracionNanos / 1_000_000L;
+    }
+
+    /** @return Filas leídas por segundo */
+    public double getFilasPorSegundo() {
+        return duracionNanos == 0 ? 0.0 : leidas.get() * 1_000_000_000.0 / duracionNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Leídas: %d, insertadas: %d, rechazadas: %d, duración: %d ms, %.0f filas/seg%n"
+                        + "Rechazos en: %s",
+                getLeidas(), getInsertadas(), getRechazadas(), getDuracionMs(), getFilasPorSegundo(),
+                archivoRechazos);
+    }
+}
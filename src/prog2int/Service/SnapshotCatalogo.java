@@ -0,0 +1,323 @@
+package prog2int.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.zip.CRC32;
+import prog2int.Dao.ProcesadorFila;
+import prog2int.Models.CodigoBarras;
+import prog2int.Models.Producto;
+import prog2int.Models.TipoCB;
+
+/**
+ * Formato binario del snapshot del catálogo (Producto + CodigoBarras) para arrancar
+ * con el índice y la tabla de códigos calientes sin recorrer la base.
+ *
+ * Columnar: cada campo se guarda como un bloque contiguo con la codificación que le conviene.
+ * <pre>
+ * int    MAGIA ("PCAT")
+ * short  VERSION
+ * int    filas
+ * long   marca (epoch ms: el snapshot refleja los cambios hasta este momento, ver recorrerCambios)
+ * long   creado (epoch ms)
+ * int    columnas, luego int[columnas] con el largo en bytes de cada bloque
+ * bloques, en el orden de COLUMNAS
+ * long   CRC32 de todo lo anterior
+ * </pre>
+ * Codificaciones:
+ * - ids: diferencia con el anterior en zigzag + varint (los de producto vienen ordenados: 1 byte)
+ * - textos: varint con largo UTF-8 + 1 (0 = null) y los bytes
+ * - precio, peso: double (8 bytes)
+ * - tipo: ordinal de TipoCB + 1 (0 = null)
+ * - fechaAsignacion: día (epoch day) en zigzag + 1 como varint (0 = null)
+ *
+ * La lectura mapea el archivo en memoria (FileChannel.map), valida el CRC antes de
+ * entregar filas y avanza sobre todos los bloques a la vez, fila por fila.
+ */
+public final class SnapshotCatalogo {
+
+    private static final int MAGIA = 0x50434154;
+    private static final short VERSION = 1;
+
+    /** Orden de los bloques en el archivo. */
+    private static final String[] COLUMNAS = {"producto.id", "nombre", "marca", "categoria", "precio", "peso",
+        "codigoBarras.id", "tipo", "valor", "fechaAsignacion", "observaciones"};
+
+    private static final TipoCB[] TIPOS = TipoCB.values();
+
+    private SnapshotCatalogo() {
+        throw new UnsupportedOperationException("Esta es una clase utilitaria y no debe ser instanciada");
+    }
+
+    /**
+     * Acumula las filas en bloques por columna (en memoria, unos 90 bytes por producto)
+     * y las guarda de una vez con guardar().
+     */
+    public static final class Escritor {
+        private final Bloque[] bloques = new Bloque[COLUMNAS.length];
+        private long idAnterior;
+        private long idCodigoAnterior;
+        private int filas;
+
+        public Escritor() {
+            for (int i = 0; i < bloques.length; i++) {
+                bloques[i] = new Bloque();
+            }
+        }
+
+        /**
+         * @param p Producto activo con su código de barras
+         */
+        public void agregar(Producto p) {
+            CodigoBarras cb = p.getCodigoBarras();
+            if (cb == null) {
+                throw new IllegalArgumentException("El producto " + p.getId() + " no tiene código de barras");
+            }
+            bloques[0].varint(zigzag(p.getId() - idAnterior));
+            idAnterior = p.getId();
+            bloques[1].texto(p.getNombre());
+            bloques[2].texto(p.getMarca());
+            bloques[3].texto(p.getCategoria());
+            bloques[4].doble(p.getPrecio());
+            bloques[5].doble(p.getPeso());
+            bloques[6].varint(zigzag(cb.getId() - idCodigoAnterior));
+            idCodigoAnterior = cb.getId();
+            bloques[7].write(cb.getTipoCB() == null ? 0 : cb.getTipoCB().ordinal() + 1);
+            bloques[8].texto(cb.getValor());
+            bloques[9].varint(cb.getFecha() == null ? 0
+                    : zigzag(new java.sql.Date(cb.getFecha().getTime()).toLocalDate().toEpochDay()) + 1);
+            bloques[10].texto(cb.getObservaciones());
+            filas++;
+        }
+
+        public int getFilas() {
+            return filas;
+        }
+
+        /**
+         * Escribe el snapshot en un temporal y lo mueve sobre el destino, para que un
+         * corte a mitad de escritura no deje un archivo incompleto en lugar del anterior.
+         * @param archivo Destino
+         * @param marca Momento hasta el que el snapshot refleja los cambios
+         * @return Bytes escritos
+         */
+        public long guardar(Path archivo, Timestamp marca) throws IOException {
+            ByteBuffer encabezado = ByteBuffer.allocate(4 + 2 + 4 + 8 + 8 + 4 + 4 * bloques.length);
+            encabezado.putInt(MAGIA).putShort(VERSION).putInt(filas)
+                    .putLong(marca == null ? 0L : marca.getTime())
+                    .putLong(System.currentTimeMillis())
+                    .putInt(bloques.length);
+            for (Bloque bloque : bloques) {
+                encabezado.putInt(bloque.size());
+            }
+            CRC32 crc = new CRC32();
+            crc.update(encabezado.array());
+
+            Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+            long bytes = encabezado.capacity() + 8L;
+            try (OutputStream out = Files.newOutputStream(temporal)) {
+                out.write(encabezado.array());
+                for (Bloque bloque : bloques) {
+                    crc.update(bloque.datos(), 0, bloque.size());
+                    bloque.writeTo(out);
+                    bytes += bloque.size();
+                }
+                out.write(ByteBuffer.allocate(8).putLong(crc.getValue()).array());
+            }
+            try {
+                Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return bytes;
+        }
+    }
+
+    /**
+     * Datos del encabezado de un snapshot leído.
+     */
+    public static final class Lectura {
+        private final int filas;
+        private final long marca;
+        private final long creado;
+
+        private Lectura(int filas, long marca, long creado) {
+            this.filas = filas;
+            this.marca = marca;
+            this.creado = creado;
+        }
+
+        public int getFilas() {
+            return filas;
+        }
+
+        /** @return Epoch ms hasta el que el snapshot refleja los cambios */
+        public long getMarca() {
+            return marca;
+        }
+
+        /** @return Epoch ms en que se escribió */
+        public long getCreado() {
+            return creado;
+        }
+    }
+
+    /**
+     * Lee el snapshot y entrega cada producto (con su código) al procesador.
+     * @param archivo Snapshot escrito por Escritor.guardar
+     * @param procesador Callback por producto, en orden de id
+     * @return Filas y marca del snapshot
+     * @throws IOException Si el archivo no es un snapshot válido (magia, versión, largo o CRC):
+     *         en ese caso no se entregó ninguna fila
+     */
+    public static Lectura leer(Path archivo, ProcesadorFila<Producto> procesador) throws Exception {
+        MappedByteBuffer buffer;
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            long tamanio = canal.size();
+            if (tamanio > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot demasiado grande: " + tamanio + " bytes");
+            }
+            buffer = canal.map(FileChannel.MapMode.READ_ONLY, 0, tamanio);
+        }
+        int tamanio = buffer.capacity();
+        if (tamanio < 4 + 2 + 4 + 8 + 8 + 4 + 8 || buffer.getInt(0) != MAGIA) {
+            throw new IOException("El archivo no es un snapshot del catálogo");
+        }
+        if (buffer.getShort(4) != VERSION) {
+            throw new IOException("Versión de snapshot no soportada: " + buffer.getShort(4));
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(0, tamanio - 8));
+        if (crc.getValue() != buffer.getLong(tamanio - 8)) {
+            throw new IOException("CRC del snapshot inválido (archivo dañado o incompleto)");
+        }
+
+        buffer.position(6);
+        int filas = buffer.getInt();
+        long marca = buffer.getLong();
+        long creado = buffer.getLong();
+        int columnas = buffer.getInt();
+        if (columnas != COLUMNAS.length) {
+            throw new IOException("Cantidad de columnas inesperada: " + columnas);
+        }
+        ByteBuffer[] bloques = new ByteBuffer[columnas];
+        int offset = buffer.position() + 4 * columnas;
+        for (int i = 0; i < columnas; i++) {
+            int largo = buffer.getInt();
+            if (largo < 0 || offset + largo > tamanio - 8) {
+                throw new IOException("Largo de columna inválido: " + COLUMNAS[i]);
+            }
+            bloques[i] = buffer.slice(offset, largo);
+            offset += largo;
+        }
+
+        byte[] temporal = new byte[256];
+        long id = 0;
+        long idCodigo = 0;
+        for (int fila = 0; fila < filas; fila++) {
+            Producto p = new Producto();
+            id += unzigzag(varint(bloques[0]));
+            p.setId(id);
+            p.setNombre(texto(bloques[1], temporal));
+            p.setMarca(texto(bloques[2], temporal));
+            p.setCategoria(texto(bloques[3], temporal));
+            p.setPrecio(bloques[4].getDouble());
+            p.setPeso(bloques[5].getDouble());
+
+            CodigoBarras cb = new CodigoBarras();
+            idCodigo += unzigzag(varint(bloques[6]));
+            cb.setId(idCodigo);
+            int tipo = bloques[7].get();
+            cb.setTipoCB(tipo == 0 ? null : TIPOS[tipo - 1]);
+            cb.setValor(texto(bloques[8], temporal));
+            long dia = varint(bloques[9]);
+            cb.setFecha(dia == 0 ? null : java.sql.Date.valueOf(LocalDate.ofEpochDay(unzigzag(dia - 1))));
+            cb.setObservaciones(texto(bloques[10], temporal));
+            cb.setIdProducto(id);
+            p.setCodigoBarras(cb);
+            procesador.procesar(p);
+        }
+        return new Lectura(filas, marca, creado);
+    }
+
+    private static long zigzag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    private static long unzigzag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    private static long varint(ByteBuffer in) {
+        long valor = 0;
+        for (int desplazamiento = 0; ; desplazamiento += 7) {
+            byte b = in.get();
+            valor |= (long) (b & 0x7F) << desplazamiento;
+            if (b >= 0) {
+                return valor;
+            }
+        }
+    }
+
+    private static String texto(ByteBuffer in, byte[] temporal) {
+        int largo = (int) varint(in) - 1;
+        if (largo < 0) {
+            return null;
+        }
+        byte[] bytes = largo <= temporal.length ? temporal : new byte[largo];
+        in.get(bytes, 0, largo);
+        return new String(bytes, 0, largo, StandardCharsets.UTF_8);
+    }
+
+    /** Bloque de una columna en construcción. */
+    private static final class Bloque extends ByteArrayOutputStream {
+        private final byte[] ocho = new byte[8];
+
+        private Bloque() {
+            super(1 << 16);
+        }
+
+        private void varint(long v) {
+            while ((v & ~0x7FL) != 0) {
+                write((int) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            write((int) v);
+        }
+
+        private void texto(String s) {
+            if (s == null) {
+                varint(0);
+                return;
+            }
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            varint(bytes.length + 1L);
+            write(bytes, 0, bytes.length);
+        }
+
+        private void doble(double d) {
+            long bits = Double.doubleToRawLongBits(d);
+            for (int i = 7; i >= 0; i--) {
+                ocho[i] = (byte) bits;
+                bits >>>= 8;
+            }
+            write(ocho, 0, 8);
+        }
+
+        /** Acceso directo al arreglo interno (sin la copia de toByteArray). */
+        private byte[] datos() {
+            return buf;
+        }
+    }
+}
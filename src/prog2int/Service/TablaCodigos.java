@@ -0,0 +1,361 @@
+package prog2int.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+import prog2int.Config.MapaLongLong;
+import prog2int.Models.CodigoBarras;
+import prog2int.Models.Producto;
+
+/**
+ * Tabla residente en memoria para resolver escaneos de códigos de barras
+ * sin acceder a la base y sin crear objetos.
+ *
+ * Estructura:
+ * - codigos: MapaLongLong valor del código (codificado a long) → ID de producto
+ * - posiciones: MapaLongLong ID de producto → posición en el almacén de registros
+ * - Almacén columnar de registros: arrays paralelos de id, precio, peso, id de código
+ *   y nombre (UTF-8 en un único byte[] con offset y longitud por posición)
+ *
+ * Codificación de la clave: todo valor de código es numérico y de hasta 13 dígitos,
+ * por lo que entra en un long. Se guarda (valor &lt;&lt; 4) | cantidadDeDígitos para
+ * que "00000001" (EAN8) y "0000000000001" (EAN13) no colisionen por los ceros a la izquierda.
+ *
+ * Memoria aproximada por millón de productos (factor de carga 0.5 en ambos mapas):
+ * - Mapas: 2 x 2.097.152 posiciones x 16 bytes = 64 MB
+ * - Registros: 1M x (8 id + 8 id código + 8 clave + 8 precio + 8 peso + 4 offset + 2 longitud) = 46 MB
+ * - Nombres: ~20 bytes promedio = 20 MB (más la holgura del buffer)
+ * Total ≈ 134 MB medidos (ver memoriaBytes()), contra ~260 MB de un HashMap&lt;String, Producto&gt;.
+ *
+ * Los nombres reemplazados no se recuperan del byte[] hasta reconstruir la tabla
+ * (se espera que los cambios de nombre sean poco frecuentes).
+ *
+ * Concurrencia: una escritura a la vez; las lecturas usan StampedLock optimista
+ * (no bloquean ni asignan memoria) y reintentan con lock de lectura si hubo una escritura.
+ */
+public class TablaCodigos {
+
+    /** Valor devuelto por resolver cuando el código no está en la tabla. */
+    public static final long NO_ENCONTRADO = -1L;
+
+    /**
+     * Registro reutilizable que el caller pasa a leer(): permite obtener los datos
+     * del producto sin crear objetos por escaneo.
+     */
+    public static final class Registro {
+        private long id;
+        private long idCodigo;
+        private double precio;
+        private double peso;
+        private byte[] nombre = new byte[64];
+        private int longitudNombre;
+
+        public long getId() {
+            return id;
+        }
+
+        public long getIdCodigo() {
+            return idCodigo;
+        }
+
+        public double getPrecio() {
+            return precio;
+        }
+
+        public double getPeso() {
+            return peso;
+        }
+
+        /** @return Buffer con el nombre en UTF-8 (válido hasta getLongitudNombre()) */
+        public byte[] getNombreUtf8() {
+            return nombre;
+        }
+
+        public int getLongitudNombre() {
+            return longitudNombre;
+        }
+
+        /** @return Nombre como String (crea un objeto: no usar en el camino crítico) */
+        public String getNombre() {
+            return new String(nombre, 0, longitudNombre, StandardCharsets.UTF_8);
+        }
+    }
+
+    private final StampedLock lock = new StampedLock();
+    private final MapaLongLong codigos;
+    private final MapaLongLong posiciones;
+
+    private long[] ids;
+    private long[] idsCodigo;
+    private long[] clavesCodigo;
+    private double[] precios;
+    private double[] pesos;
+    private int[] offsetsNombre;
+    private short[] longitudesNombre;
+    private byte[] nombres;
+    private int bytesNombres;
+
+    private int siguientePosicion;
+    private int[] libres = new int[16];
+    private int cantidadLibres;
+
+    /**
+     * @param capacidadEsperada Cantidad de productos que se espera cargar
+     */
+    public TablaCodigos(int capacidadEsperada) {
+        int capacidad = Math.max(16, capacidadEsperada);
+        this.codigos = new MapaLongLong(capacidad);
+        this.posiciones = new MapaLongLong(capacidad);
+        this.ids = new long[capacidad];
+        this.idsCodigo = new long[capacidad];
+        this.clavesCodigo = new long[capacidad];
+        this.precios = new double[capacidad];
+        this.pesos = new double[capacidad];
+        this.offsetsNombre = new int[capacidad];
+        this.longitudesNombre = new short[capacidad];
+        this.nombres = new byte[capacidad * 24];
+    }
+
+    /**
+     * Codifica el valor de un código de barras a la clave de la tabla sin crear objetos.
+     * @param valor Valor leído por el escáner
+     * @return Clave distinta de 0, o 0 si el valor no es numérico o supera 13 dígitos
+     */
+    public static long codificar(CharSequence valor) {
+        int largo = valor == null ? 0 : valor.length();
+        if (largo == 0 || largo > 13) {
+            return 0;
+        }
+        long numero = 0;
+        for (int i = 0; i < largo; i++) {
+            int digito = valor.charAt(i) - '0';
+            if (digito < 0 || digito > 9) {
+                return 0;
+            }
+            numero = numero * 10 + digito;
+        }
+        return (numero << 4) | largo;
+    }
+
+    /**
+     * Resuelve un escaneo al ID de producto. No accede a la base ni crea objetos.
+     * @param valor Valor del código de barras
+     * @return ID del producto o NO_ENCONTRADO
+     */
+    public long resolver(CharSequence valor) {
+        long clave = codificar(valor);
+        if (clave == 0) {
+            return NO_ENCONTRADO;
+        }
+        long stamp = lock.tryOptimisticRead();
+        long id = codigos.get(clave, NO_ENCONTRADO);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                id = codigos.get(clave, NO_ENCONTRADO);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return id;
+    }
+
+    /**
+     * Resuelve un escaneo y copia los datos del producto en el registro del caller.
+     * Sin asignación de memoria si el buffer de nombre del registro alcanza.
+     * @param valor Valor del código de barras
+     * @param destino Registro reutilizable a completar
+     * @return true si el código existe
+     */
+    public boolean resolver(CharSequence valor, Registro destino) {
+        long id = resolver(valor);
+        return id != NO_ENCONTRADO && leer(id, destino);
+    }
+
+    /**
+     * Copia los datos del producto en el registro del caller.
+     * @return true si el producto está en la tabla
+     */
+    public boolean leer(long idProducto, Registro destino) {
+        long stamp = lock.tryOptimisticRead();
+        boolean encontrado = copiar(idProducto, destino);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                encontrado = copiar(idProducto, destino);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return encontrado;
+    }
+
+    private boolean copiar(long idProducto, Registro destino) {
+        int pos = (int) posiciones.get(idProducto, -1);
+        // Referencias locales: una lectura optimista puede ver arrays recién reemplazados
+        // (el resultado se descarta si validate falla, pero no debe lanzar excepciones)
+        long[] ids = this.ids;
+        long[] idsCodigo = this.idsCodigo;
+        double[] precios = this.precios;
+        double[] pesos = this.pesos;
+        int[] offsetsNombre = this.offsetsNombre;
+        short[] longitudesNombre = this.longitudesNombre;
+        byte[] nombres = this.nombres;
+        if (pos < 0 || pos >= ids.length || pos >= idsCodigo.length || pos >= precios.length
+                || pos >= pesos.length || pos >= offsetsNombre.length || pos >= longitudesNombre.length) {
+            return false;
+        }
+        destino.id = ids[pos];
+        destino.idCodigo = idsCodigo[pos];
+        destino.precio = precios[pos];
+        destino.peso = pesos[pos];
+        int offset = offsetsNombre[pos];
+        int largo = longitudesNombre[pos];
+        if (offset < 0 || offset + largo > nombres.length) {
+            return false;
+        }
+        if (destino.nombre.length < largo) {
+            destino.nombre = new byte[largo];
+        }
+        System.arraycopy(nombres, offset, destino.nombre, 0, largo);
+        destino.longitudNombre = largo;
+        return true;
+    }
+
+    /**
+     * Agrega o reemplaza un producto.
+     * Si el producto no trae código de barras solo se actualizan los datos de uno
+     * ya cargado (por ejemplo, luego de ProductoServiceImpl.actualizar).
+     * Los productos con valor de código no numérico se ignoran.
+     */
+    public void agregar(Producto p) {
+        CodigoBarras cb = p.getCodigoBarras();
+        long clave = cb == null ? 0 : codificar(cb.getValor());
+        if (cb != null && clave == 0) {
+            return;
+        }
+        byte[] nombre = p.getNombre() == null ? new byte[0] : p.getNombre().getBytes(StandardCharsets.UTF_8);
+        int largoNombre = Math.min(nombre.length, Short.MAX_VALUE);
+
+        long stamp = lock.writeLock();
+        try {
+            int pos = (int) posiciones.get(p.getId(), -1);
+            if (pos < 0) {
+                if (cb == null) {
+                    return;
+                }
+                pos = nuevaPosicion();
+                posiciones.put(p.getId(), pos, -1);
+            }
+            if (cb != null) {
+                if (clavesCodigo[pos] != 0 && clavesCodigo[pos] != clave) {
+                    codigos.remove(clavesCodigo[pos], NO_ENCONTRADO);
+                }
+                codigos.put(clave, p.getId(), NO_ENCONTRADO);
+                idsCodigo[pos] = cb.getId();
+                clavesCodigo[pos] = clave;
+            }
+
+            ids[pos] = p.getId();
+            precios[pos] = p.getPrecio();
+            pesos[pos] = p.getPeso();
+            if (largoNombre > longitudesNombre[pos]) {
+                // No entra en el lugar anterior: se agrega al final del buffer
+                asegurarBytesNombres(largoNombre);
+                offsetsNombre[pos] = bytesNombres;
+                bytesNombres += largoNombre;
+            }
+            System.arraycopy(nombre, 0, nombres, offsetsNombre[pos], largoNombre);
+            longitudesNombre[pos] = (short) largoNombre;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Quita un producto (baja lógica) y su código.
+     */
+    public void quitar(long idProducto) {
+        long stamp = lock.writeLock();
+        try {
+            int pos = (int) posiciones.remove(idProducto, -1);
+            if (pos < 0) {
+                return;
+            }
+            codigos.remove(clavesCodigo[pos], NO_ENCONTRADO);
+            clavesCodigo[pos] = 0;
+            // La posición conserva su espacio de nombre para reutilizarlo
+            if (cantidadLibres == libres.length) {
+                libres = Arrays.copyOf(libres, libres.length * 2);
+            }
+            libres[cantidadLibres++] = pos;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Vacía la tabla conservando la capacidad reservada (para recargarla).
+     */
+    public void limpiar() {
+        long stamp = lock.writeLock();
+        try {
+            codigos.clear();
+            posiciones.clear();
+            Arrays.fill(clavesCodigo, 0L);
+            Arrays.fill(longitudesNombre, (short) 0);
+            siguientePosicion = 0;
+            cantidadLibres = 0;
+            bytesNombres = 0;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return posiciones.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @return Memoria ocupada por los mapas y el almacén de registros, en bytes
+     */
+    public long memoriaBytes() {
+        long stamp = lock.readLock();
+        try {
+            // ids, idsCodigo, clavesCodigo + precios, pesos + offset + longitud del nombre
+            long registros = (long) ids.length * (Long.BYTES * 3 + Double.BYTES * 2 + Integer.BYTES + Short.BYTES);
+            return codigos.memoriaBytes() + posiciones.memoriaBytes() + registros
+                    + nombres.length + (long) libres.length * Integer.BYTES;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private int nuevaPosicion() {
+        if (cantidadLibres > 0) {
+            return libres[--cantidadLibres];
+        }
+        if (siguientePosicion == ids.length) {
+            int capacidad = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacidad);
+            idsCodigo = Arrays.copyOf(idsCodigo, capacidad);
+            clavesCodigo = Arrays.copyOf(clavesCodigo, capacidad);
+            precios = Arrays.copyOf(precios, capacidad);
+            pesos = Arrays.copyOf(pesos, capacidad);
+            offsetsNombre = Arrays.copyOf(offsetsNombre, capacidad);
+            longitudesNombre = Arrays.copyOf(longitudesNombre, capacidad);
+        }
+        return siguientePosicion++;
+    }
+
+    private void asegurarBytesNombres(int adicionales) {
+        if (bytesNombres + adicionales > nombres.length) {
+            nombres = Arrays.copyOf(nombres, Math.max(nombres.length * 2, bytesNombres + adicionales));
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package prog2int.Service;
+
+import prog2int.Models.TipoCB;
+
+/**
+ * Motor de validación de códigos de barras por TipoCB.
+ *
+ * Reglas (en orden):
+ * 1. El valor no puede estar vacío
+ * 2. Solo dígitos 0-9
+ * 3. Tipo reconocido (EAN13, EAN8, UPC)
+ * 4. Longitud del tipo: EAN13 = 13, EAN8 = 8, UPC (UPC-A) = 12
+ * 5. Dígito verificador GTIN: desde la derecha, pesos 1 (verificador), 3, 1, 3, ...
+ *    la suma ponderada debe ser múltiplo de 10
+ *
+ * Diferencias con la validación anterior (regex + TipoCB.valueOf):
+ * - Un único recorrido de los caracteres: verifica dígitos y acumula la suma del verificador
+ * - Sin expresiones regulares ni excepciones: el tipo se resuelve con un switch sobre String
+ * - Sin asignación de memoria: el resultado es una constante del enum Resultado
+ *
+ * El dígito verificador se puede desactivar con -Dcb.validar.checksum=false
+ * (por ejemplo para bases cargadas con ScriptCreacionBaseDatos.sql, cuyos valores
+ * se generan con LPAD y no tienen verificador válido).
+ */
+public final class ValidadorCodigoBarras {
+
+    /** true si se verifica el dígito verificador. Configurable via -Dcb.validar.checksum */
+    private static final boolean VERIFICAR_DIGITO =
+            Boolean.parseBoolean(System.getProperty("cb.validar.checksum", "true"));
+
+    /** Valores especiales de sumaPonderada. */
+    private static final int SUMA_VACIO = -1;
+    private static final int SUMA_CARACTER_INVALIDO = -2;
+
+    /**
+     * Resultado de la validación: VALIDO o el código de error.
+     */
+    public enum Resultado {
+        VALIDO(null),
+        VACIO("El valor del código de barras no puede estar vacío."),
+        CARACTER_INVALIDO("El código de barras solo puede contener números."),
+        TIPO_DESCONOCIDO("Tipo de código de barras no reconocido."),
+        LONGITUD_INVALIDA("Longitud inválida para el tipo de código de barras."),
+        DIGITO_VERIFICADOR_INVALIDO("El dígito verificador del código de barras no es válido.");
+
+        private final String mensaje;
+
+        Resultado(String mensaje) {
+            this.mensaje = mensaje;
+        }
+
+        public boolean isValido() {
+            return this == VALIDO;
+        }
+
+        /** @return Motivo del rechazo, o null si es VALIDO */
+        public String getMensaje() {
+            return mensaje;
+        }
+    }
+
+    private ValidadorCodigoBarras() {
+        throw new UnsupportedOperationException("Esta es una clase utilitaria y no debe ser instanciada");
+    }
+
+    /**
+     * Resuelve el tipo sin excepciones (a diferencia de TipoCB.valueOf).
+     * @param tipo Nombre del tipo en mayúsculas
+     * @return TipoCB o null si no se reconoce
+     */
+    public static TipoCB tipo(String tipo) {
+        if (tipo == null) {
+            return null;
+        }
+        switch (tipo) {
+            case "EAN13":
+                return TipoCB.EAN13;
+            case "EAN8":
+                return TipoCB.EAN8;
+            case "UPC":
+                return TipoCB.UPC;
+            default:
+                return null;
+        }
+    }
+
+    /** @return Cantidad de dígitos del tipo */
+    public static int longitud(TipoCB tipo) {
+        switch (tipo) {
+            case EAN13:
+                return 13;
+            case EAN8:
+                return 8;
+            default:
+                return 12;
+        }
+    }
+
+    /**
+     * Valida un código con el tipo como texto (entrada de menú o CSV).
+     */
+    public static Resultado validar(String tipo, CharSequence valor) {
+        int suma = sumaPonderada(valor);
+        if (suma < 0) {
+            return errorDeDigitos(suma, valor);
+        }
+        return validarTipo(tipo(tipo), valor.length(), suma);
+    }
+
+    /**
+     * Valida un código de un tipo ya resuelto.
+     */
+    public static Resultado validar(TipoCB tipo, CharSequence valor) {
+        int suma = sumaPonderada(valor);
+        if (suma < 0) {
+            return errorDeDigitos(suma, valor);
+        }
+        return validarTipo(tipo, valor.length(), suma);
+    }
+
+    /**
+     * Validación masiva para importadores: sin asignación de memoria por código.
+     * @param tipos Tipo de cada código
+     * @param valores Valor de cada código (mismo largo que tipos)
+     * @param resultados Destino del resultado de cada código (mismo largo que tipos)
+     * @return Cantidad de códigos inválidos
+     */
+    public static int validar(TipoCB[] tipos, CharSequence[] valores, Resultado[] resultados) {
+        if (tipos.length != valores.length || tipos.length != resultados.length) {
+            throw new IllegalArgumentException("tipos, valores y resultados deben tener el mismo largo");
+        }
+        int invalidos = 0;
+        for (int i = 0; i < tipos.length; i++) {
+            Resultado r = validar(tipos[i], valores[i]);
+            resultados[i] = r;
+            if (r != Resultado.VALIDO) {
+                invalidos++;
+            }
+        }
+        return invalidos;
+    }
+
+    /**
+     * Mensaje para mostrar al usuario, con la longitud esperada si corresponde.
+     * Solo crea un String en el camino de error.
+     */
+    public static String mensaje(String tipo, Resultado resultado) {
+        if (resultado == Resultado.LONGITUD_INVALIDA) {
+            TipoCB t = tipo(tipo);
+            return t + " debe tener exactamente " + longitud(t) + " dígitos.";
+        }
+        return resultado.getMensaje();
+    }
+
+    /**
+     * Calcula el dígito verificador GTIN para un valor sin verificador
+     * (12 dígitos para EAN13, 7 para EAN8, 11 para UPC).
+     * @param sinVerificador Dígitos del código sin el último
+     * @return Dígito verificador (0-9)
+     */
+    public static int calcularDigitoVerificador(CharSequence sinVerificador) {
+        int suma = 0;
+        int largo = sinVerificador.length();
+        for (int i = 0; i < largo; i++) {
+            int digito = sinVerificador.charAt(i) - '0';
+            if (digito < 0 || digito > 9) {
+                throw new IllegalArgumentException("Solo se admiten dígitos");
+            }
+            // Posición desde la derecha contando el verificador como 0: impares pesan 3
+            suma += ((largo - i) & 1) == 1 ? digito * 3 : digito;
+        }
+        return (10 - suma % 10) % 10;
+    }
+
+    /**
+     * Único recorrido del valor: verifica que sean solo dígitos y acumula la suma
+     * ponderada del verificador (desde la derecha, el verificador pesa 1 y luego 3, 1, 3...).
+     * @return Suma ponderada, SUMA_VACIO o SUMA_CARACTER_INVALIDO
+     */
+    private static int sumaPonderada(CharSequence valor) {
+        int largo = valor == null ? 0 : valor.length();
+        if (largo == 0) {
+            return SUMA_VACIO;
+        }
+        int suma = 0;
+        for (int i = 0; i < largo; i++) {
+            int digito = valor.charAt(i) - '0';
+            if (digito < 0 || digito > 9) {
+                return SUMA_CARACTER_INVALIDO;
+            }
+            suma += ((largo - 1 - i) & 1) == 1 ? digito * 3 : digito;
+        }
+        return suma;
+    }
+
+    private static Resultado errorDeDigitos(int suma, CharSequence valor) {
+        // Un valor con solo espacios cuenta como vacío (igual que isBlank)
+        return suma == SUMA_VACIO || soloEspacios(valor) ? Resultado.VACIO : Resultado.CARACTER_INVALIDO;
+    }
+
+    /** Tipo, longitud y dígito verificador (el valor ya tiene solo dígitos). */
+    private static Resultado validarTipo(TipoCB tipo, int largo, int suma) {
+        if (tipo == null) {
+            return Resultado.TIPO_DESCONOCIDO;
+        }
+        if (largo != longitud(tipo)) {
+            return Resultado.LONGITUD_INVALIDA;
+        }
+        if (VERIFICAR_DIGITO && suma % 10 != 0) {
+            return Resultado.DIGITO_VERIFICADOR_INVALIDO;
+        }
+        return Resultado.VALIDO;
+    }
+
+    private static boolean soloEspacios(CharSequence valor) {
+        for (int i = 0; i < valor.length(); i++) {
+            if (!Character.isWhitespace(valor.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,129 @@
+package prog2int.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Límites, esperas, fugas y cache de sentencias de ConnectionPool sobre DriverFalso.
+ */
+public class ConnectionPoolTest {
+
+    private ConnectionPool pool;
+
+    @BeforeClass
+    public static void registrarDriver() {
+        DriverFalso.registrar();
+    }
+
+    @After
+    public void cerrarPool() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    private ConnectionPool crear(String base, int max, long esperaMs, long umbralFugaMs, int cacheSentencias) {
+        pool = new ConnectionPool(base, DriverFalso.url(base), "u", "p", 0, max, 2_000, esperaMs,
+                umbralFugaMs, cacheSentencias);
+        return pool;
+    }
+
+    @Test
+    public void reutilizaLasConexionesFisicas() throws SQLException {
+        crear("reuso", 2, 1_000, 0, 0);
+        for (int i = 0; i < 50; i++) {
+            try (Connection conn = pool.getConnection()) {
+                conn.getAutoCommit();
+            }
+        }
+        ConnectionPool.Estadisticas est = pool.getEstadisticas();
+        assertEquals(50, est.getPrestamos());
+        assertEquals(1, est.getCreadas());
+        assertEquals(1, DriverFalso.base("reuso").conexiones.get());
+        assertEquals(0, est.getActivas());
+    }
+
+    @Test
+    public void esperaAcotadaConElPoolLleno() throws SQLException {
+        crear("lleno", 2, 200, 0, 0);
+        Connection c1 = pool.getConnection();
+        Connection c2 = pool.getConnection();
+        long inicio = System.nanoTime();
+        try {
+            pool.getConnection();
+            fail("Con el pool lleno debería vencer la espera");
+        } catch (SQLTimeoutException e) {
+            long esperaMs = (System.nanoTime() - inicio) / 1_000_000;
+            assertTrue("Esperó " + esperaMs + " ms", esperaMs >= 150 && esperaMs < 2_000);
+        }
+        assertEquals(1, pool.getEstadisticas().getTimeouts());
+        assertEquals(2, pool.getEstadisticas().getTotal());
+
+        c1.close();
+        try (Connection c3 = pool.getConnection()) {
+            assertEquals(2, pool.getEstadisticas().getActivas());
+        }
+        c2.close();
+        assertEquals(0, pool.getEstadisticas().getActivas());
+    }
+
+    @Test
+    public void cerrarDosVecesDevuelveUnaSolaVezYElProxyQuedaInvalido() throws SQLException {
+        crear("doble", 1, 200, 0, 0);
+        Connection conn = pool.getConnection();
+        conn.close();
+        conn.close();
+        assertEquals(1, pool.getEstadisticas().getLibres());
+        try {
+            conn.prepareStatement("SELECT 1");
+            fail("Una conexión devuelta no debería poder usarse");
+        } catch (SQLException e) {
+            // esperado
+        }
+        // El permiso se devolvió una sola vez: el pool sigue acotado a 1
+        try (Connection otra = pool.getConnection()) {
+            try {
+                pool.getConnection();
+                fail("El pool de 1 conexión no debería prestar dos");
+            } catch (SQLTimeoutException e) {
+                // esperado
+            }
+        }
+    }
+
+    @Test
+    public void reportaConexionesRetenidasMasDelUmbral() throws Exception {
+        crear("fuga", 2, 200, 100, 0);
+        try (Connection retenida = pool.getConnection()) {
+            long limite = System.currentTimeMillis() + 5_000;
+            while (pool.getEstadisticas().getFugas() == 0 && System.currentTimeMillis() < limite) {
+                Thread.sleep(50);
+            }
+            assertEquals(1, pool.getEstadisticas().getFugas());
+        }
+    }
+
+    @Test
+    public void cacheaSentenciasPorConexion() throws SQLException {
+        crear("sentencias", 1, 200, 0, 4);
+        for (int i = 0; i < 30; i++) {
+            try (Connection conn = pool.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement("SELECT " + (i % 3))) {
+                stmt.setLong(1, i);
+            }
+        }
+        ConnectionPool.Estadisticas est = pool.getEstadisticas();
+        assertEquals(3, DriverFalso.base("sentencias").sentencias.get());
+        assertEquals(3, est.getFallosSentencias());
+        assertEquals(27, est.getAciertosSentencias());
+    }
+}
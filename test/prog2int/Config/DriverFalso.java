@@ -0,0 +1,163 @@
+package prog2int.Config;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Driver JDBC en memoria para las pruebas (URL jdbc:falso:&lt;base&gt;).
+ *
+ * Conexiones, sentencias y resultados son proxies que no ejecutan nada: las consultas
+ * devuelven un ResultSet vacío y los UPDATE una fila. Por cada base se cuentan conexiones
+ * físicas, sentencias preparadas, consultas, commits y rollbacks, y se puede simular una
+ * caída (connect falla con SQLState 08001 e isValid devuelve false).
+ *
+ * Se registra en DriverManager al cargarse la clase, así que sirve como -Ddb.driver.
+ */
+public final class DriverFalso implements Driver {
+
+    static final String PREFIJO = "jdbc:falso:";
+
+    private static final Map<String, Base> BASES = new ConcurrentHashMap<>();
+
+    static {
+        try {
+            DriverManager.registerDriver(new DriverFalso());
+        } catch (SQLException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /** Contadores y estado de una base falsa. */
+    static final class Base {
+        final AtomicInteger conexiones = new AtomicInteger();
+        final AtomicInteger sentencias = new AtomicInteger();
+        final AtomicInteger consultas = new AtomicInteger();
+        final AtomicInteger commits = new AtomicInteger();
+        final AtomicInteger rollbacks = new AtomicInteger();
+        volatile boolean caida;
+    }
+
+    /** Fuerza la carga de la clase (y el registro del driver). */
+    static void registrar() {
+    }
+
+    static Base base(String nombre) {
+        return BASES.computeIfAbsent(nombre, n -> new Base());
+    }
+
+    static String url(String nombre) {
+        return PREFIJO + nombre;
+    }
+
+    @Override
+    public Connection connect(String url, Properties info) throws SQLException {
+        if (!acceptsURL(url)) {
+            return null;
+        }
+        Base base = base(url.substring(PREFIJO.length()));
+        if (base.caida) {
+            throw new SQLException("Connection refused: " + url, "08001");
+        }
+        base.conexiones.incrementAndGet();
+        boolean[] estado = {true, false}; // autoCommit, cerrada
+        return (Connection) Proxy.newProxyInstance(DriverFalso.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, metodo, args) -> switch (metodo.getName()) {
+                    case "prepareStatement" -> {
+                        base.sentencias.incrementAndGet();
+                        yield sentencia(base);
+                    }
+                    case "commit" -> {
+                        base.commits.incrementAndGet();
+                        yield null;
+                    }
+                    case "rollback" -> {
+                        base.rollbacks.incrementAndGet();
+                        yield null;
+                    }
+                    case "setAutoCommit" -> {
+                        estado[0] = (Boolean) args[0];
+                        yield null;
+                    }
+                    case "getAutoCommit" -> estado[0];
+                    case "isValid" -> !base.caida;
+                    case "close" -> {
+                        estado[1] = true;
+                        yield null;
+                    }
+                    case "isClosed" -> estado[1];
+                    default -> porDefecto(metodo.getReturnType());
+                });
+    }
+
+    private static PreparedStatement sentencia(Base base) {
+        return (PreparedStatement) Proxy.newProxyInstance(DriverFalso.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, (proxy, metodo, args) -> switch (metodo.getName()) {
+                    case "executeQuery" -> {
+                        base.consultas.incrementAndGet();
+                        yield vacio();
+                    }
+                    case "executeUpdate" -> 1;
+                    case "executeBatch" -> new int[0];
+                    default -> porDefecto(metodo.getReturnType());
+                });
+    }
+
+    private static ResultSet vacio() {
+        return (ResultSet) Proxy.newProxyInstance(DriverFalso.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, (proxy, metodo, args) -> porDefecto(metodo.getReturnType()));
+    }
+
+    private static Object porDefecto(Class<?> tipo) {
+        if (tipo == boolean.class) {
+            return false;
+        }
+        if (tipo == int.class) {
+            return 0;
+        }
+        if (tipo == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+
+    @Override
+    public boolean acceptsURL(String url) {
+        return url != null && url.startsWith(PREFIJO);
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+        return new DriverPropertyInfo[0];
+    }
+
+    @Override
+    public int getMajorVersion() {
+        return 1;
+    }
+
+    @Override
+    public int getMinorVersion() {
+        return 0;
+    }
+
+    @Override
+    public boolean jdbcCompliant() {
+        return false;
+    }
+
+    @Override
+    public Logger getParentLogger() {
+        return Logger.getGlobal();
+    }
+}
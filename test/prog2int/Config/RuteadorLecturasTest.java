@@ -0,0 +1,124 @@
+package prog2int.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Reparto de lecturas entre réplicas, caída y recuperación de RuteadorLecturas
+ * sobre pools de DriverFalso.
+ */
+public class RuteadorLecturasTest {
+
+    private ConnectionPool primaria;
+    private ConnectionPool r1;
+    private ConnectionPool r2;
+    private RuteadorLecturas ruteador;
+
+    @Before
+    public void crear() {
+        DriverFalso.registrar();
+        DriverFalso.base("rl-r1").caida = false;
+        DriverFalso.base("rl-r2").caida = false;
+        primaria = pool("rl-primaria");
+        r1 = pool("rl-r1");
+        r2 = pool("rl-r2");
+        ruteador = new RuteadorLecturas(primaria, List.of(r1, r2), RuteadorLecturas.Estrategia.ROUND_ROBIN, 50);
+    }
+
+    @After
+    public void cerrar() {
+        // close() del ruteador cierra los pools de las réplicas
+        ruteador.close();
+        primaria.close();
+    }
+
+    private static ConnectionPool pool(String base) {
+        return new ConnectionPool(base, DriverFalso.url(base), "u", "p", 0, 2, 2_000, 200, 0, 0);
+    }
+
+    private void leer(int veces) throws SQLException {
+        for (int i = 0; i < veces; i++) {
+            try (Connection conn = ruteador.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement("SELECT 1")) {
+                stmt.executeQuery();
+            }
+        }
+    }
+
+    /** Consultas recibidas por la base del pool (el chequeo de salud no consulta, solo isValid). */
+    private static long consultas(ConnectionPool pool) {
+        return DriverFalso.base(pool.getNombre()).consultas.get();
+    }
+
+    /** Espera a que el chequeo periódico refleje el cambio (máximo 3 segundos). */
+    private static void esperar(BooleanSupplier condicion) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 3_000;
+        while (!condicion.getAsBoolean() && System.currentTimeMillis() < limite) {
+            Thread.sleep(20);
+        }
+    }
+
+    /** @return true si una lectura de prueba salió de la réplica indicada */
+    private boolean lee(ConnectionPool replica) {
+        long antes = consultas(replica);
+        try {
+            leer(2);
+        } catch (SQLException e) {
+            return false;
+        }
+        return consultas(replica) > antes;
+    }
+
+    @Test
+    public void repartePorTurnoEntreLasReplicas() throws SQLException {
+        long antesR1 = consultas(r1);
+        long antesR2 = consultas(r2);
+        long antesPrimaria = consultas(primaria);
+        leer(10);
+        assertEquals(5, consultas(r1) - antesR1);
+        assertEquals(5, consultas(r2) - antesR2);
+        assertEquals(antesPrimaria, consultas(primaria));
+    }
+
+    @Test
+    public void unaReplicaCaidaSeSalteaYSeRecupera() throws Exception {
+        leer(2);
+        DriverFalso.base("rl-r2").caida = true;
+        esperar(() -> !lee(r2));
+
+        long antesR1 = consultas(r1);
+        long antesR2 = consultas(r2);
+        leer(6);
+        assertEquals(6, consultas(r1) - antesR1);
+        assertEquals(antesR2, consultas(r2));
+        assertTrue(ruteador.getEstadisticas(), ruteador.getEstadisticas().contains("rl-r2=caída"));
+
+        DriverFalso.base("rl-r2").caida = false;
+        esperar(() -> lee(r2));
+        antesR1 = consultas(r1);
+        antesR2 = consultas(r2);
+        leer(6);
+        assertEquals(3, consultas(r1) - antesR1);
+        assertEquals(3, consultas(r2) - antesR2);
+    }
+
+    @Test
+    public void sinReplicasSanasLeeDeLaPrimaria() throws Exception {
+        DriverFalso.base("rl-r1").caida = true;
+        DriverFalso.base("rl-r2").caida = true;
+        esperar(() -> !lee(r1) && !lee(r2));
+
+        long antes = consultas(primaria);
+        leer(4);
+        assertEquals(4, consultas(primaria) - antes);
+    }
+}
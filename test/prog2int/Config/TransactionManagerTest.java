@@ -0,0 +1,139 @@
+package prog2int.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransactionRollbackException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Clasificación de errores reintentables y reintentos de ejecutarConReintentos
+ * (DatabaseConnection apuntando a DriverFalso).
+ */
+public class TransactionManagerTest {
+
+    static {
+        System.setProperty("db.url", DriverFalso.url("tx"));
+        System.setProperty("db.driver", DriverFalso.class.getName());
+        System.setProperty("db.pool.min", "0");
+        System.setProperty("db.retry.maxIntentos", "3");
+        System.setProperty("db.retry.esperaMaxMs", "5");
+    }
+
+    private static final SQLException DEADLOCK =
+            new SQLTransactionRollbackException("Deadlock found when trying to get lock", "40001", 1213);
+
+    private DriverFalso.Base base;
+
+    @Before
+    public void reiniciarContadores() {
+        base = DriverFalso.base("tx");
+        base.commits.set(0);
+        base.rollbacks.set(0);
+    }
+
+    @Test
+    public void deadlockYLockWaitSonReintentables() {
+        assertTrue(TransactionManager.esReintentable(DEADLOCK, false));
+        assertTrue(TransactionManager.esReintentable(new SQLException("Lock wait timeout", "HY000", 1205), false));
+        assertTrue(TransactionManager.esReintentable(new SQLException("Serialization failure", "40001"), true));
+    }
+
+    @Test
+    public void seBuscaEnLaCadenaDeCausas() {
+        Exception envuelto = new Exception("Error al insertar el Producto: " + DEADLOCK.getMessage(), DEADLOCK);
+        assertTrue(TransactionManager.esReintentable(envuelto, false));
+        assertFalse(TransactionManager.esReintentable(new Exception("sin causa SQL"), false));
+    }
+
+    @Test
+    public void conexionCaidaSoloAntesDelCommit() {
+        SQLException caida = new SQLException("Communications link failure", "08S01");
+        assertTrue(TransactionManager.esReintentable(caida, false));
+        assertFalse(TransactionManager.esReintentable(caida, true));
+        assertTrue(TransactionManager.esReintentable(new SQLTransientConnectionException("reset"), false));
+        assertFalse(TransactionManager.esReintentable(new SQLTransientConnectionException("reset"), true));
+    }
+
+    @Test
+    public void restriccionesYTimeoutsNoSeReintentan() {
+        assertFalse(TransactionManager.esReintentable(
+                new SQLIntegrityConstraintViolationException("Duplicate entry '1' for key 'producto.PRIMARY'", "23000", 1062),
+                false));
+        assertFalse(TransactionManager.esReintentable(new SQLTimeoutException("Query timeout"), false));
+        assertFalse(TransactionManager.esReintentable(new SQLException("Syntax error", "42000", 1064), false));
+    }
+
+    @Test
+    public void reintentaHastaQueConfirma() throws Exception {
+        AtomicInteger intentos = new AtomicInteger();
+        String resultado = TransactionManager.ejecutarConReintentos(conn -> {
+            if (intentos.incrementAndGet() < 3) {
+                throw DEADLOCK;
+            }
+            return "ok";
+        });
+        assertEquals("ok", resultado);
+        assertEquals(3, intentos.get());
+        assertEquals(1, base.commits.get());
+        assertEquals(2, base.rollbacks.get());
+    }
+
+    @Test
+    public void abandonaAlAgotarLosIntentos() {
+        AtomicInteger intentos = new AtomicInteger();
+        try {
+            TransactionManager.ejecutarConReintentos(conn -> {
+                intentos.incrementAndGet();
+                throw DEADLOCK;
+            });
+            fail("Debería propagar el deadlock del último intento");
+        } catch (Exception e) {
+            assertSame(DEADLOCK, e);
+        }
+        assertEquals(3, intentos.get());
+        assertEquals(0, base.commits.get());
+    }
+
+    @Test
+    public void noReintentaErroresPermanentes() {
+        AtomicInteger intentos = new AtomicInteger();
+        SQLException duplicado = new SQLIntegrityConstraintViolationException("Duplicate entry", "23000", 1062);
+        try {
+            TransactionManager.ejecutarConReintentos(conn -> {
+                intentos.incrementAndGet();
+                throw duplicado;
+            });
+            fail("Debería propagar la violación de restricción");
+        } catch (Exception e) {
+            assertSame(duplicado, e);
+        }
+        assertEquals(1, intentos.get());
+    }
+
+    @Test
+    public void dentroDeUnaUnidadSeEjecutaUnaSolaVez() throws SQLException {
+        AtomicInteger intentos = new AtomicInteger();
+        try (UnidadDeTrabajo unidad = UnidadDeTrabajo.iniciar()) {
+            try {
+                TransactionManager.ejecutarConReintentos(conn -> {
+                    intentos.incrementAndGet();
+                    throw DEADLOCK;
+                });
+                fail("Dentro de la unidad no se reintenta");
+            } catch (Exception e) {
+                assertSame(DEADLOCK, e);
+            }
+        }
+        assertEquals(1, intentos.get());
+    }
+}
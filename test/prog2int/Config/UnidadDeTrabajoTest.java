@@ -0,0 +1,153 @@
+package prog2int.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Préstamos de conexión, commits y acciones diferidas de UnidadDeTrabajo
+ * (DatabaseConnection apuntando a DriverFalso).
+ */
+public class UnidadDeTrabajoTest {
+
+    static {
+        System.setProperty("db.url", DriverFalso.url("unidad"));
+        System.setProperty("db.driver", DriverFalso.class.getName());
+        System.setProperty("db.pool.min", "0");
+        System.setProperty("db.unidadTrabajo.enabled", "true");
+    }
+
+    private DriverFalso.Base base;
+    private long prestamos;
+
+    @Before
+    public void reiniciarContadores() {
+        base = DriverFalso.base("unidad");
+        base.commits.set(0);
+        base.rollbacks.set(0);
+        prestamos = DatabaseConnection.getEstadisticasPool().getPrestamos();
+    }
+
+    /** Lo que hace un método de DAO: pide conexión, ejecuta una sentencia y la cierra. */
+    private static void llamadaDao() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("UPDATE producto SET nombre = ? WHERE id = ?")) {
+            stmt.executeUpdate();
+        }
+    }
+
+    private long prestamosNuevos() {
+        return DatabaseConnection.getEstadisticasPool().getPrestamos() - prestamos;
+    }
+
+    @Test
+    public void sinUnidadCadaLlamadaPideSuConexion() throws SQLException {
+        llamadaDao();
+        llamadaDao();
+        llamadaDao();
+        assertEquals(3, prestamosNuevos());
+        assertEquals(0, base.commits.get());
+    }
+
+    @Test
+    public void unaUnidadUsaUnPrestamoYUnCommit() throws SQLException {
+        try (UnidadDeTrabajo unidad = UnidadDeTrabajo.iniciar()) {
+            llamadaDao();
+            llamadaDao();
+            llamadaDao();
+            assertSame(unidad.getConnection(), DatabaseConnection.getConnection());
+            assertSame(unidad.getConnection(), DatabaseConnection.getReadConnection());
+            unidad.commit();
+        }
+        assertEquals(1, prestamosNuevos());
+        assertEquals(1, base.commits.get());
+        assertEquals(0, base.rollbacks.get());
+        assertFalse(UnidadDeTrabajo.isActiva());
+        assertEquals(0, DatabaseConnection.getEstadisticasPool().getActivas());
+    }
+
+    @Test
+    public void sinCommitRevierte() throws SQLException {
+        try (UnidadDeTrabajo unidad = UnidadDeTrabajo.iniciar()) {
+            llamadaDao();
+        }
+        assertEquals(0, base.commits.get());
+        assertEquals(1, base.rollbacks.get());
+    }
+
+    @Test
+    public void unaInternaSinCommitRevierteTodaLaUnidad() throws SQLException {
+        try (UnidadDeTrabajo externa = UnidadDeTrabajo.iniciar()) {
+            try (UnidadDeTrabajo interna = UnidadDeTrabajo.iniciar()) {
+                llamadaDao();
+            }
+            try {
+                externa.commit();
+                fail("La unidad debería estar marcada para rollback");
+            } catch (SQLException e) {
+                // esperado
+            }
+        }
+        assertEquals(1, prestamosNuevos());
+        assertEquals(0, base.commits.get());
+        assertEquals(1, base.rollbacks.get());
+    }
+
+    @Test
+    public void elCommitYCloseDeLosDaosNoCortanLaUnidad() throws SQLException {
+        try (UnidadDeTrabajo unidad = UnidadDeTrabajo.iniciar()) {
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                conn.setAutoCommit(true);
+                conn.commit();
+            }
+            assertTrue(UnidadDeTrabajo.isActiva());
+            assertEquals(0, base.commits.get());
+            unidad.commit();
+        }
+        assertEquals(1, base.commits.get());
+    }
+
+    @Test
+    public void lasAccionesDiferidasEsperanElFinDeLaUnidad() throws Exception {
+        StringBuilder orden = new StringBuilder();
+        try (UnidadDeTrabajo unidad = UnidadDeTrabajo.iniciar()) {
+            UnidadDeTrabajo.alConfirmar(() -> orden.append('C'));
+            UnidadDeTrabajo.alTerminar(() -> orden.append('T'));
+            llamadaDao();
+            assertEquals("", orden.toString());
+            unidad.commit();
+        }
+        assertEquals("CT", orden.toString());
+
+        orden.setLength(0);
+        try (UnidadDeTrabajo unidad = UnidadDeTrabajo.iniciar()) {
+            UnidadDeTrabajo.alConfirmar(() -> orden.append('C'));
+            UnidadDeTrabajo.alTerminar(() -> orden.append('T'));
+        }
+        assertEquals("T", orden.toString());
+
+        orden.setLength(0);
+        UnidadDeTrabajo.alConfirmar(() -> orden.append('C'));
+        assertEquals("C", orden.toString());
+    }
+
+    @Test
+    public void ejecutarConfirmaSiNoHayError() throws Exception {
+        boolean activa = UnidadDeTrabajo.ejecutar(() -> {
+            llamadaDao();
+            llamadaDao();
+            return UnidadDeTrabajo.isActiva();
+        });
+        assertTrue(activa);
+        assertEquals(1, prestamosNuevos());
+        assertEquals(1, base.commits.get());
+    }
+}
@@ -0,0 +1,164 @@
+package prog2int.Service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.junit.Before;
+import org.junit.Test;
+import prog2int.Dao.Cambio;
+import prog2int.Dao.CambioDAO;
+import prog2int.Dao.ResultadoMultiple;
+
+/**
+ * Entrega en orden, huecos (transacciones que confirman tarde) y reintento ante fallas
+ * de listeners de FeedCambios, sobre un registro en memoria.
+ */
+public class FeedCambiosTest {
+
+    private static final long ESPERA_HUECO_MS = 100;
+
+    /** Registro de cambios en memoria: los ids aparecen cuando el test los "confirma". */
+    private static final class RegistroEnMemoria extends CambioDAO {
+        private final TreeMap<Long, Cambio> filas = new TreeMap<>();
+
+        void confirmar(long... ids) {
+            for (long id : ids) {
+                filas.put(id, new Cambio(id, Cambio.Entidad.PRODUCTO, id * 10, Cambio.Operacion.MODIFICACION,
+                        "otro-proceso", null));
+            }
+        }
+
+        @Override
+        public List<Cambio> leerDesde(long marca, int lote) {
+            List<Cambio> leidos = new ArrayList<>();
+            for (Cambio cambio : filas.tailMap(marca, false).values()) {
+                if (leidos.size() == lote) {
+                    break;
+                }
+                leidos.add(cambio);
+            }
+            return leidos;
+        }
+
+        @Override
+        public ResultadoMultiple<Long, Cambio> leerIds(Collection<Long> ids) {
+            Map<Long, Cambio> encontrados = new HashMap<>();
+            for (Long id : ids) {
+                if (filas.containsKey(id)) {
+                    encontrados.put(id, filas.get(id));
+                }
+            }
+            return ResultadoMultiple.de(ids, encontrados);
+        }
+
+        @Override
+        public long ultimoId() {
+            return filas.isEmpty() ? 0 : filas.lastKey();
+        }
+    }
+
+    private RegistroEnMemoria registro;
+    private FeedCambios feed;
+    private List<Long> entregados;
+
+    @Before
+    public void crear() {
+        registro = new RegistroEnMemoria();
+        feed = new FeedCambios(registro, 3, ESPERA_HUECO_MS, 2_000, 0);
+        entregados = new ArrayList<>();
+        feed.suscribir(cambios -> {
+            for (Cambio cambio : cambios) {
+                entregados.add(cambio.getId());
+            }
+        });
+        feed.setMarca(0);
+    }
+
+    @Test
+    public void entregaEnOrdenEnLotes() throws Exception {
+        registro.confirmar(1, 2, 3, 4, 5, 6, 7);
+        assertEquals(7, feed.sondear());
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L), entregados);
+        assertEquals(7, feed.getMarca());
+        assertEquals(0, feed.sondear());
+    }
+
+    @Test
+    public void unHuecoDetieneLaEntregaMientrasSeEspera() throws Exception {
+        registro.confirmar(1, 2, 4, 5);
+        assertEquals(2, feed.sondear());
+        assertEquals(2, feed.getMarca());
+
+        // La transacción de 3 confirma dentro de la espera: todo sale en orden
+        registro.confirmar(3);
+        assertEquals(3, feed.sondear());
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), entregados);
+    }
+
+    @Test
+    public void unHuecoVencidoSeSalteaYElCambioTardioSeEntregaDespues() throws Exception {
+        registro.confirmar(1, 2, 4, 5);
+        feed.sondear();
+        Thread.sleep(ESPERA_HUECO_MS + 50);
+        assertEquals(2, feed.sondear());
+        assertEquals(List.of(1L, 2L, 4L, 5L), entregados);
+        assertEquals(5, feed.getMarca());
+        assertTrue(feed.getEstadisticas(), feed.getEstadisticas().contains("salteados=1"));
+
+        // 3 era una transacción larga: aparece después y se busca por id
+        registro.confirmar(3);
+        Thread.sleep(ESPERA_HUECO_MS + 50);
+        assertEquals(1, feed.sondear());
+        assertEquals(List.of(1L, 2L, 4L, 5L, 3L), entregados);
+        assertTrue(feed.getEstadisticas(), feed.getEstadisticas().contains("tardios=1 vigilados=0"));
+    }
+
+    @Test
+    public void unHuecoQueNuncaApareceDejaDeVigilarse() throws Exception {
+        FeedCambios corto = new FeedCambios(registro, 3, ESPERA_HUECO_MS, 150, 0);
+        corto.setMarca(0);
+        registro.confirmar(1, 3);
+        corto.sondear();
+        Thread.sleep(ESPERA_HUECO_MS + 50);
+        corto.sondear();
+        assertTrue(corto.getEstadisticas(), corto.getEstadisticas().contains("vigilados=1"));
+
+        Thread.sleep(200);
+        corto.sondear();
+        assertTrue(corto.getEstadisticas(), corto.getEstadisticas().contains("vigilados=0"));
+        // Si confirma más tarde ya no se entrega
+        registro.confirmar(2);
+        Thread.sleep(ESPERA_HUECO_MS + 50);
+        assertEquals(0, corto.sondear());
+    }
+
+    @Test
+    public void siFallaUnListenerLaMarcaNoAvanza() throws Exception {
+        boolean[] fallar = {true};
+        feed.suscribir(cambios -> {
+            if (fallar[0]) {
+                throw new Exception("listener caído");
+            }
+        });
+        registro.confirmar(1, 2);
+        try {
+            feed.sondear();
+            fail("El error del listener debería propagarse");
+        } catch (Exception e) {
+            assertEquals("listener caído", e.getMessage());
+        }
+        assertEquals(0, feed.getMarca());
+
+        fallar[0] = false;
+        assertEquals(2, feed.sondear());
+        assertEquals(2, feed.getMarca());
+        assertTrue(feed.getEstadisticas(), feed.getEstadisticas().contains("fallidos=1"));
+    }
+}